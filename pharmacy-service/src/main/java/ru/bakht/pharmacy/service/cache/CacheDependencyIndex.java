@@ -0,0 +1,106 @@
+package ru.bakht.pharmacy.service.cache;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * Индекс зависимостей записей кэша от сущностей.
+ * <p>
+ * Для каждой сущности в Redis хранится множество ключей записей кэша, содержимое которых
+ * построено с ее участием, например аптек, в списке лекарств которых есть данное лекарство.
+ * Изменение сущности удаляет ровно эти записи, а не весь кэш.
+ * <p>
+ * Множества живут не меньше записей кэша и не очищаются при удалении записи: лишний ключ
+ * в множестве приводит лишь к холостому удалению. Если индекс недоступен, кэш очищается целиком.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CacheDependencyIndex {
+
+    private static final String KEY_PREFIX = "cache-deps:";
+
+    private final StringRedisTemplate redisTemplate;
+    private final CacheManager cacheManager;
+
+    @Value("${cache.redis.ttl}")
+    private Duration ttl;
+
+    /**
+     * Запоминает, что запись кэша построена с участием указанных сущностей.
+     *
+     * @param cacheName     имя кэша
+     * @param key           ключ записи кэша
+     * @param dependencyIds идентификаторы сущностей, от которых зависит запись
+     */
+    public void recordDependencies(String cacheName, Object key, Collection<?> dependencyIds) {
+        if (dependencyIds.isEmpty()) {
+            return;
+        }
+
+        byte[] member = bytes(String.valueOf(key));
+        try {
+            redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                dependencyIds.forEach(dependencyId -> record(connection, indexKey(cacheName, dependencyId), member));
+                return null;
+            });
+        } catch (Exception e) {
+            log.warn("Не удалось сохранить зависимости записи {} кэша {}", key, cacheName, e);
+        }
+    }
+
+    /**
+     * Удаляет из кэша все записи, зависящие от указанной сущности.
+     * Внутри транзакции удаление выполняется после ее фиксации.
+     *
+     * @param cacheName    имя кэша
+     * @param dependencyId идентификатор измененной сущности
+     */
+    public void evictDependents(String cacheName, Object dependencyId) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache == null) {
+            return;
+        }
+
+        Set<String> keys;
+        try {
+            keys = redisTemplate.opsForSet().members(indexKey(cacheName, dependencyId));
+        } catch (Exception e) {
+            log.warn("Индекс зависимостей кэша {} недоступен, кэш будет очищен целиком", cacheName, e);
+            cache.clear();
+            return;
+        }
+
+        if (keys == null || keys.isEmpty()) {
+            return;
+        }
+        log.info("Удаление {} записей кэша {}, зависящих от {}", keys.size(), cacheName, dependencyId);
+        keys.forEach(cache::evict);
+    }
+
+    private void record(RedisConnection connection, String indexKey, byte[] member) {
+        byte[] key = bytes(indexKey);
+        connection.setCommands().sAdd(key, member);
+        connection.keyCommands().expire(key, ttl.toSeconds());
+    }
+
+    private static String indexKey(String cacheName, Object dependencyId) {
+        return KEY_PREFIX + cacheName + ":" + dependencyId;
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,68 @@
+package ru.bakht.pharmacy.service.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Рассылает другим экземплярам приложения через Redis pub/sub сообщения
+ * о том, что запись локального уровня кэша устарела.
+ * <p>
+ * Формат сообщения: идентификатор отправителя, имя кэша и ключ, разделенные переводом строки.
+ * Сообщение без ключа означает очистку всего кэша.
+ */
+@Slf4j
+public class CacheInvalidationPublisher {
+
+    private static final String SEPARATOR = "\n";
+
+    private final StringRedisTemplate redisTemplate;
+    private final String channel;
+    private final String instanceId = UUID.randomUUID().toString();
+
+    public CacheInvalidationPublisher(StringRedisTemplate redisTemplate, String channel) {
+        this.redisTemplate = redisTemplate;
+        this.channel = channel;
+    }
+
+    public void publishEvict(String cacheName, String key) {
+        publish(instanceId + SEPARATOR + cacheName + SEPARATOR + key);
+    }
+
+    public void publishClear(String cacheName) {
+        publish(instanceId + SEPARATOR + cacheName);
+    }
+
+    /**
+     * Разбирает сообщение об инвалидации.
+     *
+     * @param message текст сообщения
+     * @return инвалидация или пустой результат, если сообщение отправлено этим же экземпляром
+     */
+    Optional<Invalidation> parse(String message) {
+        String[] parts = message.split(SEPARATOR, 3);
+        if (parts.length < 2 || instanceId.equals(parts[0])) {
+            return Optional.empty();
+        }
+        return Optional.of(new Invalidation(parts[1], parts.length == 3 ? parts[2] : null));
+    }
+
+    private void publish(String message) {
+        try {
+            redisTemplate.convertAndSend(channel, message);
+        } catch (Exception e) {
+            log.warn("Не удалось отправить сообщение об инвалидации кэша в канал {}", channel, e);
+        }
+    }
+
+    /**
+     * Инвалидация записи локального уровня кэша.
+     *
+     * @param cacheName имя кэша
+     * @param key       ключ записи или {@code null} для очистки всего кэша
+     */
+    record Invalidation(String cacheName, String key) {
+    }
+}
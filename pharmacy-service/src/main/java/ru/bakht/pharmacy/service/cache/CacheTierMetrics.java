@@ -0,0 +1,44 @@
+package ru.bakht.pharmacy.service.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Метрики одного уровня кэша: количество попаданий и промахов и время обращения.
+ * <p>
+ * Публикуются как {@code cache.tier.gets} с тегами {@code cache}, {@code tier}, {@code result}
+ * и {@code cache.tier.latency} с тегами {@code cache}, {@code tier}.
+ */
+class CacheTierMetrics {
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Timer latency;
+
+    CacheTierMetrics(MeterRegistry meterRegistry, String cacheName, String tier) {
+        this.hits = counter(meterRegistry, cacheName, tier, "hit");
+        this.misses = counter(meterRegistry, cacheName, tier, "miss");
+        this.latency = Timer.builder("cache.tier.latency")
+                .description("Время обращения к уровню кэша")
+                .tag("cache", cacheName)
+                .tag("tier", tier)
+                .register(meterRegistry);
+    }
+
+    void record(boolean hit, long startNanos) {
+        latency.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        (hit ? hits : misses).increment();
+    }
+
+    private static Counter counter(MeterRegistry meterRegistry, String cacheName, String tier, String result) {
+        return Counter.builder("cache.tier.gets")
+                .description("Количество обращений к уровню кэша")
+                .tag("cache", cacheName)
+                .tag("tier", tier)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
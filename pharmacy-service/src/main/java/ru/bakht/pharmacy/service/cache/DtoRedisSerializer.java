@@ -0,0 +1,400 @@
+package ru.bakht.pharmacy.service.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.serializer.support.DeserializingConverter;
+import org.springframework.core.serializer.support.SerializingConverter;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+import ru.bakht.pharmacy.service.enums.EmployeePosition;
+import ru.bakht.pharmacy.service.enums.MedicationForm;
+import ru.bakht.pharmacy.service.enums.OrderStatus;
+import ru.bakht.pharmacy.service.model.dto.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Serializable;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Компактный бинарный сериализатор значений кэша для DTO лекарств, аптек, заказов
+ * и итогов по заказам.
+ * <p>
+ * Каждое значение начинается с заголовка из сигнатуры и версии схемы. Поля записываются
+ * в фиксированном порядке без имен: перечисления — порядковым номером, даты — числом дней
+ * от эпохи, строки — длиной в формате varint и байтами UTF-8. Значения прочих типов
+ * сохраняются стандартной сериализацией Java.
+ * <p>
+ * При изменении состава полей DTO или порядка констант перечислений необходимо увеличить
+ * {@link #VERSION}: записи со старой версией не десериализуются и считаются промахом кэша.
+ */
+@Slf4j
+public class DtoRedisSerializer implements RedisSerializer<Object> {
+
+    static final byte MAGIC = (byte) 0xD7;
+    static final byte VERSION = 2;
+
+    private static final byte TAG_NULL = 0;
+    private static final byte TAG_LIST = 1;
+    private static final byte TAG_MEDICATION = 2;
+    private static final byte TAG_PHARMACY = 3;
+    private static final byte TAG_ORDER = 4;
+    private static final byte TAG_CUSTOMER = 5;
+    private static final byte TAG_EMPLOYEE = 6;
+    private static final byte TAG_TOTAL_ORDERS = 7;
+    private static final byte TAG_SERIALIZABLE = 127;
+
+    private static final MedicationForm[] MEDICATION_FORMS = MedicationForm.values();
+    private static final OrderStatus[] ORDER_STATUSES = OrderStatus.values();
+    private static final EmployeePosition[] EMPLOYEE_POSITIONS = EmployeePosition.values();
+
+    private final SerializingConverter serializingConverter = new SerializingConverter();
+    private final DeserializingConverter deserializingConverter = new DeserializingConverter();
+
+    @Override
+    public byte[] serialize(Object value) throws SerializationException {
+        if (value == null) {
+            return new byte[0];
+        }
+
+        Output out = new Output();
+        out.writeByte(MAGIC);
+        out.writeByte(VERSION);
+        writeValue(out, value);
+        return out.toByteArray();
+    }
+
+    /**
+     * @return десериализованное значение или {@code null}, если данные записаны
+     *         другой версией схемы
+     */
+    @Override
+    public Object deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        if (bytes.length < 2 || bytes[0] != MAGIC || bytes[1] != VERSION) {
+            log.debug("Значение кэша записано другой версией схемы и будет загружено заново");
+            return null;
+        }
+
+        try {
+            return readValue(ByteBuffer.wrap(bytes, 2, bytes.length - 2));
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new SerializationException("Поврежденное значение кэша", e);
+        }
+    }
+
+    private void writeValue(Output out, Object value) {
+        switch (value) {
+            case Collection<?> collection -> {
+                out.writeByte(TAG_LIST);
+                out.writeVarInt(collection.size());
+                collection.forEach(element -> writeNullableValue(out, element));
+            }
+            case MedicationDto medication -> {
+                out.writeByte(TAG_MEDICATION);
+                writeMedication(out, medication);
+            }
+            case PharmacyDto pharmacy -> {
+                out.writeByte(TAG_PHARMACY);
+                writePharmacy(out, pharmacy);
+            }
+            case OrderDto order -> {
+                out.writeByte(TAG_ORDER);
+                writeOrder(out, order);
+            }
+            case CustomerDto customer -> {
+                out.writeByte(TAG_CUSTOMER);
+                writeCustomer(out, customer);
+            }
+            case EmployeeDto employee -> {
+                out.writeByte(TAG_EMPLOYEE);
+                writeEmployee(out, employee);
+            }
+            case TotalOrders totalOrders -> {
+                out.writeByte(TAG_TOTAL_ORDERS);
+                out.writeLong(totalOrders.getTotalQuantity() != null
+                        ? Long.valueOf(totalOrders.getTotalQuantity()) : null);
+                out.writeDouble(totalOrders.getTotalAmount());
+            }
+            case Serializable serializable -> {
+                out.writeByte(TAG_SERIALIZABLE);
+                out.writeLengthPrefixed(serializingConverter.convert(serializable));
+            }
+            default -> throw new SerializationException(
+                    "Тип " + value.getClass().getName() + " не поддерживается сериализатором кэша");
+        }
+    }
+
+    private void writeNullableValue(Output out, Object value) {
+        if (value == null) {
+            out.writeByte(TAG_NULL);
+        } else {
+            writeValue(out, value);
+        }
+    }
+
+    private Object readValue(ByteBuffer in) {
+        byte tag = in.get();
+        return switch (tag) {
+            case TAG_NULL -> null;
+            case TAG_LIST -> {
+                int size = readVarInt(in);
+                List<Object> list = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    list.add(readValue(in));
+                }
+                yield list;
+            }
+            case TAG_MEDICATION -> readMedication(in);
+            case TAG_PHARMACY -> readPharmacy(in);
+            case TAG_ORDER -> readOrder(in);
+            case TAG_CUSTOMER -> readCustomer(in);
+            case TAG_EMPLOYEE -> readEmployee(in);
+            case TAG_TOTAL_ORDERS -> readTotalOrders(in);
+            case TAG_SERIALIZABLE -> deserializingConverter.convert(readBytes(in));
+            default -> throw new IllegalArgumentException("Неизвестный тип значения кэша: " + tag);
+        };
+    }
+
+    private static void writeMedication(Output out, MedicationDto medication) {
+        out.writeLong(medication.getId());
+        out.writeString(medication.getName());
+        out.writeEnum(medication.getForm());
+        out.writeDouble(medication.getPrice());
+        out.writeDate(medication.getExpirationDate());
+    }
+
+    private static MedicationDto readMedication(ByteBuffer in) {
+        return new MedicationDto(
+                readLong(in),
+                readString(in),
+                readEnum(in, MEDICATION_FORMS),
+                readDouble(in),
+                readDate(in));
+    }
+
+    private static void writePharmacy(Output out, PharmacyDto pharmacy) {
+        out.writeLong(pharmacy.getId());
+        out.writeString(pharmacy.getName());
+        out.writeString(pharmacy.getAddress());
+        out.writeString(pharmacy.getPhone());
+    }
+
+    private static PharmacyDto readPharmacy(ByteBuffer in) {
+        return new PharmacyDto(readLong(in), readString(in), readString(in), readString(in));
+    }
+
+    private static void writeCustomer(Output out, CustomerDto customer) {
+        out.writeLong(customer.getId());
+        out.writeString(customer.getName());
+        out.writeString(customer.getAddress());
+        out.writeString(customer.getPhone());
+    }
+
+    private static CustomerDto readCustomer(ByteBuffer in) {
+        return new CustomerDto(readLong(in), readString(in), readString(in), readString(in));
+    }
+
+    private static void writeEmployee(Output out, EmployeeDto employee) {
+        out.writeLong(employee.getId());
+        out.writeString(employee.getName());
+        out.writeEnum(employee.getPosition());
+        out.writeString(employee.getEmail());
+        writeNested(out, employee.getPharmacy(), DtoRedisSerializer::writePharmacy);
+    }
+
+    private static EmployeeDto readEmployee(ByteBuffer in) {
+        return new EmployeeDto(
+                readLong(in),
+                readString(in),
+                readEnum(in, EMPLOYEE_POSITIONS),
+                readString(in),
+                in.get() == 0 ? null : readPharmacy(in));
+    }
+
+    private static void writeOrder(Output out, OrderDto order) {
+        out.writeLong(order.getId());
+        writeNested(out, order.getCustomer(), DtoRedisSerializer::writeCustomer);
+        writeNested(out, order.getEmployee(), DtoRedisSerializer::writeEmployee);
+        writeNested(out, order.getPharmacy(), DtoRedisSerializer::writePharmacy);
+        writeNested(out, order.getMedication(), DtoRedisSerializer::writeMedication);
+        out.writeLong(order.getQuantity() != null ? Long.valueOf(order.getQuantity()) : null);
+        out.writeDouble(order.getTotalAmount());
+        out.writeDate(order.getOrderDate());
+        out.writeEnum(order.getOrderStatus());
+    }
+
+    private static OrderDto readOrder(ByteBuffer in) {
+        Long id = readLong(in);
+        CustomerDto customer = in.get() == 0 ? null : readCustomer(in);
+        EmployeeDto employee = in.get() == 0 ? null : readEmployee(in);
+        PharmacyDto pharmacy = in.get() == 0 ? null : readPharmacy(in);
+        MedicationDto medication = in.get() == 0 ? null : readMedication(in);
+        Long quantity = readLong(in);
+        return new OrderDto(
+                id,
+                customer,
+                employee,
+                pharmacy,
+                medication,
+                quantity != null ? Math.toIntExact(quantity) : null,
+                readDouble(in),
+                readDate(in),
+                readEnum(in, ORDER_STATUSES));
+    }
+
+    private static TotalOrders readTotalOrders(ByteBuffer in) {
+        Long totalQuantity = readLong(in);
+        return new TotalOrders(totalQuantity != null ? Math.toIntExact(totalQuantity) : null, readDouble(in));
+    }
+
+    private static <T> void writeNested(Output out, T value, NestedWriter<T> writer) {
+        if (value == null) {
+            out.writeByte((byte) 0);
+        } else {
+            out.writeByte((byte) 1);
+            writer.write(out, value);
+        }
+    }
+
+    private static Long readLong(ByteBuffer in) {
+        return in.get() == 0 ? null : zigZagDecode(readVarLong(in));
+    }
+
+    private static Double readDouble(ByteBuffer in) {
+        return in.get() == 0 ? null : in.getDouble();
+    }
+
+    private static LocalDate readDate(ByteBuffer in) {
+        Long epochDay = readLong(in);
+        return epochDay != null ? LocalDate.ofEpochDay(epochDay) : null;
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = readVarInt(in) - 1;
+        if (length < 0) {
+            return null;
+        }
+        String value = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+        in.position(in.position() + length);
+        return value;
+    }
+
+    private static <E extends Enum<E>> E readEnum(ByteBuffer in, E[] constants) {
+        int ordinal = readVarInt(in) - 1;
+        if (ordinal < 0) {
+            return null;
+        }
+        if (ordinal >= constants.length) {
+            throw new IllegalArgumentException("Неизвестный порядковый номер перечисления: " + ordinal);
+        }
+        return constants[ordinal];
+    }
+
+    private static byte[] readBytes(ByteBuffer in) {
+        byte[] bytes = new byte[readVarInt(in)];
+        in.get(bytes);
+        return bytes;
+    }
+
+    private static int readVarInt(ByteBuffer in) {
+        return Math.toIntExact(readVarLong(in));
+    }
+
+    private static long readVarLong(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Слишком длинное число varint");
+    }
+
+    private static long zigZagDecode(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    @FunctionalInterface
+    private interface NestedWriter<T> {
+        void write(Output out, T value);
+    }
+
+    /**
+     * Буфер записи с примитивами формата: nullable-поля предваряются байтом наличия значения.
+     */
+    private static final class Output extends ByteArrayOutputStream {
+
+        Output() {
+            super(256);
+        }
+
+        void writeByte(byte value) {
+            write(value);
+        }
+
+        void writeVarLong(long value) {
+            while ((value & ~0x7FL) != 0) {
+                write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            write((int) value);
+        }
+
+        void writeVarInt(int value) {
+            writeVarLong(value);
+        }
+
+        void writeLengthPrefixed(byte[] bytes) {
+            writeVarInt(bytes.length);
+            write(bytes, 0, bytes.length);
+        }
+
+        void writeLong(Long value) {
+            if (value == null) {
+                write(0);
+            } else {
+                write(1);
+                writeVarLong((value << 1) ^ (value >> 63));
+            }
+        }
+
+        void writeDouble(Double value) {
+            if (value == null) {
+                write(0);
+            } else {
+                write(1);
+                long bits = Double.doubleToLongBits(value);
+                for (int shift = 56; shift >= 0; shift -= 8) {
+                    write((int) (bits >>> shift));
+                }
+            }
+        }
+
+        void writeDate(LocalDate value) {
+            writeLong(value != null ? value.toEpochDay() : null);
+        }
+
+        void writeString(String value) {
+            if (value == null) {
+                writeVarInt(0);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(bytes.length + 1);
+            write(bytes, 0, bytes.length);
+        }
+
+        void writeEnum(Enum<?> value) {
+            writeVarInt(value != null ? value.ordinal() + 1 : 0);
+        }
+    }
+}
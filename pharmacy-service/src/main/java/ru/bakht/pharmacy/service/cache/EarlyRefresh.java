@@ -0,0 +1,66 @@
+package ru.bakht.pharmacy.service.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Вероятностное досрочное обновление записей кэша (алгоритм XFetch).
+ * <p>
+ * Чем ближе окончание TTL записи и чем дольше вычислялось значение, тем выше вероятность,
+ * что очередное чтение обновит запись заранее. Поэтому популярная запись обновляется одним
+ * запросом до истечения срока, а не всеми запросами одновременно после него.
+ * Коэффициент {@code beta} больше единицы делает обновление более ранним, ноль отключает его.
+ * <p>
+ * Время загрузки известно только экземпляру, который вычислял значение, поэтому досрочно
+ * обновляет запись именно он.
+ */
+class EarlyRefresh {
+
+    private static final long MAXIMUM_SIZE = 10_000;
+
+    private final double beta;
+    private final long ttlNanos;
+    private final Cache<String, Load> loads;
+
+    EarlyRefresh(double beta, Duration ttl) {
+        this.beta = beta;
+        this.ttlNanos = ttl.toNanos();
+        this.loads = Caffeine.newBuilder()
+                .maximumSize(MAXIMUM_SIZE)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    void recordLoad(String key, long computeNanos) {
+        if (beta > 0) {
+            loads.put(key, new Load(System.nanoTime(), computeNanos));
+        }
+    }
+
+    boolean shouldRefresh(String key) {
+        if (beta <= 0) {
+            return false;
+        }
+        Load load = loads.getIfPresent(key);
+        if (load == null) {
+            return false;
+        }
+        double random = 1.0 - ThreadLocalRandom.current().nextDouble();
+        long elapsedNanos = System.nanoTime() - load.loadedAtNanos();
+        return elapsedNanos - load.computeNanos() * beta * Math.log(random) >= ttlNanos;
+    }
+
+    void forget(String key) {
+        loads.invalidate(key);
+    }
+
+    void clear() {
+        loads.invalidateAll();
+    }
+
+    private record Load(long loadedAtNanos, long computeNanos) {
+    }
+}
@@ -0,0 +1,40 @@
+package ru.bakht.pharmacy.service.cache;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+/**
+ * Очистка кэшей отчетов по заказам из кода, который изменяет заказы или дневные итоги
+ * пакетами в собственных транзакциях: переноса в архив и пересчета итогов.
+ * Кэши менеджера учитывают транзакции, поэтому внутри транзакции очистка выполняется
+ * после ее фиксации.
+ */
+@Component
+@RequiredArgsConstructor
+public class OrderReportCacheEvictor {
+
+    private final CacheManager cacheManager;
+
+    /**
+     * Очищает кэш итогов заказов за период.
+     */
+    public void evictOrderTotals() {
+        clear("order_totals");
+    }
+
+    /**
+     * Очищает кэш заказов покупателей.
+     */
+    public void evictCustomerOrders() {
+        clear("customer_orders");
+    }
+
+    private void clear(String cacheName) {
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package ru.bakht.pharmacy.service.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.NullValue;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Двухуровневый кэш: локальный ограниченный по размеру уровень в памяти экземпляра
+ * перед общим кэшем в Redis.
+ * <p>
+ * Чтение сначала обращается к локальному уровню, при промахе — к Redis, и найденное
+ * значение сохраняется локально. Запись и удаление выполняются в обоих уровнях,
+ * после чего остальные экземпляры получают сообщение об инвалидации своего локального уровня.
+ * Ключи локального уровня приводятся к строке так же, как ключи Redis.
+ * <p>
+ * Загрузка через {@link #get(Object, Callable)} выполняется однократно на экземпляре:
+ * параллельные промахи по одному ключу ожидают общий {@link CompletableFuture}
+ * вместо того, чтобы одновременно обращаться к базе. Дополнительно запись может быть
+ * обновлена досрочно, до истечения TTL, см. {@link EarlyRefresh}.
+ */
+@Slf4j
+public class TwoLevelCache implements Cache {
+
+    private final String name;
+    private final Cache remote;
+    private final com.github.benmanes.caffeine.cache.Cache<String, Object> local;
+    private final CacheInvalidationPublisher invalidationPublisher;
+    private final CacheTierMetrics localMetrics;
+    private final CacheTierMetrics remoteMetrics;
+    private final EarlyRefresh earlyRefresh;
+
+    private final Map<String, CompletableFuture<Object>> inFlightLoads = new ConcurrentHashMap<>();
+
+    TwoLevelCache(String name,
+                  Cache remote,
+                  com.github.benmanes.caffeine.cache.Cache<String, Object> local,
+                  CacheInvalidationPublisher invalidationPublisher,
+                  CacheTierMetrics localMetrics,
+                  CacheTierMetrics remoteMetrics,
+                  EarlyRefresh earlyRefresh) {
+        this.name = name;
+        this.remote = remote;
+        this.local = local;
+        this.invalidationPublisher = invalidationPublisher;
+        this.localMetrics = localMetrics;
+        this.remoteMetrics = remoteMetrics;
+        this.earlyRefresh = earlyRefresh;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return local;
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        String localKey = localKey(key);
+
+        long start = System.nanoTime();
+        Object localValue = local.getIfPresent(localKey);
+        localMetrics.record(localValue != null, start);
+        if (localValue != null) {
+            return new SimpleValueWrapper(fromStoreValue(localValue));
+        }
+
+        start = System.nanoTime();
+        ValueWrapper remoteValue = remote.get(key);
+        remoteMetrics.record(remoteValue != null, start);
+        if (remoteValue != null) {
+            local.put(localKey, toStoreValue(remoteValue.get()));
+        }
+        return remoteValue;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper != null ? wrapper.get() : null;
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException(
+                    "Значение в кэше " + name + " не является экземпляром " + type.getName());
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        String localKey = localKey(key);
+
+        ValueWrapper wrapper = get(key);
+        if (wrapper != null) {
+            if (earlyRefresh.shouldRefresh(localKey)) {
+                return (T) refreshEarly(key, localKey, valueLoader, wrapper.get());
+            }
+            return (T) wrapper.get();
+        }
+
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<Object> inFlight = inFlightLoads.putIfAbsent(localKey, future);
+        if (inFlight != null) {
+            return (T) await(inFlight, key, valueLoader);
+        }
+
+        wrapper = get(key);
+        if (wrapper != null) {
+            inFlightLoads.remove(localKey, future);
+            future.complete(wrapper.get());
+            return (T) wrapper.get();
+        }
+        return (T) load(key, localKey, valueLoader, future);
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        remote.put(key, value);
+        local.put(localKey(key), toStoreValue(value));
+        invalidationPublisher.publishEvict(name, localKey(key));
+    }
+
+    @Override
+    public void evict(Object key) {
+        remote.evict(key);
+        evictLocal(localKey(key));
+        invalidationPublisher.publishEvict(name, localKey(key));
+    }
+
+    @Override
+    public void clear() {
+        remote.clear();
+        clearLocal();
+        invalidationPublisher.publishClear(name);
+    }
+
+    /**
+     * Удаляет запись только из локального уровня по сообщению от другого экземпляра.
+     */
+    void evictLocal(String localKey) {
+        local.invalidate(localKey);
+        earlyRefresh.forget(localKey);
+    }
+
+    /**
+     * Очищает только локальный уровень по сообщению от другого экземпляра.
+     */
+    void clearLocal() {
+        local.invalidateAll();
+        earlyRefresh.clear();
+    }
+
+    /**
+     * Загружает значение и сохраняет его в кэш, завершая {@code future} для ожидающих потоков.
+     */
+    private Object load(Object key, String localKey, Callable<?> valueLoader, CompletableFuture<Object> future) {
+        try {
+            long start = System.nanoTime();
+            Object value = valueLoader.call();
+            put(key, value);
+            earlyRefresh.recordLoad(localKey, System.nanoTime() - start);
+            future.complete(value);
+            return value;
+        } catch (Throwable e) {
+            future.completeExceptionally(e);
+            if (e instanceof Error error) {
+                throw error;
+            }
+            throw new ValueRetrievalException(key, valueLoader, e);
+        } finally {
+            inFlightLoads.remove(localKey, future);
+        }
+    }
+
+    /**
+     * Досрочно обновляет запись. Если запись уже обновляется другим потоком
+     * или загрузка завершилась ошибкой, возвращается текущее значение.
+     */
+    private Object refreshEarly(Object key, String localKey, Callable<?> valueLoader, Object currentValue) {
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        if (inFlightLoads.putIfAbsent(localKey, future) != null) {
+            return currentValue;
+        }
+
+        try {
+            return load(key, localKey, valueLoader, future);
+        } catch (ValueRetrievalException e) {
+            log.warn("Не удалось досрочно обновить запись {} кэша {}", key, name, e.getCause());
+            return currentValue;
+        }
+    }
+
+    private static Object await(CompletableFuture<Object> inFlight, Object key, Callable<?> valueLoader) {
+        try {
+            return inFlight.join();
+        } catch (CompletionException e) {
+            throw new ValueRetrievalException(key, valueLoader, e.getCause());
+        }
+    }
+
+    private static String localKey(Object key) {
+        return String.valueOf(key);
+    }
+
+    private static Object toStoreValue(Object value) {
+        return value != null ? value : NullValue.INSTANCE;
+    }
+
+    private static Object fromStoreValue(Object value) {
+        return value == NullValue.INSTANCE ? null : value;
+    }
+}
@@ -0,0 +1,91 @@
+package ru.bakht.pharmacy.service.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Менеджер двухуровневых кэшей {@link TwoLevelCache}.
+ * <p>
+ * Запись и удаление откладываются до фиксации транзакции, как и в транзакционном
+ * {@code RedisCacheManager}. Менеджер также принимает сообщения об инвалидации
+ * от других экземпляров и очищает соответствующие записи локального уровня.
+ */
+@Slf4j
+public class TwoLevelCacheManager implements CacheManager, MessageListener {
+
+    private final CacheManager remoteCacheManager;
+    private final Supplier<com.github.benmanes.caffeine.cache.Cache<String, Object>> localCacheFactory;
+    private final CacheInvalidationPublisher invalidationPublisher;
+    private final MeterRegistry meterRegistry;
+    private final Function<String, Duration> remoteTtlResolver;
+    private final double earlyRefreshBeta;
+
+    private final Map<String, TwoLevelCache> caches = new ConcurrentHashMap<>();
+    private final Map<String, Cache> decoratedCaches = new ConcurrentHashMap<>();
+
+    public TwoLevelCacheManager(CacheManager remoteCacheManager,
+                                Supplier<com.github.benmanes.caffeine.cache.Cache<String, Object>> localCacheFactory,
+                                CacheInvalidationPublisher invalidationPublisher,
+                                MeterRegistry meterRegistry,
+                                Function<String, Duration> remoteTtlResolver,
+                                double earlyRefreshBeta) {
+        this.remoteCacheManager = remoteCacheManager;
+        this.localCacheFactory = localCacheFactory;
+        this.invalidationPublisher = invalidationPublisher;
+        this.meterRegistry = meterRegistry;
+        this.remoteTtlResolver = remoteTtlResolver;
+        this.earlyRefreshBeta = earlyRefreshBeta;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        return decoratedCaches.computeIfAbsent(name,
+                cacheName -> new TransactionAwareCacheDecorator(caches.computeIfAbsent(cacheName, this::createCache)));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return caches.keySet();
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        invalidationPublisher.parse(new String(message.getBody(), StandardCharsets.UTF_8))
+                .ifPresent(invalidation -> {
+                    TwoLevelCache cache = caches.get(invalidation.cacheName());
+                    if (cache == null) {
+                        return;
+                    }
+                    if (invalidation.key() == null) {
+                        cache.clearLocal();
+                    } else {
+                        cache.evictLocal(invalidation.key());
+                    }
+                    log.debug("Локальный кэш {} инвалидирован по ключу {}", invalidation.cacheName(), invalidation.key());
+                });
+    }
+
+    private TwoLevelCache createCache(String name) {
+        Cache remote = remoteCacheManager.getCache(name);
+        if (remote == null) {
+            throw new IllegalStateException("Кэш " + name + " не найден в Redis");
+        }
+        return new TwoLevelCache(name, remote, localCacheFactory.get(), invalidationPublisher,
+                new CacheTierMetrics(meterRegistry, name, "local"),
+                new CacheTierMetrics(meterRegistry, name, "redis"),
+                new EarlyRefresh(earlyRefreshBeta, remoteTtlResolver.apply(name)));
+    }
+}
@@ -0,0 +1,98 @@
+package ru.bakht.pharmacy.service.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import ru.bakht.pharmacy.service.cache.CacheInvalidationPublisher;
+import ru.bakht.pharmacy.service.cache.DtoRedisSerializer;
+import ru.bakht.pharmacy.service.cache.TwoLevelCacheManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Configuration
+public class CacheConfig {
+
+    /**
+     * Кэши отчетов по заказам очищаются целиком при любом изменении заказов,
+     * а короткий TTL ограничивает устаревание при изменениях в обход сервисов.
+     */
+    private static final List<String> REPORT_CACHES = List.of("order_totals", "customer_orders");
+
+    @Value("${cache.redis.ttl}")
+    private Duration redisTtl;
+
+    @Value("${cache.redis.report-ttl}")
+    private Duration reportTtl;
+
+    @Value("${cache.early-refresh.beta}")
+    private double earlyRefreshBeta;
+
+    @Value("${cache.local.maximum-size}")
+    private long localMaximumSize;
+
+    @Value("${cache.local.ttl}")
+    private Duration localTtl;
+
+    @Value("${cache.invalidation-channel}")
+    private String invalidationChannel;
+
+    @Bean
+    public CacheInvalidationPublisher cacheInvalidationPublisher(StringRedisTemplate stringRedisTemplate) {
+        return new CacheInvalidationPublisher(stringRedisTemplate, invalidationChannel);
+    }
+
+    /**
+     * Локальный уровень дополнительно ограничен по времени жизни записи:
+     * сообщения pub/sub не гарантируют доставку, и без TTL пропущенная инвалидация
+     * оставила бы устаревшее значение на экземпляре навсегда.
+     * Значения в Redis хранятся в компактном бинарном формате {@link DtoRedisSerializer}.
+     */
+    @Bean
+    public TwoLevelCacheManager cacheManager(RedisConnectionFactory redisConnectionFactory,
+                                             CacheInvalidationPublisher cacheInvalidationPublisher,
+                                             MeterRegistry meterRegistry) {
+        RedisCacheConfiguration defaults = RedisCacheConfiguration.defaultCacheConfig()
+                .serializeValuesWith(RedisSerializationContext.SerializationPair
+                        .fromSerializer(new DtoRedisSerializer()));
+        Function<String, Duration> ttlResolver = name -> REPORT_CACHES.contains(name) ? reportTtl : redisTtl;
+
+        RedisCacheManager redisCacheManager = RedisCacheManager.builder(redisConnectionFactory)
+                .cacheDefaults(defaults.entryTtl(redisTtl))
+                .withInitialCacheConfigurations(REPORT_CACHES.stream()
+                        .collect(Collectors.toMap(Function.identity(), name -> defaults.entryTtl(reportTtl))))
+                .build();
+        redisCacheManager.initializeCaches();
+
+        return new TwoLevelCacheManager(
+                redisCacheManager,
+                () -> Caffeine.newBuilder()
+                        .maximumSize(localMaximumSize)
+                        .expireAfterWrite(localTtl)
+                        .build(),
+                cacheInvalidationPublisher,
+                meterRegistry,
+                ttlResolver,
+                earlyRefreshBeta);
+    }
+
+    @Bean
+    public RedisMessageListenerContainer cacheInvalidationListenerContainer(
+            RedisConnectionFactory redisConnectionFactory, TwoLevelCacheManager cacheManager) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(redisConnectionFactory);
+        container.addMessageListener(cacheManager, new ChannelTopic(invalidationChannel));
+        return container;
+    }
+}
@@ -0,0 +1,32 @@
+package ru.bakht.pharmacy.service.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import ru.bakht.pharmacy.service.search.TextSearchIndex;
+import ru.bakht.pharmacy.service.search.TextSearchIndexPublisher;
+
+@Configuration
+public class SearchConfig {
+
+    @Value("${search.index.update-channel}")
+    private String updateChannel;
+
+    @Bean
+    public TextSearchIndexPublisher textSearchIndexPublisher(StringRedisTemplate stringRedisTemplate) {
+        return new TextSearchIndexPublisher(stringRedisTemplate, updateChannel);
+    }
+
+    @Bean
+    public RedisMessageListenerContainer textSearchIndexListenerContainer(
+            RedisConnectionFactory redisConnectionFactory, TextSearchIndex textSearchIndex) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(redisConnectionFactory);
+        container.addMessageListener(textSearchIndex, new ChannelTopic(updateChannel));
+        return container;
+    }
+}
@@ -1,15 +1,24 @@
 package ru.bakht.pharmacy.service.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.bakht.pharmacy.service.model.dto.KeysetPageDto;
 import ru.bakht.pharmacy.service.service.BaseService;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 @RequiredArgsConstructor
@@ -18,6 +27,9 @@ public abstract class AbstractController<T, ID extends Number> {
 
     private final BaseService<T, ID> baseService;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
     @GetMapping
     @PreAuthorize("hasRole('ROLE_ADMIN') or hasRole('ROLE_USER')")
     @Operation(summary = "Получить все сущности", description = "Возвращает список всех сущностей")
@@ -25,6 +37,33 @@ public abstract class AbstractController<T, ID extends Number> {
         return baseService.getAll();
     }
 
+    @GetMapping("/page")
+    @PreAuthorize("hasRole('ROLE_ADMIN') or hasRole('ROLE_USER')")
+    @Operation(summary = "Получить страницу сущностей",
+            description = "Возвращает сущности с идентификатором больше after, отсортированные по идентификатору")
+    public KeysetPageDto<T, ID> getPage(@RequestParam(required = false) ID after,
+                                        @RequestParam(defaultValue = "100") @Min(1) @Max(1000) int size) {
+        return baseService.getPage(after, size);
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @PreAuthorize("hasRole('ROLE_ADMIN') or hasRole('ROLE_USER')")
+    @Operation(summary = "Выгрузить все сущности потоком",
+            description = "Возвращает все сущности в формате NDJSON, по одному объекту в строке")
+    public ResponseEntity<StreamingResponseBody> streamAll() {
+        StreamingResponseBody body = outputStream -> baseService.streamAll(dto -> {
+            try {
+                outputStream.write(objectMapper.writeValueAsBytes(dto));
+                outputStream.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
     @GetMapping("/{id}")
     @PreAuthorize("hasRole('ROLE_ADMIN') or hasRole('ROLE_USER')")
     @Operation(summary = "Получить сущность по ID", description = "Возвращает сущность по ее идентификатору")
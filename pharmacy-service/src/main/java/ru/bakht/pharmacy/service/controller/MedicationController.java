@@ -1,15 +1,46 @@
 package ru.bakht.pharmacy.service.controller;
 
-import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.RestController;
+import io.swagger.v3.oas.annotations.Operation;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
 import ru.bakht.pharmacy.service.model.dto.MedicationDto;
+import ru.bakht.pharmacy.service.model.dto.MedicationSuggestionDto;
 import ru.bakht.pharmacy.service.service.MedicationService;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/medications")
 public class MedicationController extends AbstractController<MedicationDto, Long> {
 
+    private final MedicationService medicationService;
+
     public MedicationController(MedicationService medicationService) {
         super(medicationService);
+        this.medicationService = medicationService;
+    }
+
+    @GetMapping("/autocomplete")
+    @PreAuthorize("hasRole('ROLE_ADMIN') or hasRole('ROLE_USER')")
+    @Operation(summary = "Подсказки по названию лекарства",
+            description = "Возвращает лекарства, название которых или одно из слов названия начинается "
+                    + "с префикса, в порядке убывания объема продаж")
+    public List<MedicationSuggestionDto> autocomplete(@RequestParam @NotBlank String prefix,
+                                                      @RequestParam(defaultValue = "10") @Min(1) @Max(50) int limit) {
+        return medicationService.autocomplete(prefix, limit);
+    }
+
+    @PutMapping("/{id}/reorder-threshold")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @Operation(summary = "Изменить порог пополнения лекарства",
+            description = "Задает порог пополнения по умолчанию и применяет его во всех аптеках, "
+                    + "где порог не задан отдельно")
+    public void updateReorderThreshold(@PathVariable Long id, @RequestParam @Min(0) int threshold) {
+        medicationService.updateReorderThreshold(id, threshold);
     }
 }
@@ -1,15 +1,37 @@
 package ru.bakht.pharmacy.service.controller;
 
-import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.RestController;
+import io.swagger.v3.oas.annotations.Operation;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import ru.bakht.pharmacy.service.model.dto.OrderBatchItemResultDto;
 import ru.bakht.pharmacy.service.model.dto.OrderDto;
+import ru.bakht.pharmacy.service.service.OrderBatchService;
 import ru.bakht.pharmacy.service.service.OrderService;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/orders")
 public class OrderController extends AbstractController<OrderDto, Long> {
 
-    public OrderController(OrderService orderService) {
+    private final OrderBatchService orderBatchService;
+
+    public OrderController(OrderService orderService, OrderBatchService orderBatchService) {
         super(orderService);
+        this.orderBatchService = orderBatchService;
+    }
+
+    @PostMapping("/batch")
+    @ResponseStatus(HttpStatus.CREATED)
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @Operation(summary = "Создать пакет заказов",
+            description = "Создает заказы пакетом и возвращает результат обработки для каждого элемента")
+    public List<OrderBatchItemResultDto> createBatch(
+            @RequestBody @NotEmpty @Size(max = 10000) List<@Valid OrderDto> orderDtos) {
+        return orderBatchService.createBatch(orderDtos);
     }
 }
@@ -24,7 +24,8 @@ public class PharmacyController extends AbstractController<PharmacyDto, Long> {
     @ResponseStatus(HttpStatus.CREATED)
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @Operation(summary = "Добавить или обновить лекарство в аптеке",
-            description = "Добавляет новое лекарство в аптеку или обновляет его количество, если связь уже существует")
+            description = "Добавляет новое лекарство в аптеку или обновляет его количество, если связь уже существует. "
+                    + "Если указан порог пополнения, он заменяет порог лекарства по умолчанию для этой аптеки")
     public void addOrUpdatePharmacyMedication(@RequestBody @Valid PharmacyMedicationDto pharmacyMedicationDto) {
         pharmacyService.addOrUpdatePharmacyMedication(pharmacyMedicationDto);
     }
@@ -7,12 +7,12 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.bakht.pharmacy.service.enums.FileFormat;
 import ru.bakht.pharmacy.service.model.dto.MedicationDto;
 import ru.bakht.pharmacy.service.model.dto.OrderDto;
 import ru.bakht.pharmacy.service.model.dto.TotalOrders;
 
-import java.io.IOException;
 import java.time.LocalDate;
 import java.util.List;
 
@@ -57,13 +57,23 @@ public class ReportController {
         return reportFacade.getOutOfStockMedicationsByPharmacy(pharmacyId);
     }
 
+    @PostMapping("/order-daily-totals/rebuild")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @Operation(summary = "Пересчитать дневные итоги заказов",
+            description = "Пересчитывает дневные итоги заказов за указанный период или за всю историю, "
+                    + "если период не задан")
+    public void rebuildOrderDailyTotals(@RequestParam(required = false) LocalDate startDate,
+                                        @RequestParam(required = false) LocalDate endDate) {
+        reportFacade.rebuildOrderDailyTotals(startDate, endDate);
+    }
+
     @GetMapping("/export/medications/pharmacy/{pharmacyId}")
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @Operation(summary = "Экспортировать медикаменты по ID аптеки",
             description = "Экспортирует список медикаментов, доступных в конкретной аптеке")
-    public ResponseEntity<byte[]> exportMedicationsByPharmacy(@PathVariable Long pharmacyId,
-                                                              @RequestParam FileFormat fileFormat) throws IOException {
-        byte[] reportData = reportFacade.exportMedicationsByPharmacy(pharmacyId, fileFormat);
+    public ResponseEntity<StreamingResponseBody> exportMedicationsByPharmacy(@PathVariable Long pharmacyId,
+                                                                             @RequestParam FileFormat fileFormat) {
+        StreamingResponseBody reportData = reportFacade.exportMedicationsByPharmacy(pharmacyId, fileFormat);
         return createFileResponse(reportData, "medications", fileFormat);
     }
 
@@ -71,11 +81,11 @@ public class ReportController {
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @Operation(summary = "Экспортировать общее количество и общую стоимость заказов",
             description = "Экспортирует общее количество и общую стоимость всех заказов за указанный период")
-    public ResponseEntity<byte[]> exportTotalQuantityAndAmount(
+    public ResponseEntity<StreamingResponseBody> exportTotalQuantityAndAmount(
             @RequestParam LocalDate startDate,
             @RequestParam LocalDate endDate,
-            @RequestParam FileFormat fileFormat) throws IOException {
-        byte[] reportData = reportFacade.exportTotalQuantityAndAmount(startDate, endDate, fileFormat);
+            @RequestParam FileFormat fileFormat) {
+        StreamingResponseBody reportData = reportFacade.exportTotalQuantityAndAmount(startDate, endDate, fileFormat);
         return createFileResponse(reportData, "total_orders", fileFormat);
     }
 
@@ -83,9 +93,9 @@ public class ReportController {
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @Operation(summary = "Экспортировать заказы по телефону клиента",
             description = "Экспортирует список заказов, сделанных конкретным клиентом по его номеру телефона")
-    public ResponseEntity<byte[]> exportOrdersByCustomerPhone(@RequestParam String phone,
-                                                              @RequestParam FileFormat fileFormat) throws IOException {
-        byte[] reportData = reportFacade.exportOrdersByCustomerPhone(phone, fileFormat);
+    public ResponseEntity<StreamingResponseBody> exportOrdersByCustomerPhone(@RequestParam String phone,
+                                                                             @RequestParam FileFormat fileFormat) {
+        StreamingResponseBody reportData = reportFacade.exportOrdersByCustomerPhone(phone, fileFormat);
         return createFileResponse(reportData, "customer_orders", fileFormat);
     }
 
@@ -93,13 +103,14 @@ public class ReportController {
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @Operation(summary = "Экспортировать медикаменты, закончившиеся на складе в определенной аптеке",
             description = "Экспортирует список медикаментов, которые закончились на складе в определенной аптеке")
-    public ResponseEntity<byte[]> exportOutOfStockMedicationsByPharmacy(
-            @PathVariable Long pharmacyId, @RequestParam FileFormat fileFormat) throws IOException {
-        byte[] reportData = reportFacade.exportOutOfStockMedicationsByPharmacy(pharmacyId, fileFormat);
+    public ResponseEntity<StreamingResponseBody> exportOutOfStockMedicationsByPharmacy(
+            @PathVariable Long pharmacyId, @RequestParam FileFormat fileFormat) {
+        StreamingResponseBody reportData = reportFacade.exportOutOfStockMedicationsByPharmacy(pharmacyId, fileFormat);
         return createFileResponse(reportData, "out_of_stock_medications", fileFormat);
     }
 
-    private ResponseEntity<byte[]> createFileResponse(byte[] reportData, String fileName, FileFormat fileFormat) {
+    private ResponseEntity<StreamingResponseBody> createFileResponse(StreamingResponseBody reportData,
+                                                                     String fileName, FileFormat fileFormat) {
         HttpHeaders headers = new HttpHeaders();
         headers.add("Content-Disposition",
                 "attachment; filename=" + fileName + fileFormat.getExtension());
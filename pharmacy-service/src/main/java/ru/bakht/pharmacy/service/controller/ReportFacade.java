@@ -2,19 +2,24 @@ package ru.bakht.pharmacy.service.controller;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.bakht.pharmacy.service.enums.FileFormat;
 import ru.bakht.pharmacy.service.enums.ReportType;
-import ru.bakht.pharmacy.service.feign.ReportServiceClient;
 import ru.bakht.pharmacy.service.model.dto.MedicationDto;
 import ru.bakht.pharmacy.service.model.dto.OrderDto;
 import ru.bakht.pharmacy.service.model.dto.TotalOrders;
+import ru.bakht.pharmacy.service.service.OrderDailyTotalService;
 import ru.bakht.pharmacy.service.service.report.ReportFactory;
 import ru.bakht.pharmacy.service.service.report.ReportGenerator;
 import ru.bakht.pharmacy.service.service.report.ReportService;
+import ru.bakht.pharmacy.service.service.report.ReportUsageRecorder;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Component
 @RequiredArgsConstructor
@@ -22,50 +27,72 @@ public class ReportFacade {
 
     private final ReportFactory reportFactory;
     private final ReportService reportService;
-    private final ReportServiceClient reportServiceClient;
+    private final ReportUsageRecorder reportUsageRecorder;
+    private final TransactionTemplate transactionTemplate;
+    private final OrderDailyTotalService orderDailyTotalService;
 
     public List<MedicationDto> getMedicationsByPharmacy(Long pharmacyId) {
-        reportServiceClient.recordReportRequest(ReportType.MEDICATIONS);
+        reportUsageRecorder.record(ReportType.MEDICATIONS);
         return reportService.getMedicationsByPharmacy(pharmacyId);
     }
 
     public TotalOrders getTotalQuantityAndAmount(LocalDate startDate, LocalDate endDate) {
-        reportServiceClient.recordReportRequest(ReportType.TOTAL_ORDERS);
+        reportUsageRecorder.record(ReportType.TOTAL_ORDERS);
         return reportService.getTotalQuantityAndAmount(startDate, endDate);
     }
 
     public List<OrderDto> getOrdersByCustomerPhone(String phone) {
-        reportServiceClient.recordReportRequest(ReportType.CUSTOMER_ORDERS);
+        reportUsageRecorder.record(ReportType.CUSTOMER_ORDERS);
         return reportService.getOrdersByCustomerPhone(phone);
     }
 
     public List<MedicationDto> getOutOfStockMedicationsByPharmacy(Long pharmacyId) {
-        reportServiceClient.recordReportRequest(ReportType.OUT_OF_STOCK_MEDICATIONS);
+        reportUsageRecorder.record(ReportType.OUT_OF_STOCK_MEDICATIONS);
         return reportService.getOutOfStockMedicationsByPharmacy(pharmacyId);
     }
 
-    public byte[] exportMedicationsByPharmacy(Long pharmacyId, FileFormat fileFormat) throws IOException {
+    /**
+     * Пересчитывает дневные итоги заказов за период или за всю историю, если период не задан.
+     */
+    public void rebuildOrderDailyTotals(LocalDate startDate, LocalDate endDate) {
+        if (startDate == null || endDate == null) {
+            orderDailyTotalService.backfill();
+        } else {
+            orderDailyTotalService.rebuild(startDate, endDate);
+        }
+    }
+
+    public StreamingResponseBody exportMedicationsByPharmacy(Long pharmacyId, FileFormat fileFormat) {
         List<MedicationDto> medications = reportService.getMedicationsByPharmacy(pharmacyId);
         ReportGenerator reportGenerator = reportFactory.getReportGenerator(fileFormat);
-        return reportGenerator.generateMedicationsReport(medications);
+        return outputStream -> reportGenerator.generateMedicationsReport(medications, outputStream);
     }
 
-    public byte[] exportTotalQuantityAndAmount(
-            LocalDate startDate, LocalDate endDate, FileFormat fileFormat) throws IOException {
+    public StreamingResponseBody exportTotalQuantityAndAmount(
+            LocalDate startDate, LocalDate endDate, FileFormat fileFormat) {
         TotalOrders totalOrders = reportService.getTotalQuantityAndAmount(startDate, endDate);
         ReportGenerator reportGenerator = reportFactory.getReportGenerator(fileFormat);
-        return reportGenerator.generateTotalOrdersReport(totalOrders);
+        return outputStream -> reportGenerator.generateTotalOrdersReport(totalOrders, outputStream);
     }
 
-    public byte[] exportOrdersByCustomerPhone(String phone, FileFormat fileFormat) throws IOException {
-        List<OrderDto> orders = reportService.getOrdersByCustomerPhone(phone);
+    /**
+     * Заказы клиента читаются из базы курсором уже во время записи ответа,
+     * поэтому выгрузка выполняется в отдельной транзакции внутри тела ответа.
+     */
+    public StreamingResponseBody exportOrdersByCustomerPhone(String phone, FileFormat fileFormat) {
         ReportGenerator reportGenerator = reportFactory.getReportGenerator(fileFormat);
-        return reportGenerator.generateOrdersReport(orders);
+        return outputStream -> transactionTemplate.executeWithoutResult(status -> {
+            try (Stream<OrderDto> orders = reportService.streamOrdersByCustomerPhone(phone)) {
+                reportGenerator.generateOrdersReport(orders, outputStream);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
     }
 
-    public byte[] exportOutOfStockMedicationsByPharmacy(Long pharmacyId, FileFormat fileFormat) throws IOException {
+    public StreamingResponseBody exportOutOfStockMedicationsByPharmacy(Long pharmacyId, FileFormat fileFormat) {
         List<MedicationDto> medications = reportService.getOutOfStockMedicationsByPharmacy(pharmacyId);
         ReportGenerator reportGenerator = reportFactory.getReportGenerator(fileFormat);
-        return reportGenerator.generateMedicationsReport(medications);
+        return outputStream -> reportGenerator.generateMedicationsReport(medications, outputStream);
     }
 }
@@ -0,0 +1,53 @@
+package ru.bakht.pharmacy.service.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import ru.bakht.pharmacy.service.model.dto.ReportJobDto;
+import ru.bakht.pharmacy.service.model.dto.ReportJobRequestDto;
+import ru.bakht.pharmacy.service.service.report.job.ReportJobService;
+
+import java.security.Principal;
+
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api/reports/jobs")
+public class ReportJobController {
+
+    private final ReportJobService reportJobService;
+
+    @PostMapping
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @Operation(summary = "Поставить отчет в очередь на формирование",
+            description = "Создает задание на асинхронное формирование отчета и возвращает его идентификатор")
+    public ReportJobDto submit(@RequestBody @Valid ReportJobRequestDto request, Principal principal) {
+        return reportJobService.submit(request, principal.getName());
+    }
+
+    @GetMapping("/{id}")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @Operation(summary = "Получить состояние задания",
+            description = "Возвращает статус задания и количество уже записанных байт отчета")
+    public ReportJobDto getJob(@PathVariable String id) {
+        return reportJobService.getJob(id);
+    }
+
+    @GetMapping("/{id}/file")
+    @PreAuthorize("hasRole('ROLE_ADMIN')")
+    @Operation(summary = "Скачать сформированный отчет",
+            description = "Возвращает файл отчета, если задание успешно завершено")
+    public ResponseEntity<Resource> download(@PathVariable String id) {
+        var job = reportJobService.getCompletedJob(id);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=" + job.getFileName())
+                .body(new FileSystemResource(job.getFile()));
+    }
+}
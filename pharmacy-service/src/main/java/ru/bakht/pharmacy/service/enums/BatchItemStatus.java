@@ -0,0 +1,7 @@
+package ru.bakht.pharmacy.service.enums;
+
+public enum BatchItemStatus {
+
+    CREATED,
+    REJECTED
+}
@@ -0,0 +1,9 @@
+package ru.bakht.pharmacy.service.enums;
+
+public enum OutboxEventType {
+
+    ORDER_CREATED,
+    ORDER_UPDATED,
+    ORDER_DELETED,
+    STOCK_CHANGED
+}
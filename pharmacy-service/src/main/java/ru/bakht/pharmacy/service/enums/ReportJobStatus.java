@@ -0,0 +1,9 @@
+package ru.bakht.pharmacy.service.enums;
+
+public enum ReportJobStatus {
+
+    QUEUED,
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
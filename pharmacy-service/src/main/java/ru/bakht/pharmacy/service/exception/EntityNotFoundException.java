@@ -6,6 +6,10 @@ public class EntityNotFoundException extends RuntimeException {
         super(String.format("%s с ID %d не найден", entityName, entityId));
     }
 
+    public EntityNotFoundException(String entityName, String entityId) {
+        super(String.format("%s с ID %s не найден", entityName, entityId));
+    }
+
     public EntityNotFoundException(String entityName, Long pharmacyId, Long medicationId) {
         super(String.format("%s с ID аптеки %d и ID лекарства %d не найдена", entityName, pharmacyId, medicationId));
     }
@@ -2,13 +2,19 @@ package ru.bakht.pharmacy.service.feign;
 
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
 import ru.bakht.pharmacy.service.enums.ReportType;
 
+import java.util.Map;
+
 @FeignClient(name = "REPORT-SERVICE")
 public interface ReportServiceClient {
 
     @PostMapping("/report/record")
     void recordReportRequest(@RequestParam("reportName") ReportType reportName);
+
+    @PostMapping("/report/record/batch")
+    void recordReportRequests(@RequestBody Map<ReportType, Long> deltas);
 }
 
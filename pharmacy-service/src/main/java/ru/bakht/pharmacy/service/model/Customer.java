@@ -3,6 +3,7 @@ package ru.bakht.pharmacy.service.model;
 import jakarta.persistence.*;
 import lombok.*;
 import lombok.experimental.FieldDefaults;
+import ru.bakht.pharmacy.service.search.TextSearchIndexListener;
 
 @Data
 @NoArgsConstructor
@@ -10,6 +11,7 @@ import lombok.experimental.FieldDefaults;
 @FieldDefaults(level = AccessLevel.PRIVATE)
 @Builder
 @Entity
+@EntityListeners(TextSearchIndexListener.class)
 @Table(name = "customers")
 public class Customer {
 
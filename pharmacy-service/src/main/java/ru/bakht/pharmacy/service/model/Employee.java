@@ -4,6 +4,7 @@ import jakarta.persistence.*;
 import lombok.*;
 import lombok.experimental.FieldDefaults;
 import ru.bakht.pharmacy.service.enums.EmployeePosition;
+import ru.bakht.pharmacy.service.search.TextSearchIndexListener;
 
 
 @Data
@@ -14,6 +15,7 @@ import ru.bakht.pharmacy.service.enums.EmployeePosition;
 @EqualsAndHashCode(exclude = {"pharmacy"})
 @Builder
 @Entity
+@EntityListeners(TextSearchIndexListener.class)
 @Table(name = "employees")
 public class Employee {
 
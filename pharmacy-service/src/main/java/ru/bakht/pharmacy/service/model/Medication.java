@@ -4,6 +4,7 @@ import jakarta.persistence.*;
 import lombok.*;
 import lombok.experimental.FieldDefaults;
 import ru.bakht.pharmacy.service.enums.MedicationForm;
+import ru.bakht.pharmacy.service.search.TextSearchIndexListener;
 
 import java.time.LocalDate;
 
@@ -13,6 +14,7 @@ import java.time.LocalDate;
 @FieldDefaults(level = AccessLevel.PRIVATE)
 @Builder
 @Entity
+@EntityListeners(TextSearchIndexListener.class)
 @Table(name = "medications")
 public class Medication {
 
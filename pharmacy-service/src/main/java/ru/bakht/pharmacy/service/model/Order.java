@@ -15,26 +15,40 @@ import java.time.LocalDate;
 @Builder
 @Entity
 @Table(name = "orders")
+@NamedEntityGraph(name = Order.WITH_ASSOCIATIONS,
+        attributeNodes = {
+                @NamedAttributeNode("customer"),
+                @NamedAttributeNode(value = "employee", subgraph = "employee"),
+                @NamedAttributeNode("pharmacy"),
+                @NamedAttributeNode("medication")
+        },
+        subgraphs = @NamedSubgraph(name = "employee", attributeNodes = @NamedAttributeNode("pharmacy")))
 public class Order {
 
+    /**
+     * Граф загрузки заказа вместе со всеми данными, нужными {@code OrderDto}.
+     */
+    public static final String WITH_ASSOCIATIONS = "Order.withAssociations";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "orders_id_seq")
+    @SequenceGenerator(name = "orders_id_seq", sequenceName = "orders_id_seq", allocationSize = 50)
     @Column(name = "id")
     Long id;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "customer_id")
     Customer customer;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "employee_id")
     Employee employee;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "pharmacy_id")
     Pharmacy pharmacy;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "medication_id")
     Medication medication;
 
@@ -0,0 +1,32 @@
+package ru.bakht.pharmacy.service.model;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.experimental.FieldDefaults;
+
+/**
+ * Проверенный набор связанных сущностей заказа, загруженный одним запросом.
+ */
+@Data
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class OrderContext {
+
+    Employee employee;
+    Customer customer;
+    Pharmacy pharmacy;
+    Medication medication;
+
+    /**
+     * Устанавливает связанные сущности в объект заказа.
+     *
+     * @param order заказ, который необходимо обновить
+     */
+    public void applyTo(Order order) {
+        order.setEmployee(employee);
+        order.setCustomer(customer);
+        order.setPharmacy(pharmacy);
+        order.setMedication(medication);
+    }
+}
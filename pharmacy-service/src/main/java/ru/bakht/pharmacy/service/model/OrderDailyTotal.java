@@ -0,0 +1,31 @@
+package ru.bakht.pharmacy.service.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+/**
+ * Итоги заказов за день по паре аптека/лекарство.
+ * Поддерживаются при изменении заказов и используются для отчетов за период.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@Builder
+@Entity
+@Table(name = "order_daily_totals")
+public class OrderDailyTotal {
+
+    @EmbeddedId
+    OrderDailyTotalId id;
+
+    @Column(name = "total_quantity")
+    Long totalQuantity;
+
+    @Column(name = "total_amount")
+    Double totalAmount;
+
+    @Column(name = "order_count")
+    Long orderCount;
+}
@@ -0,0 +1,27 @@
+package ru.bakht.pharmacy.service.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Embeddable
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@Builder
+public class OrderDailyTotalId implements Serializable {
+
+    @Column(name = "order_date")
+    LocalDate orderDate;
+
+    @Column(name = "pharmacy_id")
+    Long pharmacyId;
+
+    @Column(name = "medication_id")
+    Long medicationId;
+}
@@ -0,0 +1,45 @@
+package ru.bakht.pharmacy.service.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+import org.hibernate.annotations.ColumnTransformer;
+import ru.bakht.pharmacy.service.enums.OutboxEventType;
+
+import java.time.LocalDateTime;
+
+/**
+ * Исходящее событие о заказе или остатке лекарства.
+ * Записывается в транзакции изменения и публикуется {@code OutboxRelay} после ее фиксации.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@Builder
+@Entity
+@Table(name = "outbox_events")
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "event_type")
+    OutboxEventType eventType;
+
+    @Column(name = "aggregate_id")
+    String aggregateId;
+
+    @ColumnTransformer(write = "CAST(? AS jsonb)")
+    @Column(name = "payload")
+    String payload;
+
+    @Column(name = "created_at")
+    LocalDateTime createdAt;
+
+    @Column(name = "published_at")
+    LocalDateTime publishedAt;
+}
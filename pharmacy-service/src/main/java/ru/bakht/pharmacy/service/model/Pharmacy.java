@@ -3,6 +3,7 @@ package ru.bakht.pharmacy.service.model;
 import jakarta.persistence.*;
 import lombok.*;
 import lombok.experimental.FieldDefaults;
+import ru.bakht.pharmacy.service.search.TextSearchIndexListener;
 
 import java.util.Set;
 
@@ -14,6 +15,7 @@ import java.util.Set;
 @FieldDefaults(level = AccessLevel.PRIVATE)
 @Builder
 @Entity
+@EntityListeners(TextSearchIndexListener.class)
 @Table(name = "pharmacies")
 public class Pharmacy {
     @Id
@@ -27,6 +27,18 @@ public class PharmacyMedication {
     @JoinColumn(name = "medication_id")
     Medication medication;
 
-    @Column(name = "quantity")
+    @Column(name = "quantity", updatable = false)
     Integer quantity;
+
+    @Column(name = "reorder_threshold")
+    Integer reorderThreshold;
+
+    @Column(name = "reorder_threshold_inherited")
+    Boolean reorderThresholdInherited;
+
+    @Column(name = "low_stock_alerted", insertable = false, updatable = false)
+    Boolean lowStockAlerted;
+
+    @Column(name = "low_stock_notified", insertable = false, updatable = false)
+    Boolean lowStockNotified;
 }
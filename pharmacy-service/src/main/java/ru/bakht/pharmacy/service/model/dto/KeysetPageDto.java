@@ -0,0 +1,28 @@
+package ru.bakht.pharmacy.service.model.dto;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.util.List;
+import java.util.function.Function;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class KeysetPageDto<T, ID> {
+
+    List<T> content;
+
+    /**
+     * Идентификатор, который нужно передать для получения следующей страницы,
+     * или {@code null}, если страница последняя.
+     */
+    ID nextCursor;
+
+    public static <T, ID> KeysetPageDto<T, ID> of(List<T> content, int size, Function<T, ID> idExtractor) {
+        ID nextCursor = content.size() < size ? null : idExtractor.apply(content.get(content.size() - 1));
+        return new KeysetPageDto<>(content, nextCursor);
+    }
+}
@@ -0,0 +1,6 @@
+package ru.bakht.pharmacy.service.model.dto;
+
+public interface MedicationSalesProjection {
+    Long getMedicationId();
+    Long getSalesVolume();
+}
@@ -0,0 +1,21 @@
+package ru.bakht.pharmacy.service.model.dto;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+import ru.bakht.pharmacy.service.enums.BatchItemStatus;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class OrderBatchItemResultDto {
+
+    Integer index;
+
+    Long orderId;
+
+    BatchItemStatus status;
+
+    String message;
+}
@@ -0,0 +1,47 @@
+package ru.bakht.pharmacy.service.model.dto;
+
+import ru.bakht.pharmacy.service.enums.EmployeePosition;
+import ru.bakht.pharmacy.service.enums.MedicationForm;
+import ru.bakht.pharmacy.service.enums.OrderStatus;
+
+import java.time.LocalDate;
+
+/**
+ * Плоская строка заказа со всеми полями {@link OrderDto}, выбираемая выражением конструктора.
+ * Связанные покупатель, сотрудник с аптекой, аптека и лекарство представлены своими колонками;
+ * отсутствующая связь дает {@code null} во всех ее колонках.
+ */
+public record OrderRow(Long id,
+                       Long customerId, String customerName, String customerAddress, String customerPhone,
+                       Long employeeId, String employeeName, EmployeePosition employeePosition,
+                       String employeeEmail, Long employeePharmacyId, String employeePharmacyName,
+                       String employeePharmacyAddress, String employeePharmacyPhone,
+                       Long pharmacyId, String pharmacyName, String pharmacyAddress, String pharmacyPhone,
+                       Long medicationId, String medicationName, MedicationForm medicationForm,
+                       Double medicationPrice, LocalDate medicationExpirationDate,
+                       Integer quantity, Double totalAmount, LocalDate orderDate, OrderStatus orderStatus) {
+
+    public OrderDto toDto() {
+        return OrderDto.builder()
+                .id(id)
+                .customer(customerId == null ? null
+                        : new CustomerDto(customerId, customerName, customerAddress, customerPhone))
+                .employee(employeeId == null ? null
+                        : new EmployeeDto(employeeId, employeeName, employeePosition, employeeEmail,
+                        pharmacy(employeePharmacyId, employeePharmacyName, employeePharmacyAddress,
+                                employeePharmacyPhone)))
+                .pharmacy(pharmacy(pharmacyId, pharmacyName, pharmacyAddress, pharmacyPhone))
+                .medication(medicationId == null ? null
+                        : new MedicationDto(medicationId, medicationName, medicationForm, medicationPrice,
+                        medicationExpirationDate))
+                .quantity(quantity)
+                .totalAmount(totalAmount)
+                .orderDate(orderDate)
+                .orderStatus(orderStatus)
+                .build();
+    }
+
+    private static PharmacyDto pharmacy(Long id, String name, String address, String phone) {
+        return id == null ? null : new PharmacyDto(id, name, address, phone);
+    }
+}
@@ -23,4 +23,7 @@ public class PharmacyMedicationDto implements Serializable {
     @NotNull(message = "Количество обязательно")
     @Min(value = 1, message = "Количество должно быть не менее 1")
     Integer quantity;
+
+    @Min(value = 0, message = "Порог пополнения не может быть отрицательным")
+    Integer reorderThreshold;
 }
@@ -0,0 +1,33 @@
+package ru.bakht.pharmacy.service.model.dto;
+
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+import ru.bakht.pharmacy.service.enums.FileFormat;
+import ru.bakht.pharmacy.service.enums.ReportJobStatus;
+import ru.bakht.pharmacy.service.enums.ReportType;
+
+import java.time.Instant;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class ReportJobDto {
+
+    String id;
+
+    ReportType reportType;
+
+    FileFormat fileFormat;
+
+    ReportJobStatus status;
+
+    Long bytesWritten;
+
+    String error;
+
+    Instant createdAt;
+
+    Instant completedAt;
+}
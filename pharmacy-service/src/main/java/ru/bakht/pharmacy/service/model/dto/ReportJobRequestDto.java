@@ -0,0 +1,31 @@
+package ru.bakht.pharmacy.service.model.dto;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+import ru.bakht.pharmacy.service.enums.FileFormat;
+import ru.bakht.pharmacy.service.enums.ReportType;
+
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class ReportJobRequestDto {
+
+    @NotNull(message = "Тип отчета обязателен")
+    ReportType reportType;
+
+    @NotNull(message = "Формат файла обязателен")
+    FileFormat fileFormat;
+
+    Long pharmacyId;
+
+    String phone;
+
+    LocalDate startDate;
+
+    LocalDate endDate;
+}
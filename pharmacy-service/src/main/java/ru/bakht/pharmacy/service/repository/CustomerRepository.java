@@ -2,9 +2,17 @@ package ru.bakht.pharmacy.service.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import ru.bakht.pharmacy.service.model.Customer;
 
+import java.util.List;
+
 @Repository
-public interface CustomerRepository extends JpaRepository<Customer, Long>, JpaSpecificationExecutor<Customer> {
+public interface CustomerRepository extends JpaRepository<Customer, Long>, JpaSpecificationExecutor<Customer>,
+        KeysetRepository<Customer, Long> {
+
+    @Query("SELECT c.id FROM Customer c WHERE c.phone = :phone")
+    List<Long> findIdsByPhone(@Param("phone") String phone);
 }
@@ -1,14 +1,18 @@
 package ru.bakht.pharmacy.service.repository;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.stereotype.Repository;
 import ru.bakht.pharmacy.service.model.Employee;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
-public interface EmployeeRepository extends JpaRepository<Employee, Long>, JpaSpecificationExecutor<Employee> {
+public interface EmployeeRepository extends JpaRepository<Employee, Long>, JpaSpecificationExecutor<Employee>,
+        KeysetRepository<Employee, Long> {
 
-    List<Employee> findByPharmacyId(Long pharmacyId);
+    @EntityGraph(attributePaths = "pharmacy")
+    List<Employee> findByPharmacyIdIn(Collection<Long> pharmacyIds);
 }
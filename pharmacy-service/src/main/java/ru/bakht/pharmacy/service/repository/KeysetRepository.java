@@ -0,0 +1,53 @@
+package ru.bakht.pharmacy.service.repository;
+
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.NoRepositoryBean;
+import org.springframework.data.repository.Repository;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Базовый репозиторий для постраничного чтения по ключу и потоковой выгрузки сущностей.
+ *
+ * @param <T>  тип сущности
+ * @param <ID> тип идентификатора сущности
+ */
+@NoRepositoryBean
+public interface KeysetRepository<T, ID extends Number> extends Repository<T, ID> {
+
+    int STREAM_FETCH_SIZE = 500;
+
+    List<T> findAllByOrderByIdAsc(Limit limit);
+
+    List<T> findByIdGreaterThanOrderByIdAsc(ID id, Limit limit);
+
+    /**
+     * Возвращает все сущности в порядке возрастания идентификатора.
+     * Строки читаются из курсора порциями по {@value #STREAM_FETCH_SIZE}.
+     * Поток должен быть закрыт и использоваться внутри транзакции.
+     */
+    @Query("SELECT e FROM #{#entityName} e ORDER BY e.id")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + STREAM_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    Stream<T> streamAllByOrderByIdAsc();
+
+    /**
+     * Возвращает страницу сущностей с идентификатором больше {@code afterId}.
+     *
+     * @param afterId идентификатор последней сущности предыдущей страницы или {@code null} для первой страницы
+     * @param size    размер страницы
+     * @return список сущностей в порядке возрастания идентификатора
+     */
+    default List<T> findPage(ID afterId, int size) {
+        return afterId == null
+                ? findAllByOrderByIdAsc(Limit.of(size))
+                : findByIdGreaterThanOrderByIdAsc(afterId, Limit.of(size));
+    }
+}
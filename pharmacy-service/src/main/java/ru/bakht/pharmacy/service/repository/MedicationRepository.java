@@ -2,31 +2,36 @@ package ru.bakht.pharmacy.service.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import ru.bakht.pharmacy.service.model.Medication;
-import ru.bakht.pharmacy.service.model.PharmacyMedication;
+import ru.bakht.pharmacy.service.model.dto.MedicationDto;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface MedicationRepository extends JpaRepository<Medication, Long>, JpaSpecificationExecutor<Medication> {
+public interface MedicationRepository extends JpaRepository<Medication, Long>, JpaSpecificationExecutor<Medication>,
+        KeysetRepository<Medication, Long> {
 
-    @Query(value = "SELECT *"
-            + "FROM medications m "
-            + "JOIN pharmacy_medications pm ON pm.medication_id = m.id "
-            + "WHERE pm.pharmacy_id = :pharmacyId", nativeQuery = true)
-    List<Medication> findMedicationsByPharmacyId(@Param("pharmacyId") Long pharmacyId);
-
-    @Query(value = "SELECT * "
-            + "FROM pharmacy_medications pm "
-            + "JOIN medications m ON pm.medication_id = m.id "
-            + "WHERE pm.quantity = 0 AND pm.pharmacy_id = :pharmacyId", nativeQuery = true)
-    List<Medication> findOutOfStockMedicationsByPharmacyId(@Param("pharmacyId") Long pharmacyId);
+    @Query("SELECT new ru.bakht.pharmacy.service.model.dto.MedicationDto(m.id, m.name, m.form, m.price, m.expirationDate) "
+            + "FROM PharmacyMedication pm "
+            + "JOIN pm.medication m "
+            + "WHERE pm.id.pharmacyId = :pharmacyId")
+    List<MedicationDto> findMedicationsByPharmacyId(@Param("pharmacyId") Long pharmacyId);
 
-    @Query(value = "SELECT pm "
+    @Query("SELECT new ru.bakht.pharmacy.service.model.dto.MedicationDto(m.id, m.name, m.form, m.price, m.expirationDate) "
             + "FROM PharmacyMedication pm "
-            + "WHERE pm.quantity < :threshold")
-    List<PharmacyMedication> findMedicationsBelowThreshold(@Param("threshold") Integer threshold);
+            + "JOIN pm.medication m "
+            + "WHERE pm.quantity = 0 AND pm.id.pharmacyId = :pharmacyId")
+    List<MedicationDto> findOutOfStockMedicationsByPharmacyId(@Param("pharmacyId") Long pharmacyId);
+
+    @Query(value = "SELECT reorder_threshold FROM medications WHERE id = :id", nativeQuery = true)
+    Optional<Integer> findReorderThreshold(@Param("id") Long id);
+
+    @Modifying
+    @Query(value = "UPDATE medications SET reorder_threshold = :threshold WHERE id = :id", nativeQuery = true)
+    int updateReorderThreshold(@Param("id") Long id, @Param("threshold") Integer threshold);
 }
@@ -0,0 +1,79 @@
+package ru.bakht.pharmacy.service.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import ru.bakht.pharmacy.service.model.OrderDailyTotal;
+import ru.bakht.pharmacy.service.model.OrderDailyTotalId;
+import ru.bakht.pharmacy.service.model.dto.MedicationSalesProjection;
+import ru.bakht.pharmacy.service.model.dto.TotalOrdersProjection;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface OrderDailyTotalRepository extends JpaRepository<OrderDailyTotal, OrderDailyTotalId> {
+
+    @Query("SELECT SUM(t.totalQuantity) AS totalQuantity, SUM(t.totalAmount) AS totalAmount "
+            + "FROM OrderDailyTotal t "
+            + "WHERE t.id.orderDate BETWEEN :startDate AND :endDate")
+    TotalOrdersProjection findTotalQuantityAndAmountByDateRange(@Param("startDate") LocalDate startDate,
+                                                                @Param("endDate") LocalDate endDate);
+
+    @Query("SELECT t.id.medicationId AS medicationId, SUM(t.totalQuantity) AS salesVolume "
+            + "FROM OrderDailyTotal t "
+            + "WHERE t.id.orderDate >= :startDate "
+            + "GROUP BY t.id.medicationId")
+    List<MedicationSalesProjection> findSalesVolumeByMedicationSince(@Param("startDate") LocalDate startDate);
+
+    @Modifying
+    @Query(value = "INSERT INTO order_daily_totals "
+            + "(order_date, pharmacy_id, medication_id, total_quantity, total_amount, order_count) "
+            + "VALUES (:orderDate, :pharmacyId, :medicationId, :quantity, :amount, :orderCount) "
+            + "ON CONFLICT (order_date, pharmacy_id, medication_id) DO UPDATE SET "
+            + "total_quantity = order_daily_totals.total_quantity + EXCLUDED.total_quantity, "
+            + "total_amount = order_daily_totals.total_amount + EXCLUDED.total_amount, "
+            + "order_count = order_daily_totals.order_count + EXCLUDED.order_count",
+            nativeQuery = true)
+    int addToTotals(@Param("orderDate") LocalDate orderDate,
+                    @Param("pharmacyId") Long pharmacyId,
+                    @Param("medicationId") Long medicationId,
+                    @Param("quantity") long quantity,
+                    @Param("amount") double amount,
+                    @Param("orderCount") long orderCount);
+
+    @Modifying
+    @Query("DELETE FROM OrderDailyTotal t WHERE t.id.orderDate BETWEEN :startDate AND :endDate")
+    int deleteByDateRange(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+
+    /**
+     * Берет до конца транзакции разделяемую блокировку итогов дня. Ее берет каждое
+     * инкрементальное изменение итогов, поэтому такие изменения не ждут друг друга.
+     */
+    @Query(value = "SELECT COUNT(*) FROM pg_advisory_xact_lock_shared(:namespace, :day)", nativeQuery = true)
+    long lockDayShared(@Param("namespace") int namespace, @Param("day") int day);
+
+    /**
+     * Берет до конца транзакции исключительную блокировку итогов дня. Ее берет пересчет дня,
+     * который ждет фиксации начатых изменений итогов дня и не пропускает новые до своей фиксации.
+     */
+    @Query(value = "SELECT COUNT(*) FROM pg_advisory_xact_lock(:namespace, :day)", nativeQuery = true)
+    long lockDayExclusive(@Param("namespace") int namespace, @Param("day") int day);
+
+    /**
+     * Вставляет итоги за период, посчитанные по таблице заказов. Вызывается после удаления итогов
+     * периода под исключительной блокировкой его дней, поэтому строк итогов периода в этот момент нет.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO order_daily_totals "
+            + "(order_date, pharmacy_id, medication_id, total_quantity, total_amount, order_count) "
+            + "SELECT order_date, pharmacy_id, medication_id, SUM(quantity), COALESCE(SUM(total_amount), 0), COUNT(*) "
+            + "FROM orders "
+            + "WHERE order_date BETWEEN :startDate AND :endDate "
+            + "AND pharmacy_id IS NOT NULL AND medication_id IS NOT NULL "
+            + "GROUP BY order_date, pharmacy_id, medication_id",
+            nativeQuery = true)
+    int insertFromOrders(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+}
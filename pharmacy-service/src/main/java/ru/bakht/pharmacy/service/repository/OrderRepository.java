@@ -1,18 +1,61 @@
 package ru.bakht.pharmacy.service.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import ru.bakht.pharmacy.service.model.Order;
+import ru.bakht.pharmacy.service.model.OrderContext;
 import ru.bakht.pharmacy.service.model.dto.TotalOrdersProjection;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
+/**
+ * Репозиторий заказов.
+ * <p>
+ * Связи заказа загружаются лениво. Методы, возвращающие заказы для преобразования в DTO,
+ * явно загружают связи графом {@link Order#WITH_ASSOCIATIONS} в том же запросе.
+ * {@link #findById} загружает только заказ: изменению и удалению заказа нужны лишь
+ * идентификаторы связанных сущностей, которые доступны без инициализации прокси.
+ */
 @Repository
-public interface OrderRepository extends JpaRepository<Order, Long>, JpaSpecificationExecutor<Order> {
+public interface OrderRepository extends JpaRepository<Order, Long>, JpaSpecificationExecutor<Order>,
+        KeysetRepository<Order, Long>, OrderRowRepository {
+
+    @Override
+    @EntityGraph(Order.WITH_ASSOCIATIONS)
+    List<Order> findAll();
+
+    @Override
+    @EntityGraph(Order.WITH_ASSOCIATIONS)
+    List<Order> findAll(Specification<Order> specification);
+
+    @Override
+    @EntityGraph(Order.WITH_ASSOCIATIONS)
+    List<Order> findAllByOrderByIdAsc(Limit limit);
+
+    @Override
+    @EntityGraph(Order.WITH_ASSOCIATIONS)
+    List<Order> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    @Override
+    @Query("SELECT o FROM Order o ORDER BY o.id")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + STREAM_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @EntityGraph(Order.WITH_ASSOCIATIONS)
+    Stream<Order> streamAllByOrderByIdAsc();
 
     @Query("SELECT SUM(o.quantity) AS totalQuantity, SUM(o.totalAmount) AS totalAmount "
             + "FROM Order o "
@@ -20,9 +63,18 @@ public interface OrderRepository extends JpaRepository<Order, Long>, JpaSpecific
     TotalOrdersProjection findTotalQuantityAndAmountByDateRange(@Param("startDate") LocalDate startDate,
                                                                 @Param("endDate") LocalDate endDate);
 
-    @Query("SELECT o "
-            + "FROM Order o "
-            + "JOIN o.customer c "
-            + "WHERE c.phone = :phone")
-    List<Order> findOrdersByCustomerPhone(@Param("phone") String phone);
+    @Query("SELECT MIN(o.orderDate) FROM Order o")
+    Optional<LocalDate> findMinOrderDate();
+
+    @Query("SELECT new ru.bakht.pharmacy.service.model.OrderContext(e, c, p, m) "
+            + "FROM PharmacyMedication pm "
+            + "JOIN pm.pharmacy p "
+            + "JOIN pm.medication m, "
+            + "Employee e, Customer c "
+            + "WHERE pm.id.pharmacyId = :pharmacyId AND pm.id.medicationId = :medicationId "
+            + "AND e.id = :employeeId AND c.id = :customerId")
+    Optional<OrderContext> findOrderContext(@Param("employeeId") Long employeeId,
+                                            @Param("customerId") Long customerId,
+                                            @Param("pharmacyId") Long pharmacyId,
+                                            @Param("medicationId") Long medicationId);
 }
@@ -0,0 +1,43 @@
+package ru.bakht.pharmacy.service.repository;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.domain.Specification;
+import ru.bakht.pharmacy.service.model.Order;
+import ru.bakht.pharmacy.service.model.dto.OrderRow;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Чтение заказов сразу в форме {@link OrderRow}, без загрузки сущностей в контекст постоянства.
+ * Строки возвращаются в порядке возрастания идентификатора заказа.
+ */
+public interface OrderRowRepository {
+
+    /**
+     * Возвращает строки заказов, удовлетворяющих спецификации.
+     *
+     * @param specification условие отбора или {@code null} для всех заказов
+     * @return строки заказов
+     */
+    List<OrderRow> findRows(Specification<Order> specification);
+
+    /**
+     * Возвращает не более {@code limit} строк заказов, удовлетворяющих спецификации.
+     *
+     * @param specification условие отбора или {@code null} для всех заказов
+     * @param limit         максимальное количество строк
+     * @return строки заказов
+     */
+    List<OrderRow> findRows(Specification<Order> specification, Limit limit);
+
+    /**
+     * Возвращает строки заказов, удовлетворяющих спецификации, в виде потока.
+     * Строки читаются из курсора порциями по {@value KeysetRepository#STREAM_FETCH_SIZE}.
+     * Поток должен быть закрыт и использоваться внутри транзакции.
+     *
+     * @param specification условие отбора или {@code null} для всех заказов
+     * @return поток строк заказов
+     */
+    Stream<OrderRow> streamRows(Specification<Order> specification);
+}
@@ -0,0 +1,83 @@
+package ru.bakht.pharmacy.service.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.*;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.domain.Specification;
+import ru.bakht.pharmacy.service.model.Customer;
+import ru.bakht.pharmacy.service.model.Employee;
+import ru.bakht.pharmacy.service.model.Medication;
+import ru.bakht.pharmacy.service.model.Order;
+import ru.bakht.pharmacy.service.model.Pharmacy;
+import ru.bakht.pharmacy.service.model.dto.OrderRow;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Реализация {@link OrderRowRepository} на Criteria API.
+ * <p>
+ * Связанные таблицы присоединяются левым соединением, и выбираются только колонки,
+ * нужные {@link OrderRow}. Hibernate не создает сущности и прокси, не хранит снимки состояния
+ * и не выполняет отдельные запросы для связей, загружаемых немедленно.
+ */
+class OrderRowRepositoryImpl implements OrderRowRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<OrderRow> findRows(Specification<Order> specification) {
+        return query(specification).getResultList();
+    }
+
+    @Override
+    public List<OrderRow> findRows(Specification<Order> specification, Limit limit) {
+        TypedQuery<OrderRow> query = query(specification);
+        if (limit.isLimited()) {
+            query.setMaxResults(limit.max());
+        }
+        return query.getResultList();
+    }
+
+    @Override
+    public Stream<OrderRow> streamRows(Specification<Order> specification) {
+        return query(specification)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, KeysetRepository.STREAM_FETCH_SIZE)
+                .getResultStream();
+    }
+
+    private TypedQuery<OrderRow> query(Specification<Order> specification) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<OrderRow> query = cb.createQuery(OrderRow.class);
+        Root<Order> order = query.from(Order.class);
+        Join<Order, Customer> customer = order.join("customer", JoinType.LEFT);
+        Join<Order, Employee> employee = order.join("employee", JoinType.LEFT);
+        Join<Employee, Pharmacy> employeePharmacy = employee.join("pharmacy", JoinType.LEFT);
+        Join<Order, Pharmacy> pharmacy = order.join("pharmacy", JoinType.LEFT);
+        Join<Order, Medication> medication = order.join("medication", JoinType.LEFT);
+
+        query.select(cb.construct(OrderRow.class,
+                order.get("id"),
+                customer.get("id"), customer.get("name"), customer.get("address"), customer.get("phone"),
+                employee.get("id"), employee.get("name"), employee.get("position"), employee.get("email"),
+                employeePharmacy.get("id"), employeePharmacy.get("name"), employeePharmacy.get("address"),
+                employeePharmacy.get("phone"),
+                pharmacy.get("id"), pharmacy.get("name"), pharmacy.get("address"), pharmacy.get("phone"),
+                medication.get("id"), medication.get("name"), medication.get("form"), medication.get("price"),
+                medication.get("expirationDate"),
+                order.get("quantity"), order.get("totalAmount"), order.get("orderDate"), order.get("orderStatus")));
+
+        if (specification != null) {
+            Predicate predicate = specification.toPredicate(order, query, cb);
+            if (predicate != null) {
+                query.where(predicate);
+            }
+        }
+        query.orderBy(cb.asc(order.get("id")));
+        return entityManager.createQuery(query);
+    }
+}
@@ -0,0 +1,36 @@
+package ru.bakht.pharmacy.service.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import ru.bakht.pharmacy.service.model.OutboxEvent;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    /**
+     * Блокирует и возвращает первые неопубликованные события. События, заблокированные
+     * другими экземплярами, пропускаются, поэтому экземпляры разбирают разные порции.
+     */
+    @Query(value = "SELECT * FROM outbox_events "
+            + "WHERE published_at IS NULL "
+            + "ORDER BY id "
+            + "LIMIT :limit "
+            + "FOR UPDATE SKIP LOCKED",
+            nativeQuery = true)
+    List<OutboxEvent> lockUnpublished(@Param("limit") Integer limit);
+
+    @Modifying
+    @Query(value = "UPDATE outbox_events SET published_at = now() WHERE id IN (:ids)", nativeQuery = true)
+    int markPublished(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query(value = "DELETE FROM outbox_events WHERE published_at < :before", nativeQuery = true)
+    int deletePublishedBefore(@Param("before") LocalDateTime before);
+}
@@ -0,0 +1,125 @@
+package ru.bakht.pharmacy.service.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import ru.bakht.pharmacy.service.model.PharmacyMedication;
+import ru.bakht.pharmacy.service.model.PharmacyMedicationId;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface PharmacyMedicationRepository extends JpaRepository<PharmacyMedication, PharmacyMedicationId> {
+
+    @Modifying
+    @Query(value = "UPDATE pharmacy_medications "
+            + "SET quantity = quantity - :quantity "
+            + "WHERE pharmacy_id = :pharmacyId AND medication_id = :medicationId AND quantity >= :quantity",
+            nativeQuery = true)
+    int decrementQuantity(@Param("pharmacyId") Long pharmacyId,
+                          @Param("medicationId") Long medicationId,
+                          @Param("quantity") Integer quantity);
+
+    @Modifying
+    @Query(value = "UPDATE pharmacy_medications "
+            + "SET quantity = quantity + :quantity "
+            + "WHERE pharmacy_id = :pharmacyId AND medication_id = :medicationId",
+            nativeQuery = true)
+    int incrementQuantity(@Param("pharmacyId") Long pharmacyId,
+                          @Param("medicationId") Long medicationId,
+                          @Param("quantity") Integer quantity);
+
+    /**
+     * Переключает отметку о низком остатке, если остаток пересек порог пополнения строки: ставит ее
+     * при падении остатка ниже порога и снимает при пополнении до порога плюс {@code rearmMargin}.
+     * Отметка о доставленном уведомлении в обоих случаях сбрасывается.
+     *
+     * @return новое значение отметки или пустой список, если отметка не изменилась
+     */
+    @Query(value = "UPDATE pharmacy_medications "
+            + "SET low_stock_alerted = quantity < reorder_threshold, low_stock_notified = FALSE "
+            + "WHERE pharmacy_id = :pharmacyId AND medication_id = :medicationId "
+            + "AND (quantity < reorder_threshold AND NOT low_stock_alerted "
+            + "OR quantity >= reorder_threshold + :rearmMargin AND low_stock_alerted) "
+            + "RETURNING low_stock_alerted",
+            nativeQuery = true)
+    List<Boolean> updateLowStockAlerted(@Param("pharmacyId") Long pharmacyId,
+                                        @Param("medicationId") Long medicationId,
+                                        @Param("rearmMargin") Integer rearmMargin);
+
+    /**
+     * Возвращает по возрастанию идентификаторы аптек сегмента {@code shard} из {@code shards},
+     * в которых есть лекарства ниже порога пополнения без доставленного уведомления.
+     * Читает только частичный индекс {@code idx_pharmacy_medications_below_threshold}.
+     */
+    @Query(value = "SELECT DISTINCT CAST(pharmacy_id AS BIGINT) AS pharmacy_id FROM pharmacy_medications "
+            + "WHERE quantity < reorder_threshold AND NOT low_stock_notified "
+            + "AND MOD(pharmacy_id, :shards) = :shard AND pharmacy_id > :afterPharmacyId "
+            + "ORDER BY pharmacy_id "
+            + "LIMIT :limit",
+            nativeQuery = true)
+    List<Long> findPharmacyIdsWithUnnotifiedLowStock(@Param("shards") Integer shards,
+                                                     @Param("shard") Integer shard,
+                                                     @Param("afterPharmacyId") Long afterPharmacyId,
+                                                     @Param("limit") Integer limit);
+
+    /**
+     * Возвращает лекарства аптек ниже порога пополнения без доставленного уведомления
+     * вместе с аптекой и лекарством.
+     */
+    @Query("SELECT pm FROM PharmacyMedication pm JOIN FETCH pm.pharmacy JOIN FETCH pm.medication "
+            + "WHERE pm.id.pharmacyId IN :pharmacyIds "
+            + "AND pm.quantity < pm.reorderThreshold AND pm.lowStockNotified = false")
+    List<PharmacyMedication> findUnnotifiedLowStock(@Param("pharmacyIds") Collection<Long> pharmacyIds);
+
+    /**
+     * Ставит отметки о низком остатке и о доставленном уведомлении лекарствам аптеки,
+     * уведомление о которых доставлено, если их остаток все еще ниже порога пополнения.
+     *
+     * @return количество отмеченных строк
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE pharmacy_medications "
+            + "SET low_stock_alerted = TRUE, low_stock_notified = TRUE "
+            + "WHERE pharmacy_id = :pharmacyId AND medication_id IN (:medicationIds) "
+            + "AND quantity < reorder_threshold",
+            nativeQuery = true)
+    int markLowStockNotified(@Param("pharmacyId") Long pharmacyId,
+                             @Param("medicationIds") Collection<Long> medicationIds);
+
+    /**
+     * Снимает отметки о низком остатке и о доставленном уведомлении со строк сегмента
+     * {@code shard} из {@code shards}, пополненных до порога плюс {@code rearmMargin}.
+     * Читает только частичный индекс {@code idx_pharmacy_medications_low_stock_alerted}.
+     *
+     * @return количество строк, с которых снята отметка
+     */
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE pharmacy_medications "
+            + "SET low_stock_alerted = FALSE, low_stock_notified = FALSE "
+            + "WHERE low_stock_alerted AND quantity >= reorder_threshold + :rearmMargin "
+            + "AND MOD(pharmacy_id, :shards) = :shard",
+            nativeQuery = true)
+    int clearReplenishedAlerts(@Param("rearmMargin") Integer rearmMargin,
+                               @Param("shards") Integer shards,
+                               @Param("shard") Integer shard);
+
+    /**
+     * Переносит новый порог пополнения лекарства во все аптеки, где порог не задан отдельно.
+     *
+     * @return количество обновленных строк
+     */
+    @Modifying
+    @Query(value = "UPDATE pharmacy_medications "
+            + "SET reorder_threshold = :threshold "
+            + "WHERE medication_id = :medicationId AND reorder_threshold_inherited",
+            nativeQuery = true)
+    int updateInheritedReorderThreshold(@Param("medicationId") Long medicationId,
+                                        @Param("threshold") Integer threshold);
+}
@@ -6,5 +6,6 @@ import org.springframework.stereotype.Repository;
 import ru.bakht.pharmacy.service.model.Pharmacy;
 
 @Repository
-public interface PharmacyRepository extends JpaRepository<Pharmacy, Long>, JpaSpecificationExecutor<Pharmacy> {
+public interface PharmacyRepository extends JpaRepository<Pharmacy, Long>, JpaSpecificationExecutor<Pharmacy>,
+        KeysetRepository<Pharmacy, Long> {
 }
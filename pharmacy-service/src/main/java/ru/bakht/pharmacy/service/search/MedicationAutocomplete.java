@@ -0,0 +1,369 @@
+package ru.bakht.pharmacy.service.search;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import ru.bakht.pharmacy.service.model.dto.MedicationSalesProjection;
+import ru.bakht.pharmacy.service.model.dto.MedicationSuggestionDto;
+import ru.bakht.pharmacy.service.repository.OrderDailyTotalRepository;
+
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Подсказки по названиям лекарств для ввода с клавиатуры.
+ * <p>
+ * Хранит отсортированный массив ключей (название лекарства в нижнем регистре, начиная
+ * с каждого слова) и параллельные массивы идентификаторов и объемов продаж лекарств
+ * за последние дни по дневным итогам заказов. Ключи с заданным префиксом образуют
+ * непрерывный отрезок массива, который находится двоичным поиском; из него выбираются
+ * лекарства с наибольшими продажами без создания промежуточных объектов.
+ * Для префиксов из одного-двух символов отрезок может занимать заметную часть массива,
+ * поэтому лучшие лекарства для каждого такого префикса вычисляются заранее при построении.
+ * <p>
+ * Массив не изменяется после построения, поэтому чтение не требует блокировок.
+ * Создание, изменение и удаление лекарства заменяют массив копией с измененными ключами
+ * этого лекарства; объемы продаж пересчитываются периодически вместе с полным построением.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MedicationAutocomplete {
+
+    /**
+     * Наибольшая длина префикса, для которого подсказки вычисляются заранее.
+     */
+    private static final int SHORT_PREFIX_LENGTH = 2;
+
+    /**
+     * Количество подсказок, вычисляемых заранее для короткого префикса; совпадает
+     * с наибольшим лимитом подсказок в API.
+     */
+    private static final int SHORT_PREFIX_LIMIT = 50;
+
+    private final OrderDailyTotalRepository orderDailyTotalRepository;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${search.autocomplete.sales-days}")
+    private int salesDays;
+
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+    private Map<Long, String> changesDuringRebuild;
+
+    /**
+     * Возвращает лекарства, название или одно из слов названия которых начинается с префикса,
+     * в порядке убывания объема продаж.
+     *
+     * @param prefix начало названия
+     * @param limit  максимальное количество подсказок
+     * @return подсказки
+     */
+    public List<MedicationSuggestionDto> suggest(String prefix, int limit) {
+        String normalized = normalize(prefix).stripLeading();
+        if (normalized.isEmpty()) {
+            return List.of();
+        }
+
+        Snapshot current = snapshot;
+        int[] top = normalized.length() <= SHORT_PREFIX_LENGTH && limit <= SHORT_PREFIX_LIMIT
+                ? current.shortPrefixTops.getOrDefault(normalized, Snapshot.NO_SUGGESTIONS)
+                : current.top(normalized, limit);
+        int size = Math.min(limit, top.length);
+
+        List<MedicationSuggestionDto> suggestions = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            suggestions.add(new MedicationSuggestionDto(current.ids[top[i]], current.names[top[i]]));
+        }
+        return suggestions;
+    }
+
+    /**
+     * Добавляет или обновляет лекарство после фиксации текущей транзакции.
+     *
+     * @param id   идентификатор лекарства
+     * @param name название лекарства
+     */
+    public void put(Long id, String name) {
+        AfterCommit.run(() -> apply(id, name));
+    }
+
+    /**
+     * Удаляет лекарство после фиксации текущей транзакции.
+     *
+     * @param id идентификатор лекарства
+     */
+    public void remove(Long id) {
+        AfterCommit.run(() -> apply(id, null));
+    }
+
+    /**
+     * Строит подсказки заново по названиям лекарств и объемам продаж.
+     * Изменения, примененные во время построения, повторяются на новом массиве.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${search.autocomplete.refresh-interval}",
+            initialDelayString = "${search.autocomplete.refresh-interval}")
+    @Transactional(readOnly = true)
+    public void rebuild() {
+        synchronized (this) {
+            changesDuringRebuild = new LinkedHashMap<>();
+        }
+
+        try {
+            Map<Long, String> names = new HashMap<>();
+            entityManager.createQuery("SELECT m.id, m.name FROM Medication m", Object[].class)
+                    .getResultList()
+                    .stream()
+                    .filter(row -> row[1] != null)
+                    .forEach(row -> names.put((Long) row[0], (String) row[1]));
+
+            Map<Long, Long> salesVolumes = new HashMap<>();
+            orderDailyTotalRepository.findSalesVolumeByMedicationSince(LocalDate.now().minusDays(salesDays))
+                    .forEach(sales -> salesVolumes.put(sales.getMedicationId(), sales.getSalesVolume()));
+
+            synchronized (this) {
+                Snapshot rebuilt = Snapshot.of(names, salesVolumes);
+                for (var change : changesDuringRebuild.entrySet()) {
+                    rebuilt = rebuilt.with(change.getKey(), change.getValue());
+                }
+                snapshot = rebuilt;
+            }
+            log.info("Подсказки по названиям лекарств построены, лекарств: {}", names.size());
+        } finally {
+            synchronized (this) {
+                changesDuringRebuild = null;
+            }
+        }
+    }
+
+    private synchronized void apply(long id, String name) {
+        snapshot = snapshot.with(id, name);
+        if (changesDuringRebuild != null) {
+            changesDuringRebuild.put(id, name);
+        }
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Неизменяемый набор ключей с параллельными массивами идентификаторов, названий
+     * и объемов продаж лекарств, а также заранее вычисленными подсказками для коротких префиксов.
+     */
+    private static final class Snapshot {
+
+        static final int[] NO_SUGGESTIONS = new int[0];
+        static final Snapshot EMPTY = new Snapshot(new String[0], new long[0], new String[0], new long[0], Map.of());
+
+        final String[] keys;
+        final long[] ids;
+        final String[] names;
+        final long[] sales;
+        final Map<Long, Long> salesVolumes;
+        final Map<String, int[]> shortPrefixTops = new HashMap<>();
+
+        private Snapshot(String[] keys, long[] ids, String[] names, long[] sales, Map<Long, Long> salesVolumes) {
+            this.keys = keys;
+            this.ids = ids;
+            this.names = names;
+            this.sales = sales;
+            this.salesVolumes = salesVolumes;
+        }
+
+        static Snapshot of(Map<Long, String> names, Map<Long, Long> salesVolumes) {
+            List<Key> keys = new ArrayList<>();
+            names.forEach((id, name) -> keys.addAll(keys(id, name)));
+            keys.sort(null);
+
+            String[] keyArray = new String[keys.size()];
+            long[] ids = new long[keys.size()];
+            String[] nameArray = new String[keys.size()];
+            long[] sales = new long[keys.size()];
+            for (int i = 0; i < keys.size(); i++) {
+                keyArray[i] = keys.get(i).key();
+                ids[i] = keys.get(i).id();
+                nameArray[i] = names.get(ids[i]);
+                sales[i] = salesVolumes.getOrDefault(ids[i], 0L);
+            }
+            var snapshot = new Snapshot(keyArray, ids, nameArray, sales, Map.copyOf(salesVolumes));
+            for (int i = 0; i < keyArray.length; i++) {
+                for (int length = 1; length <= Math.min(SHORT_PREFIX_LENGTH, keyArray[i].length()); length++) {
+                    if (i == 0 || !keyArray[i - 1].regionMatches(0, keyArray[i], 0, length)) {
+                        snapshot.computeShortPrefixTop(keyArray[i].substring(0, length));
+                    }
+                }
+            }
+            return snapshot;
+        }
+
+        /**
+         * Возвращает копию, в которой ключи лекарства построены по новому названию.
+         * Название {@code null} удаляет лекарство. Заранее вычисленные подсказки пересчитываются
+         * только для коротких префиксов ключей лекарства, у остальных лишь сдвигаются позиции.
+         */
+        Snapshot with(long id, String name) {
+            List<Key> added = keys(id, name);
+            added.sort(null);
+            long addedSales = salesVolumes.getOrDefault(id, 0L);
+
+            Set<String> changedPrefixes = new HashSet<>();
+            added.forEach(key -> addShortPrefixes(changedPrefixes, key.key()));
+            int removed = 0;
+            for (int i = 0; i < ids.length; i++) {
+                if (ids[i] == id) {
+                    removed++;
+                    addShortPrefixes(changedPrefixes, keys[i]);
+                }
+            }
+
+            int length = keys.length - removed + added.size();
+            var merged = new Snapshot(new String[length], new long[length], new String[length], new long[length],
+                    salesVolumes);
+            int[] positions = new int[keys.length];
+            int next = 0;
+            int position = 0;
+            for (int i = 0; i < keys.length; i++) {
+                if (ids[i] == id) {
+                    continue;
+                }
+                while (next < added.size() && added.get(next).compareTo(keys[i], ids[i]) < 0) {
+                    merged.set(position++, added.get(next++).key(), id, name, addedSales);
+                }
+                positions[i] = position;
+                merged.set(position++, keys[i], ids[i], names[i], sales[i]);
+            }
+            while (next < added.size()) {
+                merged.set(position++, added.get(next++).key(), id, name, addedSales);
+            }
+
+            shortPrefixTops.forEach((prefix, top) -> {
+                if (!changedPrefixes.contains(prefix)) {
+                    int[] shifted = new int[top.length];
+                    for (int i = 0; i < top.length; i++) {
+                        shifted[i] = positions[top[i]];
+                    }
+                    merged.shortPrefixTops.put(prefix, shifted);
+                }
+            });
+            changedPrefixes.forEach(merged::computeShortPrefixTop);
+            return merged;
+        }
+
+        /**
+         * Выбирает позиции ключей с префиксом, принадлежащих лекарствам с наибольшими продажами,
+         * по одной на лекарство, в порядке убывания продаж.
+         */
+        int[] top(String prefix, int limit) {
+            int[] top = new int[limit];
+            int size = 0;
+
+            for (int i = lowerBound(prefix); i < keys.length && keys[i].startsWith(prefix); i++) {
+                if (size == limit && !ranksHigher(i, top[size - 1]) || containsId(top, size, i)) {
+                    continue;
+                }
+
+                int position = size < limit ? size++ : size - 1;
+                while (position > 0 && ranksHigher(i, top[position - 1])) {
+                    top[position] = top[position - 1];
+                    position--;
+                }
+                top[position] = i;
+            }
+            return size == limit ? top : Arrays.copyOf(top, size);
+        }
+
+        private void computeShortPrefixTop(String prefix) {
+            int[] top = top(prefix, SHORT_PREFIX_LIMIT);
+            if (top.length > 0) {
+                shortPrefixTops.put(prefix, top);
+            }
+        }
+
+        private static void addShortPrefixes(Set<String> prefixes, String key) {
+            for (int length = 1; length <= Math.min(SHORT_PREFIX_LENGTH, key.length()); length++) {
+                prefixes.add(key.substring(0, length));
+            }
+        }
+
+        int lowerBound(String prefix) {
+            int low = 0;
+            int high = keys.length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (keys[middle].compareTo(prefix) < 0) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * Лекарство выше в подсказках, если у него больше продаж, а при равных продажах —
+         * если его название раньше по алфавиту.
+         */
+        boolean ranksHigher(int index, int otherIndex) {
+            if (sales[index] != sales[otherIndex]) {
+                return sales[index] > sales[otherIndex];
+            }
+            int byName = names[index].compareTo(names[otherIndex]);
+            return byName != 0 ? byName < 0 : ids[index] < ids[otherIndex];
+        }
+
+        boolean containsId(int[] indexes, int size, int index) {
+            for (int i = 0; i < size; i++) {
+                if (ids[indexes[i]] == ids[index]) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void set(int index, String key, long id, String name, long salesVolume) {
+            keys[index] = key;
+            ids[index] = id;
+            names[index] = name;
+            sales[index] = salesVolume;
+        }
+
+        private static List<Key> keys(long id, String name) {
+            List<Key> keys = new ArrayList<>();
+            if (name == null) {
+                return keys;
+            }
+
+            String normalized = normalize(name);
+            for (int i = 0; i < normalized.length(); i++) {
+                boolean wordStart = i == 0 || !Character.isLetterOrDigit(normalized.charAt(i - 1));
+                if (wordStart && Character.isLetterOrDigit(normalized.charAt(i))) {
+                    keys.add(new Key(normalized.substring(i), id));
+                }
+            }
+            return keys;
+        }
+    }
+
+    private record Key(String key, long id) implements Comparable<Key> {
+
+        @Override
+        public int compareTo(Key other) {
+            return compareTo(other.key, other.id);
+        }
+
+        int compareTo(String otherKey, long otherId) {
+            int result = key.compareTo(otherKey);
+            return result != 0 ? result : Long.compare(id, otherId);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package ru.bakht.pharmacy.service.search;
+
+import ru.bakht.pharmacy.service.model.Customer;
+import ru.bakht.pharmacy.service.model.Employee;
+import ru.bakht.pharmacy.service.model.Medication;
+import ru.bakht.pharmacy.service.model.Pharmacy;
+
+import java.util.function.Function;
+
+/**
+ * Текстовые поля сущностей, по которым строится триграммный индекс.
+ */
+public enum SearchField {
+
+    MEDICATION_NAME(Medication.class, "name", Medication::getId, Medication::getName),
+    CUSTOMER_NAME(Customer.class, "name", Customer::getId, Customer::getName),
+    CUSTOMER_ADDRESS(Customer.class, "address", Customer::getId, Customer::getAddress),
+    EMPLOYEE_NAME(Employee.class, "name", Employee::getId, Employee::getName),
+    EMPLOYEE_EMAIL(Employee.class, "email", Employee::getId, Employee::getEmail),
+    PHARMACY_NAME(Pharmacy.class, "name", Pharmacy::getId, Pharmacy::getName),
+    PHARMACY_ADDRESS(Pharmacy.class, "address", Pharmacy::getId, Pharmacy::getAddress);
+
+    private final Class<?> entityType;
+    private final String attribute;
+    private final Function<Object, Long> id;
+    private final Function<Object, String> value;
+
+    <T> SearchField(Class<T> entityType, String attribute, Function<T, Long> id, Function<T, String> value) {
+        this.entityType = entityType;
+        this.attribute = attribute;
+        this.id = entity -> id.apply(entityType.cast(entity));
+        this.value = entity -> value.apply(entityType.cast(entity));
+    }
+
+    public boolean supports(Object entity) {
+        return entityType.isInstance(entity);
+    }
+
+    public Long id(Object entity) {
+        return id.apply(entity);
+    }
+
+    public String value(Object entity) {
+        return value.apply(entity);
+    }
+
+    /**
+     * Запрос, возвращающий идентификаторы и значения поля всех сущностей.
+     */
+    String selectAllQuery() {
+        return "SELECT e.id, e." + attribute + " FROM " + entityType.getSimpleName() + " e";
+    }
+}
@@ -0,0 +1,167 @@
+package ru.bakht.pharmacy.service.search;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import ru.bakht.pharmacy.service.repository.KeysetRepository;
+
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Триграммные индексы текстовых полей сущностей для фильтров по подстроке.
+ * <p>
+ * Условие {@code lower(col) LIKE '%x%'} не использует B-tree индексы, поэтому каждый такой
+ * фильтр читает таблицу целиком. Индекс возвращает идентификаторы кандидатов, которые
+ * добавляются к запросу условием по первичному ключу; исходное условие LIKE остается
+ * и перепроверяет найденные строки.
+ * <p>
+ * Индексы обновляются событиями жизненного цикла сущностей после фиксации транзакции,
+ * а изменения рассылаются другим экземплярам приложения через Redis pub/sub
+ * ({@link TextSearchIndexPublisher}). Сообщения pub/sub не гарантируют доставку, поэтому индексы
+ * еще и периодически строятся заново, что учитывает и изменения, сделанные напрямую в базе.
+ * Пока индексы не построены, если кандидатов слишком много,
+ * а также если подстрока содержит символы шаблона LIKE, фильтр выполняется без индекса:
+ * индекс ищет подстроку буквально, а LIKE трактует {@code %} и {@code _} как подстановочные.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TextSearchIndex implements MessageListener {
+
+    private static final String LIKE_METACHARACTERS = "%_\\";
+
+    private final TextSearchIndexPublisher publisher;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${search.index.max-candidates}")
+    private int maxCandidates;
+
+    private volatile Map<SearchField, TrigramIndex> indexes;
+    private volatile Map<SearchField, TrigramIndex> building;
+
+    /**
+     * Строит индексы всех полей заново и заменяет ими текущие.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${search.index.refresh-interval}",
+            initialDelayString = "${search.index.refresh-interval}")
+    @Transactional(readOnly = true)
+    public synchronized void rebuild() {
+        long start = System.nanoTime();
+        Map<SearchField, TrigramIndex> rebuilt = new EnumMap<>(SearchField.class);
+        for (SearchField field : SearchField.values()) {
+            rebuilt.put(field, new TrigramIndex());
+        }
+        building = rebuilt;
+
+        try {
+            for (SearchField field : SearchField.values()) {
+                load(field, rebuilt.get(field));
+            }
+            indexes = rebuilt;
+        } finally {
+            building = null;
+        }
+        log.info("Поисковые индексы построены за {} мс", (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Возвращает условие по идентификаторам сущностей, поле которых содержит подстроку.
+     *
+     * @param field поле сущности
+     * @param query искомая подстрока
+     * @param <T>   тип сущности
+     * @return условие по первичному ключу или {@code null}, если индекс не может сузить выборку
+     */
+    public <T> Specification<T> hasCandidateId(SearchField field, String query) {
+        Map<SearchField, TrigramIndex> current = indexes;
+        if (query == null || current == null || containsLikeMetacharacters(query)) {
+            return null;
+        }
+
+        Set<Long> ids = current.get(field).search(query);
+        if (ids.size() > maxCandidates) {
+            log.debug("Поиск {} по {} дал {} кандидатов, индекс не используется", query, field, ids.size());
+            return null;
+        }
+        return (root, criteriaQuery, builder) -> ids.isEmpty() ? builder.disjunction() : root.get("id").in(ids);
+    }
+
+    /**
+     * Обновляет значения полей сущности в индексах.
+     *
+     * @param entity сохраненная сущность
+     */
+    public void update(Object entity) {
+        apply(entity, false);
+    }
+
+    /**
+     * Удаляет сущность из индексов.
+     *
+     * @param entity удаленная сущность
+     */
+    public void remove(Object entity) {
+        apply(entity, true);
+    }
+
+    /**
+     * Применяет изменение индекса, полученное от другого экземпляра приложения.
+     */
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        publisher.parse(new String(message.getBody(), StandardCharsets.UTF_8))
+                .ifPresent(change -> put(change.field(), change.id(), change.value()));
+    }
+
+    private static boolean containsLikeMetacharacters(String query) {
+        return query.chars().anyMatch(c -> LIKE_METACHARACTERS.indexOf(c) >= 0);
+    }
+
+    private void apply(Object entity, boolean removed) {
+        for (SearchField field : SearchField.values()) {
+            if (!field.supports(entity) || field.id(entity) == null) {
+                continue;
+            }
+            long id = field.id(entity);
+            String value = removed ? null : field.value(entity);
+            put(field, id, value);
+            publisher.publishUpdate(field, id, value);
+        }
+    }
+
+    private void put(SearchField field, long id, String value) {
+        Stream.of(indexes, building)
+                .filter(Objects::nonNull)
+                .map(fieldIndexes -> fieldIndexes.get(field))
+                .forEach(index -> index.put(id, value));
+    }
+
+    private void load(SearchField field, TrigramIndex index) {
+        try (Stream<Object[]> rows = entityManager.createQuery(field.selectAllQuery(), Object[].class)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, KeysetRepository.STREAM_FETCH_SIZE)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream()) {
+            rows.forEach(row -> index.put((Long) row[0], (String) row[1]));
+        }
+        log.debug("Индекс {} содержит значений: {}", field, index.size());
+    }
+}
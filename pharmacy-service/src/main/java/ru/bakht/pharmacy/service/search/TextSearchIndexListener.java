@@ -0,0 +1,31 @@
+package ru.bakht.pharmacy.service.search;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+
+/**
+ * Слушатель событий жизненного цикла сущностей, поддерживающий {@link TextSearchIndex}.
+ * <p>
+ * Экземпляр создается Spring через контейнер бинов Hibernate. Индекс получается лениво,
+ * так как слушатель создается вместе с фабрикой {@code EntityManager}. Изменения применяются
+ * после фиксации транзакции.
+ */
+@RequiredArgsConstructor
+public class TextSearchIndexListener {
+
+    private final ObjectProvider<TextSearchIndex> textSearchIndex;
+
+    @PostPersist
+    @PostUpdate
+    void onSave(Object entity) {
+        AfterCommit.run(() -> textSearchIndex.ifAvailable(index -> index.update(entity)));
+    }
+
+    @PostRemove
+    void onRemove(Object entity) {
+        AfterCommit.run(() -> textSearchIndex.ifAvailable(index -> index.remove(entity)));
+    }
+}
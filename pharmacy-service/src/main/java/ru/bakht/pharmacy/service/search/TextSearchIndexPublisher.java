@@ -0,0 +1,78 @@
+package ru.bakht.pharmacy.service.search;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Рассылает другим экземплярам приложения через Redis pub/sub изменения значений
+ * полей, проиндексированных {@link TextSearchIndex}.
+ * <p>
+ * Формат сообщения: идентификатор отправителя, поле, идентификатор сущности и новое значение,
+ * разделенные переводом строки. Сообщение без значения удаляет сущность из индекса поля.
+ */
+@Slf4j
+public class TextSearchIndexPublisher {
+
+    private static final String SEPARATOR = "\n";
+
+    private final StringRedisTemplate redisTemplate;
+    private final String channel;
+    private final String instanceId = UUID.randomUUID().toString();
+
+    public TextSearchIndexPublisher(StringRedisTemplate redisTemplate, String channel) {
+        this.redisTemplate = redisTemplate;
+        this.channel = channel;
+    }
+
+    /**
+     * Рассылает новое значение поля сущности.
+     *
+     * @param field поле сущности
+     * @param id    идентификатор сущности
+     * @param value новое значение или {@code null}, если сущность удалена
+     */
+    public void publishUpdate(SearchField field, long id, String value) {
+        publish(instanceId + SEPARATOR + field.name() + SEPARATOR + id + (value != null ? SEPARATOR + value : ""));
+    }
+
+    /**
+     * Разбирает сообщение об изменении индекса.
+     *
+     * @param message текст сообщения
+     * @return изменение или пустой результат, если сообщение отправлено этим же экземпляром
+     */
+    Optional<Change> parse(String message) {
+        String[] parts = message.split(SEPARATOR, 4);
+        if (parts.length < 3 || instanceId.equals(parts[0])) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(new Change(SearchField.valueOf(parts[1]), Long.parseLong(parts[2]),
+                    parts.length == 4 ? parts[3] : null));
+        } catch (IllegalArgumentException e) {
+            log.warn("Пропущено некорректное сообщение об изменении поискового индекса: {}", message);
+            return Optional.empty();
+        }
+    }
+
+    private void publish(String message) {
+        try {
+            redisTemplate.convertAndSend(channel, message);
+        } catch (Exception e) {
+            log.warn("Не удалось отправить изменение поискового индекса в канал {}", channel, e);
+        }
+    }
+
+    /**
+     * Изменение значения поля сущности.
+     *
+     * @param field поле сущности
+     * @param id    идентификатор сущности
+     * @param value новое значение или {@code null}, если сущность удалена из индекса поля
+     */
+    record Change(SearchField field, long id, String value) {
+    }
+}
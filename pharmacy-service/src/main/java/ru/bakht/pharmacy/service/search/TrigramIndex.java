@@ -0,0 +1,143 @@
+package ru.bakht.pharmacy.service.search;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Триграммный индекс строковых значений для поиска по подстроке без учета регистра.
+ * <p>
+ * Для каждой последовательности из трех символов хранится множество идентификаторов,
+ * в значениях которых она встречается. Кандидаты на совпадение получаются пересечением
+ * множеств триграмм запроса, начиная с самого короткого, и проверяются по сохраненному
+ * значению. Запросы короче трех символов проверяются перебором значений.
+ */
+public class TrigramIndex {
+
+    private static final int GRAM_LENGTH = 3;
+
+    private final Map<Long, String> values = new HashMap<>();
+    private final Map<String, Set<Long>> postings = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    /**
+     * Добавляет или заменяет значение. Значение {@code null} удаляет идентификатор из индекса.
+     *
+     * @param id    идентификатор сущности
+     * @param value индексируемое значение
+     */
+    public void put(long id, String value) {
+        lock.writeLock().lock();
+        try {
+            removeUnlocked(id);
+            if (value == null) {
+                return;
+            }
+
+            String normalized = normalize(value);
+            values.put(id, normalized);
+            for (String gram : grams(normalized)) {
+                postings.computeIfAbsent(gram, key -> new HashSet<>()).add(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Удаляет идентификатор из индекса.
+     *
+     * @param id идентификатор сущности
+     */
+    public void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            removeUnlocked(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Находит идентификаторы, значения которых содержат подстроку.
+     *
+     * @param query искомая подстрока
+     * @return идентификаторы совпавших значений
+     */
+    public Set<Long> search(String query) {
+        String normalized = normalize(query);
+
+        lock.readLock().lock();
+        try {
+            if (normalized.length() < GRAM_LENGTH) {
+                return matching(values.keySet(), normalized);
+            }
+
+            List<Set<Long>> candidates = new ArrayList<>();
+            for (String gram : grams(normalized)) {
+                Set<Long> ids = postings.get(gram);
+                if (ids == null) {
+                    return Set.of();
+                }
+                candidates.add(ids);
+            }
+            candidates.sort(Comparator.comparingInt(Set::size));
+
+            Set<Long> result = new HashSet<>(candidates.get(0));
+            for (int i = 1; i < candidates.size() && !result.isEmpty(); i++) {
+                result.retainAll(candidates.get(i));
+            }
+            return matching(result, normalized);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Возвращает количество проиндексированных значений.
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return values.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void removeUnlocked(long id) {
+        String previous = values.remove(id);
+        if (previous == null) {
+            return;
+        }
+
+        for (String gram : grams(previous)) {
+            Set<Long> ids = postings.get(gram);
+            if (ids != null && ids.remove(id) && ids.isEmpty()) {
+                postings.remove(gram);
+            }
+        }
+    }
+
+    private Set<Long> matching(Collection<Long> ids, String normalized) {
+        Set<Long> result = new HashSet<>();
+        for (Long id : ids) {
+            if (values.get(id).contains(normalized)) {
+                result.add(id);
+            }
+        }
+        return result;
+    }
+
+    private static Set<String> grams(String normalized) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM_LENGTH <= normalized.length(); i++) {
+            grams.add(normalized.substring(i, i + GRAM_LENGTH));
+        }
+        return grams;
+    }
+
+    private static String normalize(String value) {
+        return value.toLowerCase(Locale.ROOT);
+    }
+}
@@ -1,8 +1,10 @@
 package ru.bakht.pharmacy.service.service;
 
 import ru.bakht.pharmacy.service.exception.EntityNotFoundException;
+import ru.bakht.pharmacy.service.model.dto.KeysetPageDto;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Базовый интерфейс для управления сущностями.
@@ -19,6 +21,24 @@ public interface BaseService<T, ID extends Number> {
      */
     List<T> getAll();
 
+    /**
+     * Возвращает страницу сущностей, отсортированных по идентификатору,
+     * начиная со следующей после {@code afterId}.
+     *
+     * @param afterId идентификатор последней сущности предыдущей страницы или {@code null} для первой страницы.
+     * @param size размер страницы.
+     * @return страница объектов типа T и курсор следующей страницы.
+     */
+    KeysetPageDto<T, ID> getPage(ID afterId, int size);
+
+    /**
+     * Передает все сущности в порядке возрастания идентификатора по одной,
+     * не загружая всю таблицу в память.
+     *
+     * @param consumer обработчик объектов типа T.
+     */
+    void streamAll(Consumer<T> consumer);
+
     /**
      * Ищет сущность по её идентификатору.
      *
@@ -1,5 +1,7 @@
 package ru.bakht.pharmacy.service.service;
 
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.jpa.domain.Specification;
@@ -9,10 +11,14 @@ import ru.bakht.pharmacy.service.exception.EntityNotFoundException;
 import ru.bakht.pharmacy.service.mapper.CustomerMapper;
 import ru.bakht.pharmacy.service.model.Customer;
 import ru.bakht.pharmacy.service.model.dto.CustomerDto;
+import ru.bakht.pharmacy.service.model.dto.KeysetPageDto;
 import ru.bakht.pharmacy.service.repository.CustomerRepository;
+import ru.bakht.pharmacy.service.search.SearchField;
+import ru.bakht.pharmacy.service.search.TextSearchIndex;
 import ru.bakht.pharmacy.service.specification.CustomerSpecification;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Реализация интерфейса {@link BaseService} для управления клиентами.
@@ -25,6 +31,10 @@ public class CustomerService implements BaseService<CustomerDto, Long> {
 
     private final CustomerRepository customerRepository;
     private final CustomerMapper customerMapper;
+    private final TextSearchIndex textSearchIndex;
+
+    @PersistenceContext
+    private EntityManager entityManager;
 
     /**
      * {@inheritDoc}
@@ -38,6 +48,34 @@ public class CustomerService implements BaseService<CustomerDto, Long> {
                 .toList();
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public KeysetPageDto<CustomerDto, Long> getPage(Long afterId, int size) {
+        log.info("Получение страницы клиентов после идентификатора {} размером {}", afterId, size);
+        var customerDtos = customerRepository.findPage(afterId, size).stream()
+                .map(customerMapper::toDto)
+                .toList();
+        return KeysetPageDto.of(customerDtos, size, CustomerDto::getId);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void streamAll(Consumer<CustomerDto> consumer) {
+        log.info("Потоковая выгрузка всех клиентов");
+        try (var customers = customerRepository.streamAllByOrderByIdAsc()) {
+            customers.forEach(customer -> {
+                consumer.accept(customerMapper.toDto(customer));
+                entityManager.detach(customer);
+            });
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -97,13 +135,17 @@ public class CustomerService implements BaseService<CustomerDto, Long> {
 
     /**
      * {@inheritDoc}
+     * <p>
+     * Условия по имени и адресу сужаются по первичному ключу с помощью {@link TextSearchIndex}.
      */
     @Transactional(readOnly = true)
     public List<CustomerDto> getByFilters(CustomerDto criteria) {
         log.info("Фильтрация клиента по заданным критериям");
         Specification<Customer> spec = Specification.where(CustomerSpecification.hasName(criteria.getName()))
                 .and(CustomerSpecification.hasAddress(criteria.getAddress()))
-                .and(CustomerSpecification.hasPhone(criteria.getPhone()));
+                .and(CustomerSpecification.hasPhone(criteria.getPhone()))
+                .and(textSearchIndex.hasCandidateId(SearchField.CUSTOMER_NAME, criteria.getName()))
+                .and(textSearchIndex.hasCandidateId(SearchField.CUSTOMER_ADDRESS, criteria.getAddress()));
 
         return customerRepository.findAll(spec).stream()
                 .map(customerMapper::toDto)
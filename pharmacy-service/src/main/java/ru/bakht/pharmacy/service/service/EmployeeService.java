@@ -1,5 +1,7 @@
 package ru.bakht.pharmacy.service.service;
 
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.jpa.domain.Specification;
@@ -11,10 +13,14 @@ import ru.bakht.pharmacy.service.mapper.PharmacyMapper;
 import ru.bakht.pharmacy.service.model.Employee;
 import ru.bakht.pharmacy.service.model.Pharmacy;
 import ru.bakht.pharmacy.service.model.dto.EmployeeDto;
+import ru.bakht.pharmacy.service.model.dto.KeysetPageDto;
 import ru.bakht.pharmacy.service.repository.EmployeeRepository;
+import ru.bakht.pharmacy.service.search.SearchField;
+import ru.bakht.pharmacy.service.search.TextSearchIndex;
 import ru.bakht.pharmacy.service.specification.EmployeeSpecification;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Реализация интерфейса {@link BaseService } для управления сотрудниками.
@@ -29,6 +35,10 @@ public class EmployeeService implements BaseService<EmployeeDto, Long> {
     private final PharmacyService pharmacyService;
     private final EmployeeMapper employeeMapper;
     private final PharmacyMapper pharmacyMapper;
+    private final TextSearchIndex textSearchIndex;
+
+    @PersistenceContext
+    private EntityManager entityManager;
 
 
     /**
@@ -43,6 +53,34 @@ public class EmployeeService implements BaseService<EmployeeDto, Long> {
                 .toList();
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public KeysetPageDto<EmployeeDto, Long> getPage(Long afterId, int size) {
+        log.info("Получение страницы сотрудников после идентификатора {} размером {}", afterId, size);
+        var employeeDtos = employeeRepository.findPage(afterId, size).stream()
+                .map(employeeMapper::toDto)
+                .toList();
+        return KeysetPageDto.of(employeeDtos, size, EmployeeDto::getId);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void streamAll(Consumer<EmployeeDto> consumer) {
+        log.info("Потоковая выгрузка всех сотрудников");
+        try (var employees = employeeRepository.streamAllByOrderByIdAsc()) {
+            employees.forEach(employee -> {
+                consumer.accept(employeeMapper.toDto(employee));
+                entityManager.detach(employee);
+            });
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -115,6 +153,8 @@ public class EmployeeService implements BaseService<EmployeeDto, Long> {
 
     /**
      * {@inheritDoc}
+     * <p>
+     * Условия по имени и email сужаются по первичному ключу с помощью {@link TextSearchIndex}.
      */
     @Transactional(readOnly = true)
     public List<EmployeeDto> getByFilters(EmployeeDto employeeDto) {
@@ -123,7 +163,9 @@ public class EmployeeService implements BaseService<EmployeeDto, Long> {
                 .and(EmployeeSpecification.hasPosition(employeeDto.getPosition()))
                 .and(EmployeeSpecification.hasEmail(employeeDto.getEmail()))
                 .and(EmployeeSpecification.hasPharmacyId(employeeDto.getPharmacy() != null ?
-                        employeeDto.getPharmacy().getId() : null));
+                        employeeDto.getPharmacy().getId() : null))
+                .and(textSearchIndex.hasCandidateId(SearchField.EMPLOYEE_NAME, employeeDto.getName()))
+                .and(textSearchIndex.hasCandidateId(SearchField.EMPLOYEE_EMAIL, employeeDto.getEmail()));
 
         return employeeRepository.findAll(spec).stream()
                 .map(employeeMapper::toDto)
@@ -0,0 +1,56 @@
+package ru.bakht.pharmacy.service.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.bakht.pharmacy.service.repository.PharmacyMedicationRepository;
+
+/**
+ * Обнаружение низкого остатка лекарства в момент изменения остатка.
+ * <p>
+ * При падении остатка ниже порога пополнения строки {@code pharmacy_medications} она получает отметку
+ * {@code low_stock_alerted}, и публикуется {@link LowStockEvent}. Пока отметка стоит, новые
+ * списания уведомлений не порождают. Отметка снимается, только когда остаток пополнен до порога
+ * плюс запас {@code rearm-margin}, поэтому колебания остатка около порога не приводят
+ * к повторным уведомлениям.
+ * <p>
+ * Проверка выполняется в транзакции изменения остатка по уже заблокированной строке,
+ * поэтому параллельные заказы не публикуют событие дважды, а откат отменяет и отметку.
+ */
+@Slf4j
+@Service
+@Transactional
+@RequiredArgsConstructor
+public class LowStockDetector {
+
+    private final PharmacyMedicationRepository pharmacyMedicationRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${inventory.low-stock.rearm-margin}")
+    private int rearmMargin;
+
+    /**
+     * Проверяет остаток лекарства после изменения остатка или порога пополнения в текущей транзакции.
+     *
+     * @param pharmacyId   идентификатор аптеки
+     * @param medicationId идентификатор лекарства
+     */
+    public void onStockChanged(Long pharmacyId, Long medicationId) {
+        var alerted = pharmacyMedicationRepository.updateLowStockAlerted(
+                pharmacyId, medicationId, rearmMargin);
+        if (alerted.isEmpty()) {
+            return;
+        }
+
+        if (alerted.getFirst()) {
+            log.info("Остаток лекарства {} в аптеке {} опустился ниже порога пополнения", medicationId, pharmacyId);
+            eventPublisher.publishEvent(new LowStockEvent(pharmacyId, medicationId));
+        } else {
+            log.info("Остаток лекарства {} в аптеке {} пополнен, уведомление о низком остатке снято",
+                    medicationId, pharmacyId);
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package ru.bakht.pharmacy.service.service;
+
+/**
+ * Остаток лекарства в аптеке опустился ниже порога.
+ *
+ * @param pharmacyId   идентификатор аптеки
+ * @param medicationId идентификатор лекарства
+ */
+public record LowStockEvent(Long pharmacyId, Long medicationId) {
+}
@@ -1,20 +1,30 @@
 
 package ru.bakht.pharmacy.service.service;
 
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import ru.bakht.pharmacy.service.cache.CacheDependencyIndex;
 import ru.bakht.pharmacy.service.exception.EntityNotFoundException;
 import ru.bakht.pharmacy.service.mapper.MedicationMapper;
 import ru.bakht.pharmacy.service.model.Medication;
+import ru.bakht.pharmacy.service.model.dto.KeysetPageDto;
 import ru.bakht.pharmacy.service.model.dto.MedicationDto;
+import ru.bakht.pharmacy.service.model.dto.MedicationSuggestionDto;
 import ru.bakht.pharmacy.service.repository.MedicationRepository;
+import ru.bakht.pharmacy.service.repository.PharmacyMedicationRepository;
+import ru.bakht.pharmacy.service.search.MedicationAutocomplete;
+import ru.bakht.pharmacy.service.search.SearchField;
+import ru.bakht.pharmacy.service.search.TextSearchIndex;
 import ru.bakht.pharmacy.service.specification.MedicationSpecification;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Реализация интерфейса {@link BaseService} для управления лекарствами.
@@ -27,6 +37,13 @@ public class MedicationService implements BaseService<MedicationDto, Long> {
 
     private final MedicationRepository medicationRepository;
     private final MedicationMapper medicationMapper;
+    private final CacheDependencyIndex cacheDependencyIndex;
+    private final TextSearchIndex textSearchIndex;
+    private final MedicationAutocomplete medicationAutocomplete;
+    private final PharmacyMedicationRepository pharmacyMedicationRepository;
+
+    @PersistenceContext
+    private EntityManager entityManager;
 
     /**
 
@@ -40,6 +57,34 @@ public class MedicationService implements BaseService<MedicationDto, Long> {
                 .map(medicationMapper::toDto)
                 .toList();
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public KeysetPageDto<MedicationDto, Long> getPage(Long afterId, int size) {
+        log.info("Получение страницы лекарств после идентификатора {} размером {}", afterId, size);
+        var medicationDtos = medicationRepository.findPage(afterId, size).stream()
+                .map(medicationMapper::toDto)
+                .toList();
+        return KeysetPageDto.of(medicationDtos, size, MedicationDto::getId);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void streamAll(Consumer<MedicationDto> consumer) {
+        log.info("Потоковая выгрузка всех лекарств");
+        try (var medications = medicationRepository.streamAllByOrderByIdAsc()) {
+            medications.forEach(medication -> {
+                consumer.accept(medicationMapper.toDto(medication));
+                entityManager.detach(medication);
+            });
+        }
+    }
     /**
 
      {@inheritDoc}
@@ -70,14 +115,16 @@ public class MedicationService implements BaseService<MedicationDto, Long> {
 
         log.info("Создание нового лекарства: {}", medicationDto);
         var medication = medicationRepository.save(medicationMapper.toEntity(medicationDto));
+        medicationAutocomplete.put(medication.getId(), medication.getName());
         return medicationMapper.toDto(medication);
     }
 
     /**
      * {@inheritDoc}
+     * <p>
+     * Из кэша удаляются списки лекарств всех аптек, в которых есть это лекарство.
      */
     @Override
-    @CacheEvict(value = "pharmacy_medications", key = "#id")
     public MedicationDto update(Long id, MedicationDto medicationDto) {
         log.info("Обновление лекарства: {}", medicationDto);
         var existingMedication = medicationRepository.findById(id)
@@ -87,21 +134,29 @@ public class MedicationService implements BaseService<MedicationDto, Long> {
                 });
 
         medicationMapper.updateEntityFromDto(medicationDto, existingMedication);
-        return medicationMapper.toDto(medicationRepository.save(existingMedication));
+        var updatedMedication = medicationMapper.toDto(medicationRepository.save(existingMedication));
+        medicationAutocomplete.put(id, updatedMedication.getName());
+        cacheDependencyIndex.evictDependents("pharmacy_medications", id);
+        return updatedMedication;
     }
 
     /**
      * {@inheritDoc}
+     * <p>
+     * Из кэша удаляются списки лекарств всех аптек, в которых есть это лекарство.
      */
     @Override
-    @CacheEvict(value = "pharmacy_medications", key = "#id")
     public void delete(Long id) {
         log.info("Удаление лекарства с идентификатором {}", id);
         medicationRepository.deleteById(id);
+        medicationAutocomplete.remove(id);
+        cacheDependencyIndex.evictDependents("pharmacy_medications", id);
     }
 
     /**
      * {@inheritDoc}
+     * <p>
+     * Условие по названию сужается по первичному ключу с помощью {@link TextSearchIndex}.
      */
     @Transactional(readOnly = true)
     public List<MedicationDto> getByFilters(MedicationDto medicationDto) {
@@ -109,10 +164,63 @@ public class MedicationService implements BaseService<MedicationDto, Long> {
         Specification<Medication> specification = Specification.where(MedicationSpecification.hasName(medicationDto.getName()))
                 .and(MedicationSpecification.hasForm(medicationDto.getForm()))
                 .and(MedicationSpecification.hasPrice(medicationDto.getPrice()))
-                .and(MedicationSpecification.hasExpirationDate(medicationDto.getExpirationDate()));
+                .and(MedicationSpecification.hasExpirationDate(medicationDto.getExpirationDate()))
+                .and(textSearchIndex.hasCandidateId(SearchField.MEDICATION_NAME, medicationDto.getName()));
 
         return medicationRepository.findAll(specification).stream()
                 .map(medicationMapper::toDto)
                 .toList();
     }
-}
\ No newline at end of file
+
+    /**
+     * Возвращает подсказки по началу названия лекарства, самые продаваемые лекарства первыми.
+     * Подсказки хранятся в памяти, поэтому транзакция не открывается и соединение с базой не занимается.
+     *
+     * @param prefix начало названия или одного из слов названия
+     * @param limit  максимальное количество подсказок
+     * @return подсказки
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public List<MedicationSuggestionDto> autocomplete(String prefix, int limit) {
+        log.debug("Подсказки по названиям лекарств для префикса {}", prefix);
+        return medicationAutocomplete.suggest(prefix, limit);
+    }
+
+    /**
+     * Возвращает порог пополнения лекарства по умолчанию.
+     *
+     * @param id идентификатор лекарства
+     * @return порог пополнения
+     */
+    @Transactional(readOnly = true)
+    public int getReorderThreshold(Long id) {
+        return medicationRepository.findReorderThreshold(id)
+                .orElseThrow(() -> {
+                    log.error("Лекарство с идентификатором {} не найдено", id);
+                    return new EntityNotFoundException("Лекарство", id);
+                });
+    }
+
+    /**
+     * Изменяет порог пополнения лекарства по умолчанию и переносит его во все аптеки,
+     * где порог не задан отдельно. Уведомления по строкам, оказавшимся ниже нового порога,
+     * отправит ночная сверка запасов.
+     *
+     * @param id        идентификатор лекарства
+     * @param threshold новый порог пополнения
+     */
+    public void updateReorderThreshold(Long id, int threshold) {
+        if (threshold < 0) {
+            throw new IllegalArgumentException("Порог пополнения не может быть отрицательным");
+        }
+
+        log.info("Изменение порога пополнения лекарства {} на {}", id, threshold);
+        if (medicationRepository.updateReorderThreshold(id, threshold) == 0) {
+            log.error("Лекарство с идентификатором {} не найдено", id);
+            throw new EntityNotFoundException("Лекарство", id);
+        }
+
+        int updated = pharmacyMedicationRepository.updateInheritedReorderThreshold(id, threshold);
+        log.debug("Порог пополнения лекарства {} обновлен в {} аптеках", id, updated);
+    }
+}
@@ -0,0 +1,172 @@
+package ru.bakht.pharmacy.service.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.bakht.pharmacy.service.enums.BatchItemStatus;
+import ru.bakht.pharmacy.service.model.*;
+import ru.bakht.pharmacy.service.model.dto.OrderBatchItemResultDto;
+import ru.bakht.pharmacy.service.model.dto.OrderDto;
+import ru.bakht.pharmacy.service.repository.*;
+import ru.bakht.pharmacy.service.service.outbox.OutboxWriter;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Сервис пакетного создания заказов.
+ * <p>
+ * Справочные данные всего пакета загружаются заранее несколькими запросами,
+ * остатки списываются одним условным UPDATE на каждую пару аптека/лекарство,
+ * а заказы сохраняются через JDBC batch.
+ */
+@Slf4j
+@Service
+@Transactional
+@RequiredArgsConstructor
+public class OrderBatchService {
+
+    private final OrderRepository orderRepository;
+    private final EmployeeRepository employeeRepository;
+    private final CustomerRepository customerRepository;
+    private final PharmacyRepository pharmacyRepository;
+    private final MedicationRepository medicationRepository;
+    private final PharmacyMedicationRepository pharmacyMedicationRepository;
+    private final StockReservationService stockReservationService;
+    private final OrderDailyTotalService orderDailyTotalService;
+    private final OutboxWriter outboxWriter;
+
+    /**
+     * Создает заказы из пакета. Идентификаторы заказов в DTO игнорируются.
+     *
+     * @param orderDtos список заказов
+     * @return результат обработки каждого элемента пакета в исходном порядке
+     */
+    @CacheEvict(value = {"order_totals", "customer_orders"}, allEntries = true)
+    public List<OrderBatchItemResultDto> createBatch(List<OrderDto> orderDtos) {
+        log.info("Пакетное создание {} заказов", orderDtos.size());
+
+        var employees = loadById(orderDtos, dto -> dto.getEmployee().getId(),
+                employeeRepository::findAllById, Employee::getId);
+        var customers = loadById(orderDtos, dto -> dto.getCustomer().getId(),
+                customerRepository::findAllById, Customer::getId);
+        var pharmacies = loadById(orderDtos, dto -> dto.getPharmacy().getId(),
+                pharmacyRepository::findAllById, Pharmacy::getId);
+        var medications = loadById(orderDtos, dto -> dto.getMedication().getId(),
+                medicationRepository::findAllById, Medication::getId);
+        var pharmacyMedications = loadById(orderDtos, OrderBatchService::pharmacyMedicationId,
+                pharmacyMedicationRepository::findAllById, PharmacyMedication::getId);
+
+        Map<PharmacyMedicationId, Integer> remainingStock = new HashMap<>();
+        pharmacyMedications.forEach((id, pm) -> remainingStock.put(id, pm.getQuantity()));
+
+        OrderBatchItemResultDto[] results = new OrderBatchItemResultDto[orderDtos.size()];
+        Map<PharmacyMedicationId, List<Integer>> itemsByStock = new LinkedHashMap<>();
+        Map<Integer, Order> orders = new LinkedHashMap<>();
+        LocalDate orderDate = LocalDate.now();
+
+        for (int i = 0; i < orderDtos.size(); i++) {
+            OrderDto dto = orderDtos.get(i);
+            var stockId = pharmacyMedicationId(dto);
+            var employee = employees.get(dto.getEmployee().getId());
+            var customer = customers.get(dto.getCustomer().getId());
+            var pharmacy = pharmacies.get(stockId.getPharmacyId());
+            var medication = medications.get(stockId.getMedicationId());
+
+            String error = validate(dto, employee, customer, pharmacy, medication, remainingStock.get(stockId));
+            if (error != null) {
+                results[i] = rejected(i, error);
+                continue;
+            }
+
+            remainingStock.merge(stockId, -dto.getQuantity(), Integer::sum);
+            itemsByStock.computeIfAbsent(stockId, id -> new ArrayList<>()).add(i);
+            orders.put(i, Order.builder()
+                    .employee(employee)
+                    .customer(customer)
+                    .pharmacy(pharmacy)
+                    .medication(medication)
+                    .quantity(dto.getQuantity())
+                    .totalAmount(dto.getQuantity() * medication.getPrice())
+                    .orderDate(orderDate)
+                    .orderStatus(dto.getOrderStatus())
+                    .build());
+        }
+
+        itemsByStock.forEach((stockId, indexes) -> {
+            int quantity = indexes.stream().mapToInt(i -> orderDtos.get(i).getQuantity()).sum();
+            if (!stockReservationService.reserve(stockId.getPharmacyId(), stockId.getMedicationId(), quantity)) {
+                indexes.forEach(i -> {
+                    orders.remove(i);
+                    results[i] = rejected(i, "Остаток лекарства изменился во время обработки пакета");
+                });
+            }
+        });
+
+        orderRepository.saveAll(orders.values());
+        orderDailyTotalService.addAll(orders.values());
+        orders.values().forEach(outboxWriter::orderCreated);
+        orders.forEach((i, order) -> results[i] = OrderBatchItemResultDto.builder()
+                .index(i)
+                .orderId(order.getId())
+                .status(BatchItemStatus.CREATED)
+                .build());
+
+        log.info("Пакет обработан: создано {}, отклонено {}", orders.size(), orderDtos.size() - orders.size());
+        return Arrays.asList(results);
+    }
+
+    private String validate(OrderDto dto, Employee employee, Customer customer, Pharmacy pharmacy,
+                            Medication medication, Integer availableQuantity) {
+        if (employee == null) {
+            return "Сотрудник с ID " + dto.getEmployee().getId() + " не найден";
+        }
+        if (customer == null) {
+            return "Покупатель с ID " + dto.getCustomer().getId() + " не найден";
+        }
+        if (pharmacy == null) {
+            return "Аптека с ID " + dto.getPharmacy().getId() + " не найдена";
+        }
+        if (medication == null) {
+            return "Лекарство с ID " + dto.getMedication().getId() + " не найдено";
+        }
+        if (availableQuantity == null) {
+            return "Связь между аптекой и лекарством не найдена";
+        }
+        if (!employee.getPharmacy().getId().equals(pharmacy.getId())) {
+            return "Сотрудник не работает в указанной аптеке";
+        }
+        if (availableQuantity < dto.getQuantity()) {
+            return "Количество лекарства в заказе " + dto.getQuantity()
+                    + " превышает количество на складе " + availableQuantity;
+        }
+        return null;
+    }
+
+    private static OrderBatchItemResultDto rejected(int index, String message) {
+        return OrderBatchItemResultDto.builder()
+                .index(index)
+                .status(BatchItemStatus.REJECTED)
+                .message(message)
+                .build();
+    }
+
+    private static PharmacyMedicationId pharmacyMedicationId(OrderDto dto) {
+        return new PharmacyMedicationId(dto.getPharmacy().getId(), dto.getMedication().getId());
+    }
+
+    private static <K, E> Map<K, E> loadById(List<OrderDto> orderDtos,
+                                             Function<OrderDto, K> keyExtractor,
+                                             Function<Set<K>, List<E>> loader,
+                                             Function<E, K> idExtractor) {
+        Set<K> ids = orderDtos.stream()
+                .map(keyExtractor)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        return loader.apply(ids).stream().collect(Collectors.toMap(idExtractor, Function.identity()));
+    }
+}
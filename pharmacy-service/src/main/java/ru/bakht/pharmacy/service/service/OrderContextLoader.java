@@ -0,0 +1,73 @@
+package ru.bakht.pharmacy.service.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.bakht.pharmacy.service.exception.EntityNotFoundException;
+import ru.bakht.pharmacy.service.model.OrderContext;
+import ru.bakht.pharmacy.service.model.dto.OrderDto;
+import ru.bakht.pharmacy.service.repository.*;
+
+/**
+ * Загружает и проверяет связанные сущности заказа.
+ * <p>
+ * Сотрудник, покупатель, аптека, лекарство и наличие лекарства в аптеке
+ * проверяются одним запросом. Отдельные запросы выполняются только при ошибке,
+ * чтобы сообщить, какая именно сущность не найдена.
+ */
+@Slf4j
+@Service
+@Transactional
+@RequiredArgsConstructor
+public class OrderContextLoader {
+
+    private final OrderRepository orderRepository;
+    private final EmployeeRepository employeeRepository;
+    private final CustomerRepository customerRepository;
+    private final PharmacyRepository pharmacyRepository;
+    private final MedicationRepository medicationRepository;
+
+    /**
+     * Загружает связанные сущности заказа по идентификаторам из DTO.
+     *
+     * @param orderDto объект OrderDto
+     * @return проверенный контекст заказа
+     * @throws EntityNotFoundException если одна из сущностей не найдена
+     *                                 или сотрудник не работает в указанной аптеке
+     */
+    public OrderContext load(OrderDto orderDto) {
+        Long employeeId = orderDto.getEmployee().getId();
+        Long customerId = orderDto.getCustomer().getId();
+        Long pharmacyId = orderDto.getPharmacy().getId();
+        Long medicationId = orderDto.getMedication().getId();
+
+        var context = orderRepository.findOrderContext(employeeId, customerId, pharmacyId, medicationId)
+                .orElseThrow(() -> notFound(employeeId, customerId, pharmacyId, medicationId));
+
+        if (!context.getEmployee().getPharmacy().getId().equals(pharmacyId)) {
+            throw new EntityNotFoundException("Сотрудник не работает в указанной аптеке", employeeId);
+        }
+
+        return context;
+    }
+
+    private EntityNotFoundException notFound(Long employeeId, Long customerId, Long pharmacyId, Long medicationId) {
+        log.error("Не удалось загрузить связанные сущности заказа: сотрудник {}, покупатель {}, аптека {}, лекарство {}",
+                employeeId, customerId, pharmacyId, medicationId);
+
+        if (!employeeRepository.existsById(employeeId)) {
+            return new EntityNotFoundException("Сотрудник", employeeId);
+        }
+        if (!customerRepository.existsById(customerId)) {
+            return new EntityNotFoundException("Покупатель", customerId);
+        }
+        if (!pharmacyRepository.existsById(pharmacyId)) {
+            return new EntityNotFoundException("Аптека", pharmacyId);
+        }
+        if (!medicationRepository.existsById(medicationId)) {
+            return new EntityNotFoundException("Лекарство", medicationId);
+        }
+        return new EntityNotFoundException("Связь между аптекой и лекарством", pharmacyId, medicationId);
+    }
+}
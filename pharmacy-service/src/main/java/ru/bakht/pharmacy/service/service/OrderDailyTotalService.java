@@ -0,0 +1,217 @@
+package ru.bakht.pharmacy.service.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.bakht.pharmacy.service.cache.OrderReportCacheEvictor;
+import ru.bakht.pharmacy.service.model.Order;
+import ru.bakht.pharmacy.service.model.OrderDailyTotalId;
+import ru.bakht.pharmacy.service.repository.OrderDailyTotalRepository;
+import ru.bakht.pharmacy.service.repository.OrderRepository;
+import ru.bakht.pharmacy.service.service.archive.OrderArchiveService;
+import ru.bakht.pharmacy.service.service.archive.OrderArchiveStore;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Сервис поддержки дневных итогов заказов {@code order_daily_totals}.
+ * <p>
+ * Итоги изменяются в той же транзакции, что и заказ, поэтому отчет за период суммирует
+ * по одной строке на день, аптеку и лекарство вместо всех заказов периода.
+ * Заказы, удаленные каскадно вместе с покупателем или сотрудником, итоги не уменьшают,
+ * поэтому последние дни регулярно пересчитываются по таблице заказов.
+ * Перенос заказов в архив итоги не изменяет, а пересчет учитывает и архивные заказы:
+ * он читает базу и архив под блокировкой переноса, поэтому каждый заказ учитывается ровно один раз.
+ * <p>
+ * Изменения итогов берут разделяемую advisory-блокировку дня, а пересчет дня — исключительную.
+ * Поэтому пересчет видит все заказы, изменения итогов которых уже зафиксированы, а изменения,
+ * начатые позже, применяются к уже пересчитанным итогам: ни одно не теряется и не учитывается
+ * дважды. Если изменение заказа, затрагивающее два дня, столкнется с пересчетом этих дней,
+ * PostgreSQL прервет одну из транзакций как взаимоблокировку.
+ */
+@Slf4j
+@Service
+@Transactional
+@RequiredArgsConstructor
+public class OrderDailyTotalService {
+
+    private static final int LOCK_NAMESPACE = "order-daily-totals".hashCode();
+
+    private final OrderDailyTotalRepository orderDailyTotalRepository;
+    private final OrderRepository orderRepository;
+    private final OrderArchiveStore orderArchiveStore;
+    private final OrderArchiveService orderArchiveService;
+    private final TransactionTemplate transactionTemplate;
+    private final OrderReportCacheEvictor orderReportCacheEvictor;
+
+    @Value("${report.rollup.reconcile-days}")
+    private int reconcileDays;
+
+    /**
+     * Добавляет заказ к итогам его дня.
+     *
+     * @param order сохраненный заказ
+     */
+    public void add(Order order) {
+        apply(order, 1);
+    }
+
+    /**
+     * Вычитает заказ из итогов его дня. Вызывается до изменения или удаления заказа.
+     *
+     * @param order заказ в состоянии до изменения
+     */
+    public void subtract(Order order) {
+        apply(order, -1);
+    }
+
+    /**
+     * Добавляет заказы к итогам, объединяя заказы с одинаковыми днем, аптекой и лекарством
+     * в одно обновление.
+     *
+     * @param orders сохраненные заказы
+     */
+    public void addAll(Collection<Order> orders) {
+        Map<OrderDailyTotalId, Totals> totals = new LinkedHashMap<>();
+        orders.forEach(order -> {
+            var id = totalId(order);
+            if (id != null) {
+                totals.computeIfAbsent(id, key -> new Totals()).add(order.getQuantity(), order.getTotalAmount());
+            }
+        });
+
+        totals.keySet().stream()
+                .map(OrderDailyTotalId::getOrderDate)
+                .distinct()
+                .sorted()
+                .forEach(this::lockDayShared);
+        addTotals(totals);
+    }
+
+    /**
+     * Пересчитывает итоги за период по таблице заказов и архиву. Каждый месяц периода
+     * пересчитывается в отдельной транзакции, после фиксации которой очищается кэш итогов заказов.
+     * На время транзакции перенос заказов в архив приостанавливается.
+     *
+     * @param startDate начальная дата периода
+     * @param endDate   конечная дата периода
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void rebuild(LocalDate startDate, LocalDate endDate) {
+        if (startDate.isAfter(endDate)) {
+            throw new IllegalArgumentException("Начальная дата периода не может быть позже конечной");
+        }
+
+        log.info("Пересчет дневных итогов заказов с {} по {}", startDate, endDate);
+        for (LocalDate from = startDate; !from.isAfter(endDate); from = from.withDayOfMonth(1).plusMonths(1)) {
+            LocalDate monthEnd = from.withDayOfMonth(from.lengthOfMonth());
+            LocalDate to = monthEnd.isBefore(endDate) ? monthEnd : endDate;
+            LocalDate chunkStart = from;
+
+            Integer rows = transactionTemplate.execute(status -> {
+                chunkStart.datesUntil(to.plusDays(1)).forEach(day ->
+                        orderDailyTotalRepository.lockDayExclusive(LOCK_NAMESPACE, dayKey(day)));
+                orderArchiveService.lockArchive();
+                Map<OrderDailyTotalId, Totals> archivedTotals = archivedTotals(chunkStart, to);
+                orderDailyTotalRepository.deleteByDateRange(chunkStart, to);
+                int inserted = orderDailyTotalRepository.insertFromOrders(chunkStart, to);
+                addTotals(archivedTotals);
+                orderReportCacheEvictor.evictOrderTotals();
+                return inserted + archivedTotals.size();
+            });
+            log.debug("Итоги с {} по {} пересчитаны, строк: {}", chunkStart, to, rows);
+        }
+    }
+
+    /**
+     * Пересчитывает итоги за всю историю заказов, включая архивные.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void backfill() {
+        Stream.of(orderRepository.findMinOrderDate(), orderArchiveStore.findMinOrderDate())
+                .flatMap(Optional::stream)
+                .min(Comparator.naturalOrder())
+                .ifPresentOrElse(
+                        minDate -> rebuild(minDate, LocalDate.now()),
+                        () -> log.info("Заказы отсутствуют, пересчет дневных итогов не требуется"));
+    }
+
+    /**
+     * Сверяет итоги последних дней с таблицей заказов.
+     */
+    @Scheduled(cron = "${report.rollup.reconcile-cron}")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void reconcileRecentDays() {
+        LocalDate today = LocalDate.now();
+        rebuild(today.minusDays(reconcileDays), today);
+    }
+
+    private void apply(Order order, int sign) {
+        var id = totalId(order);
+        if (id == null) {
+            return;
+        }
+
+        lockDayShared(id.getOrderDate());
+        orderDailyTotalRepository.addToTotals(id.getOrderDate(), id.getPharmacyId(), id.getMedicationId(),
+                (long) sign * order.getQuantity(), sign * amount(order), sign);
+    }
+
+    private Map<OrderDailyTotalId, Totals> archivedTotals(LocalDate startDate, LocalDate endDate) {
+        Map<OrderDailyTotalId, Totals> totals = new LinkedHashMap<>();
+        orderArchiveStore.forEachInDateRange(startDate, endDate, row -> {
+            if (row.pharmacyId() != null && row.medicationId() != null) {
+                totals.computeIfAbsent(new OrderDailyTotalId(row.orderDate(), row.pharmacyId(), row.medicationId()),
+                        key -> new Totals()).add(row.quantity(), row.totalAmount());
+            }
+        });
+        return totals;
+    }
+
+    private void addTotals(Map<OrderDailyTotalId, Totals> totals) {
+        totals.forEach((id, total) -> orderDailyTotalRepository.addToTotals(
+                id.getOrderDate(), id.getPharmacyId(), id.getMedicationId(),
+                total.quantity, total.amount, total.count));
+    }
+
+    private void lockDayShared(LocalDate day) {
+        orderDailyTotalRepository.lockDayShared(LOCK_NAMESPACE, dayKey(day));
+    }
+
+    private static int dayKey(LocalDate day) {
+        return (int) day.toEpochDay();
+    }
+
+    private static OrderDailyTotalId totalId(Order order) {
+        if (order.getOrderDate() == null || order.getPharmacy() == null || order.getMedication() == null) {
+            log.warn("Заказ {} не учитывается в дневных итогах: не заполнены дата, аптека или лекарство",
+                    order.getId());
+            return null;
+        }
+        return new OrderDailyTotalId(order.getOrderDate(), order.getPharmacy().getId(), order.getMedication().getId());
+    }
+
+    private static double amount(Order order) {
+        return order.getTotalAmount() != null ? order.getTotalAmount() : 0.0;
+    }
+
+    private static final class Totals {
+
+        long quantity;
+        double amount;
+        long count;
+
+        void add(int orderQuantity, Double orderAmount) {
+            quantity += orderQuantity;
+            amount += orderAmount != null ? orderAmount : 0.0;
+            count++;
+        }
+    }
+}
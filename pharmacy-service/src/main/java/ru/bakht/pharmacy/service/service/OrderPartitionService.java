@@ -0,0 +1,118 @@
+package ru.bakht.pharmacy.service.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.YearMonth;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Обслуживание месячных секций таблицы заказов.
+ * <p>
+ * Заранее создает секции на несколько месяцев вперед, чтобы новые заказы не попадали
+ * в секцию по умолчанию, и отсоединяет секции старше заданного срока. Отсоединенная секция
+ * остается отдельной таблицей с прежним именем и может быть заархивирована или удалена.
+ * Если обслуживание уже выполняет другой экземпляр, запуск пропускается.
+ */
+@Slf4j
+@Service
+@Transactional
+public class OrderPartitionService {
+
+    private static final Pattern PARTITION_NAME = Pattern.compile("orders_y(\\d{4})m(\\d{2})");
+    private static final long LOCK_KEY = "orders-partition-maintenance".hashCode();
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${orders.partitions.months-ahead}")
+    private int monthsAhead;
+
+    @Value("${orders.partitions.detach-after-months}")
+    private int detachAfterMonths;
+
+    /**
+     * Создает недостающие будущие секции и отсоединяет устаревшие.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${orders.partitions.maintenance-cron}")
+    public void maintainPartitions() {
+        Boolean locked = (Boolean) entityManager.createNativeQuery("SELECT pg_try_advisory_xact_lock(:key)")
+                .setParameter("key", LOCK_KEY)
+                .getSingleResult();
+        if (!Boolean.TRUE.equals(locked)) {
+            log.info("Обслуживание секций заказов выполняется другим экземпляром");
+            return;
+        }
+
+        Set<String> partitions = new HashSet<>(findPartitions());
+        YearMonth currentMonth = YearMonth.now();
+
+        for (int i = 0; i <= monthsAhead; i++) {
+            YearMonth month = currentMonth.plusMonths(i);
+            if (!partitions.contains(partitionName(month))) {
+                createPartition(month);
+            }
+        }
+
+        if (detachAfterMonths > 0) {
+            YearMonth oldestKeptMonth = currentMonth.minusMonths(detachAfterMonths);
+            partitions.forEach(partition -> {
+                Matcher matcher = PARTITION_NAME.matcher(partition);
+                if (matcher.matches()) {
+                    YearMonth month = YearMonth.of(Integer.parseInt(matcher.group(1)), Integer.parseInt(matcher.group(2)));
+                    if (month.isBefore(oldestKeptMonth)) {
+                        detachPartition(partition);
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Имя секции заказов за месяц, например {@code orders_y2026m10}.
+     */
+    public static String partitionName(YearMonth month) {
+        return String.format("orders_y%04dm%02d", month.getYear(), month.getMonthValue());
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<String> findPartitions() {
+        return entityManager.createNativeQuery("SELECT c.relname "
+                        + "FROM pg_inherits i "
+                        + "JOIN pg_class c ON c.oid = i.inhrelid "
+                        + "JOIN pg_class p ON p.oid = i.inhparent "
+                        + "WHERE p.relname = 'orders'")
+                .getResultList();
+    }
+
+    /**
+     * Создает секцию за месяц. Завершится ошибкой, если в секции по умолчанию
+     * уже есть заказы за этот месяц: их нужно перенести вручную.
+     */
+    private void createPartition(YearMonth month) {
+        String partition = partitionName(month);
+        log.info("Создание секции заказов {}", partition);
+        entityManager.createNativeQuery(String.format(
+                        "CREATE TABLE IF NOT EXISTS %s PARTITION OF orders FOR VALUES FROM ('%s') TO ('%s')",
+                        partition, month.atDay(1), month.plusMonths(1).atDay(1)))
+                .executeUpdate();
+    }
+
+    private void detachPartition(String partition) {
+        log.info("Отсоединение устаревшей секции заказов {}", partition);
+        entityManager.createNativeQuery("ALTER TABLE orders DETACH PARTITION " + partition)
+                .executeUpdate();
+    }
+}
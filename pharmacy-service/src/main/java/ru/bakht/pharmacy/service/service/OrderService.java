@@ -1,26 +1,33 @@
 package ru.bakht.pharmacy.service.service;
 
-import jakarta.persistence.EntityManager;
-import jakarta.persistence.PersistenceContext;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.bakht.pharmacy.service.exception.EntityNotFoundException;
 import ru.bakht.pharmacy.service.mapper.OrderMapper;
 import ru.bakht.pharmacy.service.model.Order;
-import ru.bakht.pharmacy.service.model.PharmacyMedication;
-import ru.bakht.pharmacy.service.model.PharmacyMedicationId;
+import ru.bakht.pharmacy.service.model.dto.KeysetPageDto;
 import ru.bakht.pharmacy.service.model.dto.OrderDto;
-import ru.bakht.pharmacy.service.repository.*;
+import ru.bakht.pharmacy.service.model.dto.OrderRow;
+import ru.bakht.pharmacy.service.repository.MedicationRepository;
+import ru.bakht.pharmacy.service.repository.OrderRepository;
+import ru.bakht.pharmacy.service.service.outbox.OutboxWriter;
 import ru.bakht.pharmacy.service.specification.OrderSpecification;
 
 import java.time.LocalDate;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Реализация интерфейса {@link BaseService} для управления заказами.
+ * <p>
+ * Методы чтения выбирают заказы сразу в форме {@link OrderRow}, минуя загрузку сущностей
+ * заказа и связанных с ним покупателя, сотрудника, аптеки и лекарства.
+ * Изменение заказов очищает кэши отчетов по заказам после фиксации транзакции.
  */
 @Slf4j
 @Service
@@ -30,13 +37,11 @@ public class OrderService implements BaseService<OrderDto, Long> {
 
     private final OrderRepository orderRepository;
     private final OrderMapper orderMapper;
-    private final EmployeeRepository employeeRepository;
-    private final CustomerRepository customerRepository;
-    private final PharmacyRepository pharmacyRepository;
     private final MedicationRepository medicationRepository;
-
-    @PersistenceContext
-    private EntityManager entityManager;
+    private final OrderContextLoader orderContextLoader;
+    private final StockReservationService stockReservationService;
+    private final OrderDailyTotalService orderDailyTotalService;
+    private final OutboxWriter outboxWriter;
 
     /**
      * {@inheritDoc}
@@ -45,9 +50,34 @@ public class OrderService implements BaseService<OrderDto, Long> {
     @Transactional(readOnly = true)
     public List<OrderDto> getAll() {
         log.info("Получение всех заказов");
-        return orderRepository.findAll().stream()
-                .map(orderMapper::toDto)
+        return orderRepository.findRows(null).stream()
+                .map(OrderRow::toDto)
+                .toList();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public KeysetPageDto<OrderDto, Long> getPage(Long afterId, int size) {
+        log.info("Получение страницы заказов после идентификатора {} размером {}", afterId, size);
+        var orderDtos = orderRepository.findRows(OrderSpecification.hasIdGreaterThan(afterId), Limit.of(size)).stream()
+                .map(OrderRow::toDto)
                 .toList();
+        return KeysetPageDto.of(orderDtos, size, OrderDto::getId);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void streamAll(Consumer<OrderDto> consumer) {
+        log.info("Потоковая выгрузка всех заказов");
+        try (var orders = orderRepository.streamRows(null)) {
+            orders.forEach(order -> consumer.accept(order.toDto()));
+        }
     }
 
     /**
@@ -57,8 +87,9 @@ public class OrderService implements BaseService<OrderDto, Long> {
     @Transactional(readOnly = true)
     public OrderDto getById(Long id) {
         log.info("Получение заказа с идентификатором {}", id);
-        return orderRepository.findById(id)
-                .map(orderMapper::toDto)
+        return orderRepository.findRows(OrderSpecification.hasId(id)).stream()
+                .findFirst()
+                .map(OrderRow::toDto)
                 .orElseThrow(() -> {
                     log.error("Заказ с идентификатором {} не найден", id);
                     return new EntityNotFoundException("Заказ", id);
@@ -69,6 +100,7 @@ public class OrderService implements BaseService<OrderDto, Long> {
      * {@inheritDoc}
      */
     @Override
+    @CacheEvict(value = {"order_totals", "customer_orders"}, allEntries = true)
     public OrderDto create(OrderDto orderDto) {
         log.info("Создание нового заказа: {}", orderDto);
 
@@ -80,13 +112,15 @@ public class OrderService implements BaseService<OrderDto, Long> {
         }
 
         var order = orderMapper.toEntity(orderDto);
-        validateAndSetRelatedEntities(order, orderDto);
+        orderContextLoader.load(orderDto).applyTo(order);
 
         order.setOrderDate(LocalDate.now());
         order.setTotalAmount(orderDto.getQuantity() * order.getMedication().getPrice());
 
+        reserveStock(orderDto);
         order = orderRepository.save(order);
-        updatePharmacyMedicationQuantity(orderDto);
+        orderDailyTotalService.add(order);
+        outboxWriter.orderCreated(order);
         return orderMapper.toDto(order);
     }
 
@@ -94,6 +128,7 @@ public class OrderService implements BaseService<OrderDto, Long> {
      * {@inheritDoc}
      */
     @Override
+    @CacheEvict(value = {"order_totals", "customer_orders"}, allEntries = true)
     public OrderDto update(Long id, OrderDto orderDto) {
         log.info("Обновление заказа с идентификатором {}: {}", id, orderDto);
 
@@ -103,23 +138,35 @@ public class OrderService implements BaseService<OrderDto, Long> {
                     return new EntityNotFoundException("Заказ", id);
                 });
 
+        stockReservationService.release(existingOrder.getPharmacy().getId(),
+                existingOrder.getMedication().getId(), existingOrder.getQuantity());
+        orderDailyTotalService.subtract(existingOrder);
+
         orderMapper.updateEntityFromDto(orderDto, existingOrder);
+        orderContextLoader.load(orderDto).applyTo(existingOrder);
+
         existingOrder.setOrderDate(LocalDate.now());
         existingOrder.setTotalAmount(orderDto.getQuantity() * existingOrder.getMedication().getPrice());
 
-        validateAndSetRelatedEntities(existingOrder, orderDto);
-
-        updatePharmacyMedicationQuantity(orderDto);
+        reserveStock(orderDto);
 
-        return orderMapper.toDto(orderRepository.save(existingOrder));
+        var savedOrder = orderRepository.save(existingOrder);
+        orderDailyTotalService.add(savedOrder);
+        outboxWriter.orderUpdated(savedOrder);
+        return orderMapper.toDto(savedOrder);
     }
 
     /**
      * {@inheritDoc}
      */
     @Override
+    @CacheEvict(value = {"order_totals", "customer_orders"}, allEntries = true)
     public void delete(Long id) {
         log.info("Удаление заказа с идентификатором {}", id);
+        orderRepository.findById(id).ifPresent(order -> {
+            orderDailyTotalService.subtract(order);
+            outboxWriter.orderDeleted(order);
+        });
         orderRepository.deleteById(id);
     }
 
@@ -143,72 +190,25 @@ public class OrderService implements BaseService<OrderDto, Long> {
                 .and(orderDto.getOrderDate() != null ?
                         OrderSpecification.hasOrderDate(orderDto.getOrderDate()) : null);
 
-        return orderRepository.findAll(specification).stream()
-                .map(orderMapper::toDto)
+        return orderRepository.findRows(specification).stream()
+                .map(OrderRow::toDto)
                 .toList();
     }
 
 
     /**
-     * Проверяет наличие связанных сущностей по их идентификаторам в DTO.
-     * и устанавливает связанные сущности в объекте Order на основе данных из DTO.
-     *
-     * @param order объект Order, который необходимо обновить
-     * @param orderDto объект OrderDto с новыми данными
-     */
-    private void validateAndSetRelatedEntities(Order order, OrderDto orderDto) {
-        Long employeeId = orderDto.getEmployee().getId();
-        Long customerId = orderDto.getCustomer().getId();
-        Long pharmacyId = orderDto.getPharmacy().getId();
-        Long medicationId = orderDto.getMedication().getId();
-
-        var employee = employeeRepository.findById(employeeId)
-                .orElseThrow(() -> new EntityNotFoundException("Сотрудник", employeeId));
-        var customer = customerRepository.findById(customerId)
-                .orElseThrow(() -> new EntityNotFoundException("Покупатель", customerId));
-        var pharmacy  = pharmacyRepository.findById(pharmacyId)
-                .orElseThrow(() -> new EntityNotFoundException("Аптека", pharmacyId));
-        var medication = medicationRepository.findById(medicationId)
-                .orElseThrow(() ->new EntityNotFoundException("Лекарство", medicationId));
-        var pharmacyMedication = entityManager.find(PharmacyMedication.class, new PharmacyMedicationId(
-                pharmacyId, medicationId)
-        );
-
-        if (pharmacyMedication == null) {
-            throw new EntityNotFoundException("Связь между аптекой и лекарством", pharmacyId, medicationId);
-        }
-        if (pharmacyMedication.getQuantity() < orderDto.getQuantity()) {
-            throw new IllegalArgumentException("Количество лекарства в заказе " + orderDto.getQuantity()
-                    + " превышает количество на складе " + pharmacyMedication.getQuantity());
-        }
-        if (!employee.getPharmacy().getId().equals(pharmacyId)) {
-            throw new EntityNotFoundException("Сотрудник не работает в указанной аптеке", employeeId);
-        }
-
-        order.setEmployee(employee);
-        order.setCustomer(customer);
-        order.setPharmacy(pharmacy);
-        order.setMedication(medication);
-    }
-
-    /**
-     * Обновляет количество лекарства в аптеке после создания или обновления заказа.
+     * Атомарно списывает количество лекарства из заказа со склада аптеки.
      *
      * @param orderDto объект OrderDto
+     * @throws IllegalArgumentException если на складе недостаточно лекарства
      */
-    private void updatePharmacyMedicationQuantity(OrderDto orderDto) {
+    private void reserveStock(OrderDto orderDto) {
         Long pharmacyId = orderDto.getPharmacy().getId();
         Long medicationId = orderDto.getMedication().getId();
-        var pharmacyMedication = entityManager.find(
-                PharmacyMedication.class, new PharmacyMedicationId(pharmacyId, medicationId)
-        );
 
-        if (pharmacyMedication == null) {
-            throw new EntityNotFoundException("Связь между аптекой и лекарством", pharmacyId, medicationId);
+        if (!stockReservationService.reserve(pharmacyId, medicationId, orderDto.getQuantity())) {
+            throw new IllegalArgumentException("Количество лекарства в заказе " + orderDto.getQuantity()
+                    + " превышает количество на складе");
         }
-
-        int remainingQuantity = pharmacyMedication.getQuantity() - orderDto.getQuantity();
-        pharmacyMedication.setQuantity(remainingQuantity);
-        entityManager.merge(pharmacyMedication);
     }
 }
@@ -14,12 +14,18 @@ import ru.bakht.pharmacy.service.mapper.PharmacyMapper;
 import ru.bakht.pharmacy.service.model.Pharmacy;
 import ru.bakht.pharmacy.service.model.PharmacyMedication;
 import ru.bakht.pharmacy.service.model.PharmacyMedicationId;
+import ru.bakht.pharmacy.service.model.dto.KeysetPageDto;
 import ru.bakht.pharmacy.service.model.dto.PharmacyDto;
 import ru.bakht.pharmacy.service.model.dto.PharmacyMedicationDto;
+import ru.bakht.pharmacy.service.repository.PharmacyMedicationRepository;
 import ru.bakht.pharmacy.service.repository.PharmacyRepository;
+import ru.bakht.pharmacy.service.search.SearchField;
+import ru.bakht.pharmacy.service.search.TextSearchIndex;
+import ru.bakht.pharmacy.service.service.outbox.OutboxWriter;
 import ru.bakht.pharmacy.service.specification.PharmacySpecification;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * Реализация интерфейса {@link BaseService} для управления данными об аптеках.
@@ -31,9 +37,13 @@ import java.util.List;
 public class PharmacyService implements BaseService<PharmacyDto, Long> {
 
     private final PharmacyRepository pharmacyRepository;
+    private final PharmacyMedicationRepository pharmacyMedicationRepository;
     private final MedicationService medicationService;
     private final PharmacyMapper pharmacyMapper;
     private final MedicationMapper medicationMapper;
+    private final TextSearchIndex textSearchIndex;
+    private final LowStockDetector lowStockDetector;
+    private final OutboxWriter outboxWriter;
 
     @PersistenceContext
     private EntityManager entityManager;
@@ -50,6 +60,34 @@ public class PharmacyService implements BaseService<PharmacyDto, Long> {
                 .toList();
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public KeysetPageDto<PharmacyDto, Long> getPage(Long afterId, int size) {
+        log.info("Получение страницы аптек после идентификатора {} размером {}", afterId, size);
+        var pharmacyDtos = pharmacyRepository.findPage(afterId, size).stream()
+                .map(pharmacyMapper::toDto)
+                .toList();
+        return KeysetPageDto.of(pharmacyDtos, size, PharmacyDto::getId);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void streamAll(Consumer<PharmacyDto> consumer) {
+        log.info("Потоковая выгрузка всех аптек");
+        try (var pharmacys = pharmacyRepository.streamAllByOrderByIdAsc()) {
+            pharmacys.forEach(pharmacy -> {
+                consumer.accept(pharmacyMapper.toDto(pharmacy));
+                entityManager.detach(pharmacy);
+            });
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -107,12 +145,19 @@ public class PharmacyService implements BaseService<PharmacyDto, Long> {
         pharmacyRepository.deleteById(id);
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Условия по названию и адресу сужаются по первичному ключу с помощью {@link TextSearchIndex}.
+     */
     @Transactional(readOnly = true)
     public List<PharmacyDto> getByFilters(PharmacyDto pharmacyDto) {
         log.info("Фильтрация аптек по заданным критериям");
         Specification<Pharmacy> specification = Specification.where(PharmacySpecification.hasName(pharmacyDto.getName()))
                 .and(PharmacySpecification.hasAddress(pharmacyDto.getAddress()))
-                .and(PharmacySpecification.hasPhone(pharmacyDto.getPhone()));
+                .and(PharmacySpecification.hasPhone(pharmacyDto.getPhone()))
+                .and(textSearchIndex.hasCandidateId(SearchField.PHARMACY_NAME, pharmacyDto.getName()))
+                .and(textSearchIndex.hasCandidateId(SearchField.PHARMACY_ADDRESS, pharmacyDto.getAddress()));
 
         return pharmacyRepository.findAll(specification).stream()
                 .map(pharmacyMapper::toDto)
@@ -121,6 +166,9 @@ public class PharmacyService implements BaseService<PharmacyDto, Long> {
 
     /**
      * {@inheritDoc}
+     * <p>
+     * Остаток существующей записи пополняется атомарным UPDATE, поэтому параллельные списания
+     * по заказам не теряются. Через сущность обновляется только порог пополнения.
      */
     @CacheEvict(value = "pharmacy_medications", key = "#pharmacyMedicationDto.pharmacyDto.id")
     public void addOrUpdatePharmacyMedication(PharmacyMedicationDto pharmacyMedicationDto) {
@@ -140,19 +188,31 @@ public class PharmacyService implements BaseService<PharmacyDto, Long> {
             log.info("Запись PharmacyMedication с pharmacyId {} и medicationId {} уже существует, обновление количества",
                     pharmacy.getId(), medication.getId());
 
-            existingPharmacyMedication.setQuantity(
-                    existingPharmacyMedication.getQuantity() + pharmacyMedicationDto.getQuantity()
-            );
-            entityManager.merge(existingPharmacyMedication);
+            if (pharmacyMedicationDto.getReorderThreshold() != null) {
+                existingPharmacyMedication.setReorderThreshold(pharmacyMedicationDto.getReorderThreshold());
+                existingPharmacyMedication.setReorderThresholdInherited(false);
+            }
+            if (pharmacyMedicationRepository.incrementQuantity(
+                    pharmacy.getId(), medication.getId(), pharmacyMedicationDto.getQuantity()) == 0) {
+                throw new EntityNotFoundException("Запись о лекарстве в аптеке", pharmacy.getId(), medication.getId());
+            }
         } else {
             var pharmacyMedication = PharmacyMedication.builder()
                     .id(pharmacyMedicationId)
                     .pharmacy(pharmacy)
                     .medication(medication)
                     .quantity(pharmacyMedicationDto.getQuantity())
+                    .reorderThreshold(pharmacyMedicationDto.getReorderThreshold() != null
+                            ? pharmacyMedicationDto.getReorderThreshold()
+                            : medicationService.getReorderThreshold(medication.getId()))
+                    .reorderThresholdInherited(pharmacyMedicationDto.getReorderThreshold() == null)
                     .build();
             entityManager.merge(pharmacyMedication);
         }
+
+        entityManager.flush();
+        lowStockDetector.onStockChanged(pharmacy.getId(), medication.getId());
+        outboxWriter.stockChanged(pharmacy.getId(), medication.getId(), pharmacyMedicationDto.getQuantity());
     }
 
     /**
@@ -0,0 +1,76 @@
+package ru.bakht.pharmacy.service.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.bakht.pharmacy.service.repository.PharmacyMedicationRepository;
+import ru.bakht.pharmacy.service.service.outbox.OutboxWriter;
+
+/**
+ * Сервис резервирования остатков лекарств в аптеке.
+ * <p>
+ * Проверка остатка и его списание выполняются одним условным UPDATE без предварительного чтения,
+ * поэтому параллельные заказы не могут продать больше, чем есть на складе. Блокировка строки,
+ * взятая UPDATE, удерживается до фиксации транзакции заказа: конкурирующие списания той же позиции
+ * ждут её и затем перепроверяют условие по уже зафиксированному остатку.
+ * После каждого изменения остаток проверяется {@link LowStockDetector}, а изменение
+ * записывается в outbox для внешних потребителей.
+ */
+@Slf4j
+@Service
+@Transactional
+@RequiredArgsConstructor
+public class StockReservationService {
+
+    private final PharmacyMedicationRepository pharmacyMedicationRepository;
+    private final LowStockDetector lowStockDetector;
+    private final OutboxWriter outboxWriter;
+
+    /**
+     * Списывает указанное количество лекарства, если на складе его достаточно.
+     *
+     * @param pharmacyId   идентификатор аптеки
+     * @param medicationId идентификатор лекарства
+     * @param quantity     списываемое количество
+     * @return {@code true}, если остаток был списан, {@code false}, если лекарства недостаточно
+     *         или связь между аптекой и лекарством отсутствует
+     */
+    public boolean reserve(Long pharmacyId, Long medicationId, int quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Количество для резервирования должно быть больше нуля");
+        }
+
+        boolean reserved = pharmacyMedicationRepository.decrementQuantity(pharmacyId, medicationId, quantity) == 1;
+        if (!reserved) {
+            log.warn("Не удалось зарезервировать {} ед. лекарства {} в аптеке {}", quantity, medicationId, pharmacyId);
+            return false;
+        }
+
+        lowStockDetector.onStockChanged(pharmacyId, medicationId);
+        outboxWriter.stockChanged(pharmacyId, medicationId, -quantity);
+        return true;
+    }
+
+    /**
+     * Возвращает ранее списанное количество лекарства на склад.
+     *
+     * @param pharmacyId   идентификатор аптеки
+     * @param medicationId идентификатор лекарства
+     * @param quantity     возвращаемое количество
+     */
+    public void release(Long pharmacyId, Long medicationId, int quantity) {
+        if (quantity <= 0) {
+            return;
+        }
+
+        if (pharmacyMedicationRepository.incrementQuantity(pharmacyId, medicationId, quantity) == 0) {
+            log.warn("Связь между аптекой {} и лекарством {} отсутствует, возврат {} ед. пропущен",
+                    pharmacyId, medicationId, quantity);
+            return;
+        }
+
+        lowStockDetector.onStockChanged(pharmacyId, medicationId);
+        outboxWriter.stockChanged(pharmacyId, medicationId, quantity);
+    }
+}
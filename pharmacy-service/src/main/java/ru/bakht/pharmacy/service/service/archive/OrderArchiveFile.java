@@ -0,0 +1,249 @@
+package ru.bakht.pharmacy.service.service.archive;
+
+import ru.bakht.pharmacy.service.enums.OrderStatus;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.LongPredicate;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Формат файла архива заказов.
+ * <p>
+ * Файл начинается с несжатого заголовка: число заказов, минимальные и максимальные
+ * идентификатор, дата заказа и идентификатор покупателя, словарь статусов. По заголовку
+ * файл пропускается целиком, если не может содержать нужные заказы.
+ * <p>
+ * За заголовком следуют сжатые GZIP группы строк. Внутри группы значения хранятся
+ * по столбцам, первым идет покупатель: если в группе нет нужных покупателей,
+ * остальные столбцы пропускаются без разбора. Все столбцы фиксированной ширины,
+ * отсутствующее значение хранится как {@link #NULL_ID}, {@code NaN} или нулевой код статуса.
+ */
+final class OrderArchiveFile {
+
+    private static final int MAGIC = 0x4F415243;
+    private static final byte VERSION = 1;
+    private static final int ROW_GROUP_SIZE = 8192;
+    private static final long NULL_ID = 0;
+    private static final int BYTES_AFTER_CUSTOMER = Long.BYTES * 5 + Integer.BYTES + Double.BYTES + Byte.BYTES;
+
+    private OrderArchiveFile() {
+    }
+
+    /**
+     * Метаданные файла из его заголовка.
+     */
+    record Header(int rowCount, long minId, long maxId, LocalDate minOrderDate, LocalDate maxOrderDate,
+                  long minCustomerId, long maxCustomerId, List<String> statuses) {
+
+        boolean overlaps(LocalDate startDate, LocalDate endDate) {
+            return !minOrderDate.isAfter(endDate) && !maxOrderDate.isBefore(startDate);
+        }
+
+        boolean mayContainCustomer(long customerId) {
+            return customerId >= minCustomerId && customerId <= maxCustomerId;
+        }
+    }
+
+    /**
+     * Записывает заказы в новый файл и сбрасывает его на диск. Все заказы должны иметь дату.
+     */
+    static Header write(Path file, List<OrderArchiveRow> rows) throws IOException {
+        Header header = header(rows);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            var out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+            writeHeader(out, header);
+            out.flush();
+
+            var gzip = new GZIPOutputStream(out);
+            var body = new DataOutputStream(new BufferedOutputStream(gzip));
+            for (int from = 0; from < rows.size(); from += ROW_GROUP_SIZE) {
+                writeRowGroup(body, rows.subList(from, Math.min(from + ROW_GROUP_SIZE, rows.size())));
+            }
+            body.writeInt(0);
+            body.flush();
+            gzip.finish();
+            out.flush();
+            channel.force(true);
+        }
+        return header;
+    }
+
+    static Header readHeader(Path file) throws IOException {
+        try (var in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            return readHeader(in, file);
+        }
+    }
+
+    /**
+     * Читает заказы файла, передавая потребителю только заказы подходящих покупателей.
+     */
+    static void read(Path file, LongPredicate customerFilter, Consumer<OrderArchiveRow> consumer) throws IOException {
+        try (var in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            Header header = readHeader(in, file);
+            var body = new DataInputStream(new BufferedInputStream(new GZIPInputStream(in)));
+
+            for (int rows = body.readInt(); rows > 0; rows = body.readInt()) {
+                readRowGroup(body, rows, header, customerFilter, consumer);
+            }
+        }
+    }
+
+    private static Header header(List<OrderArchiveRow> rows) {
+        long minId = Long.MAX_VALUE;
+        long maxId = Long.MIN_VALUE;
+        LocalDate minDate = LocalDate.MAX;
+        LocalDate maxDate = LocalDate.MIN;
+        long minCustomerId = Long.MAX_VALUE;
+        long maxCustomerId = Long.MIN_VALUE;
+
+        for (OrderArchiveRow row : rows) {
+            minId = Math.min(minId, row.id());
+            maxId = Math.max(maxId, row.id());
+            minDate = row.orderDate().isBefore(minDate) ? row.orderDate() : minDate;
+            maxDate = row.orderDate().isAfter(maxDate) ? row.orderDate() : maxDate;
+            if (row.customerId() != null) {
+                minCustomerId = Math.min(minCustomerId, row.customerId());
+                maxCustomerId = Math.max(maxCustomerId, row.customerId());
+            }
+        }
+
+        List<String> statuses = Arrays.stream(OrderStatus.values()).map(Enum::name).toList();
+        return new Header(rows.size(), minId, maxId, minDate, maxDate, minCustomerId, maxCustomerId, statuses);
+    }
+
+    private static void writeHeader(DataOutputStream out, Header header) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        out.writeInt(header.rowCount());
+        out.writeLong(header.minId());
+        out.writeLong(header.maxId());
+        out.writeLong(header.minOrderDate().toEpochDay());
+        out.writeLong(header.maxOrderDate().toEpochDay());
+        out.writeLong(header.minCustomerId());
+        out.writeLong(header.maxCustomerId());
+        out.writeByte(header.statuses().size());
+        for (String status : header.statuses()) {
+            out.writeUTF(status);
+        }
+    }
+
+    private static Header readHeader(DataInputStream in, Path file) throws IOException {
+        if (in.readInt() != MAGIC || in.readByte() != VERSION) {
+            throw new IOException("Файл " + file + " не является архивом заказов поддерживаемой версии");
+        }
+
+        int rowCount = in.readInt();
+        long minId = in.readLong();
+        long maxId = in.readLong();
+        LocalDate minDate = LocalDate.ofEpochDay(in.readLong());
+        LocalDate maxDate = LocalDate.ofEpochDay(in.readLong());
+        long minCustomerId = in.readLong();
+        long maxCustomerId = in.readLong();
+        String[] statuses = new String[in.readUnsignedByte()];
+        for (int i = 0; i < statuses.length; i++) {
+            statuses[i] = in.readUTF();
+        }
+        return new Header(rowCount, minId, maxId, minDate, maxDate, minCustomerId, maxCustomerId, List.of(statuses));
+    }
+
+    private static void writeRowGroup(DataOutputStream out, List<OrderArchiveRow> rows) throws IOException {
+        out.writeInt(rows.size());
+        for (OrderArchiveRow row : rows) {
+            out.writeLong(id(row.customerId()));
+        }
+        for (OrderArchiveRow row : rows) {
+            out.writeLong(row.orderDate().toEpochDay());
+        }
+        for (OrderArchiveRow row : rows) {
+            out.writeLong(row.id());
+        }
+        for (OrderArchiveRow row : rows) {
+            out.writeLong(id(row.employeeId()));
+        }
+        for (OrderArchiveRow row : rows) {
+            out.writeLong(id(row.pharmacyId()));
+        }
+        for (OrderArchiveRow row : rows) {
+            out.writeLong(id(row.medicationId()));
+        }
+        for (OrderArchiveRow row : rows) {
+            out.writeInt(row.quantity());
+        }
+        for (OrderArchiveRow row : rows) {
+            out.writeDouble(row.totalAmount() != null ? row.totalAmount() : Double.NaN);
+        }
+        for (OrderArchiveRow row : rows) {
+            out.writeByte(row.orderStatus() != null ? row.orderStatus().ordinal() + 1 : 0);
+        }
+    }
+
+    private static void readRowGroup(DataInputStream in, int rows, Header header,
+                                     LongPredicate customerFilter, Consumer<OrderArchiveRow> consumer)
+            throws IOException {
+        long[] customerIds = new long[rows];
+        boolean matches = false;
+        for (int i = 0; i < rows; i++) {
+            customerIds[i] = in.readLong();
+            matches |= customerFilter.test(customerIds[i]);
+        }
+        if (!matches) {
+            in.skipNBytes((long) rows * BYTES_AFTER_CUSTOMER);
+            return;
+        }
+
+        long[] orderDates = readLongs(in, rows);
+        long[] ids = readLongs(in, rows);
+        long[] employeeIds = readLongs(in, rows);
+        long[] pharmacyIds = readLongs(in, rows);
+        long[] medicationIds = readLongs(in, rows);
+        int[] quantities = new int[rows];
+        for (int i = 0; i < rows; i++) {
+            quantities[i] = in.readInt();
+        }
+        double[] amounts = new double[rows];
+        for (int i = 0; i < rows; i++) {
+            amounts[i] = in.readDouble();
+        }
+        byte[] statuses = new byte[rows];
+        in.readFully(statuses);
+
+        for (int i = 0; i < rows; i++) {
+            if (customerFilter.test(customerIds[i])) {
+                consumer.accept(new OrderArchiveRow(ids[i], nullableId(customerIds[i]), nullableId(employeeIds[i]),
+                        nullableId(pharmacyIds[i]), nullableId(medicationIds[i]), quantities[i],
+                        Double.isNaN(amounts[i]) ? null : amounts[i], LocalDate.ofEpochDay(orderDates[i]),
+                        status(header, statuses[i])));
+            }
+        }
+    }
+
+    private static long[] readLongs(DataInputStream in, int rows) throws IOException {
+        long[] values = new long[rows];
+        for (int i = 0; i < rows; i++) {
+            values[i] = in.readLong();
+        }
+        return values;
+    }
+
+    private static OrderStatus status(Header header, byte code) {
+        return code == 0 ? null : OrderStatus.valueOf(header.statuses().get(code - 1));
+    }
+
+    private static long id(Long id) {
+        return id != null ? id : NULL_ID;
+    }
+
+    private static Long nullableId(long id) {
+        return id != NULL_ID ? id : null;
+    }
+}
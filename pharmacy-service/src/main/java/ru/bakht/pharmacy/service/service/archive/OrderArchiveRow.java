@@ -0,0 +1,20 @@
+package ru.bakht.pharmacy.service.service.archive;
+
+import ru.bakht.pharmacy.service.enums.OrderStatus;
+
+import java.time.LocalDate;
+
+/**
+ * Заказ, перенесенный в архив. Вместо связанных сущностей хранит их идентификаторы.
+ */
+public record OrderArchiveRow(
+        long id,
+        Long customerId,
+        Long employeeId,
+        Long pharmacyId,
+        Long medicationId,
+        int quantity,
+        Double totalAmount,
+        LocalDate orderDate,
+        OrderStatus orderStatus) {
+}
@@ -0,0 +1,253 @@
+package ru.bakht.pharmacy.service.service.archive;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.bakht.pharmacy.service.cache.OrderReportCacheEvictor;
+import ru.bakht.pharmacy.service.enums.OrderStatus;
+import ru.bakht.pharmacy.service.mapper.CustomerMapper;
+import ru.bakht.pharmacy.service.mapper.EmployeeMapper;
+import ru.bakht.pharmacy.service.mapper.MedicationMapper;
+import ru.bakht.pharmacy.service.mapper.PharmacyMapper;
+import ru.bakht.pharmacy.service.model.Customer;
+import ru.bakht.pharmacy.service.model.Employee;
+import ru.bakht.pharmacy.service.model.Medication;
+import ru.bakht.pharmacy.service.model.Pharmacy;
+import ru.bakht.pharmacy.service.model.dto.*;
+import ru.bakht.pharmacy.service.repository.*;
+
+import java.nio.file.Path;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Перенос старых заказов из базы в архив на диске и чтение архивных заказов.
+ * <p>
+ * Заказы переносятся порциями: каждая порция удаляется из базы с возвратом удаленных строк,
+ * записывается в неопубликованные файлы и публикуется после фиксации транзакции. При откате
+ * файлы удаляются, поэтому заказ всегда находится либо в базе, либо в архиве. Файлы,
+ * оставшиеся неопубликованными после аварийной остановки, разбираются при следующем запуске
+ * и перед пересчетом дневных итогов: если их заказов нет в базе, транзакция была
+ * зафиксирована и файл публикуется.
+ * <p>
+ * Дневные итоги при переносе не изменяются, поэтому отчет об итогах заказов продолжает
+ * учитывать архивные заказы. Кэш заказов покупателей очищается после фиксации каждой порции.
+ */
+@Slf4j
+@Service
+@Transactional
+@RequiredArgsConstructor
+public class OrderArchiveService {
+
+    private static final long LOCK_KEY = "orders-archive".hashCode();
+    private static final String ARCHIVE_CHUNK_SQL = "DELETE FROM orders "
+            + "WHERE (id, order_date) IN ("
+            + "SELECT id, order_date FROM orders WHERE order_date < :cutoff ORDER BY order_date, id LIMIT :limit) "
+            + "RETURNING id, customer_id, employee_id, pharmacy_id, medication_id, quantity, total_amount, "
+            + "order_date, status";
+
+    private final OrderArchiveStore orderArchiveStore;
+    private final OrderRepository orderRepository;
+    private final CustomerRepository customerRepository;
+    private final EmployeeRepository employeeRepository;
+    private final PharmacyRepository pharmacyRepository;
+    private final MedicationRepository medicationRepository;
+    private final CustomerMapper customerMapper;
+    private final EmployeeMapper employeeMapper;
+    private final PharmacyMapper pharmacyMapper;
+    private final MedicationMapper medicationMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final OrderReportCacheEvictor orderReportCacheEvictor;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${orders.archive.after-months}")
+    private int archiveAfterMonths;
+
+    @Value("${orders.archive.chunk-size}")
+    private int chunkSize;
+
+    /**
+     * Переносит в архив заказы, сделанные раньше начала месяца, отстоящего от текущего
+     * на заданное число месяцев. Если перенос уже выполняет другой экземпляр, запуск пропускается.
+     */
+    @Scheduled(cron = "${orders.archive.cron}")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void archiveOldOrders() {
+        if (archiveAfterMonths <= 0) {
+            return;
+        }
+
+        LocalDate cutoff = YearMonth.now().minusMonths(archiveAfterMonths).atDay(1);
+        if (!Boolean.TRUE.equals(transactionTemplate.execute(status -> recoverPendingFiles()))) {
+            log.info("Перенос заказов в архив выполняется другим экземпляром");
+            return;
+        }
+
+        log.info("Перенос в архив заказов раньше {}", cutoff);
+        long archived = 0;
+        int moved;
+        do {
+            moved = Objects.requireNonNull(transactionTemplate.execute(status -> archiveChunk(cutoff)));
+            archived += moved;
+        } while (moved == chunkSize);
+        log.info("Перенос заказов в архив завершен, перенесено заказов: {}", archived);
+    }
+
+    /**
+     * Находит архивные заказы покупателя по номеру телефона.
+     *
+     * @param phone номер телефона покупателя
+     * @return архивные заказы покупателя
+     */
+    @Transactional(readOnly = true)
+    public List<OrderDto> findOrdersByCustomerPhone(String phone) {
+        List<Long> customerIds = customerRepository.findIdsByPhone(phone);
+        if (customerIds.isEmpty()) {
+            return List.of();
+        }
+
+        List<OrderArchiveRow> rows = orderArchiveStore.findByCustomerIds(new HashSet<>(customerIds));
+        return rows.isEmpty() ? List.of() : toDtos(rows);
+    }
+
+    /**
+     * Берет до конца текущей транзакции блокировку переноса, дожидаясь фиксации порции,
+     * которую переносит другой экземпляр. Неопубликованные файлы, заказов которых уже нет
+     * в базе, публикуются так же, как при восстановлении после сбоя, поэтому до конца
+     * транзакции каждый заказ виден либо в базе, либо в опубликованных файлах архива.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void lockArchive() {
+        entityManager.createNativeQuery("SELECT COUNT(*) FROM pg_advisory_xact_lock(:key)")
+                .setParameter("key", LOCK_KEY)
+                .getSingleResult();
+        resolvePendingFiles();
+    }
+
+    private boolean recoverPendingFiles() {
+        if (!tryLock()) {
+            return false;
+        }
+
+        resolvePendingFiles();
+        return true;
+    }
+
+    private void resolvePendingFiles() {
+        for (Path file : orderArchiveStore.findPending()) {
+            OptionalLong orderId = orderArchiveStore.anyOrderId(file);
+            if (orderId.isEmpty()) {
+                continue;
+            }
+            if (orderRepository.existsById(orderId.getAsLong())) {
+                log.warn("Удаление файла архива {}, перенос которого был отменен", file);
+                orderArchiveStore.discard(List.of(file));
+            } else {
+                log.warn("Публикация файла архива {}, перенос которого зафиксирован", file);
+                orderArchiveStore.publish(List.of(file));
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private int archiveChunk(LocalDate cutoff) {
+        if (!tryLock()) {
+            return 0;
+        }
+
+        List<Object[]> deleted = entityManager.createNativeQuery(ARCHIVE_CHUNK_SQL)
+                .setParameter("cutoff", cutoff)
+                .setParameter("limit", chunkSize)
+                .getResultList();
+        if (deleted.isEmpty()) {
+            return 0;
+        }
+
+        List<Path> files = orderArchiveStore.writePending(deleted.stream().map(OrderArchiveService::toRow).toList());
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    orderArchiveStore.publish(files);
+                } else {
+                    orderArchiveStore.discard(files);
+                }
+            }
+        });
+        orderReportCacheEvictor.evictCustomerOrders();
+        log.debug("В архив записано заказов: {}, файлов: {}", deleted.size(), files.size());
+        return deleted.size();
+    }
+
+    private boolean tryLock() {
+        return Boolean.TRUE.equals(entityManager.createNativeQuery("SELECT pg_try_advisory_xact_lock(:key)")
+                .setParameter("key", LOCK_KEY)
+                .getSingleResult());
+    }
+
+    private List<OrderDto> toDtos(List<OrderArchiveRow> rows) {
+        Map<Long, CustomerDto> customers = byId(customerRepository.findAllById(ids(rows, OrderArchiveRow::customerId)),
+                Customer::getId, customerMapper::toDto);
+        Map<Long, EmployeeDto> employees = byId(employeeRepository.findAllById(ids(rows, OrderArchiveRow::employeeId)),
+                Employee::getId, employeeMapper::toDto);
+        Map<Long, PharmacyDto> pharmacies = byId(pharmacyRepository.findAllById(ids(rows, OrderArchiveRow::pharmacyId)),
+                Pharmacy::getId, pharmacyMapper::toDto);
+        Map<Long, MedicationDto> medications = byId(
+                medicationRepository.findAllById(ids(rows, OrderArchiveRow::medicationId)),
+                Medication::getId, medicationMapper::toDto);
+
+        return rows.stream()
+                .map(row -> OrderDto.builder()
+                        .id(row.id())
+                        .customer(customers.get(row.customerId()))
+                        .employee(employees.get(row.employeeId()))
+                        .pharmacy(pharmacies.get(row.pharmacyId()))
+                        .medication(medications.get(row.medicationId()))
+                        .quantity(row.quantity())
+                        .totalAmount(row.totalAmount())
+                        .orderDate(row.orderDate())
+                        .orderStatus(row.orderStatus())
+                        .build())
+                .toList();
+    }
+
+    private static Set<Long> ids(List<OrderArchiveRow> rows, Function<OrderArchiveRow, Long> id) {
+        return rows.stream().map(id).filter(Objects::nonNull).collect(Collectors.toSet());
+    }
+
+    private static <E, D> Map<Long, D> byId(List<E> entities, Function<E, Long> id, Function<E, D> mapper) {
+        return entities.stream().collect(Collectors.toMap(id, mapper));
+    }
+
+    private static OrderArchiveRow toRow(Object[] row) {
+        return new OrderArchiveRow(
+                ((Number) row[0]).longValue(),
+                toLong(row[1]),
+                toLong(row[2]),
+                toLong(row[3]),
+                toLong(row[4]),
+                ((Number) row[5]).intValue(),
+                row[6] != null ? ((Number) row[6]).doubleValue() : null,
+                row[7] instanceof Date date ? date.toLocalDate() : (LocalDate) row[7],
+                row[8] != null ? OrderStatus.valueOf((String) row[8]) : null);
+    }
+
+    private static Long toLong(Object value) {
+        return value != null ? ((Number) value).longValue() : null;
+    }
+}
@@ -0,0 +1,224 @@
+package ru.bakht.pharmacy.service.service.archive;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.LongPredicate;
+import java.util.stream.Stream;
+
+/**
+ * Хранилище архива заказов на локальном диске.
+ * <p>
+ * Файлы разложены по каталогам месяцев заказа ({@code year=2024/month=01}), каждый файл
+ * содержит заказы одного месяца. Файл сначала записывается с суффиксом {@code .pending}
+ * и становится видимым для чтения только после публикации, то есть после фиксации
+ * транзакции, удалившей эти заказы из базы. Заголовки опубликованных файлов кэшируются:
+ * файлы архива после публикации не изменяются.
+ */
+@Slf4j
+@Component
+public class OrderArchiveStore {
+
+    private static final String EXTENSION = ".ocf";
+    private static final String PENDING_SUFFIX = ".pending";
+
+    private final Map<Path, OrderArchiveFile.Header> headers = new ConcurrentHashMap<>();
+
+    @Value("${orders.archive.directory}")
+    private Path directory;
+
+    @PostConstruct
+    void init() throws IOException {
+        Files.createDirectories(directory);
+        log.info("Каталог архива заказов: {}", directory);
+    }
+
+    /**
+     * Записывает заказы в неопубликованные файлы, по одному на месяц заказа.
+     * Если запись не удалась, уже записанные файлы удаляются.
+     *
+     * @param rows заказы с заполненной датой
+     * @return записанные неопубликованные файлы
+     */
+    public List<Path> writePending(List<OrderArchiveRow> rows) {
+        Map<YearMonth, List<OrderArchiveRow>> rowsByMonth = new TreeMap<>();
+        rows.forEach(row -> rowsByMonth.computeIfAbsent(YearMonth.from(row.orderDate()), month -> new ArrayList<>())
+                .add(row));
+
+        List<Path> written = new ArrayList<>();
+        try {
+            for (var entry : rowsByMonth.entrySet()) {
+                List<OrderArchiveRow> monthRows = entry.getValue();
+                monthRows.sort(Comparator.comparingLong(OrderArchiveRow::id));
+
+                Path monthDirectory = directory.resolve(String.format("year=%04d/month=%02d",
+                        entry.getKey().getYear(), entry.getKey().getMonthValue()));
+                Files.createDirectories(monthDirectory);
+                Path file = monthDirectory.resolve(String.format("orders-%d-%d%s%s", monthRows.get(0).id(),
+                        monthRows.get(monthRows.size() - 1).id(), EXTENSION, PENDING_SUFFIX));
+
+                OrderArchiveFile.write(file, monthRows);
+                written.add(file);
+            }
+        } catch (IOException e) {
+            discard(written);
+            throw new UncheckedIOException(e);
+        }
+        return written;
+    }
+
+    /**
+     * Делает неопубликованные файлы видимыми для чтения. Файлы, уже опубликованные
+     * при восстановлении после сбоя, пропускаются.
+     *
+     * @param pendingFiles файлы, возвращенные {@link #writePending(List)}
+     */
+    public void publish(List<Path> pendingFiles) {
+        for (Path pending : pendingFiles) {
+            String name = pending.getFileName().toString();
+            Path file = pending.resolveSibling(name.substring(0, name.length() - PENDING_SUFFIX.length()));
+            try {
+                Files.move(pending, file, StandardCopyOption.ATOMIC_MOVE);
+            } catch (NoSuchFileException e) {
+                if (!Files.exists(file)) {
+                    throw new UncheckedIOException(e);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Удаляет неопубликованные файлы.
+     *
+     * @param pendingFiles файлы, возвращенные {@link #writePending(List)}
+     */
+    public void discard(List<Path> pendingFiles) {
+        for (Path pending : pendingFiles) {
+            try {
+                Files.deleteIfExists(pending);
+            } catch (IOException e) {
+                log.warn("Не удалось удалить неопубликованный файл архива {}", pending, e);
+            }
+        }
+    }
+
+    /**
+     * Возвращает неопубликованные файлы, оставшиеся после аварийной остановки.
+     */
+    public List<Path> findPending() {
+        return list(PENDING_SUFFIX);
+    }
+
+    /**
+     * Возвращает идентификатор любого заказа из неопубликованного файла или пустой результат,
+     * если файл уже опубликован или удален транзакцией, которая его записала.
+     */
+    public OptionalLong anyOrderId(Path pendingFile) {
+        try {
+            return OptionalLong.of(OrderArchiveFile.readHeader(pendingFile).minId());
+        } catch (NoSuchFileException e) {
+            return OptionalLong.empty();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Находит архивные заказы покупателей. Файлы, диапазон покупателей которых
+     * не содержит ни одного из указанных, не читаются.
+     *
+     * @param customerIds идентификаторы покупателей
+     * @return заказы, упорядоченные по файлам архива
+     */
+    public List<OrderArchiveRow> findByCustomerIds(Set<Long> customerIds) {
+        List<OrderArchiveRow> rows = new ArrayList<>();
+        if (customerIds.isEmpty()) {
+            return rows;
+        }
+
+        for (Path file : list(EXTENSION)) {
+            var header = header(file);
+            if (customerIds.stream().anyMatch(header::mayContainCustomer)) {
+                read(file, customerIds::contains, rows::add);
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Передает потребителю архивные заказы за период. Файлы вне периода не читаются.
+     *
+     * @param startDate начальная дата периода
+     * @param endDate   конечная дата периода
+     * @param consumer  потребитель заказов
+     */
+    public void forEachInDateRange(LocalDate startDate, LocalDate endDate, Consumer<OrderArchiveRow> consumer) {
+        for (Path file : list(EXTENSION)) {
+            if (header(file).overlaps(startDate, endDate)) {
+                read(file, customerId -> true, row -> {
+                    if (!row.orderDate().isBefore(startDate) && !row.orderDate().isAfter(endDate)) {
+                        consumer.accept(row);
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * Возвращает самую раннюю дату архивного заказа.
+     */
+    public Optional<LocalDate> findMinOrderDate() {
+        return list(EXTENSION).stream()
+                .map(file -> header(file).minOrderDate())
+                .min(Comparator.naturalOrder());
+    }
+
+    private List<Path> list(String suffix) {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.walk(directory)) {
+            return files
+                    .filter(file -> file.getFileName().toString().endsWith(suffix))
+                    .sorted()
+                    .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private OrderArchiveFile.Header header(Path file) {
+        return headers.computeIfAbsent(file, this::readHeader);
+    }
+
+    private OrderArchiveFile.Header readHeader(Path file) {
+        try {
+            return OrderArchiveFile.readHeader(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void read(Path file, LongPredicate customerFilter, Consumer<OrderArchiveRow> consumer) {
+        try {
+            OrderArchiveFile.read(file, customerFilter, consumer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package ru.bakht.pharmacy.service.service.notification;
+
+/**
+ * Письмо для отправки через {@link NotificationDispatcher}.
+ *
+ * @param to      адрес получателя
+ * @param subject тема письма
+ * @param text    текст письма
+ */
+public record EmailMessage(String to, String subject, String text) {
+}
@@ -0,0 +1,153 @@
+package ru.bakht.pharmacy.service.service.notification;
+
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Параллельная отправка писем.
+ * <p>
+ * Каждое письмо отправляется в отдельном виртуальном потоке, число одновременно отправляемых
+ * писем ограничено {@code notification.mail.max-concurrency}. Частота обращений к одному
+ * SMTP-серверу ограничена {@code notification.mail.rate-per-second} для всех экземпляров
+ * приложения сразу ({@link SharedSmtpRateLimiter}). Ошибки доставки повторяются с экспоненциально растущей паузой,
+ * ошибки подготовки письма и аутентификации не повторяются.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class NotificationDispatcher {
+
+    private static final String DEFAULT_HOST = "default";
+
+    private final JavaMailSender mailSender;
+    private final SharedSmtpRateLimiter rateLimiter;
+
+    @Value("${notification.mail.max-concurrency}")
+    private int maxConcurrency;
+
+    @Value("${notification.mail.rate-per-second}")
+    private double ratePerSecond;
+
+    @Value("${notification.mail.max-attempts}")
+    private int maxAttempts;
+
+    @Value("${notification.mail.retry-backoff}")
+    private Duration retryBackoff;
+
+    /**
+     * Отправляет письма и ожидает завершения всех отправок.
+     *
+     * @param messages письма
+     * @return количество отправленных писем и адреса неотправленных
+     */
+    public Result dispatch(List<EmailMessage> messages) {
+        if (messages.isEmpty()) {
+            return new Result(0, Set.of());
+        }
+
+        var host = smtpHost();
+        var permits = new Semaphore(maxConcurrency);
+        var sent = new AtomicInteger();
+        Set<String> failedRecipients = ConcurrentHashMap.newKeySet();
+
+        log.info("Отправка {} писем", messages.size());
+        try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (EmailMessage message : messages) {
+                permits.acquireUninterruptibly();
+                executor.execute(() -> {
+                    try {
+                        if (send(message, host)) {
+                            sent.incrementAndGet();
+                        } else {
+                            failedRecipients.add(message.to());
+                        }
+                    } finally {
+                        permits.release();
+                    }
+                });
+            }
+        }
+
+        var result = new Result(sent.get(), Set.copyOf(failedRecipients));
+        log.info("Отправка писем завершена: отправлено {}, не отправлено {}", result.sent(), result.failed());
+        return result;
+    }
+
+    private boolean send(EmailMessage message, String host) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                rateLimiter.acquire(host, ratePerSecond);
+                mailSender.send(toMimeMessage(message));
+                log.debug("Письмо отправлено на адрес {}", message.to());
+                return true;
+            } catch (MailSendException e) {
+                if (attempt >= maxAttempts) {
+                    log.error("Не удалось отправить письмо на адрес {} за {} попыток", message.to(), attempt, e);
+                    return false;
+                }
+                log.warn("Попытка {} отправки письма на адрес {} не удалась: {}", attempt, message.to(), e.getMessage());
+                try {
+                    Thread.sleep(retryBackoff.multipliedBy(1L << (attempt - 1)));
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            } catch (MessagingException | MailException e) {
+                log.error("Не удалось отправить письмо на адрес {}", message.to(), e);
+                return false;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+    }
+
+    private MimeMessage toMimeMessage(EmailMessage message) throws MessagingException {
+        MimeMessage mimeMessage = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(mimeMessage, false, "UTF-8");
+
+        helper.setTo(message.to());
+        helper.setSubject(message.subject());
+        helper.setText(message.text(), false);
+        return mimeMessage;
+    }
+
+    private String smtpHost() {
+        return mailSender instanceof JavaMailSenderImpl impl && impl.getHost() != null
+                ? impl.getHost()
+                : DEFAULT_HOST;
+    }
+
+    /**
+     * Итог отправки писем.
+     *
+     * @param sent             количество отправленных писем
+     * @param failedRecipients адреса писем, которые не удалось отправить
+     */
+    public record Result(int sent, Set<String> failedRecipients) {
+
+        /**
+         * Возвращает количество писем, которые не удалось отправить.
+         */
+        public int failed() {
+            return failedRecipients.size();
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package ru.bakht.pharmacy.service.service.notification;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ограничитель частоты отправки писем через SMTP-сервер, общий для всех экземпляров приложения.
+ * <p>
+ * Время следующего свободного разрешения хранится в Redis под ключом хоста. Скрипт атомарно
+ * резервирует ближайшее свободное время по часам Redis и сдвигает его на интервал, поэтому
+ * экземпляры выдают разрешения равномерно, не чаще одного за интервал на всех вместе.
+ * Ключ истекает через секунду после последнего зарезервированного времени.
+ * Пока Redis недоступен, частота ограничивается на каждом экземпляре отдельно {@link SmtpRateLimiter}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SharedSmtpRateLimiter {
+
+    private static final String KEY_PREFIX = "notification:smtp-rate:";
+
+    private static final RedisScript<Long> RESERVE_SCRIPT = new DefaultRedisScript<>(
+            "local time = redis.call('time') "
+                    + "local now = time[1] * 1000000 + time[2] "
+                    + "local permitAt = math.max(now, tonumber(redis.call('get', KEYS[1]) or now)) "
+                    + "local nextPermitAt = permitAt + tonumber(ARGV[1]) "
+                    + "redis.call('set', KEYS[1], string.format('%.0f', nextPermitAt), "
+                    + "'px', math.ceil((nextPermitAt - now) / 1000) + 1000) "
+                    + "return permitAt - now", Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+
+    private final Map<String, SmtpRateLimiter> localLimiters = new ConcurrentHashMap<>();
+    private volatile boolean redisAvailable = true;
+
+    /**
+     * Ожидает очередное разрешение на отправку письма через SMTP-сервер.
+     *
+     * @param host             хост SMTP-сервера
+     * @param permitsPerSecond допустимое число писем в секунду для всех экземпляров
+     * @throws InterruptedException если поток прерван во время ожидания
+     */
+    public void acquire(String host, double permitsPerSecond) throws InterruptedException {
+        if (permitsPerSecond <= 0) {
+            throw new IllegalArgumentException("Частота отправки писем должна быть больше нуля");
+        }
+
+        long waitMicros;
+        try {
+            Long reserved = redisTemplate.execute(RESERVE_SCRIPT, List.of(KEY_PREFIX + host),
+                    String.valueOf((long) (TimeUnit.SECONDS.toMicros(1) / permitsPerSecond)));
+            waitMicros = reserved != null ? reserved : 0;
+            if (!redisAvailable) {
+                redisAvailable = true;
+                log.info("Частота отправки писем снова ограничивается через Redis");
+            }
+        } catch (Exception e) {
+            if (redisAvailable) {
+                redisAvailable = false;
+                log.warn("Redis недоступен, частота отправки писем ограничивается на каждом экземпляре отдельно", e);
+            }
+            localLimiters.computeIfAbsent(host, key -> new SmtpRateLimiter(permitsPerSecond)).acquire();
+            return;
+        }
+
+        if (waitMicros > 0) {
+            TimeUnit.MICROSECONDS.sleep(waitMicros);
+        }
+    }
+}
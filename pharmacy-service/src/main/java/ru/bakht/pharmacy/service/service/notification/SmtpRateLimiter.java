@@ -0,0 +1,44 @@
+package ru.bakht.pharmacy.service.service.notification;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ограничитель частоты отправки писем через один SMTP-сервер в пределах экземпляра приложения.
+ * Используется {@link SharedSmtpRateLimiter}, пока Redis недоступен.
+ * <p>
+ * Разрешения выдаются равномерно, не чаще одного за интервал. Поток резервирует ближайшее
+ * свободное время под коротким захватом монитора и ожидает его уже без блокировки,
+ * поэтому ожидающие виртуальные потоки не занимают потоки-носители.
+ */
+final class SmtpRateLimiter {
+
+    private final long intervalNanos;
+    private long nextPermitAt;
+
+    SmtpRateLimiter(double permitsPerSecond) {
+        if (permitsPerSecond <= 0) {
+            throw new IllegalArgumentException("Частота отправки писем должна быть больше нуля");
+        }
+        this.intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond);
+        this.nextPermitAt = System.nanoTime();
+    }
+
+    /**
+     * Ожидает очередное разрешение на отправку письма.
+     *
+     * @throws InterruptedException если поток прерван во время ожидания
+     */
+    void acquire() throws InterruptedException {
+        long waitNanos;
+        synchronized (this) {
+            long now = System.nanoTime();
+            long permitAt = Math.max(now, nextPermitAt);
+            nextPermitAt = permitAt + intervalNanos;
+            waitNanos = permitAt - now;
+        }
+
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package ru.bakht.pharmacy.service.service.outbox;
+
+import ru.bakht.pharmacy.service.enums.OutboxEventType;
+
+import java.time.LocalDateTime;
+
+/**
+ * Опубликованное событие из {@code outbox_events}. Рассылается слушателям внутри приложения
+ * через {@code @EventListener}. Доставка выполняется не менее одного раза и без гарантии порядка:
+ * одно событие может быть доставлено повторно, а события, опубликованные разными экземплярами,
+ * приходят в любом порядке.
+ *
+ * @param id          уникальный идентификатор события для отбрасывания дубликатов
+ * @param eventType   тип события
+ * @param aggregateId идентификатор заказа или пары аптека:лекарство
+ * @param payload     содержимое события в формате JSON
+ * @param createdAt   время записи события
+ */
+public record OutboxMessage(Long id, OutboxEventType eventType, String aggregateId, String payload,
+                            LocalDateTime createdAt) {
+}
@@ -0,0 +1,109 @@
+package ru.bakht.pharmacy.service.service.outbox;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.redis.connection.stream.StreamRecords;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.bakht.pharmacy.service.model.OutboxEvent;
+import ru.bakht.pharmacy.service.repository.OutboxEventRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Публикация событий из {@code outbox_events} после фиксации транзакций, в которых они записаны.
+ * <p>
+ * События публикуются в поток Redis для внешних потребителей и как {@link OutboxMessage}
+ * слушателям внутри приложения. Порция событий блокируется через {@code FOR UPDATE SKIP LOCKED},
+ * поэтому несколько экземпляров разбирают разные порции и публикуют их одновременно. Доставка
+ * выполняется не менее одного раза и без гарантии порядка: если экземпляр остановится между
+ * публикацией и отметкой, события будут опубликованы повторно, а порции, разобранные разными
+ * экземплярами, приходят в любом порядке. Потребители должны отбрасывать дубликаты
+ * по идентификатору события и не полагаться на порядок событий.
+ */
+@Slf4j
+@Service
+@Transactional
+@RequiredArgsConstructor
+public class OutboxRelay {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final StringRedisTemplate redisTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${outbox.relay.batch-size}")
+    private int batchSize;
+
+    @Value("${outbox.relay.stream-key}")
+    private String streamKey;
+
+    @Value("${outbox.relay.stream-max-length}")
+    private long streamMaxLength;
+
+    @Value("${outbox.retention}")
+    private Duration retention;
+
+    /**
+     * Публикует очередную порцию неопубликованных событий по возрастанию идентификатора.
+     * Порядок соблюдается только внутри порции: другие экземпляры в это же время публикуют
+     * свои порции, пропущенные через {@code SKIP LOCKED}, в том числе с меньшими идентификаторами.
+     * При ошибке публикации порция прерывается, и оставшиеся события публикуются следующим запуском.
+     *
+     * @return количество опубликованных событий
+     */
+    @Scheduled(fixedDelayString = "${outbox.relay.poll-interval}")
+    public int publishBatch() {
+        List<OutboxEvent> events = outboxEventRepository.lockUnpublished(batchSize);
+        if (events.isEmpty()) {
+            return 0;
+        }
+
+        List<Long> published = new ArrayList<>(events.size());
+        for (OutboxEvent event : events) {
+            try {
+                publish(event);
+            } catch (RuntimeException e) {
+                log.error("Не удалось опубликовать событие {}, публикация порции прервана", event.getId(), e);
+                break;
+            }
+            published.add(event.getId());
+        }
+
+        if (!published.isEmpty()) {
+            outboxEventRepository.markPublished(published);
+            redisTemplate.opsForStream().trim(streamKey, streamMaxLength, true);
+            log.debug("Опубликовано событий: {}", published.size());
+        }
+        return published.size();
+    }
+
+    /**
+     * Удаляет опубликованные события старше срока хранения.
+     */
+    @Scheduled(cron = "${outbox.cleanup-cron}")
+    public void cleanup() {
+        int deleted = outboxEventRepository.deletePublishedBefore(LocalDateTime.now().minus(retention));
+        log.info("Удалено опубликованных событий outbox: {}", deleted);
+    }
+
+    private void publish(OutboxEvent event) {
+        redisTemplate.opsForStream().add(StreamRecords.string(Map.of(
+                        "id", String.valueOf(event.getId()),
+                        "type", event.getEventType().name(),
+                        "aggregateId", event.getAggregateId(),
+                        "payload", event.getPayload(),
+                        "createdAt", event.getCreatedAt().toString()))
+                .withStreamKey(streamKey));
+
+        eventPublisher.publishEvent(new OutboxMessage(event.getId(), event.getEventType(), event.getAggregateId(),
+                event.getPayload(), event.getCreatedAt()));
+    }
+}
@@ -0,0 +1,110 @@
+package ru.bakht.pharmacy.service.service.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.bakht.pharmacy.service.enums.OrderStatus;
+import ru.bakht.pharmacy.service.enums.OutboxEventType;
+import ru.bakht.pharmacy.service.model.Order;
+import ru.bakht.pharmacy.service.model.OutboxEvent;
+import ru.bakht.pharmacy.service.repository.OutboxEventRepository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Запись событий о заказах и остатках в таблицу {@code outbox_events}.
+ * <p>
+ * Событие записывается в транзакции вызывающего кода и фиксируется или откатывается вместе
+ * с изменением, поэтому потребители не получают событий о неслучившихся изменениях
+ * и не пропускают случившиеся. Вызов вне транзакции завершается ошибкой.
+ */
+@Slf4j
+@Service
+@Transactional(propagation = Propagation.MANDATORY)
+@RequiredArgsConstructor
+public class OutboxWriter {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Записывает событие о создании заказа.
+     *
+     * @param order сохраненный заказ
+     */
+    public void orderCreated(Order order) {
+        appendOrderEvent(OutboxEventType.ORDER_CREATED, order);
+    }
+
+    /**
+     * Записывает событие об изменении заказа.
+     *
+     * @param order сохраненный заказ
+     */
+    public void orderUpdated(Order order) {
+        appendOrderEvent(OutboxEventType.ORDER_UPDATED, order);
+    }
+
+    /**
+     * Записывает событие об удалении заказа.
+     *
+     * @param order заказ в состоянии до удаления
+     */
+    public void orderDeleted(Order order) {
+        appendOrderEvent(OutboxEventType.ORDER_DELETED, order);
+    }
+
+    /**
+     * Записывает событие об изменении остатка лекарства в аптеке.
+     *
+     * @param pharmacyId   идентификатор аптеки
+     * @param medicationId идентификатор лекарства
+     * @param delta        изменение остатка: положительное при поступлении, отрицательное при списании
+     */
+    public void stockChanged(Long pharmacyId, Long medicationId, int delta) {
+        append(OutboxEventType.STOCK_CHANGED, pharmacyId + ":" + medicationId,
+                new StockPayload(pharmacyId, medicationId, delta));
+    }
+
+    private void appendOrderEvent(OutboxEventType eventType, Order order) {
+        append(eventType, String.valueOf(order.getId()), new OrderPayload(
+                order.getId(),
+                order.getCustomer() != null ? order.getCustomer().getId() : null,
+                order.getEmployee() != null ? order.getEmployee().getId() : null,
+                order.getPharmacy() != null ? order.getPharmacy().getId() : null,
+                order.getMedication() != null ? order.getMedication().getId() : null,
+                order.getQuantity(),
+                order.getTotalAmount(),
+                order.getOrderDate(),
+                order.getOrderStatus()));
+    }
+
+    private void append(OutboxEventType eventType, String aggregateId, Object payload) {
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Не удалось сериализовать событие " + eventType, e);
+        }
+
+        outboxEventRepository.save(OutboxEvent.builder()
+                .eventType(eventType)
+                .aggregateId(aggregateId)
+                .payload(json)
+                .createdAt(LocalDateTime.now())
+                .build());
+        log.debug("Записано событие {} для {}", eventType, aggregateId);
+    }
+
+    private record OrderPayload(Long orderId, Long customerId, Long employeeId, Long pharmacyId, Long medicationId,
+                                Integer quantity, Double totalAmount, LocalDate orderDate, OrderStatus orderStatus) {
+    }
+
+    private record StockPayload(Long pharmacyId, Long medicationId, int delta) {
+    }
+}
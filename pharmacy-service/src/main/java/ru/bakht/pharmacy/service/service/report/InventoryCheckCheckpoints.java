@@ -0,0 +1,98 @@
+package ru.bakht.pharmacy.service.service.report;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Прогресс проверки запасов в Redis.
+ * <p>
+ * Для каждого запуска хранится хеш: для сегмента — идентификатор последней обработанной аптеки
+ * или отметка о завершении. Экземпляр, захвативший сегмент упавшего экземпляра, продолжает
+ * с сохраненной аптеки. Ключ текущего запуска позволяет экземплярам подхватывать
+ * незавершенные сегменты между плановыми запусками.
+ */
+@Component
+@RequiredArgsConstructor
+public class InventoryCheckCheckpoints {
+
+    private static final String KEY_PREFIX = "inventory-check:run:";
+    private static final String CURRENT_RUN_KEY = "inventory-check:current-run";
+    private static final String COMPLETED = "completed";
+
+    private final StringRedisTemplate redisTemplate;
+
+    @Value("${inventory.check.checkpoint-ttl}")
+    private Duration checkpointTtl;
+
+    /**
+     * Делает запуск текущим. Повторный вызов с тем же идентификатором с других экземпляров
+     * прогресс не сбрасывает.
+     *
+     * @param runId идентификатор запуска
+     */
+    public void startRun(String runId) {
+        redisTemplate.opsForValue().set(CURRENT_RUN_KEY, runId, checkpointTtl);
+    }
+
+    /**
+     * Возвращает идентификатор текущего запуска, если он есть.
+     */
+    public Optional<String> currentRun() {
+        return Optional.ofNullable(redisTemplate.opsForValue().get(CURRENT_RUN_KEY));
+    }
+
+    /**
+     * Возвращает номера завершенных сегментов запуска.
+     *
+     * @param runId идентификатор запуска
+     */
+    public Set<Integer> completedShards(String runId) {
+        return redisTemplate.<String, String>opsForHash().entries(runKey(runId)).entrySet().stream()
+                .filter(entry -> COMPLETED.equals(entry.getValue()))
+                .map(entry -> Integer.valueOf(entry.getKey()))
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * Возвращает идентификатор последней обработанной аптеки сегмента или {@code 0},
+     * если сегмент еще не обрабатывался.
+     *
+     * @param runId идентификатор запуска
+     * @param shard номер сегмента
+     */
+    public long lastPharmacyId(String runId, int shard) {
+        String value = redisTemplate.<String, String>opsForHash().get(runKey(runId), String.valueOf(shard));
+        return value == null || COMPLETED.equals(value) ? 0 : Long.parseLong(value);
+    }
+
+    /**
+     * Сохраняет идентификатор последней обработанной аптеки сегмента.
+     */
+    public void save(String runId, int shard, long lastPharmacyId) {
+        put(runId, shard, String.valueOf(lastPharmacyId));
+    }
+
+    /**
+     * Отмечает сегмент завершенным.
+     */
+    public void complete(String runId, int shard) {
+        put(runId, shard, COMPLETED);
+    }
+
+    private void put(String runId, int shard, String value) {
+        String key = runKey(runId);
+        redisTemplate.opsForHash().put(key, String.valueOf(shard), value);
+        redisTemplate.expire(key, checkpointTtl);
+    }
+
+    private static String runKey(String runId) {
+        return KEY_PREFIX + runId;
+    }
+}
@@ -1,36 +1,61 @@
 package ru.bakht.pharmacy.service.service.report;
 
-import jakarta.mail.MessagingException;
-import jakarta.mail.internet.MimeMessage;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.integration.redis.util.RedisLockRegistry;
-import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
-import ru.bakht.pharmacy.service.model.Employee;
+import org.springframework.transaction.event.TransactionalEventListener;
 import ru.bakht.pharmacy.service.model.PharmacyMedication;
+import ru.bakht.pharmacy.service.model.PharmacyMedicationId;
 import ru.bakht.pharmacy.service.repository.EmployeeRepository;
-import ru.bakht.pharmacy.service.repository.MedicationRepository;
+import ru.bakht.pharmacy.service.repository.PharmacyMedicationRepository;
+import ru.bakht.pharmacy.service.service.LowStockDetector;
+import ru.bakht.pharmacy.service.service.LowStockEvent;
+import ru.bakht.pharmacy.service.service.notification.EmailMessage;
+import ru.bakht.pharmacy.service.service.notification.NotificationDispatcher;
 
-import java.util.List;
-import java.util.concurrent.locks.Lock;
+import java.time.LocalDate;
+import java.util.*;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * Класс для проверки запасов медикаментов и уведомления сотрудников.
+ * <p>
+ * Уведомление отправляется сразу после фиксации транзакции, в которой {@link LowStockDetector}
+ * обнаружил падение остатка ниже порога пополнения строки и поставил отметку {@code low_stock_alerted}.
+ * После доставки письма строка получает отметку {@code low_stock_notified}. Ночная проверка уведомляет
+ * о строках ниже порога без этой отметки: пропущенных событиями (например, при изменении остатка
+ * в обход сервисов), отброшенных при переполненной очереди или не доставленных, и снимает обе отметки
+ * с пополненных строк.
+ * <p>
+ * Ночная проверка разбита на сегменты {@code inventory.check.shards} по остатку от деления
+ * идентификатора аптеки. Экземпляры делят сегменты между собой через {@link InventoryShardLocks},
+ * прогресс сегментов хранится в {@link InventoryCheckCheckpoints}, поэтому сегменты упавшего
+ * экземпляра дорабатывают другие.
+ * <p>
+ * Каждый сотрудник получает одно письмо со всеми лекарствами своей аптеки, письма отправляет
+ * {@link NotificationDispatcher}.
  */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class InventoryCheckService {
 
-    private final MedicationRepository medicationRepository;
+    private final PharmacyMedicationRepository pharmacyMedicationRepository;
     private final EmployeeRepository employeeRepository;
-    private final JavaMailSender mailSender;
-    private final RedisLockRegistry redisLockRegistry;
+    private final NotificationDispatcher notificationDispatcher;
+    private final InventoryShardLocks shardLocks;
+    private final InventoryCheckCheckpoints checkpoints;
+
+    private final ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+
+    private static final String SUBJECT = "Уведомление о низком запасе медикаментов";
 
     @Value("${spring.mail.username}")
     private String mailUsername;
@@ -38,97 +63,222 @@ public class InventoryCheckService {
     @Value("${spring.mail.password}")
     private String mailPassword;
 
-    private static final int THRESHOLD = 10; // минимальное количество медикаментов
+    @Value("${inventory.low-stock.rearm-margin}")
+    private int rearmMargin;
+
+    @Value("${inventory.low-stock.notification-queue-capacity}")
+    private int notificationQueueCapacity;
+
+    @Value("${inventory.check.shards}")
+    private int shards;
+
+    @Value("${inventory.check.pharmacies-per-batch}")
+    private int pharmaciesPerBatch;
+
+    @PostConstruct
+    void init() {
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(notificationQueueCapacity);
+        executor.setThreadNamePrefix("low-stock-");
+        executor.initialize();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
 
     /**
-     * Проверяет запасы медикаментов в аптеке и отправляет уведомления сотрудникам, если запасы ниже порогового значения.
+     * Отправляет уведомление о низком остатке после фиксации транзакции, изменившей остаток.
+     * Если почта не настроена, очередь уведомлений переполнена или письмо не доставлено,
+     * строка остается без отметки о доставке и будет учтена ночной сверкой.
+     *
+     * @param event событие о падении остатка ниже порога
      */
-    @Scheduled(cron = "0 0 0 * * ?")
+    @TransactionalEventListener
+    public void onLowStock(LowStockEvent event) {
+        if (!isEmailConfigured()) {
+            log.warn("Параметры электронной почты не настроены. Уведомление о низком запасе лекарства {} в аптеке {} пропущено",
+                    event.medicationId(), event.pharmacyId());
+            return;
+        }
+
+        try {
+            executor.execute(() -> notifyLowStock(event));
+        } catch (TaskRejectedException e) {
+            log.warn("Очередь уведомлений о низком запасе переполнена, лекарство {} в аптеке {} пропущено",
+                    event.medicationId(), event.pharmacyId());
+        }
+    }
+
+    /**
+     * Начинает ночную сверку отметок о низком остатке с остатками: отправляет уведомления по строкам
+     * ниже порога, о которых сотрудники еще не уведомлены, и снимает отметки с пополненных строк.
+     * Каждый экземпляр обрабатывает сегменты, которые успеет захватить.
+     */
+    @Scheduled(cron = "${inventory.check.cron}")
     public void checkInventory() {
+        if (!isEmailConfigured()) {
+            log.warn("Параметры электронной почты не настроены. Пропуск проверки запасов медикаментов.");
+            return;
+        }
+
+        String runId = LocalDate.now().toString();
+        log.info("Начало проверки запасов медикаментов, запуск {}, сегментов: {}", runId, shards);
+        checkpoints.startRun(runId);
+        claimShards(runId);
+    }
+
+    /**
+     * Подхватывает незавершенные сегменты текущего запуска, например брошенные упавшим экземпляром
+     * после истечения срока их блокировки.
+     */
+    @Scheduled(fixedDelayString = "${inventory.check.resume-interval}",
+            initialDelayString = "${inventory.check.resume-interval}")
+    public void resumeInventoryCheck() {
         if (isEmailConfigured()) {
-            Lock lock = redisLockRegistry.obtain("inventoryCheckLock");
+            checkpoints.currentRun().ifPresent(this::claimShards);
+        }
+    }
 
-            try {
-                if (lock.tryLock()) {
-                    log.info("Начало проверки запасов медикаментов...");
+    private void claimShards(String runId) {
+        Set<Integer> completed = checkpoints.completedShards(runId);
+        if (completed.size() >= shards) {
+            return;
+        }
 
-                    List<PharmacyMedication> lowStockMedications =
-                            medicationRepository.findMedicationsBelowThreshold(THRESHOLD);
+        List<Integer> pending = IntStream.range(0, shards)
+                .filter(shard -> !completed.contains(shard))
+                .boxed()
+                .collect(Collectors.toCollection(ArrayList::new));
+        // Экземпляры начинают с разных сегментов, чтобы реже конкурировать за одну блокировку
+        Collections.shuffle(pending);
 
-                    if (!lowStockMedications.isEmpty()) {
-                        sendNotifications(lowStockMedications);
+        for (int shard : pending) {
+            shardLocks.tryAcquire(shard).ifPresent(lease -> {
+                try (lease) {
+                    if (!checkpoints.completedShards(runId).contains(shard)) {
+                        checkShard(runId, shard, lease);
                     }
-
-                    log.info("Проверка запасов медикаментов завершена.");
-                } else {
-                    log.info("Другой экземпляр уже выполняет проверку запасов медикаментов.");
-                }
-            } catch (Exception e) {
-                log.error("Ошибка во время проверки запасов медикаментов", e);
-
-            } finally {
-                try {
-                    lock.unlock();
-                } catch (IllegalStateException e) {
-                    log.warn("Не удалось освободить блокировку. "
-                            + "Блокировка не удерживается этим экземпляром.", e);
+                } catch (Exception e) {
+                    log.error("Ошибка во время проверки запасов медикаментов в сегменте {}", shard, e);
                 }
-            }
-        } else {
-            log.warn("Параметры электронной почты не настроены. Пропуск проверки запасов медикаментов.");
+            });
         }
     }
 
     /**
-     * Отправляет уведомления сотрудникам аптеки о низких запасах медикаментов.
-     *
-     * @param medications список медикаментов с низким запасом
+     * Проверяет аптеки сегмента порциями с сохранением прогресса после каждой порции.
+     * Отметка о доставке ставится после отправки уведомлений и только аптекам, письма которых
+     * доставлены, поэтому при падении экземпляра уведомления порции могут быть отправлены повторно,
+     * но не будут потеряны. Недоставленные уведомления повторяет следующая ночная проверка.
      */
-    public void sendNotifications(List<PharmacyMedication> medications) {
-        medications.stream()
-                .collect(Collectors.groupingBy(pm -> pm.getPharmacy().getId()))
-                .forEach((pharmacyId, pharmacyMedications) -> {
-                    List<Employee> employees = employeeRepository.findByPharmacyId(pharmacyId);
-                    employees.forEach(employee -> {
-                        String subject = "Уведомление о низком запасе медикаментов";
-                        StringBuilder message = new StringBuilder("Следующие медикаменты имеют низкий запас:\n\n");
-
-                        for (PharmacyMedication pm : pharmacyMedications) {
-                            message.append("ID: ").append(pm.getMedication().getId())
-                                    .append(", Наименование: ").append(pm.getMedication().getName())
-                                    .append(", Форма выпуска: ").append(pm.getMedication().getForm().name())
-                                    .append(", Цена: ").append(pm.getMedication().getPrice())
-                                    .append(", Количество: ").append(pm.getQuantity())
-                                    .append("\n");
-                        }
-
-                        try {
-                            sendEmail(employee.getEmail(), subject, message.toString());
-                        } catch (MessagingException e) {
-                            log.error("Не удалось отправить уведомление о низком запасе на почту {}", employee.getEmail(), e);
-                        }
-                    });
-                });
+    private void checkShard(String runId, int shard, InventoryShardLocks.Lease lease) {
+        long afterPharmacyId = checkpoints.lastPharmacyId(runId, shard);
+        log.info("Проверка запасов медикаментов в сегменте {} с аптеки {}", shard, afterPharmacyId);
+
+        while (lease.isHeld()) {
+            List<Long> pharmacyIds = pharmacyMedicationRepository.findPharmacyIdsWithUnnotifiedLowStock(
+                    shards, shard, afterPharmacyId, pharmaciesPerBatch);
+
+            if (pharmacyIds.isEmpty()) {
+                int rearmed = pharmacyMedicationRepository.clearReplenishedAlerts(rearmMargin, shards, shard);
+                checkpoints.complete(runId, shard);
+                log.info("Проверка запасов медикаментов в сегменте {} завершена, снято отметок о низком запасе: {}",
+                        shard, rearmed);
+                return;
+            }
+
+            List<PharmacyMedication> lowStockMedications = pharmacyMedicationRepository.findUnnotifiedLowStock(pharmacyIds);
+            log.info("Найдено {} записей с низким запасом без уведомления в {} аптеках сегмента {}",
+                    lowStockMedications.size(), pharmacyIds.size(), shard);
+            Set<Long> notifiedPharmacyIds = sendNotifications(lowStockMedications);
+
+            lowStockMedications.stream()
+                    .filter(pm -> notifiedPharmacyIds.contains(pm.getId().getPharmacyId()))
+                    .collect(Collectors.groupingBy(pm -> pm.getId().getPharmacyId(),
+                            Collectors.mapping(pm -> pm.getId().getMedicationId(), Collectors.toList())))
+                    .forEach(pharmacyMedicationRepository::markLowStockNotified);
+
+            afterPharmacyId = pharmacyIds.getLast();
+            checkpoints.save(runId, shard, afterPharmacyId);
+        }
+
+        log.warn("Блокировка сегмента {} потеряна, проверка остановлена на аптеке {}", shard, afterPharmacyId);
     }
 
     /**
-     * Отправляет электронное письмо.
+     * Отправляет уведомления сотрудникам аптек о низких запасах медикаментов. Сотрудники всех аптек
+     * загружаются одним запросом, на каждый адрес отправляется одно письмо.
      *
-     * @param to      адрес получателя
-     * @param subject тема письма
-     * @param text    текст письма
-     * @throws MessagingException если произошла ошибка при отправке письма
+     * @param medications список медикаментов с низким запасом
+     * @return идентификаторы аптек, уведомления о которых доставлены всем сотрудникам с указанной почтой
      */
-    public void sendEmail(String to, String subject, String text) throws MessagingException {
-        MimeMessage message = mailSender.createMimeMessage();
-        MimeMessageHelper helper = new MimeMessageHelper(message, true);
+    public Set<Long> sendNotifications(List<PharmacyMedication> medications) {
+        Map<Long, List<PharmacyMedication>> medicationsByPharmacy = medications.stream()
+                .collect(Collectors.groupingBy(pm -> pm.getPharmacy().getId()));
+
+        Map<String, List<PharmacyMedication>> digests = new LinkedHashMap<>();
+        employeeRepository.findByPharmacyIdIn(medicationsByPharmacy.keySet()).forEach(employee -> {
+            if (employee.getEmail() == null || employee.getEmail().isBlank()) {
+                log.warn("У сотрудника {} не указана почта, уведомление о низком запасе пропущено", employee.getId());
+                return;
+            }
+            digests.computeIfAbsent(employee.getEmail(), email -> new ArrayList<>())
+                    .addAll(medicationsByPharmacy.get(employee.getPharmacy().getId()));
+        });
+
+        var messages = digests.entrySet().stream()
+                .map(digest -> new EmailMessage(digest.getKey(), SUBJECT, renderDigest(digest.getValue())))
+                .toList();
+        var result = notificationDispatcher.dispatch(messages);
+        if (result.failed() > 0) {
+            log.warn("Не удалось отправить {} из {} уведомлений о низком запасе", result.failed(), messages.size());
+        }
+
+        Set<Long> notifiedPharmacyIds = new HashSet<>();
+        Set<Long> failedPharmacyIds = new HashSet<>();
+        digests.forEach((email, digest) -> digest.forEach(pm ->
+                (result.failedRecipients().contains(email) ? failedPharmacyIds : notifiedPharmacyIds)
+                        .add(pm.getPharmacy().getId())));
+        notifiedPharmacyIds.removeAll(failedPharmacyIds);
+        if (notifiedPharmacyIds.size() < medicationsByPharmacy.size()) {
+            log.warn("Уведомления о низком запасе доставлены в {} из {} аптек, остальные будут повторены ночной проверкой",
+                    notifiedPharmacyIds.size(), medicationsByPharmacy.size());
+        }
+        return notifiedPharmacyIds;
+    }
 
-        helper.setTo(to);
-        helper.setSubject(subject);
-        helper.setText(text, true);
+    private static String renderDigest(List<PharmacyMedication> medications) {
+        StringBuilder message = new StringBuilder("Следующие медикаменты имеют низкий запас:\n");
 
-        mailSender.send(message);
-        log.info("Уведомление о низком запасе медикаментов отправлено на адрес {}", to);
+        medications.stream()
+                .collect(Collectors.groupingBy(PharmacyMedication::getPharmacy, LinkedHashMap::new, Collectors.toList()))
+                .forEach((pharmacy, pharmacyMedications) -> {
+                    message.append("\nАптека: ").append(pharmacy.getName())
+                            .append(", ").append(pharmacy.getAddress())
+                            .append("\n");
+                    for (PharmacyMedication pm : pharmacyMedications) {
+                        message.append("ID: ").append(pm.getMedication().getId())
+                                .append(", Наименование: ").append(pm.getMedication().getName())
+                                .append(", Форма выпуска: ").append(pm.getMedication().getForm().name())
+                                .append(", Цена: ").append(pm.getMedication().getPrice())
+                                .append(", Количество: ").append(pm.getQuantity())
+                                .append(", Порог пополнения: ").append(pm.getReorderThreshold())
+                                .append("\n");
+                    }
+                });
+        return message.toString();
+    }
+
+    private void notifyLowStock(LowStockEvent event) {
+        var lowStock = pharmacyMedicationRepository
+                .findById(new PharmacyMedicationId(event.pharmacyId(), event.medicationId()))
+                .filter(pm -> pm.getQuantity() < pm.getReorderThreshold());
+        if (lowStock.isPresent() && sendNotifications(List.of(lowStock.get())).contains(event.pharmacyId())) {
+            pharmacyMedicationRepository.markLowStockNotified(event.pharmacyId(), List.of(event.medicationId()));
+        }
     }
 
     private boolean isEmailConfigured() {
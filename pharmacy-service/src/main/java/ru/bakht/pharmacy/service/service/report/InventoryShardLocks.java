@@ -0,0 +1,148 @@
+package ru.bakht.pharmacy.service.service.report;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * Блокировки сегментов проверки запасов в Redis.
+ * <p>
+ * Блокировка — ключ со случайным токеном владельца и сроком жизни {@code inventory.check.lock-ttl}.
+ * Пока блокировка удерживается, сторожевая задача продлевает срок каждую треть срока жизни,
+ * поэтому длинная проверка сегмента не теряет блокировку. Если экземпляр упал, продление
+ * прекращается, и сегмент после истечения срока может захватить другой экземпляр.
+ * Продление и снятие проверяют токен, поэтому чужая блокировка не затрагивается.
+ * Если Redis недоступен дольше срока жизни, блокировка считается потерянной: ключ мог истечь
+ * и сегмент мог перейти к другому экземпляру.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class InventoryShardLocks {
+
+    private static final String KEY_PREFIX = "inventory-check:lock:";
+
+    private static final RedisScript<Long> RENEW_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then "
+                    + "return redis.call('pexpire', KEYS[1], ARGV[2]) else return 0 end", Long.class);
+
+    private static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then "
+                    + "return redis.call('del', KEYS[1]) else return 0 end", Long.class);
+
+    private final StringRedisTemplate redisTemplate;
+
+    private final ThreadPoolTaskScheduler watchdog = new ThreadPoolTaskScheduler();
+
+    @Value("${inventory.check.lock-ttl}")
+    private Duration lockTtl;
+
+    @PostConstruct
+    void init() {
+        watchdog.setPoolSize(1);
+        watchdog.setThreadNamePrefix("inventory-lock-watchdog-");
+        watchdog.initialize();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        watchdog.shutdown();
+    }
+
+    /**
+     * Пытается захватить сегмент без ожидания.
+     *
+     * @param shard номер сегмента
+     * @return захваченная блокировка или пустое значение, если сегмент удерживает другой экземпляр
+     */
+    public Optional<Lease> tryAcquire(int shard) {
+        String key = KEY_PREFIX + shard;
+        String token = UUID.randomUUID().toString();
+        long acquiredAt = System.nanoTime();
+
+        if (!Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(key, token, lockTtl))) {
+            return Optional.empty();
+        }
+
+        var lease = new Lease(shard, key, token, acquiredAt + lockTtl.toNanos());
+        Duration renewalInterval = lockTtl.dividedBy(3);
+        lease.renewal = watchdog.scheduleAtFixedRate(lease::renew, Instant.now().plus(renewalInterval), renewalInterval);
+        log.debug("Захвачен сегмент {} проверки запасов", shard);
+        return Optional.of(lease);
+    }
+
+    /**
+     * Удерживаемая блокировка сегмента. Закрытие снимает блокировку и останавливает продление.
+     */
+    public final class Lease implements AutoCloseable {
+
+        private final int shard;
+        private final String key;
+        private final String token;
+        private volatile boolean held = true;
+        private volatile long validUntilNanos;
+        private volatile ScheduledFuture<?> renewal;
+
+        private Lease(int shard, String key, String token, long validUntilNanos) {
+            this.shard = shard;
+            this.key = key;
+            this.token = token;
+            this.validUntilNanos = validUntilNanos;
+        }
+
+        /**
+         * Удерживается ли блокировка. Становится {@code false}, если продлить блокировку
+         * не удалось и сегмент мог перейти к другому экземпляру, в том числе если с последнего
+         * успешного продления прошло больше срока жизни.
+         */
+        public boolean isHeld() {
+            return held && System.nanoTime() - validUntilNanos < 0;
+        }
+
+        private void renew() {
+            long renewStartedAt = System.nanoTime();
+            try {
+                Long renewed = redisTemplate.execute(RENEW_SCRIPT, List.of(key), token, String.valueOf(lockTtl.toMillis()));
+                if (renewed == null || renewed == 0) {
+                    log.warn("Блокировка сегмента {} проверки запасов потеряна", shard);
+                    held = false;
+                    renewal.cancel(false);
+                    return;
+                }
+                validUntilNanos = renewStartedAt + lockTtl.toNanos();
+            } catch (Exception e) {
+                log.warn("Не удалось продлить блокировку сегмента {} проверки запасов", shard, e);
+                if (System.nanoTime() - validUntilNanos >= 0) {
+                    log.warn("Блокировка сегмента {} проверки запасов истекла без продления", shard);
+                    held = false;
+                    renewal.cancel(false);
+                }
+            }
+        }
+
+        @Override
+        public void close() {
+            renewal.cancel(false);
+            held = false;
+            try {
+                redisTemplate.execute(RELEASE_SCRIPT, List.of(key), token);
+            } catch (Exception e) {
+                log.warn("Не удалось снять блокировку сегмента {} проверки запасов, она истечет сама", shard, e);
+            }
+        }
+    }
+}
@@ -1,132 +1,179 @@
 package ru.bakht.pharmacy.service.service.report;
 
+import com.itextpdf.io.font.FontProgram;
+import com.itextpdf.io.font.FontProgramFactory;
 import com.itextpdf.io.font.PdfEncodings;
 import com.itextpdf.kernel.font.PdfFont;
 import com.itextpdf.kernel.font.PdfFontFactory;
 import com.itextpdf.kernel.pdf.PdfDocument;
 import com.itextpdf.kernel.pdf.PdfWriter;
 import com.itextpdf.layout.Document;
+import com.itextpdf.layout.Style;
+import com.itextpdf.layout.element.Cell;
 import com.itextpdf.layout.element.Paragraph;
 import com.itextpdf.layout.element.Table;
+import com.itextpdf.layout.properties.UnitValue;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import ru.bakht.pharmacy.service.model.dto.MedicationDto;
 import ru.bakht.pharmacy.service.model.dto.OrderDto;
 import ru.bakht.pharmacy.service.model.dto.TotalOrders;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
-
+import java.util.stream.Stream;
+
+/**
+ * Реализация интерфейса {@link ReportGenerator} для генерации PDF-отчетов.
+ * <p>
+ * Таблицы строятся в режиме больших таблиц iText: каждые {@value #FLUSH_ROWS} строк
+ * уже заполненная часть таблицы размечается и готовые страницы сразу записываются
+ * в выходной поток. Шрифт загружается один раз на приложение.
+ */
 @Slf4j
 @Service
 public class PdfReportService implements ReportGenerator {
 
+    private static final String FONT_PATH = "static/arial-unicode-ms.ttf";
+    private static final int FLUSH_ROWS = 200;
     private static final DateTimeFormatter dateFormat = DateTimeFormatter.ofPattern("yyyy-MM-dd");
 
+    private static final Style HEADER_STYLE = new Style().setFontSize(10).setBold();
+    private static final Style CELL_STYLE = new Style().setFontSize(10);
+
+    private volatile FontProgram fontProgram;
+
     /**
      * {@inheritDoc}
      */
     @Override
-    public byte[] generateMedicationsReport(List<MedicationDto> medications) throws IOException {
+    public void generateMedicationsReport(List<MedicationDto> medications,
+                                          OutputStream outputStream) throws IOException {
         log.info("Генерация PDF-отчета по лекарствам с {} записями", medications.size());
 
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        PdfWriter writer = new PdfWriter(outputStream);
-        PdfDocument pdfDoc = new PdfDocument(writer);
-        Document document = new Document(pdfDoc);
-        PdfFont font = PdfFontFactory.createFont("static/arial-unicode-ms.ttf", PdfEncodings.IDENTITY_H);
-
-        document.add(new Paragraph("Отчет по лекарствам").setFont(font));
-        Table table = new Table(new float[]{1, 3, 2, 2, 3});
-        table.addHeaderCell(new Paragraph("ID").setFont(font));
-        table.addHeaderCell(new Paragraph("Наименование").setFont(font));
-        table.addHeaderCell(new Paragraph("Форма").setFont(font));
-        table.addHeaderCell(new Paragraph("Цена").setFont(font));
-        table.addHeaderCell(new Paragraph("Дата истечения срока").setFont(font));
-
-        for (MedicationDto medication : medications) {
-            table.addCell(new Paragraph(medication.getId().toString()).setFont(font));
-            table.addCell(new Paragraph(medication.getName()).setFont(font));
-            table.addCell(new Paragraph(medication.getForm().name()).setFont(font));
-            table.addCell(new Paragraph(medication.getPrice().toString()).setFont(font));
-            table.addCell(new Paragraph(dateFormat.format(medication.getExpirationDate())).setFont(font));
+        try (Document document = createDocument(outputStream)) {
+            document.add(new Paragraph("Отчет по лекарствам"));
+            Table table = createLargeTable(document, new float[]{1, 3, 2, 2, 3},
+                    "ID", "Наименование", "Форма", "Цена", "Дата истечения срока");
+
+            int rowNum = 0;
+            for (MedicationDto medication : medications) {
+                addRow(table,
+                        medication.getId().toString(),
+                        medication.getName(),
+                        medication.getForm().name(),
+                        medication.getPrice().toString(),
+                        dateFormat.format(medication.getExpirationDate()));
+                flushIfNeeded(table, ++rowNum);
+            }
+
+            table.complete();
         }
 
-        document.add(table);
-        document.close();
-
         log.info("PDF-отчет по лекарствам успешно сгенерирован");
-
-        return outputStream.toByteArray();
     }
 
     /**
      * {@inheritDoc}
      */
     @Override
-    public byte[] generateOrdersReport(List<OrderDto> orders) throws IOException {
-        log.info("Генерация PDF-отчета по заказам с {} записями", orders.size());
-
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        PdfWriter writer = new PdfWriter(outputStream);
-        PdfDocument pdfDoc = new PdfDocument(writer);
-        Document document = new Document(pdfDoc);
-        PdfFont font = PdfFontFactory.createFont("static/arial-unicode-ms.ttf", PdfEncodings.IDENTITY_H);
-
-        document.add(new Paragraph("Отчет по заказам").setFont(font));
-        Table table = new Table(new float[]{1, 3, 2, 2, 3, 2});
-        table.addHeaderCell(new Paragraph("ID").setFont(font));
-        table.addHeaderCell(new Paragraph("Названия").setFont(font));
-        table.addHeaderCell(new Paragraph("Количество").setFont(font));
-        table.addHeaderCell(new Paragraph("Общая сумма").setFont(font));
-        table.addHeaderCell(new Paragraph("Дата заказа").setFont(font));
-        table.addHeaderCell(new Paragraph("Статус").setFont(font));
-
-        for (OrderDto order : orders) {
-            table.addCell(new Paragraph(order.getId().toString()).setFont(font));
-            table.addCell(new Paragraph(order.getMedication().getName()).setFont(font));
-            table.addCell(new Paragraph(order.getQuantity().toString()).setFont(font));
-            table.addCell(new Paragraph(order.getTotalAmount().toString()).setFont(font));
-            table.addCell(new Paragraph(dateFormat.format(order.getOrderDate())).setFont(font));
-            table.addCell(new Paragraph(order.getOrderStatus().name()).setFont(font));
+    public void generateOrdersReport(Stream<OrderDto> orders, OutputStream outputStream) throws IOException {
+        log.info("Генерация PDF-отчета по заказам");
+
+        int rowNum = 0;
+        try (Document document = createDocument(outputStream)) {
+            document.add(new Paragraph("Отчет по заказам"));
+            Table table = createLargeTable(document, new float[]{1, 3, 2, 2, 3, 2},
+                    "ID", "Названия", "Количество", "Общая сумма", "Дата заказа", "Статус");
+
+            for (OrderDto order : (Iterable<OrderDto>) orders::iterator) {
+                addRow(table,
+                        order.getId().toString(),
+                        order.getMedication().getName(),
+                        order.getQuantity().toString(),
+                        order.getTotalAmount().toString(),
+                        dateFormat.format(order.getOrderDate()),
+                        order.getOrderStatus().name());
+                flushIfNeeded(table, ++rowNum);
+            }
+
+            table.complete();
         }
 
-        document.add(table);
-        document.close();
-
-        log.info("PDF-отчет по заказам успешно сгенерирован");
-
-        return outputStream.toByteArray();
+        log.info("PDF-отчет по заказам с {} записями успешно сгенерирован", rowNum);
     }
 
     /**
      * {@inheritDoc}
      */
     @Override
-    public byte[] generateTotalOrdersReport(TotalOrders totalOrders) throws IOException {
+    public void generateTotalOrdersReport(TotalOrders totalOrders, OutputStream outputStream) throws IOException {
         log.info("Генерация PDF-отчета по общему числу заказов");
 
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        PdfWriter writer = new PdfWriter(outputStream);
-        PdfDocument pdfDoc = new PdfDocument(writer);
-        Document document = new Document(pdfDoc);
-        PdfFont font = PdfFontFactory.createFont("static/arial-unicode-ms.ttf", PdfEncodings.IDENTITY_H);
+        try (Document document = createDocument(outputStream)) {
+            document.add(new Paragraph("Отчет по общему числу заказов"));
+            Table table = new Table(UnitValue.createPercentArray(new float[]{2, 2}));
+            addHeader(table, "Общее количество", "Общая сумма");
+            addRow(table, totalOrders.getTotalQuantity().toString(), totalOrders.getTotalAmount().toString());
+            document.add(table);
+        }
 
-        document.add(new Paragraph("Отчет по общему числу заказов").setFont(font));
-        Table table = new Table(new float[]{2, 2});
-        table.addHeaderCell(new Paragraph("Общее количество").setFont(font));
-        table.addHeaderCell(new Paragraph("Общая сумма").setFont(font));
+        log.info("PDF-отчет по общему числу заказов успешно сгенерирован");
+    }
 
-        table.addCell(new Paragraph(totalOrders.getTotalQuantity().toString()).setFont(font));
-        table.addCell(new Paragraph(totalOrders.getTotalAmount().toString()).setFont(font));
+    /**
+     * Создает документ, который пишет в переданный поток, не закрывая его.
+     * Шрифт документа создается из общей для приложения программы шрифта.
+     */
+    private Document createDocument(OutputStream outputStream) throws IOException {
+        PdfWriter writer = new PdfWriter(outputStream);
+        writer.setCloseStream(false);
+        Document document = new Document(new PdfDocument(writer));
+        PdfFont font = PdfFontFactory.createFont(fontProgram(), PdfEncodings.IDENTITY_H,
+                PdfFontFactory.EmbeddingStrategy.PREFER_EMBEDDED);
+        document.setFont(font);
+        return document;
+    }
 
+    private Table createLargeTable(Document document, float[] columnWidths, String... headers) {
+        Table table = new Table(UnitValue.createPercentArray(columnWidths), true);
+        addHeader(table, headers);
         document.add(table);
-        document.close();
+        return table;
+    }
 
-        log.info("PDF-отчет по общему числу заказов успешно сгенерирован");
+    private void addHeader(Table table, String... headers) {
+        for (String header : headers) {
+            table.addHeaderCell(new Cell().add(new Paragraph(header)).addStyle(HEADER_STYLE));
+        }
+    }
 
-        return outputStream.toByteArray();
+    private void addRow(Table table, String... values) {
+        for (String value : values) {
+            table.addCell(new Cell().add(new Paragraph(value)).addStyle(CELL_STYLE));
+        }
+    }
+
+    private void flushIfNeeded(Table table, int rowNum) {
+        if (rowNum % FLUSH_ROWS == 0) {
+            table.flush();
+        }
+    }
+
+    private FontProgram fontProgram() throws IOException {
+        FontProgram program = fontProgram;
+        if (program == null) {
+            synchronized (this) {
+                program = fontProgram;
+                if (program == null) {
+                    log.info("Загрузка шрифта {} для PDF-отчетов", FONT_PATH);
+                    program = FontProgramFactory.createFont(FONT_PATH);
+                    fontProgram = program;
+                }
+            }
+        }
+        return program;
     }
 }
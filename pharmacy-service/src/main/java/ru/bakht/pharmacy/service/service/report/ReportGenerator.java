@@ -5,10 +5,14 @@ import ru.bakht.pharmacy.service.model.dto.OrderDto;
 import ru.bakht.pharmacy.service.model.dto.TotalOrders;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * Интерфейс для генерации отчетов в формате Excel/PDF.
+ * <p>
+ * Отчет записывается непосредственно в переданный поток, который генератор не закрывает.
  */
 public interface ReportGenerator {
 
@@ -16,26 +20,26 @@ public interface ReportGenerator {
      * Генерирует отчет по медикаментам.
      *
      * @param medications список медикаментов для включения в отчет
-     * @return байтовый массив, представляющий Excel/PDF файл
+     * @param outputStream поток, в который записывается Excel/PDF файл
      * @throws IOException если произошла ошибка ввода-вывода при создании отчета
      */
-    byte[] generateMedicationsReport(List<MedicationDto> medications) throws IOException;
+    void generateMedicationsReport(List<MedicationDto> medications, OutputStream outputStream) throws IOException;
 
     /**
      * Генерирует отчет по заказам.
      *
-     * @param orders список заказов для включения в отчет
-     * @return байтовый массив, представляющий Excel/PDF файл
+     * @param orders поток заказов для включения в отчет; может читаться из базы по мере записи отчета
+     * @param outputStream поток, в который записывается Excel/PDF файл
      * @throws IOException если произошла ошибка ввода-вывода при создании отчета
      */
-    byte[] generateOrdersReport(List<OrderDto> orders) throws IOException;
+    void generateOrdersReport(Stream<OrderDto> orders, OutputStream outputStream) throws IOException;
 
     /**
      * Генерирует отчет по общему количеству и сумме заказов.
      *
      * @param totalOrders объект, содержащий общее количество и сумму заказов
-     * @return байтовый массив, представляющий Excel/PDF файл
+     * @param outputStream поток, в который записывается Excel/PDF файл
      * @throws IOException если произошла ошибка ввода-вывода при создании отчета
      */
-    byte[] generateTotalOrdersReport(TotalOrders totalOrders) throws IOException;
+    void generateTotalOrdersReport(TotalOrders totalOrders, OutputStream outputStream) throws IOException;
 }
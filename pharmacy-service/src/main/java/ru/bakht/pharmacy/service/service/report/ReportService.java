@@ -5,19 +5,23 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import ru.bakht.pharmacy.service.mapper.MedicationMapper;
-import ru.bakht.pharmacy.service.mapper.OrderMapper;
+import ru.bakht.pharmacy.service.cache.CacheDependencyIndex;
 import ru.bakht.pharmacy.service.model.dto.*;
 import ru.bakht.pharmacy.service.repository.MedicationRepository;
+import ru.bakht.pharmacy.service.repository.OrderDailyTotalRepository;
 import ru.bakht.pharmacy.service.repository.OrderRepository;
 import ru.bakht.pharmacy.service.service.PharmacyService;
+import ru.bakht.pharmacy.service.service.archive.OrderArchiveService;
+import ru.bakht.pharmacy.service.specification.OrderSpecification;
 
 import java.time.LocalDate;
 import java.util.List;
-import java.util.function.Function;
+import java.util.stream.Stream;
 
 /**
  * Класс для генерации отчетов, связанных с медикаментами и заказами.
+ * <p>
+ * Запросы отчетов выбирают данные сразу в форме DTO, не загружая сущности в контекст постоянства.
  */
 @Slf4j
 @Service
@@ -27,37 +31,46 @@ public class ReportService {
 
     private final MedicationRepository medicationRepository;
     private final OrderRepository orderRepository;
-    private final MedicationMapper medicationMapper;
-    private final OrderMapper orderMapper;
+    private final OrderDailyTotalRepository orderDailyTotalRepository;
     private final PharmacyService pharmacyService;
+    private final CacheDependencyIndex cacheDependencyIndex;
+    private final OrderArchiveService orderArchiveService;
 
     /**
      * Получает список медикаментов, доступных в конкретной аптеке.
+     * При промахе кэша запоминает, от каких лекарств зависит запись,
+     * чтобы изменение любого из них удаляло ее из кэша.
      *
      * @param pharmacyId ID аптеки
      * @return список {@link MedicationDto}, представляющих медикаменты, доступные в аптеке
      */
-    @Cacheable(value = "pharmacy_medications", key = "#pharmacyId")
+    @Cacheable(value = "pharmacy_medications", key = "#pharmacyId", sync = true)
     public List<MedicationDto> getMedicationsByPharmacy(Long pharmacyId) {
         log.info("Получен запрос на получение лекарств для аптеки с id {}", pharmacyId);
 
         pharmacyService.getById(pharmacyId);
 
-        return mapToDto(
-                medicationRepository.findMedicationsByPharmacyId(pharmacyId), medicationMapper::toDto);
+        var medicationDtos = medicationRepository.findMedicationsByPharmacyId(pharmacyId);
+        cacheDependencyIndex.recordDependencies("pharmacy_medications", pharmacyId,
+                medicationDtos.stream().map(MedicationDto::getId).toList());
+        return medicationDtos;
     }
 
     /**
      * Получает общее количество и общую стоимость всех заказов за указанный период.
+     * Суммируются дневные итоги, поэтому стоимость запроса зависит от числа дней, а не заказов.
+     * Итоги сохраняются при переносе заказов в архив, поэтому архивные заказы тоже учитываются.
      *
      * @param startDate начальная дата периода
      * @param endDate конечная дата периода
      * @return объект {@link TotalOrders}, содержащий общее количество и общую стоимость заказов
      */
+    @Cacheable(value = "order_totals", key = "#startDate + ':' + #endDate", sync = true)
     public TotalOrders getTotalQuantityAndAmount(LocalDate startDate, LocalDate endDate) {
         log.info("Получен запрос на получение общего количества и суммы заказов с {} по {}", startDate, endDate);
 
-        TotalOrdersProjection projection = orderRepository.findTotalQuantityAndAmountByDateRange(startDate, endDate);
+        TotalOrdersProjection projection =
+                orderDailyTotalRepository.findTotalQuantityAndAmountByDateRange(startDate, endDate);
         Integer totalQuantity = (projection.getTotalQuantity() != null) ? projection.getTotalQuantity() : 0;
         Double totalAmount = (projection.getTotalAmount() != null) ? projection.getTotalAmount() : 0.0;
         return new TotalOrders(totalQuantity, totalAmount);
@@ -65,14 +78,36 @@ public class ReportService {
 
     /**
      * Получает список заказов, сделанных конкретным клиентом по его номеру телефона.
+     * Архивные заказы идут перед заказами из базы.
      *
      * @param phone номер телефона клиента
      * @return список {@link OrderDto}, представляющих заказы, сделанные клиентом
      */
+    @Cacheable(value = "customer_orders", key = "#phone", sync = true)
     public List<OrderDto> getOrdersByCustomerPhone(String phone) {
         log.info("Получен запрос на получение заказов для клиента с телефоном {}", phone);
 
-        return mapToDto(orderRepository.findOrdersByCustomerPhone(phone), orderMapper::toDto);
+        List<OrderDto> archivedOrders = orderArchiveService.findOrdersByCustomerPhone(phone);
+        List<OrderDto> orders = orderRepository.findRows(OrderSpecification.hasCustomerPhone(phone)).stream()
+                .map(OrderRow::toDto)
+                .toList();
+        return archivedOrders.isEmpty() ? orders : Stream.concat(archivedOrders.stream(), orders.stream()).toList();
+    }
+
+    /**
+     * Возвращает заказы клиента по номеру телефона в виде потока, читаемого из базы порциями.
+     * Архивные заказы читаются заранее и идут перед заказами из базы.
+     * Поток должен использоваться и быть закрыт внутри транзакции вызывающего кода.
+     *
+     * @param phone номер телефона клиента
+     * @return поток {@link OrderDto}, представляющих заказы, сделанные клиентом
+     */
+    public Stream<OrderDto> streamOrdersByCustomerPhone(String phone) {
+        log.info("Получен запрос на потоковую выгрузку заказов для клиента с телефоном {}", phone);
+
+        List<OrderDto> archivedOrders = orderArchiveService.findOrdersByCustomerPhone(phone);
+        return Stream.concat(archivedOrders.stream(),
+                orderRepository.streamRows(OrderSpecification.hasCustomerPhone(phone)).map(OrderRow::toDto));
     }
 
     /**
@@ -86,21 +121,6 @@ public class ReportService {
 
         pharmacyService.getById(pharmacyId);
 
-        return mapToDto(medicationRepository.findOutOfStockMedicationsByPharmacyId(pharmacyId),
-                medicationMapper::toDto);
-    }
-
-
-    /**
-     * Универсальный метод для маппинга сущностей в DTO.
-     *
-     * @param <T> тип сущности
-     * @param <R> тип DTO
-     * @param entities список сущностей
-     * @param mapper функция для маппинга сущности в DTO
-     * @return список DTO
-     */
-    private <T, R> List<R> mapToDto(List<T> entities, Function<T, R> mapper) {
-        return entities.stream().map(mapper).toList();
+        return medicationRepository.findOutOfStockMedicationsByPharmacyId(pharmacyId);
     }
 }
@@ -0,0 +1,140 @@
+package ru.bakht.pharmacy.service.service.report;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import ru.bakht.pharmacy.service.enums.ReportType;
+import ru.bakht.pharmacy.service.feign.ReportServiceClient;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Учет запросов на отчеты.
+ * <p>
+ * Запросы считаются локально в {@link LongAdder} по каждому типу отчета и не требуют
+ * обращения к report-service на каждом отчете. Накопленные значения периодически
+ * отправляются одним пакетом. Если report-service недоступен, значения сохраняются
+ * в локальный файл и отправляются при следующей попытке.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ReportUsageRecorder {
+
+    private final ReportServiceClient reportServiceClient;
+
+    private final Map<ReportType, LongAdder> counters = createCounters();
+
+    @Value("${report.usage.spill-file}")
+    private Path spillFile;
+
+    /**
+     * Учитывает один запрос на отчет указанного типа.
+     *
+     * @param reportType тип отчета
+     */
+    public void record(ReportType reportType) {
+        counters.get(reportType).increment();
+    }
+
+    /**
+     * Отправляет накопленные значения в report-service вместе с ранее не отправленными.
+     */
+    @Scheduled(fixedDelayString = "${report.usage.flush-interval}")
+    public synchronized void flush() {
+        Map<ReportType, Long> deltas = readSpillFile();
+        counters.forEach((reportType, counter) -> {
+            long delta = counter.sumThenReset();
+            if (delta > 0) {
+                deltas.merge(reportType, delta, Long::sum);
+            }
+        });
+
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        try {
+            reportServiceClient.recordReportRequests(deltas);
+            deleteSpillFile();
+            log.info("Отправлена статистика запросов на отчеты: {}", deltas);
+        } catch (Exception e) {
+            log.warn("report-service недоступен, статистика запросов {} сохранена в {}", deltas, spillFile, e);
+            writeSpillFile(deltas);
+        }
+    }
+
+    @PreDestroy
+    void flushOnShutdown() {
+        flush();
+    }
+
+    private Map<ReportType, Long> readSpillFile() {
+        Map<ReportType, Long> deltas = new EnumMap<>(ReportType.class);
+        if (!Files.exists(spillFile)) {
+            return deltas;
+        }
+
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(spillFile, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        } catch (IOException e) {
+            log.error("Не удалось прочитать неотправленную статистику из {}", spillFile, e);
+            return deltas;
+        }
+
+        properties.forEach((reportType, delta) -> {
+            try {
+                deltas.put(ReportType.valueOf((String) reportType), Long.parseLong((String) delta));
+            } catch (IllegalArgumentException e) {
+                log.warn("Пропущена некорректная запись статистики {}={}", reportType, delta);
+            }
+        });
+        return deltas;
+    }
+
+    private void writeSpillFile(Map<ReportType, Long> deltas) {
+        Properties properties = new Properties();
+        deltas.forEach((reportType, delta) -> properties.setProperty(reportType.name(), delta.toString()));
+
+        try {
+            Path tempFile = spillFile.resolveSibling(spillFile.getFileName() + ".tmp");
+            try (Writer writer = Files.newBufferedWriter(tempFile, StandardCharsets.UTF_8)) {
+                properties.store(writer, null);
+            }
+            Files.move(tempFile, spillFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.error("Не удалось сохранить статистику запросов {}, значения возвращены в счетчики", deltas, e);
+            deltas.forEach((reportType, delta) -> counters.get(reportType).add(delta));
+        }
+    }
+
+    private void deleteSpillFile() {
+        try {
+            Files.deleteIfExists(spillFile);
+        } catch (IOException e) {
+            log.error("Не удалось удалить файл отправленной статистики {}", spillFile, e);
+        }
+    }
+
+    private static Map<ReportType, LongAdder> createCounters() {
+        Map<ReportType, LongAdder> counters = new EnumMap<>(ReportType.class);
+        for (ReportType reportType : ReportType.values()) {
+            counters.put(reportType, new LongAdder());
+        }
+        return counters;
+    }
+}
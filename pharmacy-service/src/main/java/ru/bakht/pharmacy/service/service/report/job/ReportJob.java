@@ -0,0 +1,75 @@
+package ru.bakht.pharmacy.service.service.report.job;
+
+import lombok.Getter;
+import ru.bakht.pharmacy.service.enums.ReportJobStatus;
+import ru.bakht.pharmacy.service.model.dto.ReportJobDto;
+import ru.bakht.pharmacy.service.model.dto.ReportJobRequestDto;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Задание на асинхронное формирование отчета.
+ */
+@Getter
+public class ReportJob {
+
+    private final String id;
+    private final String owner;
+    private final String key;
+    private final ReportJobRequestDto request;
+    private final String fileName;
+    private final Path file;
+    private final Instant createdAt = Instant.now();
+    private final AtomicLong bytesWritten = new AtomicLong();
+
+    private volatile ReportJobStatus status = ReportJobStatus.QUEUED;
+    private volatile String error;
+    private volatile Instant completedAt;
+
+    ReportJob(String id, String owner, String key, ReportJobRequestDto request, String fileName, Path file) {
+        this.id = id;
+        this.owner = owner;
+        this.key = key;
+        this.request = request;
+        this.fileName = fileName;
+        this.file = file;
+    }
+
+    public boolean isActive() {
+        return status == ReportJobStatus.QUEUED || status == ReportJobStatus.RUNNING;
+    }
+
+    void start() {
+        status = ReportJobStatus.RUNNING;
+    }
+
+    void addBytes(long count) {
+        bytesWritten.addAndGet(count);
+    }
+
+    void complete() {
+        completedAt = Instant.now();
+        status = ReportJobStatus.COMPLETED;
+    }
+
+    void fail(String error) {
+        this.error = error;
+        completedAt = Instant.now();
+        status = ReportJobStatus.FAILED;
+    }
+
+    public ReportJobDto toDto() {
+        return ReportJobDto.builder()
+                .id(id)
+                .reportType(request.getReportType())
+                .fileFormat(request.getFileFormat())
+                .status(status)
+                .bytesWritten(bytesWritten.get())
+                .error(error)
+                .createdAt(createdAt)
+                .completedAt(completedAt)
+                .build();
+    }
+}
@@ -0,0 +1,275 @@
+package ru.bakht.pharmacy.service.service.report.job;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.bakht.pharmacy.service.controller.ReportFacade;
+import ru.bakht.pharmacy.service.exception.EntityNotFoundException;
+import ru.bakht.pharmacy.service.model.dto.ReportJobDto;
+import ru.bakht.pharmacy.service.model.dto.ReportJobRequestDto;
+
+import java.io.*;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Сервис асинхронного формирования отчетов.
+ * <p>
+ * Отчеты формируются в ограниченном пуле потоков и сохраняются на локальный диск,
+ * откуда их можно скачать до истечения срока хранения. Одинаковые задания,
+ * которые еще выполняются, не запускаются повторно: клиент получает уже существующее задание.
+ * Состояние заданий хранится в памяти экземпляра приложения.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ReportJobService {
+
+    private final ReportFacade reportFacade;
+    private final ReportJobStore reportJobStore;
+
+    private final Map<String, ReportJob> jobs = new ConcurrentHashMap<>();
+    private final Map<String, ReportJob> inFlightJobs = new ConcurrentHashMap<>();
+    private final ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+
+    @Value("${report.jobs.threads}")
+    private int threads;
+
+    @Value("${report.jobs.queue-capacity}")
+    private int queueCapacity;
+
+    @Value("${report.jobs.max-per-user}")
+    private int maxJobsPerUser;
+
+    @Value("${report.jobs.ttl}")
+    private Duration ttl;
+
+    @PostConstruct
+    void init() {
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("report-job-");
+        executor.initialize();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Ставит отчет в очередь на формирование.
+     *
+     * @param request параметры отчета
+     * @param owner   имя пользователя, запросившего отчет
+     * @return новое задание или уже выполняющееся задание с теми же параметрами
+     * @throws IllegalArgumentException если для типа отчета не заданы обязательные параметры
+     * @throws IllegalStateException    если превышен лимит заданий пользователя или очередь переполнена
+     */
+    public synchronized ReportJobDto submit(ReportJobRequestDto request, String owner) {
+        validateRequest(request);
+
+        String key = jobKey(request);
+        ReportJob existing = inFlightJobs.get(key);
+        if (existing != null) {
+            log.info("Задание {} с такими же параметрами уже выполняется", existing.getId());
+            return existing.toDto();
+        }
+
+        long activeJobs = jobs.values().stream()
+                .filter(job -> job.isActive() && job.getOwner().equals(owner))
+                .count();
+        if (activeJobs >= maxJobsPerUser) {
+            throw new IllegalStateException(
+                    "Превышено количество одновременно формируемых отчетов: " + maxJobsPerUser);
+        }
+
+        String id = UUID.randomUUID().toString();
+        var job = new ReportJob(id, owner, key, request,
+                fileName(request), reportJobStore.resolve(id));
+        jobs.put(id, job);
+        inFlightJobs.put(key, job);
+
+        try {
+            executor.execute(() -> run(job));
+        } catch (TaskRejectedException e) {
+            jobs.remove(id);
+            inFlightJobs.remove(key);
+            throw new IllegalStateException("Очередь формирования отчетов переполнена, повторите запрос позже");
+        }
+
+        log.info("Пользователь {} поставил в очередь отчет {} ({}, {})",
+                owner, id, request.getReportType(), request.getFileFormat());
+        return job.toDto();
+    }
+
+    /**
+     * Возвращает состояние задания.
+     *
+     * @param id идентификатор задания
+     * @return состояние задания
+     * @throws EntityNotFoundException если задание не найдено или срок его хранения истек
+     */
+    public ReportJobDto getJob(String id) {
+        return findJob(id).toDto();
+    }
+
+    /**
+     * Возвращает завершенное задание, файл которого можно скачать.
+     *
+     * @param id идентификатор задания
+     * @return завершенное задание
+     * @throws EntityNotFoundException если задание не найдено или срок его хранения истек
+     * @throws IllegalStateException   если отчет еще не сформирован или формирование завершилось ошибкой
+     */
+    public ReportJob getCompletedJob(String id) {
+        var job = findJob(id);
+        return switch (job.getStatus()) {
+            case COMPLETED -> job;
+            case FAILED -> throw new IllegalStateException("Не удалось сформировать отчет: " + job.getError());
+            default -> throw new IllegalStateException("Отчет еще формируется");
+        };
+    }
+
+    /**
+     * Удаляет завершенные задания и файлы, срок хранения которых истек.
+     */
+    @Scheduled(fixedDelayString = "${report.jobs.cleanup-interval}")
+    public void cleanUpExpiredJobs() {
+        Instant threshold = Instant.now().minus(ttl);
+
+        jobs.values().removeIf(job -> {
+            if (job.isActive() || job.getCompletedAt().isAfter(threshold)) {
+                return false;
+            }
+            reportJobStore.delete(job.getId());
+            return true;
+        });
+
+        int deletedFiles = reportJobStore.deleteOlderThan(threshold, Set.copyOf(jobs.keySet()));
+        if (deletedFiles > 0) {
+            log.info("Удалено {} устаревших файлов отчетов", deletedFiles);
+        }
+    }
+
+    private void run(ReportJob job) {
+        log.info("Начало формирования отчета {}", job.getId());
+        job.start();
+
+        try (OutputStream outputStream = new BufferedOutputStream(
+                new CountingOutputStream(reportJobStore.openForWrite(job.getId()), job))) {
+            export(job.getRequest()).writeTo(outputStream);
+        } catch (Exception e) {
+            log.error("Ошибка при формировании отчета {}", job.getId(), e);
+            reportJobStore.delete(job.getId());
+            job.fail(e.getMessage());
+            return;
+        } finally {
+            inFlightJobs.remove(job.getKey(), job);
+        }
+
+        job.complete();
+        log.info("Отчет {} сформирован, размер {} байт", job.getId(), job.getBytesWritten().get());
+    }
+
+    private StreamingResponseBody export(ReportJobRequestDto request) {
+        return switch (request.getReportType()) {
+            case MEDICATIONS -> reportFacade.exportMedicationsByPharmacy(
+                    request.getPharmacyId(), request.getFileFormat());
+            case TOTAL_ORDERS -> reportFacade.exportTotalQuantityAndAmount(
+                    request.getStartDate(), request.getEndDate(), request.getFileFormat());
+            case CUSTOMER_ORDERS -> reportFacade.exportOrdersByCustomerPhone(
+                    request.getPhone(), request.getFileFormat());
+            case OUT_OF_STOCK_MEDICATIONS -> reportFacade.exportOutOfStockMedicationsByPharmacy(
+                    request.getPharmacyId(), request.getFileFormat());
+        };
+    }
+
+    private ReportJob findJob(String id) {
+        var job = jobs.get(id);
+        if (job == null) {
+            throw new EntityNotFoundException("Задание на формирование отчета", id);
+        }
+        return job;
+    }
+
+    private void validateRequest(ReportJobRequestDto request) {
+        switch (request.getReportType()) {
+            case MEDICATIONS, OUT_OF_STOCK_MEDICATIONS -> {
+                if (request.getPharmacyId() == null) {
+                    throw new IllegalArgumentException("Для этого отчета обязателен ID аптеки");
+                }
+            }
+            case TOTAL_ORDERS -> {
+                if (request.getStartDate() == null || request.getEndDate() == null) {
+                    throw new IllegalArgumentException("Для этого отчета обязательны даты начала и окончания периода");
+                }
+            }
+            case CUSTOMER_ORDERS -> {
+                if (request.getPhone() == null || request.getPhone().isBlank()) {
+                    throw new IllegalArgumentException("Для этого отчета обязателен телефон клиента");
+                }
+            }
+        }
+    }
+
+    private String jobKey(ReportJobRequestDto request) {
+        return switch (request.getReportType()) {
+            case MEDICATIONS, OUT_OF_STOCK_MEDICATIONS -> String.join(":",
+                    request.getReportType().name(), request.getFileFormat().name(),
+                    request.getPharmacyId().toString());
+            case TOTAL_ORDERS -> String.join(":",
+                    request.getReportType().name(), request.getFileFormat().name(),
+                    request.getStartDate().toString(), request.getEndDate().toString());
+            case CUSTOMER_ORDERS -> String.join(":",
+                    request.getReportType().name(), request.getFileFormat().name(), request.getPhone());
+        };
+    }
+
+    private String fileName(ReportJobRequestDto request) {
+        String name = switch (request.getReportType()) {
+            case MEDICATIONS -> "medications";
+            case TOTAL_ORDERS -> "total_orders";
+            case CUSTOMER_ORDERS -> "customer_orders";
+            case OUT_OF_STOCK_MEDICATIONS -> "out_of_stock_medications";
+        };
+        return name + request.getFileFormat().getExtension();
+    }
+
+    /**
+     * Поток, который учитывает количество записанных байт как прогресс задания.
+     */
+    private static class CountingOutputStream extends FilterOutputStream {
+
+        private final ReportJob job;
+
+        CountingOutputStream(OutputStream out, ReportJob job) {
+            super(out);
+            this.job = job;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            job.addBytes(1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            job.addBytes(len);
+        }
+    }
+}
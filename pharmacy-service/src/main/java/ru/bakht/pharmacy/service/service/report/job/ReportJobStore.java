@@ -0,0 +1,85 @@
+package ru.bakht.pharmacy.service.service.report.job;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Хранилище готовых отчетов на локальном диске.
+ */
+@Slf4j
+@Component
+public class ReportJobStore {
+
+    @Value("${report.jobs.directory}")
+    private Path directory;
+
+    @PostConstruct
+    void init() throws IOException {
+        Files.createDirectories(directory);
+        log.info("Каталог для готовых отчетов: {}", directory);
+    }
+
+    public Path resolve(String jobId) {
+        return directory.resolve(jobId);
+    }
+
+    public OutputStream openForWrite(String jobId) throws IOException {
+        return Files.newOutputStream(resolve(jobId));
+    }
+
+    public void delete(String jobId) {
+        try {
+            Files.deleteIfExists(resolve(jobId));
+        } catch (IOException e) {
+            log.warn("Не удалось удалить файл отчета {}", jobId, e);
+        }
+    }
+
+    /**
+     * Удаляет файлы, которые не изменялись с указанного момента, кроме файлов известных заданий.
+     * Так удаляются и файлы, оставшиеся после перезапуска приложения.
+     *
+     * @param threshold момент, раньше которого файл считается устаревшим
+     * @param keep      идентификаторы заданий, файлы которых удалять нельзя
+     * @return количество удаленных файлов
+     */
+    public int deleteOlderThan(Instant threshold, Set<String> keep) {
+        try (Stream<Path> files = Files.list(directory)) {
+            return (int) files
+                    .filter(file -> !keep.contains(file.getFileName().toString()))
+                    .filter(file -> isOlderThan(file, threshold))
+                    .filter(this::deleteQuietly)
+                    .count();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private boolean isOlderThan(Path file, Instant threshold) {
+        try {
+            return Files.getLastModifiedTime(file).toInstant().isBefore(threshold);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private boolean deleteQuietly(Path file) {
+        try {
+            return Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Не удалось удалить устаревший файл отчета {}", file, e);
+            return false;
+        }
+    }
+}
@@ -8,6 +8,18 @@ import java.time.LocalDate;
 
 public class OrderSpecification {
 
+    public static Specification<Order> hasId(Long id) {
+        return (root, query, cb) -> id == null ? null : cb.equal(root.get("id"), id);
+    }
+
+    public static Specification<Order> hasIdGreaterThan(Long id) {
+        return (root, query, cb) -> id == null ? null : cb.greaterThan(root.get("id"), id);
+    }
+
+    public static Specification<Order> hasCustomerPhone(String phone) {
+        return (root, query, cb) -> phone == null ? null : cb.equal(root.get("customer").get("phone"), phone);
+    }
+
     public static Specification<Order> hasCustomerId(Long customerId) {
         return (root, query, cb) -> customerId == null ? null : cb.equal(root.get("customer").get("id"), customerId);
     }
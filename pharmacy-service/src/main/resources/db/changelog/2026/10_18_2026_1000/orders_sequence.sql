@@ -0,0 +1,3 @@
+-- Шаг последовательности заказов совпадает с allocationSize в сущности Order:
+-- Hibernate выделяет идентификаторы пачками и может группировать INSERT в JDBC batch
+ALTER SEQUENCE orders_id_seq INCREMENT BY 50;
@@ -0,0 +1,25 @@
+-- Дневные итоги заказов по аптеке и лекарству для отчетов за период
+CREATE TABLE IF NOT EXISTS order_daily_totals (
+    order_date      DATE    	NOT NULL,
+    pharmacy_id     INT     	NOT NULL REFERENCES pharmacies(id) ON DELETE CASCADE,
+    medication_id   INT     	NOT NULL REFERENCES medications(id) ON DELETE CASCADE,
+    total_quantity  BIGINT  	NOT NULL DEFAULT 0,
+    total_amount    DECIMAL 	NOT NULL DEFAULT 0,
+    order_count     BIGINT  	NOT NULL DEFAULT 0,
+    PRIMARY KEY (order_date, pharmacy_id, medication_id)
+);
+
+COMMENT ON TABLE order_daily_totals IS 'Дневные итоги заказов по аптеке и лекарству';
+COMMENT ON COLUMN order_daily_totals.order_date IS 'Дата заказов';
+COMMENT ON COLUMN order_daily_totals.pharmacy_id IS 'Идентификатор аптеки';
+COMMENT ON COLUMN order_daily_totals.medication_id IS 'Идентификатор лекарства';
+COMMENT ON COLUMN order_daily_totals.total_quantity IS 'Общее количество лекарства в заказах за день';
+COMMENT ON COLUMN order_daily_totals.total_amount IS 'Общая сумма заказов за день';
+COMMENT ON COLUMN order_daily_totals.order_count IS 'Количество заказов за день';
+
+-- Начальное заполнение по уже существующим заказам
+INSERT INTO order_daily_totals (order_date, pharmacy_id, medication_id, total_quantity, total_amount, order_count)
+SELECT order_date, pharmacy_id, medication_id, SUM(quantity), COALESCE(SUM(total_amount), 0), COUNT(*)
+FROM orders
+WHERE pharmacy_id IS NOT NULL AND medication_id IS NOT NULL
+GROUP BY order_date, pharmacy_id, medication_id;
@@ -0,0 +1,72 @@
+-- Перевод таблицы заказов на секционирование по месяцам order_date.
+-- Старая таблица переименовывается, последовательность идентификаторов сохраняется
+-- и переходит к новой таблице вместе с данными.
+ALTER TABLE orders RENAME TO orders_unpartitioned;
+ALTER TABLE orders_unpartitioned RENAME CONSTRAINT orders_pkey TO orders_unpartitioned_pkey;
+ALTER TABLE orders_unpartitioned ALTER COLUMN id DROP DEFAULT;
+ALTER SEQUENCE orders_id_seq OWNED BY NONE;
+
+-- Первичный ключ секционированной таблицы обязан содержать ключ секционирования
+CREATE TABLE orders (
+    id            INT 			NOT NULL DEFAULT nextval('orders_id_seq'),
+    customer_id   INT 			REFERENCES customers(id) ON DELETE CASCADE,
+    employee_id   INT 			REFERENCES employees(id) ON DELETE CASCADE,
+    pharmacy_id   INT 			REFERENCES pharmacies(id) ON DELETE CASCADE,
+    medication_id INT 			REFERENCES medications(id) ON DELETE CASCADE,
+    quantity      INT 			NOT NULL,
+    total_amount  DECIMAL,
+    order_date    DATE 			NOT NULL,
+    status        VARCHAR(50) 	NOT NULL,
+    PRIMARY KEY (id, order_date)
+) PARTITION BY RANGE (order_date);
+
+ALTER SEQUENCE orders_id_seq OWNED BY orders.id;
+
+COMMENT ON TABLE orders IS 'Таблица для хранения данных о заказах, секционирована по месяцам даты заказа';
+COMMENT ON COLUMN orders.id IS 'Уникальный идентификатор заказа';
+COMMENT ON COLUMN orders.customer_id IS 'Идентификатор покупателя, связанного с заказом';
+COMMENT ON COLUMN orders.employee_id IS 'Идентификатор сотрудника, связанного с заказом';
+COMMENT ON COLUMN orders.pharmacy_id IS 'Идентификатор аптеки, связанной с заказом';
+COMMENT ON COLUMN orders.medication_id IS 'Идентификатор лекарства, связанного с заказом';
+COMMENT ON COLUMN orders.quantity IS 'Количество лекарства в заказе';
+COMMENT ON COLUMN orders.total_amount IS 'Общая сумма заказа';
+COMMENT ON COLUMN orders.order_date IS 'Дата заказа';
+COMMENT ON COLUMN orders.status IS 'Статус заказа';
+
+-- Секции от месяца самого раннего заказа до трех месяцев вперед.
+-- Дальнейшие секции создает OrderPartitionService.
+DO $$
+DECLARE
+    month_start DATE := date_trunc('month',
+            COALESCE((SELECT MIN(order_date) FROM orders_unpartitioned), CURRENT_DATE))::DATE;
+    last_month  DATE := (date_trunc('month', CURRENT_DATE) + INTERVAL '3 months')::DATE;
+BEGIN
+    WHILE month_start <= last_month LOOP
+        EXECUTE format('CREATE TABLE %I PARTITION OF orders FOR VALUES FROM (%L) TO (%L)',
+                       'orders_y' || to_char(month_start, 'YYYY') || 'm' || to_char(month_start, 'MM'),
+                       month_start,
+                       (month_start + INTERVAL '1 month')::DATE);
+        month_start := (month_start + INTERVAL '1 month')::DATE;
+    END LOOP;
+END $$;
+
+-- Заказы с датой вне созданных секций
+CREATE TABLE orders_default PARTITION OF orders DEFAULT;
+
+INSERT INTO orders (id, customer_id, employee_id, pharmacy_id, medication_id, quantity, total_amount, order_date, status)
+SELECT id, customer_id, employee_id, pharmacy_id, medication_id, quantity, total_amount, order_date, status
+FROM orders_unpartitioned;
+
+DROP TABLE orders_unpartitioned;
+
+-- Локальные индексы создаются на каждой секции, в том числе на будущих.
+-- Отчеты за период отсекают лишние секции по order_date, фильтры OrderSpecification
+-- и отчет по телефону покупателя используют индексы по внешним ключам и статусу.
+CREATE INDEX idx_orders_order_date ON orders(order_date);
+CREATE INDEX idx_orders_customer_id ON orders(customer_id);
+CREATE INDEX idx_orders_employee_id ON orders(employee_id);
+CREATE INDEX idx_orders_pharmacy_id_order_date ON orders(pharmacy_id, order_date);
+CREATE INDEX idx_orders_medication_id ON orders(medication_id);
+CREATE INDEX idx_orders_status_order_date ON orders(status, order_date);
+
+ANALYZE orders;
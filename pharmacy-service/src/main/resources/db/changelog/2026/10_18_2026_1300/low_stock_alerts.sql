@@ -0,0 +1,11 @@
+-- Отметка о падении остатка лекарства в аптеке ниже порога
+ALTER TABLE pharmacy_medications
+    ADD COLUMN IF NOT EXISTS low_stock_alerted BOOLEAN NOT NULL DEFAULT FALSE;
+
+-- Отметка low_stock_alerted ставится в транзакции изменения остатка до отправки письма,
+-- поэтому доставка уведомления отмечается отдельно
+ALTER TABLE pharmacy_medications
+    ADD COLUMN IF NOT EXISTS low_stock_notified BOOLEAN NOT NULL DEFAULT FALSE;
+
+COMMENT ON COLUMN pharmacy_medications.low_stock_alerted IS 'Остаток упал ниже порога, отметка еще не снята пополнением';
+COMMENT ON COLUMN pharmacy_medications.low_stock_notified IS 'Уведомление о падении остатка ниже порога доставлено сотрудникам аптеки';
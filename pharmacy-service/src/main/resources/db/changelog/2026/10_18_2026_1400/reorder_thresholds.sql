@@ -0,0 +1,30 @@
+-- Порог пополнения по умолчанию для лекарства
+ALTER TABLE medications
+    ADD COLUMN IF NOT EXISTS reorder_threshold INTEGER NOT NULL DEFAULT 10
+        CHECK (reorder_threshold >= 0);
+
+COMMENT ON COLUMN medications.reorder_threshold IS 'Порог пополнения по умолчанию для всех аптек';
+
+-- Порог пополнения лекарства в аптеке: унаследованный от лекарства или заданный для аптеки
+ALTER TABLE pharmacy_medications
+    ADD COLUMN IF NOT EXISTS reorder_threshold INTEGER,
+    ADD COLUMN IF NOT EXISTS reorder_threshold_inherited BOOLEAN NOT NULL DEFAULT TRUE;
+
+UPDATE pharmacy_medications pm
+SET reorder_threshold = m.reorder_threshold
+FROM medications m
+WHERE m.id = pm.medication_id;
+
+ALTER TABLE pharmacy_medications
+    ALTER COLUMN reorder_threshold SET NOT NULL,
+    ADD CONSTRAINT chk_pharmacy_medications_reorder_threshold CHECK (reorder_threshold >= 0);
+
+COMMENT ON COLUMN pharmacy_medications.reorder_threshold IS 'Действующий порог пополнения лекарства в аптеке';
+COMMENT ON COLUMN pharmacy_medications.reorder_threshold_inherited IS 'Порог скопирован из medications.reorder_threshold и меняется вместе с ним';
+
+-- Частичные индексы содержат только строки с низким остатком и строки с отправленным уведомлением,
+-- поэтому поиск таких строк не зависит от размера каталога
+CREATE INDEX idx_pharmacy_medications_below_threshold ON pharmacy_medications(pharmacy_id, medication_id)
+    WHERE quantity < reorder_threshold;
+CREATE INDEX idx_pharmacy_medications_low_stock_alerted ON pharmacy_medications(pharmacy_id, medication_id)
+    WHERE low_stock_alerted;
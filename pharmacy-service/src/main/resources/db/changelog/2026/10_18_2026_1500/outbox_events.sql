@@ -0,0 +1,21 @@
+-- Исходящие события о заказах и остатках, записываются в одной транзакции с изменением
+CREATE TABLE IF NOT EXISTS outbox_events (
+    id           BIGSERIAL    PRIMARY KEY,
+    event_type   VARCHAR(50)  NOT NULL,
+    aggregate_id VARCHAR(100) NOT NULL,
+    payload      JSONB        NOT NULL,
+    created_at   TIMESTAMP    NOT NULL DEFAULT now(),
+    published_at TIMESTAMP
+);
+
+COMMENT ON TABLE outbox_events IS 'Исходящие события о заказах и остатках лекарств';
+COMMENT ON COLUMN outbox_events.id IS 'Уникальный идентификатор события';
+COMMENT ON COLUMN outbox_events.event_type IS 'Тип события';
+COMMENT ON COLUMN outbox_events.aggregate_id IS 'Идентификатор заказа или пары аптека:лекарство';
+COMMENT ON COLUMN outbox_events.payload IS 'Содержимое события в формате JSON';
+COMMENT ON COLUMN outbox_events.created_at IS 'Время записи события';
+COMMENT ON COLUMN outbox_events.published_at IS 'Время публикации события, NULL для неопубликованных';
+
+-- Неопубликованных событий немного, частичный индекс не растет вместе с историей
+CREATE INDEX idx_outbox_events_unpublished ON outbox_events(id) WHERE published_at IS NULL;
+CREATE INDEX idx_outbox_events_published_at ON outbox_events(published_at) WHERE published_at IS NOT NULL;
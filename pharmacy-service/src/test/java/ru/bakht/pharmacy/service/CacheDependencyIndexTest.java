@@ -0,0 +1,82 @@
+package ru.bakht.pharmacy.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.SetOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import ru.bakht.pharmacy.service.cache.CacheDependencyIndex;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CacheDependencyIndexTest {
+
+    private static final String CACHE_NAME = "pharmacy_medications";
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private SetOperations<String, String> setOperations;
+
+    @Mock
+    private CacheManager cacheManager;
+
+    @Mock
+    private Cache cache;
+
+    @InjectMocks
+    private CacheDependencyIndex cacheDependencyIndex;
+
+    @Test
+    void evictDependents_EvictsOnlyPharmaciesContainingMedication() {
+        when(cacheManager.getCache(CACHE_NAME)).thenReturn(cache);
+        when(redisTemplate.opsForSet()).thenReturn(setOperations);
+        when(setOperations.members("cache-deps:pharmacy_medications:7")).thenReturn(Set.of("1", "3"));
+
+        cacheDependencyIndex.evictDependents(CACHE_NAME, 7L);
+
+        verify(cache).evict("1");
+        verify(cache).evict("3");
+        verify(cache, never()).clear();
+    }
+
+    @Test
+    void evictDependents_DoesNothing_WhenMedicationIsNotCached() {
+        when(cacheManager.getCache(CACHE_NAME)).thenReturn(cache);
+        when(redisTemplate.opsForSet()).thenReturn(setOperations);
+        when(setOperations.members("cache-deps:pharmacy_medications:7")).thenReturn(Set.of());
+
+        cacheDependencyIndex.evictDependents(CACHE_NAME, 7L);
+
+        verifyNoInteractions(cache);
+    }
+
+    @Test
+    void evictDependents_ClearsWholeCache_WhenIndexIsUnavailable() {
+        when(cacheManager.getCache(CACHE_NAME)).thenReturn(cache);
+        when(redisTemplate.opsForSet()).thenReturn(setOperations);
+        when(setOperations.members(anyString())).thenThrow(new RedisConnectionFailureException("нет соединения"));
+
+        cacheDependencyIndex.evictDependents(CACHE_NAME, 7L);
+
+        verify(cache).clear();
+        verify(cache, never()).evict(any());
+    }
+
+    @Test
+    void recordDependencies_SkipsRedis_WhenListIsEmpty() {
+        cacheDependencyIndex.recordDependencies(CACHE_NAME, 1L, List.of());
+
+        verifyNoInteractions(redisTemplate);
+    }
+}
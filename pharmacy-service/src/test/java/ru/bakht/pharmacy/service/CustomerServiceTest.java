@@ -1,20 +1,27 @@
 package ru.bakht.pharmacy.service;
 
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.test.util.ReflectionTestUtils;
 import ru.bakht.pharmacy.service.exception.EntityNotFoundException;
 import ru.bakht.pharmacy.service.mapper.CustomerMapper;
 import ru.bakht.pharmacy.service.model.Customer;
 import ru.bakht.pharmacy.service.model.dto.CustomerDto;
 import ru.bakht.pharmacy.service.repository.CustomerRepository;
+import ru.bakht.pharmacy.service.search.SearchField;
+import ru.bakht.pharmacy.service.search.TextSearchIndex;
 import ru.bakht.pharmacy.service.service.CustomerService;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -29,6 +36,12 @@ public class CustomerServiceTest {
     @Mock
     private CustomerMapper customerMapper;
 
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private TextSearchIndex textSearchIndex;
+
     @InjectMocks
     private CustomerService customerService;
 
@@ -39,6 +52,45 @@ public class CustomerServiceTest {
     void setUp() {
         customer = new Customer(1L, "Bakha", "Perm", "1234567890");
         customerDto = new CustomerDto(1L, "Bakha", "Perm", "1234567890");
+        ReflectionTestUtils.setField(customerService, "entityManager", entityManager);
+    }
+
+    @Test
+    void getPage_ReturnsNextCursor_WhenPageIsFull() {
+        when(customerRepository.findPage(null, 1)).thenReturn(List.of(customer));
+        when(customerMapper.toDto(customer)).thenReturn(customerDto);
+
+        var page = customerService.getPage(null, 1);
+
+        assertEquals(List.of(customerDto), page.getContent());
+        assertEquals(1L, page.getNextCursor());
+    }
+
+    @Test
+    void getPage_ReturnsNullCursor_OnLastPage() {
+        when(customerRepository.findPage(1L, 10)).thenReturn(List.of());
+
+        var page = customerService.getPage(1L, 10);
+
+        assertTrue(page.getContent().isEmpty());
+        assertNull(page.getNextCursor());
+    }
+
+    @Test
+    void streamAll_MapsAndDetachesEachCustomer() {
+        var second = new Customer(2L, "Ivan", "Moscow", "0987654321");
+        var secondDto = new CustomerDto(2L, "Ivan", "Moscow", "0987654321");
+        when(customerRepository.streamAllByOrderByIdAsc()).thenReturn(Stream.of(customer, second));
+        when(customerMapper.toDto(customer)).thenReturn(customerDto);
+        when(customerMapper.toDto(second)).thenReturn(secondDto);
+
+        List<CustomerDto> received = new ArrayList<>();
+        customerService.streamAll(received::add);
+
+        assertEquals(List.of(customerDto, secondDto), received);
+        verify(entityManager).detach(customer);
+        verify(entityManager).detach(second);
+        verify(customerRepository, never()).findAll();
     }
 
     @Test
@@ -128,6 +180,20 @@ public class CustomerServiceTest {
         verifyNoInteractions(customerMapper);
     }
 
+    @Test
+    @SuppressWarnings("unchecked")
+    void getByFilters_UsesSearchIndexForTextCriteria() {
+        var criteria = CustomerDto.builder().name("bak").build();
+        when(customerRepository.findAll(any(Specification.class))).thenReturn(List.of(customer));
+        when(customerMapper.toDto(customer)).thenReturn(customerDto);
+
+        var result = customerService.getByFilters(criteria);
+
+        assertEquals(List.of(customerDto), result);
+        verify(textSearchIndex).hasCandidateId(SearchField.CUSTOMER_NAME, "bak");
+        verify(textSearchIndex).hasCandidateId(SearchField.CUSTOMER_ADDRESS, null);
+    }
+
     @Test
     void deleteCustomerById_SuccessfulDeletion() {
         Long customerId = 1L;
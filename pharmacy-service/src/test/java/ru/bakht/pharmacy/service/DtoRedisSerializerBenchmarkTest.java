@@ -0,0 +1,100 @@
+package ru.bakht.pharmacy.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.serializer.support.DeserializingConverter;
+import org.springframework.core.serializer.support.SerializingConverter;
+import ru.bakht.pharmacy.service.cache.DtoRedisSerializer;
+import ru.bakht.pharmacy.service.model.dto.MedicationDto;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Сравнение пропускной способности сериализации и десериализации списка лекарств,
+ * хранимого в кэше, для JDK-сериализации, Jackson и {@link DtoRedisSerializer}.
+ * Запускается профилем {@code benchmark}.
+ */
+@Tag("benchmark")
+class DtoRedisSerializerBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(DtoRedisSerializerBenchmarkTest.class);
+
+    private static final int WARMUP_ITERATIONS = 20_000;
+    private static final int MEASURED_ITERATIONS = 20_000;
+
+    @Test
+    void dtoRedisSerializer_IsFasterThanJdkSerialization() throws Exception {
+        var medications = new ArrayList<>(DtoRedisSerializerTest.medications());
+        var serializer = new DtoRedisSerializer();
+        var serializingConverter = new SerializingConverter();
+        var deserializingConverter = new DeserializingConverter();
+        var objectMapper = new ObjectMapper().findAndRegisterModules();
+        var listType = new TypeReference<List<MedicationDto>>() {
+        };
+
+        byte[] jdkBytes = serializingConverter.convert(medications);
+        byte[] jsonBytes = objectMapper.writeValueAsBytes(medications);
+        byte[] binaryBytes = serializer.serialize(medications);
+        assertEquals(medications, objectMapper.readValue(jsonBytes, listType));
+
+        var jdk = new Throughput(
+                opsPerSecond(medications, serializingConverter::convert),
+                opsPerSecond(jdkBytes, deserializingConverter::convert));
+        var jackson = new Throughput(
+                opsPerSecond(medications, value -> {
+                    try {
+                        return objectMapper.writeValueAsBytes(value);
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                }),
+                opsPerSecond(jsonBytes, bytes -> {
+                    try {
+                        return objectMapper.readValue(bytes, listType);
+                    } catch (Exception e) {
+                        throw new IllegalStateException(e);
+                    }
+                }));
+        var binary = new Throughput(
+                opsPerSecond(medications, serializer::serialize),
+                opsPerSecond(binaryBytes, serializer::deserialize));
+
+        log.info("Список из {} лекарств, операций в секунду (сериализация / десериализация): "
+                        + "JDK {} / {}, Jackson {} / {}, DtoRedisSerializer {} / {}",
+                medications.size(),
+                jdk.serialize(), jdk.deserialize(),
+                jackson.serialize(), jackson.deserialize(),
+                binary.serialize(), binary.deserialize());
+        assertTrue(binary.serialize() > jdk.serialize(),
+                () -> "Сериализация: DtoRedisSerializer " + binary.serialize() + ", JDK " + jdk.serialize());
+        assertTrue(binary.deserialize() > jdk.deserialize(),
+                () -> "Десериализация: DtoRedisSerializer " + binary.deserialize() + ", JDK " + jdk.deserialize());
+    }
+
+    private static <T> long opsPerSecond(T input, Function<T, ?> operation) {
+        Object sink = null;
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            sink = operation.apply(input);
+        }
+
+        long startedAt = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            sink = operation.apply(input);
+        }
+        long elapsedNanos = System.nanoTime() - startedAt;
+        assertTrue(sink != null);
+        return Math.round(MEASURED_ITERATIONS / (elapsedNanos / 1_000_000_000.0));
+    }
+
+    private record Throughput(long serialize, long deserialize) {
+    }
+}
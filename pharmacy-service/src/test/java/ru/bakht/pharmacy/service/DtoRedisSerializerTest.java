@@ -0,0 +1,108 @@
+package ru.bakht.pharmacy.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.serializer.support.SerializingConverter;
+import ru.bakht.pharmacy.service.cache.DtoRedisSerializer;
+import ru.bakht.pharmacy.service.enums.EmployeePosition;
+import ru.bakht.pharmacy.service.enums.MedicationForm;
+import ru.bakht.pharmacy.service.enums.OrderStatus;
+import ru.bakht.pharmacy.service.model.dto.*;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DtoRedisSerializerTest {
+
+    private static final int MEDICATIONS = 200;
+
+    private final DtoRedisSerializer serializer = new DtoRedisSerializer();
+
+    @Test
+    void roundTrip_PreservesMedicationList_IncludingNullFields() {
+        List<MedicationDto> medications = List.of(
+                new MedicationDto(1L, "Аспирин", MedicationForm.TABLET, 100.5, LocalDate.of(2027, 1, 31)),
+                new MedicationDto(2L, null, null, null, null));
+
+        assertEquals(medications, serializer.deserialize(serializer.serialize(medications)));
+    }
+
+    @Test
+    void roundTrip_PreservesOrderWithNestedEntities() {
+        var pharmacy = new PharmacyDto(1L, "Аптека №1", "ул. Ленина, 2", "89007654321");
+        var order = new OrderDto(
+                -7L,
+                new CustomerDto(2L, "Мария Иванова", "ул. Ленина, 1", "89001234567"),
+                new EmployeeDto(3L, "Алексей Смирнов", EmployeePosition.PHARMACIST, "alexey@example.com", pharmacy),
+                pharmacy,
+                new MedicationDto(4L, "Аспирин", MedicationForm.TABLET, 100.0, LocalDate.of(2027, 1, 31)),
+                3,
+                300.0,
+                LocalDate.of(1969, 12, 31),
+                OrderStatus.COMPLETED);
+
+        assertEquals(List.of(order), serializer.deserialize(serializer.serialize(List.of(order))));
+        assertEquals(pharmacy, serializer.deserialize(serializer.serialize(pharmacy)));
+    }
+
+    @Test
+    void roundTrip_PreservesTotalOrders() {
+        var totalOrders = new TotalOrders(10, 200.0);
+
+        assertEquals(totalOrders, serializer.deserialize(serializer.serialize(totalOrders)));
+    }
+
+    @Test
+    void roundTrip_FallsBackToJavaSerialization_ForOtherTypes() {
+        var value = new ArrayList<>(List.of(1, 2, 3));
+
+        assertEquals(value, serializer.deserialize(serializer.serialize(value)));
+        assertEquals("текст", serializer.deserialize(serializer.serialize("текст")));
+    }
+
+    @Test
+    void deserialize_ReturnsNull_WhenSchemaVersionDiffers() {
+        byte[] bytes = serializer.serialize(medications());
+        bytes[1]++;
+
+        assertNull(serializer.deserialize(bytes));
+    }
+
+    @Test
+    void deserialize_ReturnsNull_ForJdkSerializedValue() {
+        byte[] jdkBytes = new SerializingConverter().convert(new ArrayList<>(medications()));
+
+        assertNull(serializer.deserialize(jdkBytes));
+    }
+
+    /**
+     * Сравнение размера закодированного списка с JDK-сериализацией и Jackson.
+     */
+    @Test
+    void serialize_ProducesSmallerPayload_ThanJdkAndJackson() throws Exception {
+        var medications = new ArrayList<>(medications());
+        var jdk = new SerializingConverter();
+        var objectMapper = new ObjectMapper().findAndRegisterModules();
+
+        byte[] binary = serializer.serialize(medications);
+        byte[] jdkBytes = jdk.convert(medications);
+        byte[] jsonBytes = objectMapper.writeValueAsBytes(medications);
+
+        assertTrue(binary.length < jdkBytes.length / 2, "Бинарный формат должен быть минимум вдвое меньше JDK");
+        assertTrue(binary.length < jsonBytes.length, "Бинарный формат должен быть меньше JSON");
+    }
+
+    static List<MedicationDto> medications() {
+        MedicationForm[] forms = MedicationForm.values();
+        MedicationDto[] medications = new MedicationDto[MEDICATIONS];
+        for (int i = 0; i < MEDICATIONS; i++) {
+            medications[i] = new MedicationDto((long) i + 1, "Лекарство " + i, forms[i % forms.length],
+                    10.0 + i, LocalDate.of(2027, 1, 1).plusDays(i));
+        }
+        return Arrays.asList(medications);
+    }
+}
@@ -0,0 +1,65 @@
+package ru.bakht.pharmacy.service;
+
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+import ru.bakht.pharmacy.service.enums.MedicationForm;
+import ru.bakht.pharmacy.service.enums.OrderStatus;
+import ru.bakht.pharmacy.service.model.dto.MedicationDto;
+import ru.bakht.pharmacy.service.model.dto.OrderDto;
+import ru.bakht.pharmacy.service.model.dto.TotalOrders;
+import ru.bakht.pharmacy.service.service.report.ExcelReportService;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExcelReportServiceTest {
+
+    private final ExcelReportService excelReportService = new ExcelReportService();
+
+    @Test
+    void generateOrdersReport_WritesAllRows_BeyondRowWindow() throws IOException {
+        var medication = new MedicationDto(1L, "Аспирин", MedicationForm.TABLET, 100.0, LocalDate.of(2027, 1, 1));
+        List<OrderDto> orders = IntStream.rangeClosed(1, 5_000)
+                .mapToObj(i -> OrderDto.builder()
+                        .id((long) i)
+                        .medication(medication)
+                        .quantity(1)
+                        .totalAmount(100.0)
+                        .orderDate(LocalDate.of(2026, 10, 18))
+                        .orderStatus(OrderStatus.COMPLETED)
+                        .build())
+                .toList();
+        var outputStream = new ByteArrayOutputStream();
+
+        excelReportService.generateOrdersReport(orders.stream(), outputStream);
+
+        try (var workbook = new XSSFWorkbook(new ByteArrayInputStream(outputStream.toByteArray()))) {
+            Sheet sheet = workbook.getSheet("Заказы");
+            assertEquals(5_000, sheet.getLastRowNum());
+            assertEquals(5_000, sheet.getRow(5_000).getCell(0).getNumericCellValue());
+        }
+    }
+
+    @Test
+    void generateTotalOrdersReport_DoesNotCloseOutputStream() throws IOException {
+        var closed = new boolean[1];
+        var outputStream = new FilterOutputStream(new ByteArrayOutputStream()) {
+            @Override
+            public void close() {
+                closed[0] = true;
+            }
+        };
+
+        excelReportService.generateTotalOrdersReport(new TotalOrders(10, 1000.0), outputStream);
+
+        assertFalse(closed[0]);
+    }
+}
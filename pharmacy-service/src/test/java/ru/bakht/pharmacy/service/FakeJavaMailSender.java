@@ -0,0 +1,122 @@
+package ru.bakht.pharmacy.service;
+
+import jakarta.mail.Message;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Session;
+import jakarta.mail.internet.MimeMessage;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailParseException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessagePreparator;
+
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Локальная замена SMTP-сервера: каждое письмо "отправляется" за заданное время,
+ * для отдельных адресов можно задать число неудачных попыток подряд.
+ */
+class FakeJavaMailSender implements JavaMailSender {
+
+    private final Session session = Session.getInstance(new Properties());
+    private final Duration latency;
+    private final Map<String, AtomicInteger> failuresLeft = new ConcurrentHashMap<>();
+    private final List<String> recipients = new CopyOnWriteArrayList<>();
+    private final AtomicInteger attempts = new AtomicInteger();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+
+    FakeJavaMailSender(Duration latency) {
+        this.latency = latency;
+    }
+
+    /**
+     * Следующие {@code times} отправок на адрес завершатся {@link MailSendException}.
+     */
+    void failNext(String to, int times) {
+        failuresLeft.put(to, new AtomicInteger(times));
+    }
+
+    List<String> recipients() {
+        return recipients;
+    }
+
+    int attempts() {
+        return attempts.get();
+    }
+
+    int maxInFlight() {
+        return maxInFlight.get();
+    }
+
+    @Override
+    public MimeMessage createMimeMessage() {
+        return new MimeMessage(session);
+    }
+
+    @Override
+    public MimeMessage createMimeMessage(InputStream contentStream) throws MailException {
+        try {
+            return new MimeMessage(session, contentStream);
+        } catch (MessagingException e) {
+            throw new MailParseException(e);
+        }
+    }
+
+    @Override
+    public void send(MimeMessage mimeMessage) throws MailException {
+        attempts.incrementAndGet();
+        maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        try {
+            Thread.sleep(latency);
+            String to = mimeMessage.getRecipients(Message.RecipientType.TO)[0].toString();
+            AtomicInteger failures = failuresLeft.get(to);
+            if (failures != null && failures.getAndDecrement() > 0) {
+                throw new MailSendException("Сервер временно недоступен");
+            }
+            recipients.add(to);
+        } catch (MessagingException e) {
+            throw new MailParseException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MailSendException("Отправка прервана", e);
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    @Override
+    public void send(MimeMessage... mimeMessages) throws MailException {
+        for (MimeMessage mimeMessage : mimeMessages) {
+            send(mimeMessage);
+        }
+    }
+
+    @Override
+    public void send(MimeMessagePreparator mimeMessagePreparator) throws MailException {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void send(MimeMessagePreparator... mimeMessagePreparators) throws MailException {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void send(SimpleMailMessage simpleMessage) throws MailException {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void send(SimpleMailMessage... simpleMessages) throws MailException {
+        throw new UnsupportedOperationException();
+    }
+}
@@ -0,0 +1,235 @@
+package ru.bakht.pharmacy.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import ru.bakht.pharmacy.service.enums.EmployeePosition;
+import ru.bakht.pharmacy.service.enums.MedicationForm;
+import ru.bakht.pharmacy.service.model.*;
+import ru.bakht.pharmacy.service.repository.EmployeeRepository;
+import ru.bakht.pharmacy.service.repository.PharmacyMedicationRepository;
+import ru.bakht.pharmacy.service.service.LowStockEvent;
+import ru.bakht.pharmacy.service.service.notification.EmailMessage;
+import ru.bakht.pharmacy.service.service.notification.NotificationDispatcher;
+import ru.bakht.pharmacy.service.service.report.InventoryCheckCheckpoints;
+import ru.bakht.pharmacy.service.service.report.InventoryCheckService;
+import ru.bakht.pharmacy.service.service.report.InventoryShardLocks;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class InventoryCheckServiceTest {
+
+    @Mock
+    private EmployeeRepository employeeRepository;
+
+    @Mock
+    private NotificationDispatcher notificationDispatcher;
+
+    @Mock
+    private PharmacyMedicationRepository pharmacyMedicationRepository;
+
+    @Mock
+    private InventoryShardLocks shardLocks;
+
+    @Mock
+    private InventoryCheckCheckpoints checkpoints;
+
+    @Mock
+    private InventoryShardLocks.Lease lease;
+
+    @InjectMocks
+    private InventoryCheckService inventoryCheckService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(inventoryCheckService, "mailUsername", "pharmacy@example.com");
+        ReflectionTestUtils.setField(inventoryCheckService, "mailPassword", "secret");
+        ReflectionTestUtils.setField(inventoryCheckService, "shards", 1);
+        ReflectionTestUtils.setField(inventoryCheckService, "pharmaciesPerBatch", 50);
+        ReflectionTestUtils.setField(inventoryCheckService, "rearmMargin", 5);
+    }
+
+    @Test
+    void checkInventory_ResumesShardFromCheckpoint_AndMarksNotifiedRows() {
+        var pharmacy = new Pharmacy(7L, "Аптека №7", "ул. Ленина, 7", "89007654321", null);
+        var aspirin = new Medication(1L, "Аспирин", MedicationForm.TABLET, 100.0, null);
+        String runId = LocalDate.now().toString();
+
+        when(checkpoints.completedShards(runId)).thenReturn(Set.of());
+        when(shardLocks.tryAcquire(0)).thenReturn(Optional.of(lease));
+        when(lease.isHeld()).thenReturn(true);
+        when(checkpoints.lastPharmacyId(runId, 0)).thenReturn(5L);
+        when(pharmacyMedicationRepository.findPharmacyIdsWithUnnotifiedLowStock(1, 0, 5L, 50)).thenReturn(List.of(7L));
+        when(pharmacyMedicationRepository.findPharmacyIdsWithUnnotifiedLowStock(1, 0, 7L, 50)).thenReturn(List.of());
+        when(pharmacyMedicationRepository.findUnnotifiedLowStock(List.of(7L)))
+                .thenReturn(List.of(pharmacyMedication(pharmacy, aspirin)));
+        when(employeeRepository.findByPharmacyIdIn(Set.of(7L))).thenReturn(List.of(
+                new Employee(1L, "Алексей Смирнов", EmployeePosition.PHARMACIST, "alexey@example.com", pharmacy)));
+        when(notificationDispatcher.dispatch(any())).thenReturn(new NotificationDispatcher.Result(1, Set.of()));
+
+        inventoryCheckService.checkInventory();
+
+        InOrder inOrder = inOrder(checkpoints, notificationDispatcher, pharmacyMedicationRepository, lease);
+        inOrder.verify(checkpoints).startRun(runId);
+        inOrder.verify(notificationDispatcher).dispatch(any());
+        inOrder.verify(pharmacyMedicationRepository).markLowStockNotified(7L, List.of(1L));
+        inOrder.verify(checkpoints).save(runId, 0, 7L);
+        inOrder.verify(pharmacyMedicationRepository).clearReplenishedAlerts(5, 1, 0);
+        inOrder.verify(checkpoints).complete(runId, 0);
+        inOrder.verify(lease).close();
+    }
+
+    @Test
+    void checkInventory_LeavesRowsUnnotified_WhenDigestIsNotDelivered() {
+        var pharmacy = new Pharmacy(7L, "Аптека №7", "ул. Ленина, 7", "89007654321", null);
+        var aspirin = new Medication(1L, "Аспирин", MedicationForm.TABLET, 100.0, null);
+        String runId = LocalDate.now().toString();
+
+        when(checkpoints.completedShards(runId)).thenReturn(Set.of());
+        when(shardLocks.tryAcquire(0)).thenReturn(Optional.of(lease));
+        when(lease.isHeld()).thenReturn(true);
+        when(checkpoints.lastPharmacyId(runId, 0)).thenReturn(0L);
+        when(pharmacyMedicationRepository.findPharmacyIdsWithUnnotifiedLowStock(1, 0, 0L, 50)).thenReturn(List.of(7L));
+        when(pharmacyMedicationRepository.findPharmacyIdsWithUnnotifiedLowStock(1, 0, 7L, 50)).thenReturn(List.of());
+        when(pharmacyMedicationRepository.findUnnotifiedLowStock(List.of(7L)))
+                .thenReturn(List.of(pharmacyMedication(pharmacy, aspirin)));
+        when(employeeRepository.findByPharmacyIdIn(Set.of(7L))).thenReturn(List.of(
+                new Employee(1L, "Алексей Смирнов", EmployeePosition.PHARMACIST, "alexey@example.com", pharmacy)));
+        when(notificationDispatcher.dispatch(any()))
+                .thenReturn(new NotificationDispatcher.Result(0, Set.of("alexey@example.com")));
+
+        inventoryCheckService.checkInventory();
+
+        verify(pharmacyMedicationRepository, never()).markLowStockNotified(any(), any());
+        verify(checkpoints).save(runId, 0, 7L);
+        verify(checkpoints).complete(runId, 0);
+    }
+
+    @Test
+    void onLowStock_MarksRowNotified_OnlyAfterDelivery() {
+        var pharmacy = new Pharmacy(7L, "Аптека №7", "ул. Ленина, 7", "89007654321", null);
+        var aspirin = new Medication(1L, "Аспирин", MedicationForm.TABLET, 100.0, null);
+        when(pharmacyMedicationRepository.findById(new PharmacyMedicationId(7L, 1L)))
+                .thenReturn(Optional.of(pharmacyMedication(pharmacy, aspirin)));
+        when(employeeRepository.findByPharmacyIdIn(Set.of(7L))).thenReturn(List.of(
+                new Employee(1L, "Алексей Смирнов", EmployeePosition.PHARMACIST, "alexey@example.com", pharmacy)));
+        when(notificationDispatcher.dispatch(any()))
+                .thenReturn(new NotificationDispatcher.Result(0, Set.of("alexey@example.com")))
+                .thenReturn(new NotificationDispatcher.Result(1, Set.of()));
+
+        ReflectionTestUtils.invokeMethod(inventoryCheckService, "notifyLowStock", new LowStockEvent(7L, 1L));
+        verify(pharmacyMedicationRepository, never()).markLowStockNotified(any(), any());
+
+        ReflectionTestUtils.invokeMethod(inventoryCheckService, "notifyLowStock", new LowStockEvent(7L, 1L));
+        verify(pharmacyMedicationRepository).markLowStockNotified(7L, List.of(1L));
+    }
+
+    @Test
+    void checkInventory_SkipsShardsHeldByOtherInstances() {
+        String runId = LocalDate.now().toString();
+        when(checkpoints.completedShards(runId)).thenReturn(Set.of());
+        when(shardLocks.tryAcquire(0)).thenReturn(Optional.empty());
+
+        inventoryCheckService.checkInventory();
+
+        verifyNoInteractions(pharmacyMedicationRepository, notificationDispatcher);
+    }
+
+    @Test
+    void checkInventory_StopsShard_WhenLeaseIsLost() {
+        String runId = LocalDate.now().toString();
+        when(checkpoints.completedShards(runId)).thenReturn(Set.of());
+        when(shardLocks.tryAcquire(0)).thenReturn(Optional.of(lease));
+        when(lease.isHeld()).thenReturn(false);
+
+        inventoryCheckService.checkInventory();
+
+        verifyNoInteractions(pharmacyMedicationRepository);
+        verify(checkpoints, never()).complete(any(), anyInt());
+        verify(lease).close();
+    }
+
+    @Test
+    void resumeInventoryCheck_DoesNothing_WhenAllShardsAreCompleted() {
+        when(checkpoints.currentRun()).thenReturn(Optional.of("2026-10-18"));
+        when(checkpoints.completedShards("2026-10-18")).thenReturn(Set.of(0));
+
+        inventoryCheckService.resumeInventoryCheck();
+
+        verifyNoInteractions(shardLocks, pharmacyMedicationRepository);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void sendNotifications_LoadsEmployeesOnce_AndSendsOneDigestPerAddress() {
+        var firstPharmacy = new Pharmacy(1L, "Аптека №1", "ул. Ленина, 2", "89007654321", null);
+        var secondPharmacy = new Pharmacy(2L, "Аптека №2", "ул. Мира, 5", "89001112233", null);
+        var aspirin = new Medication(1L, "Аспирин", MedicationForm.TABLET, 100.0, null);
+        var ibuprofen = new Medication(2L, "Ибупрофен", MedicationForm.CAPSULE, 150.0, null);
+        var medications = List.of(
+                pharmacyMedication(firstPharmacy, aspirin),
+                pharmacyMedication(firstPharmacy, ibuprofen),
+                pharmacyMedication(secondPharmacy, ibuprofen));
+
+        when(employeeRepository.findByPharmacyIdIn(Set.of(1L, 2L))).thenReturn(List.of(
+                new Employee(1L, "Алексей Смирнов", EmployeePosition.PHARMACIST, "alexey@example.com", firstPharmacy),
+                new Employee(2L, "Ольга Петрова", EmployeePosition.MANAGER, "manager@example.com", firstPharmacy),
+                new Employee(3L, "Ольга Петрова", EmployeePosition.MANAGER, "manager@example.com", secondPharmacy),
+                new Employee(4L, "Иван Сидоров", EmployeePosition.PHARMACIST, null, secondPharmacy)));
+        when(notificationDispatcher.dispatch(any())).thenReturn(new NotificationDispatcher.Result(2, Set.of()));
+
+        assertEquals(Set.of(1L, 2L), inventoryCheckService.sendNotifications(medications));
+
+        verify(employeeRepository, times(1)).findByPharmacyIdIn(any());
+        ArgumentCaptor<List<EmailMessage>> captor = ArgumentCaptor.forClass(List.class);
+        verify(notificationDispatcher, times(1)).dispatch(captor.capture());
+
+        Map<String, String> digests = captor.getValue().stream()
+                .collect(Collectors.toMap(EmailMessage::to, EmailMessage::text));
+        assertEquals(Set.of("alexey@example.com", "manager@example.com"), digests.keySet());
+        assertTrue(digests.get("alexey@example.com").contains("Аспирин"));
+        assertFalse(digests.get("alexey@example.com").contains("Аптека №2"));
+        assertTrue(digests.get("manager@example.com").contains("Аптека №1"));
+        assertTrue(digests.get("manager@example.com").contains("Аптека №2"));
+    }
+
+    @Test
+    void sendNotifications_ExcludesPharmacy_WhenAnyDigestForItFailed() {
+        var firstPharmacy = new Pharmacy(1L, "Аптека №1", "ул. Ленина, 2", "89007654321", null);
+        var secondPharmacy = new Pharmacy(2L, "Аптека №2", "ул. Мира, 5", "89001112233", null);
+        var aspirin = new Medication(1L, "Аспирин", MedicationForm.TABLET, 100.0, null);
+
+        when(employeeRepository.findByPharmacyIdIn(Set.of(1L, 2L))).thenReturn(List.of(
+                new Employee(1L, "Алексей Смирнов", EmployeePosition.PHARMACIST, "alexey@example.com", firstPharmacy),
+                new Employee(2L, "Ольга Петрова", EmployeePosition.MANAGER, "manager@example.com", firstPharmacy),
+                new Employee(3L, "Иван Сидоров", EmployeePosition.PHARMACIST, "ivan@example.com", secondPharmacy)));
+        when(notificationDispatcher.dispatch(any()))
+                .thenReturn(new NotificationDispatcher.Result(2, Set.of("manager@example.com")));
+
+        assertEquals(Set.of(2L), inventoryCheckService.sendNotifications(List.of(
+                pharmacyMedication(firstPharmacy, aspirin),
+                pharmacyMedication(secondPharmacy, aspirin))));
+    }
+
+    private static PharmacyMedication pharmacyMedication(Pharmacy pharmacy, Medication medication) {
+        return new PharmacyMedication(new PharmacyMedicationId(pharmacy.getId(), medication.getId()),
+                pharmacy, medication, 3, 10, true, false, false);
+    }
+}
@@ -0,0 +1,63 @@
+package ru.bakht.pharmacy.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.test.util.ReflectionTestUtils;
+import ru.bakht.pharmacy.service.service.report.InventoryShardLocks;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class InventoryShardLocksExpiryTest {
+
+    private static final Duration LOCK_TTL = Duration.ofMillis(300);
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private ValueOperations<String, String> valueOperations;
+
+    private InventoryShardLocks shardLocks;
+
+    @BeforeEach
+    void setUp() {
+        when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        when(valueOperations.setIfAbsent(anyString(), anyString(), eq(LOCK_TTL))).thenReturn(true);
+        shardLocks = new InventoryShardLocks(redisTemplate);
+        ReflectionTestUtils.setField(shardLocks, "lockTtl", LOCK_TTL);
+        ReflectionTestUtils.invokeMethod(shardLocks, "init");
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReflectionTestUtils.invokeMethod(shardLocks, "shutdown");
+    }
+
+    @Test
+    void lease_IsLost_WhenRenewalFailsForLongerThanTtl() throws Exception {
+        when(redisTemplate.execute(any(RedisScript.class), anyList(), any(Object[].class)))
+                .thenThrow(new RedisConnectionFailureException("Redis недоступен"));
+        var lease = shardLocks.tryAcquire(1).orElseThrow();
+
+        assertTrue(lease.isHeld());
+        Thread.sleep(LOCK_TTL.multipliedBy(2));
+
+        assertFalse(lease.isHeld());
+        verify(redisTemplate, atLeastOnce()).execute(any(RedisScript.class), eq(List.of("inventory-check:lock:1")),
+                any(Object[].class));
+    }
+}
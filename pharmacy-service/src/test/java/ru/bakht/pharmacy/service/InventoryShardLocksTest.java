@@ -0,0 +1,97 @@
+package ru.bakht.pharmacy.service;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import ru.bakht.pharmacy.service.service.report.InventoryShardLocks;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Testcontainers(disabledWithoutDocker = true)
+class InventoryShardLocksTest {
+
+    private static final Duration LOCK_TTL = Duration.ofMillis(300);
+
+    @Container
+    static GenericContainer<?> redis = new GenericContainer<>("redis:7").withExposedPorts(6379);
+
+    private static LettuceConnectionFactory connectionFactory;
+    private static StringRedisTemplate redisTemplate;
+
+    private InventoryShardLocks shardLocks;
+
+    @BeforeAll
+    static void connect() {
+        connectionFactory = new LettuceConnectionFactory(
+                new RedisStandaloneConfiguration(redis.getHost(), redis.getMappedPort(6379)));
+        connectionFactory.afterPropertiesSet();
+        redisTemplate = new StringRedisTemplate(connectionFactory);
+    }
+
+    @AfterAll
+    static void disconnect() {
+        connectionFactory.destroy();
+    }
+
+    @BeforeEach
+    void setUp() {
+        redisTemplate.execute((RedisCallback<Object>) connection -> {
+            connection.serverCommands().flushAll();
+            return null;
+        });
+        shardLocks = new InventoryShardLocks(redisTemplate);
+        ReflectionTestUtils.setField(shardLocks, "lockTtl", LOCK_TTL);
+        ReflectionTestUtils.invokeMethod(shardLocks, "init");
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReflectionTestUtils.invokeMethod(shardLocks, "shutdown");
+    }
+
+    @Test
+    void tryAcquire_RejectsShardHeldByAnotherInstance() {
+        var lease = shardLocks.tryAcquire(1).orElseThrow();
+
+        assertTrue(shardLocks.tryAcquire(1).isEmpty());
+        assertTrue(shardLocks.tryAcquire(2).isPresent());
+
+        lease.close();
+        assertTrue(shardLocks.tryAcquire(1).isPresent());
+    }
+
+    @Test
+    void watchdog_KeepsLockAlive_BeyondTtl() throws Exception {
+        var lease = shardLocks.tryAcquire(1).orElseThrow();
+
+        Thread.sleep(LOCK_TTL.multipliedBy(4));
+
+        assertTrue(lease.isHeld());
+        assertTrue(shardLocks.tryAcquire(1).isEmpty());
+        lease.close();
+    }
+
+    @Test
+    void lease_IsLost_WhenLockWasTakenOver() throws Exception {
+        var lease = shardLocks.tryAcquire(1).orElseThrow();
+        redisTemplate.opsForValue().set("inventory-check:lock:1", "other-instance");
+
+        Thread.sleep(LOCK_TTL);
+
+        assertFalse(lease.isHeld());
+        lease.close();
+        assertEquals("other-instance", redisTemplate.opsForValue().get("inventory-check:lock:1"));
+    }
+}
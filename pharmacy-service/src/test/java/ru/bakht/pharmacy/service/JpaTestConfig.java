@@ -0,0 +1,118 @@
+package ru.bakht.pharmacy.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import liquibase.integration.spring.SpringLiquibase;
+import org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.orm.hibernate5.SpringBeanContainer;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+import org.testcontainers.containers.PostgreSQLContainer;
+import ru.bakht.pharmacy.service.mapper.OrderMapper;
+import ru.bakht.pharmacy.service.repository.OrderRepository;
+
+import javax.sql.DataSource;
+import java.util.function.Consumer;
+
+/**
+ * Минимальный контекст JPA поверх PostgreSQL из Testcontainers: схема Liquibase,
+ * репозитории, мапперы и транзакции, без остальной автоконфигурации приложения.
+ * Пакетная запись настроена как в {@code application.yml}.
+ * SQL-запросы Hibernate проходят через {@link StatementCounter}.
+ */
+@Configuration
+@EnableJpaRepositories(basePackageClasses = OrderRepository.class)
+@EnableTransactionManagement
+@ComponentScan(basePackageClasses = OrderMapper.class)
+class JpaTestConfig {
+
+    static AnnotationConfigApplicationContext start(PostgreSQLContainer<?> postgres) {
+        return start(postgres, context -> {
+        });
+    }
+
+    /**
+     * Создает контекст для контейнера.
+     *
+     * @param postgres запущенный контейнер PostgreSQL
+     * @param beans    регистрация дополнительных бинов, например проверяемых сервисов
+     * @return запущенный контекст
+     */
+    static AnnotationConfigApplicationContext start(PostgreSQLContainer<?> postgres,
+                                                    Consumer<AnnotationConfigApplicationContext> beans) {
+        var context = new AnnotationConfigApplicationContext();
+        context.registerBean(DataSource.class, () -> new DriverManagerDataSource(
+                postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword()));
+        context.register(JpaTestConfig.class);
+        beans.accept(context);
+        context.refresh();
+        return context;
+    }
+
+    /**
+     * Добавляет покупателей и заказы, равномерно распределенные по покупателям,
+     * сотрудникам, аптекам и лекарствам из начальных данных.
+     */
+    static void insertOrders(DataSource dataSource, int customers, int orders) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.update("INSERT INTO customers (name, address, phone) "
+                + "SELECT 'Покупатель ' || g, 'Адрес ' || g, '7' || lpad(g::text, 10, '0') "
+                + "FROM generate_series(1, ?) g", customers);
+        jdbcTemplate.update("WITH c AS (SELECT array_agg(id) AS ids FROM customers), "
+                + "e AS (SELECT array_agg(id) AS ids FROM employees), "
+                + "p AS (SELECT array_agg(id) AS ids FROM pharmacies), "
+                + "m AS (SELECT array_agg(id) AS ids FROM medications) "
+                + "INSERT INTO orders (customer_id, employee_id, pharmacy_id, medication_id, "
+                + "quantity, total_amount, order_date, status) "
+                + "SELECT c.ids[1 + g % cardinality(c.ids)], e.ids[1 + g % cardinality(e.ids)], "
+                + "p.ids[1 + g % cardinality(p.ids)], m.ids[1 + g % cardinality(m.ids)], "
+                + "1 + g % 5, (1 + g % 5) * 10.0, CURRENT_DATE - (g % 365), "
+                + "(ARRAY['NEW', 'PROCESSING', 'COMPLETED', 'CANCELLED'])[1 + g % 4] "
+                + "FROM generate_series(1, ?) g, c, e, p, m", orders);
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    @Bean
+    SpringLiquibase liquibase(DataSource dataSource) {
+        SpringLiquibase liquibase = new SpringLiquibase();
+        liquibase.setDataSource(dataSource);
+        liquibase.setChangeLog("classpath:/db/changelog/db.changelog_master.yml");
+        liquibase.setResourceLoader(new DefaultResourceLoader());
+        return liquibase;
+    }
+
+    @Bean
+    LocalContainerEntityManagerFactoryBean entityManagerFactory(DataSource dataSource, SpringLiquibase liquibase,
+                                                                ConfigurableListableBeanFactory beanFactory) {
+        var entityManagerFactory = new LocalContainerEntityManagerFactoryBean();
+        entityManagerFactory.setDataSource(dataSource);
+        entityManagerFactory.setPackagesToScan("ru.bakht.pharmacy.service.model");
+        entityManagerFactory.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        entityManagerFactory.getJpaPropertyMap()
+                .put(AvailableSettings.BEAN_CONTAINER, new SpringBeanContainer(beanFactory));
+        entityManagerFactory.getJpaPropertyMap()
+                .put(AvailableSettings.PHYSICAL_NAMING_STRATEGY, new CamelCaseToUnderscoresNamingStrategy());
+        entityManagerFactory.getJpaPropertyMap()
+                .put(AvailableSettings.STATEMENT_INSPECTOR, new StatementCounter());
+        entityManagerFactory.getJpaPropertyMap().put(AvailableSettings.STATEMENT_BATCH_SIZE, 50);
+        entityManagerFactory.getJpaPropertyMap().put(AvailableSettings.ORDER_INSERTS, true);
+        entityManagerFactory.getJpaPropertyMap().put(AvailableSettings.ORDER_UPDATES, true);
+        return entityManagerFactory;
+    }
+
+    @Bean
+    JpaTransactionManager transactionManager(EntityManagerFactory entityManagerFactory) {
+        return new JpaTransactionManager(entityManagerFactory);
+    }
+}
@@ -0,0 +1,62 @@
+package ru.bakht.pharmacy.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+import ru.bakht.pharmacy.service.repository.PharmacyMedicationRepository;
+import ru.bakht.pharmacy.service.service.LowStockDetector;
+import ru.bakht.pharmacy.service.service.LowStockEvent;
+
+import java.util.List;
+
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LowStockDetectorTest {
+
+    @Mock
+    private PharmacyMedicationRepository pharmacyMedicationRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @InjectMocks
+    private LowStockDetector lowStockDetector;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(lowStockDetector, "rearmMargin", 5);
+    }
+
+    @Test
+    void onStockChanged_PublishesEvent_WhenStockDroppedBelowThreshold() {
+        when(pharmacyMedicationRepository.updateLowStockAlerted(1L, 2L, 5)).thenReturn(List.of(true));
+
+        lowStockDetector.onStockChanged(1L, 2L);
+
+        verify(eventPublisher).publishEvent(new LowStockEvent(1L, 2L));
+    }
+
+    @Test
+    void onStockChanged_DoesNotPublish_WhenAlertAlreadySent() {
+        when(pharmacyMedicationRepository.updateLowStockAlerted(1L, 2L, 5)).thenReturn(List.of());
+
+        lowStockDetector.onStockChanged(1L, 2L);
+
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void onStockChanged_DoesNotPublish_WhenStockWasReplenished() {
+        when(pharmacyMedicationRepository.updateLowStockAlerted(1L, 2L, 5)).thenReturn(List.of(false));
+
+        lowStockDetector.onStockChanged(1L, 2L);
+
+        verifyNoInteractions(eventPublisher);
+    }
+}
@@ -0,0 +1,116 @@
+package ru.bakht.pharmacy.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import liquibase.integration.spring.SpringLiquibase;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Регрессионная проверка планов запросов поиска низких остатков на каталоге
+ * из {@value #MEDICATIONS} лекарств, из которых ниже порога пополнения только каждое тысячное.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class LowStockQueryPlanTest {
+
+    private static final int MEDICATIONS = 200_000;
+    private static final Set<String> INDEX_SCANS = Set.of("Index Scan", "Index Only Scan", "Bitmap Heap Scan");
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16");
+
+    private static JdbcTemplate jdbcTemplate;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @BeforeAll
+    static void setUp() throws Exception {
+        var dataSource = new DriverManagerDataSource(
+                postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword());
+
+        SpringLiquibase liquibase = new SpringLiquibase();
+        liquibase.setDataSource(dataSource);
+        liquibase.setChangeLog("classpath:/db/changelog/db.changelog_master.yml");
+        liquibase.setResourceLoader(new DefaultResourceLoader());
+        liquibase.afterPropertiesSet();
+
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.update("INSERT INTO medications (name, form, price, expiration_date, reorder_threshold) "
+                + "SELECT 'Лекарство ' || g, 'TABLET', 10.0, CURRENT_DATE + 365, 5 + g % 20 "
+                + "FROM generate_series(1, ?) g", MEDICATIONS);
+        jdbcTemplate.update("WITH p AS (SELECT array_agg(id) AS ids FROM pharmacies) "
+                + "INSERT INTO pharmacy_medications (pharmacy_id, medication_id, quantity, reorder_threshold) "
+                + "SELECT p.ids[1 + m.id % cardinality(p.ids)], m.id, "
+                + "CASE WHEN m.id % 1000 = 0 THEN 0 ELSE 100 END, m.reorder_threshold "
+                + "FROM medications m, p "
+                + "ON CONFLICT DO NOTHING");
+        jdbcTemplate.update("UPDATE pharmacy_medications SET low_stock_alerted = TRUE, low_stock_notified = TRUE "
+                + "WHERE quantity < reorder_threshold AND medication_id % 2000 = 0");
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    @Test
+    void unnotifiedBelowThreshold_ReadsOnlyPartialIndex() throws Exception {
+        assertIndexScan("SELECT DISTINCT pharmacy_id FROM pharmacy_medications "
+                        + "WHERE quantity < reorder_threshold AND NOT low_stock_notified "
+                        + "AND MOD(pharmacy_id, 16) = 3 AND pharmacy_id > 0 "
+                        + "ORDER BY pharmacy_id LIMIT 50",
+                "idx_pharmacy_medications_below_threshold");
+    }
+
+    @Test
+    void replenishedAlerts_ReadOnlyPartialIndex() throws Exception {
+        assertIndexScan("SELECT * FROM pharmacy_medications "
+                        + "WHERE low_stock_alerted AND quantity >= reorder_threshold + 5 "
+                        + "AND MOD(pharmacy_id, 16) = 3",
+                "idx_pharmacy_medications_low_stock_alerted");
+    }
+
+    private void assertIndexScan(String sql, String index) throws Exception {
+        List<Scan> scans = scans(sql);
+
+        assertFalse(scans.isEmpty());
+        scans.stream()
+                .filter(scan -> scan.relation() != null)
+                .forEach(scan -> assertTrue(INDEX_SCANS.contains(scan.nodeType()),
+                        () -> "Таблица " + scan.relation() + " читается узлом " + scan.nodeType() + ": " + sql));
+        assertEquals(Set.of(index), scans.stream()
+                .map(Scan::index)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet()));
+    }
+
+    private List<Scan> scans(String sql) throws Exception {
+        String plan = jdbcTemplate.queryForObject("EXPLAIN (FORMAT JSON) " + sql, String.class);
+        List<Scan> scans = new ArrayList<>();
+        collectScans(objectMapper.readTree(plan).get(0).get("Plan"), scans);
+        return scans;
+    }
+
+    private static void collectScans(JsonNode node, List<Scan> scans) {
+        if (node.has("Index Name") || node.has("Relation Name")) {
+            scans.add(new Scan(node.get("Node Type").asText(),
+                    node.path("Relation Name").asText(null), node.path("Index Name").asText(null)));
+        }
+        if (node.has("Plans")) {
+            node.get("Plans").forEach(child -> collectScans(child, scans));
+        }
+    }
+
+    private record Scan(String nodeType, String relation, String index) {
+    }
+}
@@ -0,0 +1,91 @@
+package ru.bakht.pharmacy.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+import ru.bakht.pharmacy.service.model.dto.MedicationSalesProjection;
+import ru.bakht.pharmacy.service.repository.OrderDailyTotalRepository;
+import ru.bakht.pharmacy.service.search.MedicationAutocomplete;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Замер задержки подсказок для коротких префиксов на каталоге из {@value #MEDICATIONS} лекарств.
+ * Запускается профилем {@code benchmark}.
+ */
+@Tag("benchmark")
+class MedicationAutocompleteBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(MedicationAutocompleteBenchmarkTest.class);
+
+    private static final int MEDICATIONS = 50_000;
+    private static final int REQUESTS = 20_000;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void suggest_AnswersShortPrefixesWithinOneMillisecondAtP99() {
+        Random random = new Random(42);
+        List<Object[]> names = new ArrayList<>();
+        List<MedicationSalesProjection> sales = new ArrayList<>();
+        for (long id = 1; id <= MEDICATIONS; id++) {
+            names.add(new Object[]{id, MedicationAutocompleteTest.word(random, MedicationAutocompleteTest.ALPHABET)
+                    + " " + MedicationAutocompleteTest.word(random, MedicationAutocompleteTest.ALPHABET)});
+            sales.add(salesVolume(id, random.nextInt(1_000)));
+        }
+
+        var orderDailyTotalRepository = mock(OrderDailyTotalRepository.class);
+        var entityManager = mock(EntityManager.class);
+        TypedQuery<Object[]> query = mock(TypedQuery.class);
+        when(entityManager.createQuery(anyString(), eq(Object[].class))).thenReturn(query);
+        when(query.getResultList()).thenReturn(names);
+        when(orderDailyTotalRepository.findSalesVolumeByMedicationSince(any())).thenReturn(sales);
+
+        var medicationAutocomplete = new MedicationAutocomplete(orderDailyTotalRepository);
+        ReflectionTestUtils.setField(medicationAutocomplete, "entityManager", entityManager);
+        ReflectionTestUtils.setField(medicationAutocomplete, "salesDays", 90);
+        medicationAutocomplete.rebuild();
+
+        String alphabet = MedicationAutocompleteTest.ALPHABET;
+        long[] nanos = new long[REQUESTS];
+        for (int i = -REQUESTS; i < nanos.length; i++) {
+            String prefix = alphabet.charAt(random.nextInt(alphabet.length()))
+                    + (random.nextBoolean() ? String.valueOf(alphabet.charAt(random.nextInt(alphabet.length()))) : "");
+            long start = System.nanoTime();
+            medicationAutocomplete.suggest(prefix, 10);
+            if (i >= 0) {
+                nanos[i] = System.nanoTime() - start;
+            }
+        }
+
+        Arrays.sort(nanos);
+        long p50 = nanos[nanos.length / 2];
+        long p99 = nanos[(int) (nanos.length * 0.99)];
+        log.info("Подсказки для коротких префиксов: p50 {} мкс, p99 {} мкс", p50 / 1000, p99 / 1000);
+        assertTrue(p99 < 1_000_000, () -> "p99 подсказок: " + p99 / 1000 + " мкс");
+    }
+
+    private static MedicationSalesProjection salesVolume(Long medicationId, long salesVolume) {
+        return new MedicationSalesProjection() {
+            @Override
+            public Long getMedicationId() {
+                return medicationId;
+            }
+
+            @Override
+            public Long getSalesVolume() {
+                return salesVolume;
+            }
+        };
+    }
+}
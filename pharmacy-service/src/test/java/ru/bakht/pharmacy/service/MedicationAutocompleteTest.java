@@ -0,0 +1,147 @@
+package ru.bakht.pharmacy.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import ru.bakht.pharmacy.service.model.dto.MedicationSalesProjection;
+import ru.bakht.pharmacy.service.model.dto.MedicationSuggestionDto;
+import ru.bakht.pharmacy.service.repository.OrderDailyTotalRepository;
+import ru.bakht.pharmacy.service.search.MedicationAutocomplete;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class MedicationAutocompleteTest {
+
+    static final String ALPHABET = "абвгдежзиклмнопрстуфхцчшэюя";
+
+    @Mock
+    private OrderDailyTotalRepository orderDailyTotalRepository;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private TypedQuery<Object[]> query;
+
+    private MedicationAutocomplete medicationAutocomplete;
+
+    @BeforeEach
+    void setUp() {
+        medicationAutocomplete = new MedicationAutocomplete(orderDailyTotalRepository);
+        ReflectionTestUtils.setField(medicationAutocomplete, "entityManager", entityManager);
+        ReflectionTestUtils.setField(medicationAutocomplete, "salesDays", 90);
+    }
+
+    @Test
+    void suggest_RanksBySalesVolumeThenName() {
+        rebuild(Map.of(1L, "Аспирин Кардио", 2L, "Парацетамол", 3L, "Аскорбиновая кислота", 4L, "Кардиомагнил"),
+                Map.of(1L, 50L, 4L, 100L));
+
+        assertEquals(List.of(4L, 1L), ids(medicationAutocomplete.suggest("кард", 10)));
+        assertEquals(List.of(1L, 3L), ids(medicationAutocomplete.suggest("АС", 10)));
+        assertEquals(List.of(1L), ids(medicationAutocomplete.suggest("а", 1)));
+        assertEquals("Кардиомагнил", medicationAutocomplete.suggest("кардиом", 10).getFirst().getName());
+    }
+
+    @Test
+    void suggest_ReturnsEachMedicationOnce() {
+        rebuild(Map.of(1L, "Магний Магне B6"), Map.of());
+
+        assertEquals(List.of(1L), ids(medicationAutocomplete.suggest("маг", 10)));
+    }
+
+    @Test
+    void suggest_ReturnsNothingForBlankPrefix() {
+        rebuild(Map.of(1L, "Аспирин"), Map.of());
+
+        assertTrue(medicationAutocomplete.suggest(" ", 10).isEmpty());
+        assertTrue(medicationAutocomplete.suggest("ибу", 10).isEmpty());
+    }
+
+    @Test
+    void putAndRemove_UpdateSuggestionsWithoutRebuild() {
+        rebuild(Map.of(1L, "Аспирин Кардио", 4L, "Кардиомагнил"), Map.of(4L, 100L));
+
+        medicationAutocomplete.put(5L, "Кардикет");
+        medicationAutocomplete.put(4L, "Магнерот");
+        medicationAutocomplete.remove(1L);
+
+        assertEquals(List.of(5L), ids(medicationAutocomplete.suggest("кард", 10)));
+        assertEquals(List.of(4L), ids(medicationAutocomplete.suggest("магн", 10)));
+        assertTrue(medicationAutocomplete.suggest("асп", 10).isEmpty());
+    }
+
+    @Test
+    void suggest_ReturnsSameShortPrefixSuggestionsAsFullScan() {
+        Random random = new Random(42);
+        Map<Long, String> names = new HashMap<>();
+        Map<Long, Long> sales = new HashMap<>();
+        for (long id = 1; id <= 2_000; id++) {
+            names.put(id, word(random, ALPHABET) + " " + word(random, ALPHABET));
+            sales.put(id, (long) random.nextInt(100));
+        }
+        rebuild(names, sales);
+        medicationAutocomplete.put(1L, "Абв гд");
+        medicationAutocomplete.put(2_001L, "Аб");
+        medicationAutocomplete.remove(3L);
+
+        for (String prefix : List.of("а", "аб", "г", "гд", names.get(3L).substring(0, 2), "я")) {
+            List<Long> scanned = ids(medicationAutocomplete.suggest(prefix, 51));
+            assertEquals(scanned.subList(0, Math.min(10, scanned.size())),
+                    ids(medicationAutocomplete.suggest(prefix, 10)), prefix);
+        }
+        assertTrue(ids(medicationAutocomplete.suggest("аб", 10)).contains(2_001L));
+        assertTrue(ids(medicationAutocomplete.suggest("гд", 50)).contains(1L));
+    }
+
+    private void rebuild(Map<Long, String> names, Map<Long, Long> sales) {
+        List<Object[]> rows = names.entrySet().stream()
+                .map(entry -> new Object[]{entry.getKey(), entry.getValue()})
+                .toList();
+        when(entityManager.createQuery(anyString(), eq(Object[].class))).thenReturn(query);
+        when(query.getResultList()).thenReturn(rows);
+        when(orderDailyTotalRepository.findSalesVolumeByMedicationSince(any())).thenReturn(sales.entrySet().stream()
+                .map(entry -> salesVolume(entry.getKey(), entry.getValue()))
+                .toList());
+
+        medicationAutocomplete.rebuild();
+    }
+
+    private static MedicationSalesProjection salesVolume(Long medicationId, Long salesVolume) {
+        return new MedicationSalesProjection() {
+            @Override
+            public Long getMedicationId() {
+                return medicationId;
+            }
+
+            @Override
+            public Long getSalesVolume() {
+                return salesVolume;
+            }
+        };
+    }
+
+    static String word(Random random, String alphabet) {
+        StringBuilder word = new StringBuilder();
+        for (int i = 0; i < 8; i++) {
+            word.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return word.toString();
+    }
+
+    private static List<Long> ids(List<MedicationSuggestionDto> suggestions) {
+        return suggestions.stream().map(MedicationSuggestionDto::getId).toList();
+    }
+}
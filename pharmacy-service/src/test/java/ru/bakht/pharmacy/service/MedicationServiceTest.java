@@ -6,12 +6,15 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import ru.bakht.pharmacy.service.cache.CacheDependencyIndex;
 import ru.bakht.pharmacy.service.enums.MedicationForm;
 import ru.bakht.pharmacy.service.exception.EntityNotFoundException;
 import ru.bakht.pharmacy.service.mapper.MedicationMapper;
 import ru.bakht.pharmacy.service.model.Medication;
 import ru.bakht.pharmacy.service.model.dto.MedicationDto;
 import ru.bakht.pharmacy.service.repository.MedicationRepository;
+import ru.bakht.pharmacy.service.repository.PharmacyMedicationRepository;
+import ru.bakht.pharmacy.service.search.MedicationAutocomplete;
 import ru.bakht.pharmacy.service.service.MedicationService;
 
 import java.util.List;
@@ -30,6 +33,15 @@ class MedicationServiceTest {
     @Mock
     private MedicationMapper medicationMapper;
 
+    @Mock
+    private CacheDependencyIndex cacheDependencyIndex;
+
+    @Mock
+    private MedicationAutocomplete medicationAutocomplete;
+
+    @Mock
+    private PharmacyMedicationRepository pharmacyMedicationRepository;
+
     @InjectMocks
     private MedicationService medicationService;
 
@@ -121,6 +133,7 @@ class MedicationServiceTest {
         verify(medicationMapper, times(1)).toEntity(any(MedicationDto.class));
         verify(medicationRepository, times(1)).save(any(Medication.class));
         verify(medicationMapper, times(1)).toDto(any(Medication.class));
+        verify(medicationAutocomplete).put(1L, "Aspirin");
     }
 
     @Test
@@ -146,6 +159,8 @@ class MedicationServiceTest {
         verify(medicationRepository, times(1)).findById(1L);
         verify(medicationRepository, times(1)).save(any(Medication.class));
         verify(medicationMapper, times(1)).toDto(any(Medication.class));
+        verify(cacheDependencyIndex).evictDependents("pharmacy_medications", 1L);
+        verify(medicationAutocomplete).put(1L, "Ibuprofen");
     }
 
     @Test
@@ -155,6 +170,33 @@ class MedicationServiceTest {
         medicationService.delete(medicationId);
 
         verify(medicationRepository, times(1)).deleteById(medicationId);
+        verify(cacheDependencyIndex).evictDependents("pharmacy_medications", medicationId);
+        verify(medicationAutocomplete).remove(medicationId);
+    }
+
+    @Test
+    void updateReorderThreshold_PropagatesToInheritedPharmacyRows() {
+        when(medicationRepository.updateReorderThreshold(1L, 25)).thenReturn(1);
+
+        medicationService.updateReorderThreshold(1L, 25);
+
+        verify(pharmacyMedicationRepository).updateInheritedReorderThreshold(1L, 25);
+    }
+
+    @Test
+    void updateReorderThreshold_ThrowsEntityNotFoundException_WhenMedicationIsMissing() {
+        when(medicationRepository.updateReorderThreshold(1L, 25)).thenReturn(0);
+
+        assertThrows(EntityNotFoundException.class, () -> medicationService.updateReorderThreshold(1L, 25));
+
+        verifyNoInteractions(pharmacyMedicationRepository);
+    }
+
+    @Test
+    void updateReorderThreshold_ThrowsIllegalArgumentException_WhenThresholdIsNegative() {
+        assertThrows(IllegalArgumentException.class, () -> medicationService.updateReorderThreshold(1L, -1));
+
+        verifyNoInteractions(medicationRepository, pharmacyMedicationRepository);
     }
 
 }
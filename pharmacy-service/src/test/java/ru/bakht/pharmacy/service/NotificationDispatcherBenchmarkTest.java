@@ -0,0 +1,41 @@
+package ru.bakht.pharmacy.service;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Сравнение с последовательной отправкой, которой проверка запасов пользовалась раньше:
+ * при задержке SMTP-сервера {@value #SMTP_LATENCY_MILLIS} мс последовательная отправка
+ * {@value #MESSAGES} писем заняла бы 25 секунд. Запускается профилем {@code benchmark}.
+ */
+@Tag("benchmark")
+class NotificationDispatcherBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(NotificationDispatcherBenchmarkTest.class);
+
+    private static final int MESSAGES = 500;
+    private static final int SMTP_LATENCY_MILLIS = 50;
+
+    @Test
+    void dispatch_IsFasterThanSequentialSending() {
+        var mailSender = new FakeJavaMailSender(Duration.ofMillis(SMTP_LATENCY_MILLIS));
+        var dispatcher = NotificationDispatcherTest.dispatcher(mailSender, 64, 10_000, 3);
+
+        long startedAt = System.nanoTime();
+        var result = dispatcher.dispatch(NotificationDispatcherTest.messages(MESSAGES));
+        long elapsedMillis = Duration.ofNanos(System.nanoTime() - startedAt).toMillis();
+
+        log.info("Диспетчер уведомлений: {} писем за {} мс, {} писем/с",
+                MESSAGES, elapsedMillis, MESSAGES * 1000L / Math.max(elapsedMillis, 1));
+        assertEquals(MESSAGES, result.sent());
+        assertTrue(elapsedMillis < (long) MESSAGES * SMTP_LATENCY_MILLIS,
+                "Отправка заняла " + elapsedMillis + " мс");
+    }
+}
@@ -0,0 +1,100 @@
+package ru.bakht.pharmacy.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import ru.bakht.pharmacy.service.service.notification.EmailMessage;
+import ru.bakht.pharmacy.service.service.notification.NotificationDispatcher;
+import ru.bakht.pharmacy.service.service.notification.SharedSmtpRateLimiter;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class NotificationDispatcherTest {
+
+    @Test
+    void dispatch_SendsEveryMessage_WithBoundedConcurrency() {
+        var mailSender = new FakeJavaMailSender(Duration.ofMillis(10));
+        var dispatcher = dispatcher(mailSender, 8, 10_000, 3);
+
+        var result = dispatcher.dispatch(messages(200));
+
+        assertEquals(new NotificationDispatcher.Result(200, Set.of()), result);
+        assertEquals(200, mailSender.recipients().size());
+        assertTrue(mailSender.maxInFlight() <= 8, "Одновременно отправлено писем: " + mailSender.maxInFlight());
+    }
+
+    @Test
+    void dispatch_RetriesTransientFailures() {
+        var mailSender = new FakeJavaMailSender(Duration.ZERO);
+        mailSender.failNext("employee0@example.com", 2);
+        var dispatcher = dispatcher(mailSender, 4, 10_000, 3);
+
+        var result = dispatcher.dispatch(messages(1));
+
+        assertEquals(new NotificationDispatcher.Result(1, Set.of()), result);
+        assertEquals(3, mailSender.attempts());
+    }
+
+    @Test
+    void dispatch_GivesUp_AfterMaxAttempts() {
+        var mailSender = new FakeJavaMailSender(Duration.ZERO);
+        mailSender.failNext("employee0@example.com", 5);
+        var dispatcher = dispatcher(mailSender, 4, 10_000, 3);
+
+        var result = dispatcher.dispatch(messages(2));
+
+        assertEquals(new NotificationDispatcher.Result(1, Set.of("employee0@example.com")), result);
+        assertEquals(List.of("employee1@example.com"), mailSender.recipients());
+    }
+
+    @Test
+    void dispatch_RespectsRateLimitOfSmtpHost_WhenRedisIsUnavailable() {
+        var mailSender = new FakeJavaMailSender(Duration.ZERO);
+        var dispatcher = dispatcher(mailSender, 16, 100, 1);
+
+        long startedAt = System.nanoTime();
+        dispatcher.dispatch(messages(21));
+        long elapsedMillis = Duration.ofNanos(System.nanoTime() - startedAt).toMillis();
+
+        assertTrue(elapsedMillis >= 190, "21 письмо при 100 письмах в секунду отправлено за " + elapsedMillis + " мс");
+    }
+
+    @Test
+    void dispatch_SendsInParallel_WithOneAttemptPerMessage() {
+        var mailSender = new FakeJavaMailSender(Duration.ofMillis(20));
+        var dispatcher = dispatcher(mailSender, 16, 10_000, 3);
+
+        var result = dispatcher.dispatch(messages(100));
+
+        assertEquals(new NotificationDispatcher.Result(100, Set.of()), result);
+        assertEquals(100, mailSender.attempts());
+        assertTrue(mailSender.maxInFlight() > 1, "Письма отправлялись последовательно");
+        assertTrue(mailSender.maxInFlight() <= 16, "Одновременно отправлено писем: " + mailSender.maxInFlight());
+    }
+
+    static NotificationDispatcher dispatcher(FakeJavaMailSender mailSender, int maxConcurrency,
+                                                     double ratePerSecond, int maxAttempts) {
+        StringRedisTemplate unavailableRedis = mock(StringRedisTemplate.class, invocation -> {
+            throw new RedisConnectionFailureException("Redis недоступен");
+        });
+        var dispatcher = new NotificationDispatcher(mailSender, new SharedSmtpRateLimiter(unavailableRedis));
+        ReflectionTestUtils.setField(dispatcher, "maxConcurrency", maxConcurrency);
+        ReflectionTestUtils.setField(dispatcher, "ratePerSecond", ratePerSecond);
+        ReflectionTestUtils.setField(dispatcher, "maxAttempts", maxAttempts);
+        ReflectionTestUtils.setField(dispatcher, "retryBackoff", Duration.ofMillis(1));
+        return dispatcher;
+    }
+
+    static List<EmailMessage> messages(int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> new EmailMessage("employee" + i + "@example.com", "Тема", "Текст"))
+                .toList();
+    }
+}
@@ -0,0 +1,151 @@
+package ru.bakht.pharmacy.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import ru.bakht.pharmacy.service.enums.OrderStatus;
+import ru.bakht.pharmacy.service.service.archive.OrderArchiveRow;
+import ru.bakht.pharmacy.service.service.archive.OrderArchiveStore;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderArchiveStoreTest {
+
+    @TempDir
+    Path directory;
+
+    private OrderArchiveStore orderArchiveStore;
+
+    @BeforeEach
+    void setUp() {
+        orderArchiveStore = new OrderArchiveStore();
+        ReflectionTestUtils.setField(orderArchiveStore, "directory", directory);
+    }
+
+    @Test
+    void writePending_WritesOneFilePerMonthInDatePartitionedDirectories() {
+        List<Path> files = orderArchiveStore.writePending(new ArrayList<>(List.of(
+                row(1L, 10L, LocalDate.of(2024, 1, 5)),
+                row(2L, 11L, LocalDate.of(2024, 1, 20)),
+                row(3L, 10L, LocalDate.of(2024, 2, 1)))));
+
+        assertEquals(List.of(
+                directory.resolve("year=2024/month=01/orders-1-2.ocf.pending"),
+                directory.resolve("year=2024/month=02/orders-3-3.ocf.pending")), files);
+    }
+
+    @Test
+    void pendingFiles_AreInvisibleUntilPublished() {
+        List<Path> files = orderArchiveStore.writePending(new ArrayList<>(List.of(row(1L, 10L, LocalDate.of(2024, 1, 5)))));
+
+        assertTrue(orderArchiveStore.findByCustomerIds(Set.of(10L)).isEmpty());
+        assertEquals(files, orderArchiveStore.findPending());
+
+        orderArchiveStore.publish(files);
+
+        assertEquals(1, orderArchiveStore.findByCustomerIds(Set.of(10L)).size());
+        assertTrue(orderArchiveStore.findPending().isEmpty());
+    }
+
+    @Test
+    void discard_DeletesPendingFiles() {
+        List<Path> files = orderArchiveStore.writePending(new ArrayList<>(List.of(row(1L, 10L, LocalDate.of(2024, 1, 5)))));
+
+        orderArchiveStore.discard(files);
+
+        assertTrue(orderArchiveStore.findPending().isEmpty());
+        assertTrue(orderArchiveStore.findByCustomerIds(Set.of(10L)).isEmpty());
+    }
+
+    @Test
+    void anyOrderId_ReturnsEmpty_WhenPendingFileIsAlreadyPublished() {
+        List<Path> files = orderArchiveStore.writePending(new ArrayList<>(List.of(row(5L, 10L, LocalDate.of(2024, 1, 5)))));
+
+        assertEquals(OptionalLong.of(5L), orderArchiveStore.anyOrderId(files.get(0)));
+
+        orderArchiveStore.publish(files);
+
+        assertEquals(OptionalLong.empty(), orderArchiveStore.anyOrderId(files.get(0)));
+    }
+
+    @Test
+    void findByCustomerIds_RestoresAllColumns() {
+        var order = new OrderArchiveRow(7L, 10L, null, 3L, 4L, 2, null, LocalDate.of(2024, 1, 5), OrderStatus.COMPLETED);
+        orderArchiveStore.publish(orderArchiveStore.writePending(new ArrayList<>(List.of(order))));
+
+        assertEquals(List.of(order), orderArchiveStore.findByCustomerIds(Set.of(10L)));
+    }
+
+    @Test
+    void findByCustomerIds_ReturnsOnlyOrdersOfRequestedCustomers() {
+        List<OrderArchiveRow> rows = new ArrayList<>();
+        LongStream.rangeClosed(1, 20_000).forEach(id -> rows.add(row(id, id % 100, LocalDate.of(2024, 1, 1))));
+        orderArchiveStore.publish(orderArchiveStore.writePending(rows));
+
+        List<OrderArchiveRow> found = orderArchiveStore.findByCustomerIds(Set.of(42L));
+
+        assertEquals(200, found.size());
+        assertTrue(found.stream().allMatch(order -> order.customerId() == 42L));
+    }
+
+    @Test
+    void findByCustomerIds_SkipsFilesOutsideCustomerRange() throws IOException {
+        orderArchiveStore.publish(orderArchiveStore.writePending(new ArrayList<>(List.of(
+                row(1L, 10L, LocalDate.of(2024, 1, 5)),
+                row(2L, 500L, LocalDate.of(2024, 2, 5))))));
+        corruptBody(directory.resolve("year=2024/month=02/orders-2-2.ocf"));
+
+        List<OrderArchiveRow> found = orderArchiveStore.findByCustomerIds(Set.of(10L));
+
+        assertEquals(List.of(1L), found.stream().map(OrderArchiveRow::id).toList());
+    }
+
+    @Test
+    void forEachInDateRange_ReturnsOrdersWithinRangeAndSkipsOtherFiles() throws IOException {
+        orderArchiveStore.publish(orderArchiveStore.writePending(new ArrayList<>(List.of(
+                row(1L, 10L, LocalDate.of(2024, 1, 5)),
+                row(2L, 10L, LocalDate.of(2024, 1, 25)),
+                row(3L, 10L, LocalDate.of(2024, 3, 5))))));
+        corruptBody(directory.resolve("year=2024/month=03/orders-3-3.ocf"));
+
+        List<Long> ids = new ArrayList<>();
+        orderArchiveStore.forEachInDateRange(LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 10),
+                order -> ids.add(order.id()));
+
+        assertEquals(List.of(1L), ids);
+    }
+
+    @Test
+    void findMinOrderDate_ReturnsEarliestArchivedDate() {
+        assertEquals(Optional.empty(), orderArchiveStore.findMinOrderDate());
+
+        orderArchiveStore.publish(orderArchiveStore.writePending(new ArrayList<>(List.of(
+                row(1L, 10L, LocalDate.of(2024, 3, 5)),
+                row(2L, 10L, LocalDate.of(2024, 1, 25))))));
+
+        assertEquals(Optional.of(LocalDate.of(2024, 1, 25)), orderArchiveStore.findMinOrderDate());
+    }
+
+    private static OrderArchiveRow row(long id, long customerId, LocalDate orderDate) {
+        return new OrderArchiveRow(id, customerId, 1L, 2L, 3L, 1, 100.0, orderDate, OrderStatus.NEW);
+    }
+
+    private static void corruptBody(Path file) throws IOException {
+        try (var randomAccessFile = new RandomAccessFile(file.toFile(), "rw")) {
+            randomAccessFile.setLength(Files.size(file) - 10);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package ru.bakht.pharmacy.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.bakht.pharmacy.service.enums.BatchItemStatus;
+import ru.bakht.pharmacy.service.enums.EmployeePosition;
+import ru.bakht.pharmacy.service.enums.MedicationForm;
+import ru.bakht.pharmacy.service.enums.OrderStatus;
+import ru.bakht.pharmacy.service.model.*;
+import ru.bakht.pharmacy.service.model.dto.*;
+import ru.bakht.pharmacy.service.repository.*;
+import ru.bakht.pharmacy.service.service.OrderBatchService;
+import ru.bakht.pharmacy.service.service.OrderDailyTotalService;
+import ru.bakht.pharmacy.service.service.StockReservationService;
+import ru.bakht.pharmacy.service.service.outbox.OutboxWriter;
+
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderBatchServiceTest {
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private EmployeeRepository employeeRepository;
+
+    @Mock
+    private CustomerRepository customerRepository;
+
+    @Mock
+    private PharmacyRepository pharmacyRepository;
+
+    @Mock
+    private MedicationRepository medicationRepository;
+
+    @Mock
+    private PharmacyMedicationRepository pharmacyMedicationRepository;
+
+    @Mock
+    private StockReservationService stockReservationService;
+
+    @Mock
+    private OrderDailyTotalService orderDailyTotalService;
+
+    @Mock
+    private OutboxWriter outboxWriter;
+
+    @InjectMocks
+    private OrderBatchService orderBatchService;
+
+    private Pharmacy pharmacy;
+    private Medication medication;
+
+    @BeforeEach
+    void setUp() {
+        pharmacy = new Pharmacy(1L, "Аптека №1", "ул. Ленина, 2", "89007654321", null);
+        medication = new Medication(3L, "Аспирин", MedicationForm.TABLET, 100.0, null);
+
+        when(employeeRepository.findAllById(any())).thenReturn(List.of(
+                new Employee(1L, "Алексей Смирнов", EmployeePosition.PHARMACIST, "alexey@example.com", pharmacy)));
+        when(customerRepository.findAllById(any())).thenReturn(List.of(
+                new Customer(2L, "Мария Иванова", "ул. Ленина, 1", "89001234567")));
+        when(pharmacyRepository.findAllById(any())).thenReturn(List.of(pharmacy));
+        when(medicationRepository.findAllById(any())).thenReturn(List.of(medication));
+        when(pharmacyMedicationRepository.findAllById(any())).thenReturn(List.of(
+                new PharmacyMedication(new PharmacyMedicationId(1L, 3L), pharmacy, medication, 10, 10, true, false, false)));
+    }
+
+    @Test
+    void createBatch_ReservesStockOncePerPharmacyMedication() {
+        when(stockReservationService.reserve(1L, 3L, 7)).thenReturn(true);
+
+        var results = orderBatchService.createBatch(List.of(orderDto(3L, 3), orderDto(3L, 4)));
+
+        assertEquals(2, results.size());
+        assertTrue(results.stream().allMatch(result -> result.getStatus() == BatchItemStatus.CREATED));
+        verify(stockReservationService, times(1)).reserve(anyLong(), anyLong(), anyInt());
+        verify(orderRepository).saveAll(argThat(orders -> orders instanceof Collection<?> c && c.size() == 2));
+        verify(orderDailyTotalService).addAll(argThat(orders -> orders.size() == 2));
+        verify(outboxWriter, times(2)).orderCreated(any(Order.class));
+    }
+
+    @Test
+    void createBatch_RejectsOnlyInvalidItems() {
+        when(stockReservationService.reserve(1L, 3L, 3)).thenReturn(true);
+
+        var results = orderBatchService.createBatch(List.of(
+                orderDto(3L, 3), orderDto(99L, 1), orderDto(3L, 8)));
+
+        assertEquals(BatchItemStatus.CREATED, results.get(0).getStatus());
+        assertEquals(BatchItemStatus.REJECTED, results.get(1).getStatus());
+        assertTrue(results.get(1).getMessage().contains("Лекарство с ID 99 не найдено"));
+        assertEquals(BatchItemStatus.REJECTED, results.get(2).getStatus());
+        assertTrue(results.get(2).getMessage().contains("превышает количество на складе 7"));
+    }
+
+    @Test
+    void createBatch_RejectsGroup_WhenStockChangedConcurrently() {
+        when(stockReservationService.reserve(1L, 3L, 5)).thenReturn(false);
+
+        var results = orderBatchService.createBatch(List.of(orderDto(3L, 2), orderDto(3L, 3)));
+
+        assertTrue(results.stream().allMatch(result -> result.getStatus() == BatchItemStatus.REJECTED));
+        verify(orderRepository).saveAll(argThat(orders -> orders instanceof Collection<?> c && c.isEmpty()));
+    }
+
+    private OrderDto orderDto(Long medicationId, int quantity) {
+        var orderDto = new OrderDto();
+        orderDto.setEmployee(new EmployeeDto(1L, null, null, null, null));
+        orderDto.setCustomer(new CustomerDto(2L, null, null, null));
+        orderDto.setPharmacy(new PharmacyDto(1L, null, null, null));
+        orderDto.setMedication(new MedicationDto(medicationId, null, null, null, null));
+        orderDto.setQuantity(quantity);
+        orderDto.setOrderStatus(OrderStatus.NEW);
+        return orderDto;
+    }
+}
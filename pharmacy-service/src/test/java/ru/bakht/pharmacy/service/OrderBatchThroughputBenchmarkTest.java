@@ -0,0 +1,127 @@
+package ru.bakht.pharmacy.service;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import ru.bakht.pharmacy.service.enums.BatchItemStatus;
+import ru.bakht.pharmacy.service.enums.OrderStatus;
+import ru.bakht.pharmacy.service.model.dto.*;
+import ru.bakht.pharmacy.service.service.*;
+import ru.bakht.pharmacy.service.service.outbox.OutboxWriter;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Сравнение пакетного создания заказов через {@link OrderBatchService#createBatch} с созданием
+ * тех же заказов по одному через {@link OrderService#create}, как при отдельных запросах к API.
+ * Драйвер и Hibernate настроены на пакетную запись как в приложении.
+ * Запускается профилем {@code benchmark}.
+ */
+@Tag("benchmark")
+@Testcontainers(disabledWithoutDocker = true)
+class OrderBatchThroughputBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderBatchThroughputBenchmarkTest.class);
+
+    private static final int ORDERS = 2_000;
+    private static final int BATCH_SIZE = 500;
+    private static final int WARMUP_RUNS = 2;
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16")
+            .withUrlParam("reWriteBatchedInserts", "true");
+
+    private static AnnotationConfigApplicationContext context;
+    private static OrderService orderService;
+    private static OrderBatchService orderBatchService;
+    private static List<OrderDto> orderDtos;
+
+    @BeforeAll
+    static void setUp() {
+        context = JpaTestConfig.start(postgres, beans -> {
+            beans.registerBean(LowStockDetector.class, () -> mock(LowStockDetector.class));
+            beans.registerBean(OrderDailyTotalService.class, () -> mock(OrderDailyTotalService.class));
+            beans.registerBean(OutboxWriter.class, () -> mock(OutboxWriter.class));
+            beans.register(OrderContextLoader.class, StockReservationService.class,
+                    OrderService.class, OrderBatchService.class);
+        });
+        orderService = context.getBean(OrderService.class);
+        orderBatchService = context.getBean(OrderBatchService.class);
+
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(context.getBean(DataSource.class));
+        jdbcTemplate.update("UPDATE pharmacy_medications SET quantity = 100000000");
+        Long customerId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM customers", Long.class);
+        List<OrderDto> templates = jdbcTemplate.query("SELECT e.id AS employee_id, e.pharmacy_id, pm.medication_id "
+                        + "FROM employees e JOIN pharmacy_medications pm ON pm.pharmacy_id = e.pharmacy_id "
+                        + "ORDER BY e.id, pm.medication_id",
+                (rs, rowNum) -> orderDto(rs.getLong("employee_id"), customerId,
+                        rs.getLong("pharmacy_id"), rs.getLong("medication_id")));
+        orderDtos = IntStream.range(0, ORDERS)
+                .mapToObj(i -> templates.get(i % templates.size()))
+                .toList();
+    }
+
+    @AfterAll
+    static void tearDown() {
+        if (context != null) {
+            context.close();
+        }
+    }
+
+    @Test
+    void createBatch_IsFasterThanSingleCreates() {
+        Consumer<List<OrderDto>> single = orders -> orders.forEach(orderService::create);
+        Consumer<List<OrderDto>> batch = orders -> {
+            for (int from = 0; from < orders.size(); from += BATCH_SIZE) {
+                var results = orderBatchService.createBatch(
+                        orders.subList(from, Math.min(from + BATCH_SIZE, orders.size())));
+                assertTrue(results.stream().allMatch(result -> result.getStatus() == BatchItemStatus.CREATED));
+            }
+        };
+
+        double singleOrdersPerSecond = ordersPerSecond(single);
+        double batchOrdersPerSecond = ordersPerSecond(batch);
+
+        log.info("Создание {} заказов: по одному {} заказов/с, пакетами по {} {} заказов/с",
+                ORDERS, Math.round(singleOrdersPerSecond), BATCH_SIZE, Math.round(batchOrdersPerSecond));
+        assertTrue(batchOrdersPerSecond > singleOrdersPerSecond,
+                () -> "Пакетное создание: " + batchOrdersPerSecond + " заказов/с, по одному: " + singleOrdersPerSecond);
+    }
+
+    private static double ordersPerSecond(Consumer<List<OrderDto>> create) {
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            create.accept(orderDtos);
+        }
+
+        long startedAt = System.nanoTime();
+        create.accept(orderDtos);
+        long elapsedNanos = System.nanoTime() - startedAt;
+        return ORDERS / (elapsedNanos / 1_000_000_000.0);
+    }
+
+    private static OrderDto orderDto(Long employeeId, Long customerId, Long pharmacyId, Long medicationId) {
+        var orderDto = new OrderDto();
+        orderDto.setEmployee(new EmployeeDto(employeeId, null, null, null, null));
+        orderDto.setCustomer(new CustomerDto(customerId, null, null, null));
+        orderDto.setPharmacy(new PharmacyDto(pharmacyId, null, null, null));
+        orderDto.setMedication(new MedicationDto(medicationId, null, null, null, null));
+        orderDto.setQuantity(1);
+        orderDto.setOrderStatus(OrderStatus.NEW);
+        return orderDto;
+    }
+}
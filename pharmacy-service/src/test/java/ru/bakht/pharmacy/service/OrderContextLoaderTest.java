@@ -0,0 +1,112 @@
+package ru.bakht.pharmacy.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.bakht.pharmacy.service.enums.EmployeePosition;
+import ru.bakht.pharmacy.service.enums.MedicationForm;
+import ru.bakht.pharmacy.service.exception.EntityNotFoundException;
+import ru.bakht.pharmacy.service.model.*;
+import ru.bakht.pharmacy.service.model.dto.*;
+import ru.bakht.pharmacy.service.repository.*;
+import ru.bakht.pharmacy.service.service.OrderContextLoader;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderContextLoaderTest {
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private EmployeeRepository employeeRepository;
+
+    @Mock
+    private CustomerRepository customerRepository;
+
+    @Mock
+    private PharmacyRepository pharmacyRepository;
+
+    @Mock
+    private MedicationRepository medicationRepository;
+
+    @InjectMocks
+    private OrderContextLoader orderContextLoader;
+
+    private Pharmacy pharmacy;
+    private OrderDto orderDto;
+
+    @BeforeEach
+    void setUp() {
+        pharmacy = new Pharmacy(1L, "Аптека №1", "ул. Ленина, 2", "89007654321", null);
+
+        orderDto = new OrderDto();
+        orderDto.setEmployee(new EmployeeDto(1L, null, null, null, null));
+        orderDto.setCustomer(new CustomerDto(2L, null, null, null));
+        orderDto.setPharmacy(new PharmacyDto(1L, null, null, null));
+        orderDto.setMedication(new MedicationDto(3L, null, null, null, null));
+        orderDto.setQuantity(1);
+    }
+
+    @Test
+    void load_ReturnsContext_FromSingleQuery() {
+        var context = new OrderContext(
+                new Employee(1L, "Алексей Смирнов", EmployeePosition.PHARMACIST, "alexey@example.com", pharmacy),
+                new Customer(2L, "Мария Иванова", "ул. Ленина, 1", "89001234567"),
+                pharmacy,
+                new Medication(3L, "Аспирин", MedicationForm.TABLET, 100.0, null));
+        when(orderRepository.findOrderContext(1L, 2L, 1L, 3L)).thenReturn(Optional.of(context));
+
+        assertSame(context, orderContextLoader.load(orderDto));
+
+        verifyNoInteractions(employeeRepository, customerRepository, pharmacyRepository, medicationRepository);
+    }
+
+    @Test
+    void load_ThrowsEntityNotFoundException_WhenEmployeeWorksInAnotherPharmacy() {
+        var otherPharmacy = new Pharmacy(5L, "Аптека №5", "ул. Мира, 3", "84951239876", null);
+        var context = new OrderContext(
+                new Employee(1L, "Алексей Смирнов", EmployeePosition.PHARMACIST, "alexey@example.com", otherPharmacy),
+                new Customer(), pharmacy, new Medication());
+        when(orderRepository.findOrderContext(1L, 2L, 1L, 3L)).thenReturn(Optional.of(context));
+
+        EntityNotFoundException thrown = assertThrows(
+                EntityNotFoundException.class, () -> orderContextLoader.load(orderDto));
+
+        assertTrue(thrown.getMessage().contains("Сотрудник не работает в указанной аптеке"));
+    }
+
+    @Test
+    void load_ReportsMissingCustomer_WhenContextIsEmpty() {
+        when(orderRepository.findOrderContext(1L, 2L, 1L, 3L)).thenReturn(Optional.empty());
+        when(employeeRepository.existsById(1L)).thenReturn(true);
+        when(customerRepository.existsById(2L)).thenReturn(false);
+
+        EntityNotFoundException thrown = assertThrows(
+                EntityNotFoundException.class, () -> orderContextLoader.load(orderDto));
+
+        assertTrue(thrown.getMessage().contains("Покупатель с ID 2 не найден"));
+        verifyNoInteractions(pharmacyRepository, medicationRepository);
+    }
+
+    @Test
+    void load_ReportsMissingPharmacyMedication_WhenAllEntitiesExist() {
+        when(orderRepository.findOrderContext(1L, 2L, 1L, 3L)).thenReturn(Optional.empty());
+        when(employeeRepository.existsById(1L)).thenReturn(true);
+        when(customerRepository.existsById(2L)).thenReturn(true);
+        when(pharmacyRepository.existsById(1L)).thenReturn(true);
+        when(medicationRepository.existsById(3L)).thenReturn(true);
+
+        EntityNotFoundException thrown = assertThrows(
+                EntityNotFoundException.class, () -> orderContextLoader.load(orderDto));
+
+        assertTrue(thrown.getMessage().contains("Связь между аптекой и лекарством"));
+    }
+}
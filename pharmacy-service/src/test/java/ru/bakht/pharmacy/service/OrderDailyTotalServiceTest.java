@@ -0,0 +1,213 @@
+package ru.bakht.pharmacy.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.bakht.pharmacy.service.cache.OrderReportCacheEvictor;
+import ru.bakht.pharmacy.service.enums.OrderStatus;
+import ru.bakht.pharmacy.service.model.Medication;
+import ru.bakht.pharmacy.service.model.Order;
+import ru.bakht.pharmacy.service.model.Pharmacy;
+import ru.bakht.pharmacy.service.repository.OrderDailyTotalRepository;
+import ru.bakht.pharmacy.service.repository.OrderRepository;
+import ru.bakht.pharmacy.service.service.OrderDailyTotalService;
+import ru.bakht.pharmacy.service.service.archive.OrderArchiveRow;
+import ru.bakht.pharmacy.service.service.archive.OrderArchiveService;
+import ru.bakht.pharmacy.service.service.archive.OrderArchiveStore;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderDailyTotalServiceTest {
+
+    private static final LocalDate DAY = LocalDate.of(2026, 10, 18);
+
+    @Mock
+    private OrderDailyTotalRepository orderDailyTotalRepository;
+
+    @Mock
+    private OrderRepository orderRepository;
+
+    @Mock
+    private OrderArchiveStore orderArchiveStore;
+
+    @Mock
+    private OrderArchiveService orderArchiveService;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private OrderReportCacheEvictor orderReportCacheEvictor;
+
+    private OrderDailyTotalService orderDailyTotalService;
+
+    @BeforeEach
+    void setUp() {
+        orderDailyTotalService = new OrderDailyTotalService(
+                orderDailyTotalRepository, orderRepository, orderArchiveStore, orderArchiveService, transactionTemplate,
+                orderReportCacheEvictor);
+    }
+
+    @Test
+    void add_IncrementsTotalsOfOrderDay() {
+        orderDailyTotalService.add(order(1L, 3L, 2, 200.0));
+
+        verify(orderDailyTotalRepository).lockDayShared(anyInt(), eq((int) DAY.toEpochDay()));
+        verify(orderDailyTotalRepository).addToTotals(DAY, 1L, 3L, 2L, 200.0, 1L);
+    }
+
+    @Test
+    void subtract_DecrementsTotalsOfOrderDay() {
+        orderDailyTotalService.subtract(order(1L, 3L, 2, 200.0));
+
+        verify(orderDailyTotalRepository).addToTotals(DAY, 1L, 3L, -2L, -200.0, -1L);
+    }
+
+    @Test
+    void addAll_GroupsOrdersWithSameDayPharmacyAndMedication() {
+        orderDailyTotalService.addAll(List.of(
+                order(1L, 3L, 2, 200.0),
+                order(1L, 3L, 1, 100.0),
+                order(1L, 4L, 5, 50.0)));
+
+        verify(orderDailyTotalRepository).addToTotals(DAY, 1L, 3L, 3L, 300.0, 2L);
+        verify(orderDailyTotalRepository).addToTotals(DAY, 1L, 4L, 5L, 50.0, 1L);
+        verify(orderDailyTotalRepository).lockDayShared(anyInt(), eq((int) DAY.toEpochDay()));
+        verifyNoMoreInteractions(orderDailyTotalRepository);
+    }
+
+    @Test
+    void add_SkipsOrderWithoutPharmacy() {
+        var order = order(1L, 3L, 2, 200.0);
+        order.setPharmacy(null);
+
+        orderDailyTotalService.add(order);
+
+        verifyNoInteractions(orderDailyTotalRepository);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void rebuild_RecalculatesEachMonthInSeparateTransaction() {
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                ((TransactionCallback<Integer>) invocation.getArgument(0)).doInTransaction(null));
+
+        orderDailyTotalService.rebuild(LocalDate.of(2026, 1, 15), LocalDate.of(2026, 3, 10));
+
+        verify(transactionTemplate, times(3)).execute(any());
+        verify(orderDailyTotalRepository).deleteByDateRange(LocalDate.of(2026, 1, 15), LocalDate.of(2026, 1, 31));
+        verify(orderDailyTotalRepository).insertFromOrders(LocalDate.of(2026, 1, 15), LocalDate.of(2026, 1, 31));
+        verify(orderDailyTotalRepository).insertFromOrders(LocalDate.of(2026, 2, 1), LocalDate.of(2026, 2, 28));
+        verify(orderDailyTotalRepository).insertFromOrders(LocalDate.of(2026, 3, 1), LocalDate.of(2026, 3, 10));
+        verify(orderReportCacheEvictor, times(3)).evictOrderTotals();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void rebuild_LocksEachDayExclusively_BeforeDeletingTotals() {
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                ((TransactionCallback<Integer>) invocation.getArgument(0)).doInTransaction(null));
+
+        orderDailyTotalService.rebuild(DAY, DAY.plusDays(2));
+
+        InOrder inOrder = inOrder(orderDailyTotalRepository);
+        for (int i = 0; i < 3; i++) {
+            inOrder.verify(orderDailyTotalRepository).lockDayExclusive(anyInt(), eq((int) DAY.plusDays(i).toEpochDay()));
+        }
+        inOrder.verify(orderDailyTotalRepository).deleteByDateRange(DAY, DAY.plusDays(2));
+        inOrder.verify(orderDailyTotalRepository).insertFromOrders(DAY, DAY.plusDays(2));
+        verify(orderDailyTotalRepository, never()).lockDayShared(anyInt(), anyInt());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void rebuild_AddsArchivedOrdersToTotals() {
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                ((TransactionCallback<Integer>) invocation.getArgument(0)).doInTransaction(null));
+        doAnswer(invocation -> {
+            Consumer<OrderArchiveRow> consumer = invocation.getArgument(2);
+            consumer.accept(new OrderArchiveRow(1L, 5L, 6L, 1L, 3L, 2, 200.0, DAY, OrderStatus.COMPLETED));
+            consumer.accept(new OrderArchiveRow(2L, 5L, 6L, 1L, 3L, 1, null, DAY, OrderStatus.COMPLETED));
+            return null;
+        }).when(orderArchiveStore).forEachInDateRange(eq(DAY), eq(DAY), any());
+
+        orderDailyTotalService.rebuild(DAY, DAY);
+
+        verify(orderDailyTotalRepository).deleteByDateRange(DAY, DAY);
+        verify(orderDailyTotalRepository).insertFromOrders(DAY, DAY);
+        verify(orderDailyTotalRepository).addToTotals(DAY, 1L, 3L, 3L, 200.0, 2L);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void rebuild_ReadsArchive_UnderArchiveLockInsideChunkTransaction() {
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                ((TransactionCallback<Integer>) invocation.getArgument(0)).doInTransaction(null));
+
+        orderDailyTotalService.rebuild(DAY, DAY);
+
+        InOrder inOrder = inOrder(transactionTemplate, orderDailyTotalRepository, orderArchiveService, orderArchiveStore);
+        inOrder.verify(transactionTemplate).execute(any());
+        inOrder.verify(orderDailyTotalRepository).lockDayExclusive(anyInt(), eq((int) DAY.toEpochDay()));
+        inOrder.verify(orderArchiveService).lockArchive();
+        inOrder.verify(orderArchiveStore).forEachInDateRange(eq(DAY), eq(DAY), any());
+        inOrder.verify(orderDailyTotalRepository).insertFromOrders(DAY, DAY);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void backfill_StartsFromEarliestArchivedOrder() {
+        when(orderRepository.findMinOrderDate()).thenReturn(Optional.of(DAY));
+        when(orderArchiveStore.findMinOrderDate()).thenReturn(Optional.of(DAY.minusYears(3)));
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                ((TransactionCallback<Integer>) invocation.getArgument(0)).doInTransaction(null));
+
+        orderDailyTotalService.backfill();
+
+        verify(transactionTemplate, atLeast(36)).execute(any());
+        verify(orderDailyTotalRepository).deleteByDateRange(eq(DAY.minusYears(3)), any());
+        verify(orderArchiveStore).forEachInDateRange(eq(DAY.minusYears(3)), any(), any());
+    }
+
+    @Test
+    void rebuild_ThrowsIllegalArgumentException_WhenRangeIsInverted() {
+        assertThrows(IllegalArgumentException.class,
+                () -> orderDailyTotalService.rebuild(DAY, DAY.minusDays(1)));
+        verifyNoInteractions(transactionTemplate);
+    }
+
+    @Test
+    void backfill_DoesNothing_WhenThereAreNoOrders() {
+        when(orderRepository.findMinOrderDate()).thenReturn(Optional.empty());
+
+        orderDailyTotalService.backfill();
+
+        verifyNoInteractions(transactionTemplate, orderDailyTotalRepository);
+    }
+
+    private static Order order(Long pharmacyId, Long medicationId, int quantity, double totalAmount) {
+        return Order.builder()
+                .pharmacy(Pharmacy.builder().id(pharmacyId).build())
+                .medication(Medication.builder().id(medicationId).build())
+                .quantity(quantity)
+                .totalAmount(totalAmount)
+                .orderDate(DAY)
+                .orderStatus(OrderStatus.NEW)
+                .build();
+    }
+}
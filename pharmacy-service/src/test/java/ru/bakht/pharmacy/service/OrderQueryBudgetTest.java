@@ -0,0 +1,163 @@
+package ru.bakht.pharmacy.service;
+
+import org.hibernate.Hibernate;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import ru.bakht.pharmacy.service.cache.CacheDependencyIndex;
+import ru.bakht.pharmacy.service.mapper.OrderMapper;
+import ru.bakht.pharmacy.service.model.Order;
+import ru.bakht.pharmacy.service.model.dto.CustomerDto;
+import ru.bakht.pharmacy.service.model.dto.OrderDto;
+import ru.bakht.pharmacy.service.repository.OrderRepository;
+import ru.bakht.pharmacy.service.service.*;
+import ru.bakht.pharmacy.service.service.archive.OrderArchiveService;
+import ru.bakht.pharmacy.service.service.outbox.OutboxWriter;
+import ru.bakht.pharmacy.service.service.report.ReportService;
+import ru.bakht.pharmacy.service.specification.OrderSpecification;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static ru.bakht.pharmacy.service.StatementCounter.assertStatementBudget;
+
+/**
+ * Бюджет SQL-запросов эндпоинтов чтения заказов. Тест падает, если эндпоинт выполняет
+ * больше запросов, чем ему отведено, например из-за загрузки связей по одной.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class OrderQueryBudgetTest {
+
+    private static final int ORDERS = 2_000;
+    private static final int CUSTOMERS = 200;
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16");
+
+    private static AnnotationConfigApplicationContext context;
+    private static OrderService orderService;
+    private static ReportService reportService;
+    private static OrderRepository orderRepository;
+    private static OrderMapper orderMapper;
+    private static TransactionTemplate readOnlyTransaction;
+    private static Long orderId;
+    private static Long customerId;
+    private static String customerPhone;
+    private static Long pharmacyId;
+
+    @BeforeAll
+    static void setUp() {
+        context = JpaTestConfig.start(postgres, beans -> {
+            beans.registerBean(OrderContextLoader.class, () -> mock(OrderContextLoader.class));
+            beans.registerBean(StockReservationService.class, () -> mock(StockReservationService.class));
+            beans.registerBean(OrderDailyTotalService.class, () -> mock(OrderDailyTotalService.class));
+            beans.registerBean(PharmacyService.class, () -> mock(PharmacyService.class));
+            beans.registerBean(CacheDependencyIndex.class, () -> mock(CacheDependencyIndex.class));
+            beans.registerBean(OrderArchiveService.class, () -> mock(OrderArchiveService.class));
+            beans.registerBean(OutboxWriter.class, () -> mock(OutboxWriter.class));
+            beans.register(OrderService.class, ReportService.class);
+        });
+        DataSource dataSource = context.getBean(DataSource.class);
+        JpaTestConfig.insertOrders(dataSource, CUSTOMERS, ORDERS);
+
+        orderService = context.getBean(OrderService.class);
+        reportService = context.getBean(ReportService.class);
+        orderRepository = context.getBean(OrderRepository.class);
+        orderMapper = context.getBean(OrderMapper.class);
+        readOnlyTransaction = new TransactionTemplate(context.getBean(JpaTransactionManager.class));
+        readOnlyTransaction.setReadOnly(true);
+
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        orderId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM orders", Long.class);
+        customerId = jdbcTemplate.queryForObject("SELECT MAX(customer_id) FROM orders", Long.class);
+        customerPhone = jdbcTemplate.queryForObject("SELECT phone FROM customers WHERE id = ?", String.class,
+                customerId);
+        pharmacyId = jdbcTemplate.queryForObject("SELECT MIN(pharmacy_id) FROM pharmacy_medications", Long.class);
+    }
+
+    @AfterAll
+    static void tearDown() {
+        if (context != null) {
+            context.close();
+        }
+    }
+
+    @Test
+    void getAll_UsesOneStatement() {
+        List<OrderDto> orders = assertStatementBudget(1, orderService::getAll);
+
+        assertEquals(ORDERS, orders.size());
+        assertNotNull(orders.getFirst().getEmployee().getPharmacy());
+    }
+
+    @Test
+    void getPage_UsesOneStatement() {
+        var page = assertStatementBudget(1, () -> orderService.getPage(null, 100));
+
+        assertEquals(100, page.getContent().size());
+    }
+
+    @Test
+    void getById_UsesOneStatement() {
+        OrderDto order = assertStatementBudget(1, () -> orderService.getById(orderId));
+
+        assertEquals(orderId, order.getId());
+        assertNotNull(order.getCustomer().getPhone());
+    }
+
+    @Test
+    void getByFilters_UsesOneStatement() {
+        OrderDto filter = OrderDto.builder().customer(CustomerDto.builder().id(customerId).build()).build();
+
+        List<OrderDto> orders = assertStatementBudget(1, () -> orderService.getByFilters(filter));
+
+        assertFalse(orders.isEmpty());
+        orders.forEach(order -> assertEquals(customerId, order.getCustomer().getId()));
+    }
+
+    @Test
+    void ordersByCustomerPhone_UsesOneStatement() {
+        List<OrderDto> orders = assertStatementBudget(1, () -> reportService.getOrdersByCustomerPhone(customerPhone));
+
+        assertFalse(orders.isEmpty());
+        orders.forEach(order -> assertEquals(customerPhone, order.getCustomer().getPhone()));
+    }
+
+    @Test
+    void medicationsByPharmacy_UsesOneStatement() {
+        assertFalse(assertStatementBudget(1, () -> reportService.getMedicationsByPharmacy(pharmacyId)).isEmpty());
+    }
+
+    @Test
+    void entityFindAllBySpecification_LoadsAssociationsWithEntityGraph() {
+        List<OrderDto> orders = assertStatementBudget(1, () -> readOnlyTransaction.execute(status ->
+                orderRepository.findAll(OrderSpecification.hasCustomerId(customerId)).stream()
+                        .map(orderMapper::toDto)
+                        .toList()));
+
+        assertFalse(orders.isEmpty());
+        assertNotNull(orders.getFirst().getEmployee().getPharmacy().getName());
+    }
+
+    @Test
+    void findById_LeavesAssociationsLazy() {
+        Order order = assertStatementBudget(1, () -> readOnlyTransaction.execute(status -> {
+            Order found = orderRepository.findById(orderId).orElseThrow();
+            assertNotNull(found.getPharmacy().getId());
+            assertNotNull(found.getMedication().getId());
+            return found;
+        }));
+
+        assertFalse(Hibernate.isInitialized(order.getCustomer()));
+        assertFalse(Hibernate.isInitialized(order.getEmployee()));
+    }
+}
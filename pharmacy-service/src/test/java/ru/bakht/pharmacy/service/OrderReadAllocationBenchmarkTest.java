@@ -0,0 +1,106 @@
+package ru.bakht.pharmacy.service;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import ru.bakht.pharmacy.service.mapper.OrderMapper;
+import ru.bakht.pharmacy.service.model.dto.OrderDto;
+import ru.bakht.pharmacy.service.model.dto.OrderRow;
+import ru.bakht.pharmacy.service.repository.OrderRepository;
+
+import javax.sql.DataSource;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Сравнение объема памяти, выделяемой на одну строку при чтении заказов
+ * через сущности с последующим маппингом и через выражение конструктора {@link OrderRow}.
+ * Оба варианта выполняются в транзакции только для чтения, как в сервисах.
+ * Запускается профилем {@code benchmark}.
+ */
+@Tag("benchmark")
+@Testcontainers(disabledWithoutDocker = true)
+class OrderReadAllocationBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderReadAllocationBenchmarkTest.class);
+
+    private static final int ORDERS = 20_000;
+    private static final int CUSTOMERS = 2_000;
+    private static final int WARMUP_RUNS = 3;
+    private static final int MEASURED_RUNS = 5;
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16");
+
+    private static AnnotationConfigApplicationContext context;
+    private static OrderRepository orderRepository;
+    private static OrderMapper orderMapper;
+    private static TransactionTemplate readOnlyTransaction;
+
+    @BeforeAll
+    static void setUp() {
+        context = JpaTestConfig.start(postgres);
+        JpaTestConfig.insertOrders(context.getBean(DataSource.class), CUSTOMERS, ORDERS);
+
+        orderRepository = context.getBean(OrderRepository.class);
+        orderMapper = context.getBean(OrderMapper.class);
+        readOnlyTransaction = new TransactionTemplate(context.getBean(JpaTransactionManager.class));
+        readOnlyTransaction.setReadOnly(true);
+    }
+
+    @AfterAll
+    static void tearDown() {
+        if (context != null) {
+            context.close();
+        }
+    }
+
+    @Test
+    void projection_AllocatesLessPerRowThanEntities() {
+        Supplier<List<OrderDto>> entities = () -> orderRepository.findAll().stream()
+                .map(orderMapper::toDto)
+                .toList();
+        Supplier<List<OrderDto>> projection = () -> orderRepository.findRows(null).stream()
+                .map(OrderRow::toDto)
+                .toList();
+
+        assertEquals(readOnlyTransaction.execute(status -> entities.get()).size(),
+                readOnlyTransaction.execute(status -> projection.get()).size());
+
+        long entityBytesPerRow = bytesPerRow(entities);
+        long projectionBytesPerRow = bytesPerRow(projection);
+
+        log.info("Выделено памяти на строку заказа: сущности {} байт, выражение конструктора {} байт",
+                entityBytesPerRow, projectionBytesPerRow);
+        assertTrue(projectionBytesPerRow < entityBytesPerRow,
+                () -> "Проекция выделяет " + projectionBytesPerRow + " байт на строку, сущности — "
+                        + entityBytesPerRow);
+    }
+
+    private static long bytesPerRow(Supplier<List<OrderDto>> read) {
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            readOnlyTransaction.execute(status -> read.get());
+        }
+
+        var threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long rows = 0;
+        long before = threadMXBean.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < MEASURED_RUNS; i++) {
+            rows += readOnlyTransaction.execute(status -> read.get()).size();
+        }
+        return (threadMXBean.getCurrentThreadAllocatedBytes() - before) / rows;
+    }
+}
@@ -1,6 +1,5 @@
 package ru.bakht.pharmacy.service;
 
-import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -15,9 +14,12 @@ import ru.bakht.pharmacy.service.mapper.OrderMapper;
 import ru.bakht.pharmacy.service.model.*;
 import ru.bakht.pharmacy.service.model.dto.*;
 import ru.bakht.pharmacy.service.repository.*;
+import ru.bakht.pharmacy.service.service.OrderContextLoader;
+import ru.bakht.pharmacy.service.service.OrderDailyTotalService;
 import ru.bakht.pharmacy.service.service.OrderService;
+import ru.bakht.pharmacy.service.service.StockReservationService;
+import ru.bakht.pharmacy.service.service.outbox.OutboxWriter;
 
-import java.lang.reflect.Field;
 import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
@@ -36,33 +38,34 @@ public class OrderServiceTest {
     private OrderMapper orderMapper;
 
     @Mock
-    private EmployeeRepository employeeRepository;
+    private MedicationRepository medicationRepository;
 
     @Mock
-    private CustomerRepository customerRepository;
+    private OrderContextLoader orderContextLoader;
 
     @Mock
-    private PharmacyRepository pharmacyRepository;
+    private StockReservationService stockReservationService;
 
     @Mock
-    private MedicationRepository medicationRepository;
+    private OrderDailyTotalService orderDailyTotalService;
 
     @Mock
-    private EntityManager entityManager;
+    private OutboxWriter outboxWriter;
 
     @InjectMocks
     private OrderService orderService;
 
     private Order order;
     private OrderDto orderDto;
+    private OrderRow orderRow;
     private Employee employee;
     private Customer customer;
     private Pharmacy pharmacy;
     private Medication medication;
-    private PharmacyMedication pharmacyMedication;
+    private OrderContext orderContext;
 
     @BeforeEach
-    void setUp() throws NoSuchFieldException, IllegalAccessException {
+    void setUp() {
         pharmacy = new Pharmacy(
                 1L, "Аптека №1", "ул. Ленина, 2", "89007654321", null);
         employee = new Employee(
@@ -71,8 +74,7 @@ public class OrderServiceTest {
                 1L, "Мария Иванова", "ул. Ленина, 1", "89001234567");
         medication = new Medication(
                 1L, "Аспирин", MedicationForm.TABLET, 100.0, null);
-        pharmacyMedication = new PharmacyMedication(new PharmacyMedicationId(
-                1L, 1L), pharmacy, medication, 50);
+        orderContext = new OrderContext(employee, customer, pharmacy, medication);
 
         orderDto = new OrderDto();
         orderDto.setId(1L);
@@ -87,6 +89,13 @@ public class OrderServiceTest {
         orderDto.setQuantity(2);
         orderDto.setOrderStatus(OrderStatus.NEW);
 
+        orderRow = new OrderRow(1L,
+                1L, "Мария Иванова", "ул. Ленина, 1", "89001234567",
+                1L, "Алексей Смирнов", EmployeePosition.PHARMACIST, "alexey@example.com", null, null, null, null,
+                1L, "Аптека №1", "ул. Ленина, 2", "89007654321",
+                1L, "Аспирин", MedicationForm.TABLET, 100.0, null,
+                2, null, null, OrderStatus.NEW);
+
         order = new Order();
         order.setId(1L);
         order.setEmployee(employee);
@@ -97,42 +106,38 @@ public class OrderServiceTest {
         order.setOrderStatus(OrderStatus.NEW);
         order.setOrderDate(LocalDate.now());
         order.setTotalAmount(200.0);
-
-        Field entityManagerField = OrderService.class.getDeclaredField("entityManager");
-        entityManagerField.setAccessible(true);
-        entityManagerField.set(orderService, entityManager);
     }
 
     @Test
     void getAllOrders_ReturnsOrderList() {
-        when(orderRepository.findAll()).thenReturn(List.of(order));
-        when(orderMapper.toDto(any(Order.class))).thenReturn(orderDto);
+        when(orderRepository.findRows(null)).thenReturn(List.of(orderRow));
 
         List<OrderDto> result = orderService.getAll();
 
         assertNotNull(result);
         assertEquals(1, result.size());
         assertEquals(orderDto, result.getFirst());
-        verify(orderRepository, times(1)).findAll();
-        verify(orderMapper, times(1)).toDto(any(Order.class));
+        verify(orderRepository, times(1)).findRows(null);
+        verify(orderRepository, never()).findAll();
+        verifyNoInteractions(orderMapper);
     }
 
     @Test
     void getOrderById_ReturnsOrderDto() {
-        when(orderRepository.findById(1L)).thenReturn(Optional.of(order));
-        when(orderMapper.toDto(any(Order.class))).thenReturn(orderDto);
+        when(orderRepository.findRows(any())).thenReturn(List.of(orderRow));
 
         OrderDto result = orderService.getById(1L);
 
         assertNotNull(result);
         assertEquals(orderDto, result);
-        verify(orderRepository, times(1)).findById(1L);
-        verify(orderMapper, times(1)).toDto(any(Order.class));
+        verify(orderRepository, times(1)).findRows(any());
+        verify(orderRepository, never()).findById(1L);
+        verifyNoInteractions(orderMapper);
     }
 
     @Test
     void getOrderById_ThrowsEntityNotFoundException() {
-        when(orderRepository.findById(1L)).thenReturn(Optional.empty());
+        when(orderRepository.findRows(any())).thenReturn(List.of());
 
         EntityNotFoundException thrown = assertThrows(
                 EntityNotFoundException.class,
@@ -140,18 +145,14 @@ public class OrderServiceTest {
         );
 
         assertTrue(thrown.getMessage().contains("Заказ с ID 1 не найден"));
-        verify(orderRepository, times(1)).findById(1L);
+        verify(orderRepository, times(1)).findRows(any());
     }
 
     @Test
     void createOrder_ReturnsOrderDto() {
-        when(employeeRepository.findById(1L)).thenReturn(Optional.of(employee));
-        when(customerRepository.findById(1L)).thenReturn(Optional.of(customer));
-        when(pharmacyRepository.findById(1L)).thenReturn(Optional.of(pharmacy));
-        when(medicationRepository.findById(1L)).thenReturn(Optional.of(medication));
-        when(entityManager.find(eq(PharmacyMedication.class),
-                any(PharmacyMedicationId.class))).thenReturn(pharmacyMedication);
+        when(orderContextLoader.load(orderDto)).thenReturn(orderContext);
         when(orderMapper.toEntity(any(OrderDto.class))).thenReturn(order);
+        when(stockReservationService.reserve(1L, 1L, 2)).thenReturn(true);
         when(orderRepository.save(any(Order.class))).thenReturn(order);
         when(orderMapper.toDto(any(Order.class))).thenReturn(orderDto);
 
@@ -160,18 +161,28 @@ public class OrderServiceTest {
         assertNotNull(result);
         assertEquals(orderDto, result);
         verify(orderRepository, times(1)).save(any(Order.class));
-        verify(entityManager, times(1)).merge(any(PharmacyMedication.class));
+        verify(stockReservationService, times(1)).reserve(1L, 1L, 2);
+        verify(orderDailyTotalService).add(order);
+        verify(outboxWriter).orderCreated(order);
+    }
+
+    @Test
+    void createOrder_ThrowsIllegalArgumentException_WhenStockIsInsufficient() {
+        when(orderContextLoader.load(orderDto)).thenReturn(orderContext);
+        when(orderMapper.toEntity(any(OrderDto.class))).thenReturn(order);
+        when(stockReservationService.reserve(1L, 1L, 2)).thenReturn(false);
+
+        assertThrows(IllegalArgumentException.class, () -> orderService.create(orderDto));
+
+        verify(orderRepository, never()).save(any(Order.class));
+        verifyNoInteractions(orderDailyTotalService, outboxWriter);
     }
 
     @Test
     void updateOrder_ReturnsOrderDto() {
         when(orderRepository.findById(1L)).thenReturn(Optional.of(order));
-        when(employeeRepository.findById(1L)).thenReturn(Optional.of(employee));
-        when(customerRepository.findById(1L)).thenReturn(Optional.of(customer));
-        when(pharmacyRepository.findById(1L)).thenReturn(Optional.of(pharmacy));
-        when(medicationRepository.findById(1L)).thenReturn(Optional.of(medication));
-        when(entityManager.find(eq(PharmacyMedication.class),
-                any(PharmacyMedicationId.class))).thenReturn(pharmacyMedication);
+        when(orderContextLoader.load(orderDto)).thenReturn(orderContext);
+        when(stockReservationService.reserve(1L, 1L, 2)).thenReturn(true);
         when(orderRepository.save(any(Order.class))).thenReturn(order);
         when(orderMapper.toDto(any(Order.class))).thenReturn(orderDto);
 
@@ -181,7 +192,11 @@ public class OrderServiceTest {
         assertEquals(orderDto, result);
         verify(orderRepository, times(1)).findById(1L);
         verify(orderRepository, times(1)).save(any(Order.class));
-        verify(entityManager, times(1)).merge(any(PharmacyMedication.class));
+        verify(stockReservationService, times(1)).release(1L, 1L, 2);
+        verify(stockReservationService, times(1)).reserve(1L, 1L, 2);
+        verify(orderDailyTotalService).subtract(order);
+        verify(orderDailyTotalService).add(order);
+        verify(outboxWriter).orderUpdated(order);
     }
 
 
@@ -194,4 +209,15 @@ public class OrderServiceTest {
         verify(orderRepository, times(1)).deleteById(orderId);
     }
 
+    @Test
+    void deleteOrderById_SubtractsOrderFromDailyTotals() {
+        when(orderRepository.findById(1L)).thenReturn(Optional.of(order));
+
+        orderService.delete(1L);
+
+        verify(orderDailyTotalService).subtract(order);
+        verify(outboxWriter).orderDeleted(order);
+        verify(orderRepository).deleteById(1L);
+    }
+
 }
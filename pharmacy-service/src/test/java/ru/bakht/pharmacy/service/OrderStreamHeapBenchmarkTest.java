@@ -0,0 +1,120 @@
+package ru.bakht.pharmacy.service;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import ru.bakht.pharmacy.service.model.dto.OrderDto;
+import ru.bakht.pharmacy.service.service.*;
+import ru.bakht.pharmacy.service.service.outbox.OutboxWriter;
+
+import javax.sql.DataSource;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Сравнение памяти, удерживаемой при выгрузке всех заказов списком через {@link OrderService#getAll}
+ * и потоком через {@link OrderService#streamAll}, по мере роста таблицы заказов.
+ * Удерживаемая память измеряется после сборки мусора в момент, когда выгрузка еще не завершена.
+ * Запускается профилем {@code benchmark}.
+ */
+@Tag("benchmark")
+@Testcontainers(disabledWithoutDocker = true)
+class OrderStreamHeapBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderStreamHeapBenchmarkTest.class);
+
+    private static final int[] ORDER_COUNTS = {10_000, 40_000, 160_000};
+    private static final int CUSTOMERS_PER_STEP = 500;
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16");
+
+    private static AnnotationConfigApplicationContext context;
+    private static OrderService orderService;
+    private static DataSource dataSource;
+
+    @BeforeAll
+    static void setUp() {
+        context = JpaTestConfig.start(postgres, beans -> {
+            beans.registerBean(OrderContextLoader.class, () -> mock(OrderContextLoader.class));
+            beans.registerBean(StockReservationService.class, () -> mock(StockReservationService.class));
+            beans.registerBean(OrderDailyTotalService.class, () -> mock(OrderDailyTotalService.class));
+            beans.registerBean(OutboxWriter.class, () -> mock(OutboxWriter.class));
+            beans.register(OrderService.class);
+        });
+        orderService = context.getBean(OrderService.class);
+        dataSource = context.getBean(DataSource.class);
+    }
+
+    @AfterAll
+    static void tearDown() {
+        if (context != null) {
+            context.close();
+        }
+    }
+
+    @Test
+    void streamAll_RetainsLessHeapThanGetAll_AsOrdersGrow() {
+        int orders = 0;
+        long streamRetainedAtLargest = 0;
+        long listRetainedAtLargest = 0;
+
+        for (int orderCount : ORDER_COUNTS) {
+            JpaTestConfig.insertOrders(dataSource, CUSTOMERS_PER_STEP, orderCount - orders);
+            orders = orderCount;
+
+            long listRetained = listRetainedBytes(orderCount);
+            long streamRetained = streamRetainedBytes(orderCount);
+            log.info("Заказов: {}: getAll удерживает {} КБ, streamAll удерживает {} КБ",
+                    orderCount, listRetained / 1024, streamRetained / 1024);
+
+            listRetainedAtLargest = listRetained;
+            streamRetainedAtLargest = streamRetained;
+        }
+
+        long list = listRetainedAtLargest;
+        long stream = streamRetainedAtLargest;
+        assertTrue(stream < list / 4,
+                () -> "streamAll удерживает " + stream + " байт, getAll — " + list);
+    }
+
+    private static long listRetainedBytes(int expectedRows) {
+        long baseline = usedHeapAfterGc();
+        List<OrderDto> all = orderService.getAll();
+        long retained = usedHeapAfterGc() - baseline;
+        assertEquals(expectedRows, all.size());
+        return retained;
+    }
+
+    private static long streamRetainedBytes(int expectedRows) {
+        long baseline = usedHeapAfterGc();
+        AtomicInteger rows = new AtomicInteger();
+        AtomicLong maxRetained = new AtomicLong();
+        orderService.streamAll(order -> {
+            int row = rows.incrementAndGet();
+            if (row == expectedRows / 2 || row == expectedRows) {
+                maxRetained.accumulateAndGet(usedHeapAfterGc() - baseline, Math::max);
+            }
+        });
+        assertEquals(expectedRows, rows.get());
+        return maxRetained.get();
+    }
+
+    private static long usedHeapAfterGc() {
+        System.gc();
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
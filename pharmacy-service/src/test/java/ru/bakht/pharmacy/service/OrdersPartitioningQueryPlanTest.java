@@ -0,0 +1,137 @@
+package ru.bakht.pharmacy.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import liquibase.integration.spring.SpringLiquibase;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import ru.bakht.pharmacy.service.service.OrderPartitionService;
+
+import java.time.YearMonth;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Регрессионная проверка планов запросов к секционированной таблице заказов
+ * на сгенерированном наборе данных за два года.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class OrdersPartitioningQueryPlanTest {
+
+    private static final int ORDERS = 200_000;
+    private static final int CUSTOMERS = 2_000;
+    private static final int POPULATED_PARTITION_ROWS = 1_000;
+    private static final Set<String> INDEX_SCANS = Set.of("Index Scan", "Index Only Scan", "Bitmap Heap Scan");
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16");
+
+    private static JdbcTemplate jdbcTemplate;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @BeforeAll
+    static void setUp() throws Exception {
+        var dataSource = new DriverManagerDataSource(
+                postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword());
+
+        SpringLiquibase liquibase = new SpringLiquibase();
+        liquibase.setDataSource(dataSource);
+        liquibase.setChangeLog("classpath:/db/changelog/db.changelog_master.yml");
+        liquibase.setResourceLoader(new DefaultResourceLoader());
+        liquibase.afterPropertiesSet();
+
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.update("INSERT INTO customers (name, address, phone) "
+                + "SELECT 'Покупатель ' || g, 'Адрес ' || g, '7' || lpad(g::text, 10, '0') "
+                + "FROM generate_series(1, ?) g", CUSTOMERS);
+        jdbcTemplate.update("WITH c AS (SELECT array_agg(id) AS ids FROM customers), "
+                + "e AS (SELECT array_agg(id) AS ids FROM employees), "
+                + "p AS (SELECT array_agg(id) AS ids FROM pharmacies), "
+                + "m AS (SELECT array_agg(id) AS ids FROM medications) "
+                + "INSERT INTO orders (customer_id, employee_id, pharmacy_id, medication_id, "
+                + "quantity, total_amount, order_date, status) "
+                + "SELECT c.ids[1 + g % cardinality(c.ids)], e.ids[1 + g % cardinality(e.ids)], "
+                + "p.ids[1 + g % cardinality(p.ids)], m.ids[1 + g % cardinality(m.ids)], "
+                + "1 + g % 5, (1 + g % 5) * 10.0, CURRENT_DATE - (g % 730), "
+                + "(ARRAY['NEW', 'PROCESSING', 'COMPLETED', 'CANCELLED'])[1 + g % 4] "
+                + "FROM generate_series(1, ?) g, c, e, p, m", ORDERS);
+        jdbcTemplate.execute("ANALYZE");
+    }
+
+    @Test
+    void totalsForMonth_ScanOnlyThatMonthPartition() throws Exception {
+        YearMonth month = YearMonth.now().minusMonths(3);
+
+        List<Scan> scans = scans("SELECT SUM(quantity), SUM(total_amount) FROM orders "
+                + "WHERE order_date BETWEEN '" + month.atDay(1) + "' AND '" + month.atEndOfMonth() + "'");
+
+        assertEquals(Set.of(OrderPartitionService.partitionName(month)),
+                scans.stream().map(Scan::relation).collect(Collectors.toSet()));
+    }
+
+    @Test
+    void ordersByCustomerPhone_UseIndexesOnPopulatedPartitions() throws Exception {
+        String phone = jdbcTemplate.queryForObject("SELECT MAX(phone) FROM customers", String.class);
+
+        assertIndexScansOnPopulatedPartitions("SELECT o.* FROM orders o "
+                + "JOIN customers c ON c.id = o.customer_id "
+                + "WHERE c.phone = '" + phone + "'");
+    }
+
+    @Test
+    void ordersByCustomerId_UseIndexesOnPopulatedPartitions() throws Exception {
+        Long customerId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM customers", Long.class);
+
+        assertIndexScansOnPopulatedPartitions("SELECT * FROM orders WHERE customer_id = " + customerId);
+    }
+
+    @Test
+    void orderById_UsesPrimaryKeyIndexOnPopulatedPartitions() throws Exception {
+        Long orderId = jdbcTemplate.queryForObject("SELECT MAX(id) FROM orders", Long.class);
+
+        assertIndexScansOnPopulatedPartitions("SELECT * FROM orders WHERE id = " + orderId);
+    }
+
+    private void assertIndexScansOnPopulatedPartitions(String sql) throws Exception {
+        Set<String> populated = new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT tableoid::regclass::text FROM orders GROUP BY tableoid HAVING COUNT(*) > ?",
+                String.class, POPULATED_PARTITION_ROWS));
+        assertFalse(populated.isEmpty());
+
+        List<Scan> scans = scans(sql).stream()
+                .filter(scan -> populated.contains(scan.relation()))
+                .toList();
+
+        assertFalse(scans.isEmpty());
+        scans.forEach(scan -> assertTrue(INDEX_SCANS.contains(scan.nodeType()),
+                () -> "Секция " + scan.relation() + " читается узлом " + scan.nodeType() + ": " + sql));
+    }
+
+    private List<Scan> scans(String sql) throws Exception {
+        String plan = jdbcTemplate.queryForObject("EXPLAIN (FORMAT JSON) " + sql, String.class);
+        List<Scan> scans = new ArrayList<>();
+        collectScans(objectMapper.readTree(plan).get(0).get("Plan"), scans);
+        return scans;
+    }
+
+    private static void collectScans(JsonNode node, List<Scan> scans) {
+        if (node.has("Relation Name")) {
+            scans.add(new Scan(node.get("Node Type").asText(), node.get("Relation Name").asText()));
+        }
+        if (node.has("Plans")) {
+            node.get("Plans").forEach(child -> collectScans(child, scans));
+        }
+    }
+
+    private record Scan(String nodeType, String relation) {
+    }
+}
@@ -0,0 +1,117 @@
+package ru.bakht.pharmacy.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.redis.RedisConnectionFailureException;
+import org.springframework.data.redis.connection.stream.MapRecord;
+import org.springframework.data.redis.connection.stream.RecordId;
+import org.springframework.data.redis.core.StreamOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import ru.bakht.pharmacy.service.enums.OutboxEventType;
+import ru.bakht.pharmacy.service.model.OutboxEvent;
+import ru.bakht.pharmacy.service.repository.OutboxEventRepository;
+import ru.bakht.pharmacy.service.service.outbox.OutboxMessage;
+import ru.bakht.pharmacy.service.service.outbox.OutboxRelay;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OutboxRelayTest {
+
+    @Mock
+    private OutboxEventRepository outboxEventRepository;
+
+    @Mock
+    private StringRedisTemplate redisTemplate;
+
+    @Mock
+    private StreamOperations<String, Object, Object> streamOperations;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @InjectMocks
+    private OutboxRelay outboxRelay;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(outboxRelay, "batchSize", 100);
+        ReflectionTestUtils.setField(outboxRelay, "streamKey", "pharmacy-events");
+        ReflectionTestUtils.setField(outboxRelay, "streamMaxLength", 1_000L);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void publishBatch_PublishesEventsInOrderAndMarksThemPublished() {
+        when(outboxEventRepository.lockUnpublished(100)).thenReturn(List.of(
+                event(1L, OutboxEventType.ORDER_CREATED, "10"),
+                event(2L, OutboxEventType.STOCK_CHANGED, "1:3")));
+        when(redisTemplate.opsForStream()).thenReturn(streamOperations);
+        when(streamOperations.add(any(MapRecord.class))).thenReturn(RecordId.autoGenerate());
+
+        assertEquals(2, outboxRelay.publishBatch());
+
+        ArgumentCaptor<MapRecord<String, String, String>> records = ArgumentCaptor.forClass(MapRecord.class);
+        verify(streamOperations, times(2)).add(records.capture());
+        assertEquals("pharmacy-events", records.getValue().getStream());
+        assertEquals("2", records.getValue().getValue().get("id"));
+        assertEquals("STOCK_CHANGED", records.getValue().getValue().get("type"));
+
+        ArgumentCaptor<OutboxMessage> messages = ArgumentCaptor.forClass(OutboxMessage.class);
+        verify(eventPublisher, times(2)).publishEvent(messages.capture());
+        assertEquals(List.of(1L, 2L), messages.getAllValues().stream().map(OutboxMessage::id).toList());
+
+        verify(outboxEventRepository).markPublished(List.of(1L, 2L));
+        verify(streamOperations).trim("pharmacy-events", 1_000L, true);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void publishBatch_MarksOnlyEventsPublishedBeforeFailure() {
+        when(outboxEventRepository.lockUnpublished(100)).thenReturn(List.of(
+                event(1L, OutboxEventType.ORDER_CREATED, "10"),
+                event(2L, OutboxEventType.ORDER_UPDATED, "10"),
+                event(3L, OutboxEventType.ORDER_DELETED, "10")));
+        when(redisTemplate.opsForStream()).thenReturn(streamOperations);
+        when(streamOperations.add(any(MapRecord.class)))
+                .thenReturn(RecordId.autoGenerate())
+                .thenThrow(new RedisConnectionFailureException("Redis недоступен"));
+
+        assertEquals(1, outboxRelay.publishBatch());
+
+        verify(eventPublisher, times(1)).publishEvent(any(OutboxMessage.class));
+        verify(outboxEventRepository).markPublished(List.of(1L));
+    }
+
+    @Test
+    void publishBatch_DoesNothing_WhenNoEventsArePending() {
+        when(outboxEventRepository.lockUnpublished(100)).thenReturn(List.of());
+
+        assertEquals(0, outboxRelay.publishBatch());
+
+        verify(outboxEventRepository, never()).markPublished(any());
+        verifyNoInteractions(redisTemplate, eventPublisher);
+    }
+
+    private static OutboxEvent event(Long id, OutboxEventType eventType, String aggregateId) {
+        return OutboxEvent.builder()
+                .id(id)
+                .eventType(eventType)
+                .aggregateId(aggregateId)
+                .payload("{}")
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+}
@@ -1,17 +1,30 @@
 package ru.bakht.pharmacy.service;
 
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import ru.bakht.pharmacy.service.enums.MedicationForm;
 import ru.bakht.pharmacy.service.exception.EntityNotFoundException;
+import ru.bakht.pharmacy.service.mapper.MedicationMapper;
 import ru.bakht.pharmacy.service.mapper.PharmacyMapper;
+import ru.bakht.pharmacy.service.model.Medication;
 import ru.bakht.pharmacy.service.model.Pharmacy;
+import ru.bakht.pharmacy.service.model.PharmacyMedication;
+import ru.bakht.pharmacy.service.model.PharmacyMedicationId;
+import ru.bakht.pharmacy.service.model.dto.MedicationDto;
 import ru.bakht.pharmacy.service.model.dto.PharmacyDto;
+import ru.bakht.pharmacy.service.model.dto.PharmacyMedicationDto;
+import ru.bakht.pharmacy.service.repository.PharmacyMedicationRepository;
 import ru.bakht.pharmacy.service.repository.PharmacyRepository;
+import ru.bakht.pharmacy.service.service.LowStockDetector;
+import ru.bakht.pharmacy.service.service.MedicationService;
 import ru.bakht.pharmacy.service.service.PharmacyService;
+import ru.bakht.pharmacy.service.service.outbox.OutboxWriter;
 
 import java.util.List;
 import java.util.Optional;
@@ -29,6 +42,24 @@ public class PharmacyServiceTest {
     @Mock
     private PharmacyMapper pharmacyMapper;
 
+    @Mock
+    private PharmacyMedicationRepository pharmacyMedicationRepository;
+
+    @Mock
+    private MedicationService medicationService;
+
+    @Mock
+    private MedicationMapper medicationMapper;
+
+    @Mock
+    private LowStockDetector lowStockDetector;
+
+    @Mock
+    private OutboxWriter outboxWriter;
+
+    @Mock
+    private EntityManager entityManager;
+
     @InjectMocks
     private PharmacyService pharmacyService;
 
@@ -41,6 +72,7 @@ public class PharmacyServiceTest {
                 1L, "Аптека №1", "ул. Ленина, 2", "89007654321", null);
         pharmacyDto = new PharmacyDto(
                 1L, "Аптека №1", "ул. Ленина, 2", "89007654321");
+        ReflectionTestUtils.setField(pharmacyService, "entityManager", entityManager);
     }
 
     @Test
@@ -125,6 +157,52 @@ public class PharmacyServiceTest {
         verify(pharmacyRepository, times(1)).findById(1L);
     }
 
+    @Test
+    void addOrUpdatePharmacyMedication_RestocksExistingRowAtomically() {
+        var medication = new Medication(3L, "Аспирин", MedicationForm.TABLET, 100.0, null);
+        var medicationDto = new MedicationDto(3L, "Аспирин", MedicationForm.TABLET, 100.0, null);
+        var existing = new PharmacyMedication(
+                new PharmacyMedicationId(1L, 3L), pharmacy, medication, 4, 10, true, false, false);
+
+        when(pharmacyRepository.findById(1L)).thenReturn(Optional.of(pharmacy));
+        when(pharmacyMapper.toDto(pharmacy)).thenReturn(pharmacyDto);
+        when(pharmacyMapper.toEntity(pharmacyDto)).thenReturn(pharmacy);
+        when(medicationService.getById(3L)).thenReturn(medicationDto);
+        when(medicationMapper.toEntity(medicationDto)).thenReturn(medication);
+        when(entityManager.find(PharmacyMedication.class, new PharmacyMedicationId(1L, 3L))).thenReturn(existing);
+        when(pharmacyMedicationRepository.incrementQuantity(1L, 3L, 20)).thenReturn(1);
+
+        pharmacyService.addOrUpdatePharmacyMedication(new PharmacyMedicationDto(pharmacyDto, medicationDto, 20, 15));
+
+        verify(pharmacyMedicationRepository).incrementQuantity(1L, 3L, 20);
+        assertEquals(4, existing.getQuantity());
+        assertEquals(15, existing.getReorderThreshold());
+        assertFalse(existing.getReorderThresholdInherited());
+        verify(entityManager, never()).merge(any());
+        verify(lowStockDetector).onStockChanged(1L, 3L);
+        verify(outboxWriter).stockChanged(1L, 3L, 20);
+    }
+
+    @Test
+    void addOrUpdatePharmacyMedication_ThrowsEntityNotFoundException_WhenRowWasDeleted() {
+        var medication = new Medication(3L, "Аспирин", MedicationForm.TABLET, 100.0, null);
+        var medicationDto = new MedicationDto(3L, "Аспирин", MedicationForm.TABLET, 100.0, null);
+
+        when(pharmacyRepository.findById(1L)).thenReturn(Optional.of(pharmacy));
+        when(pharmacyMapper.toDto(pharmacy)).thenReturn(pharmacyDto);
+        when(pharmacyMapper.toEntity(pharmacyDto)).thenReturn(pharmacy);
+        when(medicationService.getById(3L)).thenReturn(medicationDto);
+        when(medicationMapper.toEntity(medicationDto)).thenReturn(medication);
+        when(entityManager.find(PharmacyMedication.class, new PharmacyMedicationId(1L, 3L))).thenReturn(
+                new PharmacyMedication(new PharmacyMedicationId(1L, 3L), pharmacy, medication, 4, 10, true, false, false));
+        when(pharmacyMedicationRepository.incrementQuantity(1L, 3L, 20)).thenReturn(0);
+
+        assertThrows(EntityNotFoundException.class, () -> pharmacyService.addOrUpdatePharmacyMedication(
+                new PharmacyMedicationDto(pharmacyDto, medicationDto, 20, null)));
+
+        verifyNoInteractions(lowStockDetector, outboxWriter);
+    }
+
     @Test
     void deletePharmacyById_SuccessfulDeletion() {
         Long pharmacyId = 10L;
@@ -0,0 +1,150 @@
+package ru.bakht.pharmacy.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import ru.bakht.pharmacy.service.controller.ReportFacade;
+import ru.bakht.pharmacy.service.enums.FileFormat;
+import ru.bakht.pharmacy.service.enums.ReportJobStatus;
+import ru.bakht.pharmacy.service.enums.ReportType;
+import ru.bakht.pharmacy.service.model.dto.ReportJobDto;
+import ru.bakht.pharmacy.service.model.dto.ReportJobRequestDto;
+import ru.bakht.pharmacy.service.service.report.job.ReportJobService;
+import ru.bakht.pharmacy.service.service.report.job.ReportJobStore;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReportJobServiceTest {
+
+    private static final byte[] REPORT = "report".getBytes();
+
+    @Mock
+    private ReportFacade reportFacade;
+
+    @Mock
+    private ReportJobStore reportJobStore;
+
+    @InjectMocks
+    private ReportJobService reportJobService;
+
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() throws Exception {
+        ReflectionTestUtils.setField(reportJobService, "threads", 2);
+        ReflectionTestUtils.setField(reportJobService, "queueCapacity", 10);
+        ReflectionTestUtils.setField(reportJobService, "maxJobsPerUser", 1);
+        ReflectionTestUtils.setField(reportJobService, "ttl", Duration.ofHours(1));
+        ReflectionTestUtils.invokeMethod(reportJobService, "init");
+
+        lenient().when(reportJobStore.resolve(anyString())).thenAnswer(invocation -> Path.of(invocation.<String>getArgument(0)));
+        lenient().when(reportJobStore.openForWrite(anyString())).thenReturn(new ByteArrayOutputStream());
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        ReflectionTestUtils.invokeMethod(reportJobService, "shutdown");
+    }
+
+    @Test
+    void submit_CompletesJobAndTracksBytesWritten() throws Exception {
+        when(reportFacade.exportMedicationsByPharmacy(1L, FileFormat.EXCEL))
+                .thenReturn(outputStream -> outputStream.write(REPORT));
+
+        ReportJobDto job = reportJobService.submit(medicationsRequest(1L), "admin");
+
+        ReportJobDto finished = awaitFinished(job.getId());
+        assertEquals(ReportJobStatus.COMPLETED, finished.getStatus());
+        assertEquals(REPORT.length, finished.getBytesWritten());
+        assertEquals("medications.xlsx", reportJobService.getCompletedJob(job.getId()).getFileName());
+    }
+
+    @Test
+    void submit_ReturnsExistingJob_ForIdenticalInFlightRequest() throws Exception {
+        when(reportFacade.exportMedicationsByPharmacy(1L, FileFormat.EXCEL)).thenReturn(outputStream -> {
+            awaitRelease();
+            outputStream.write(REPORT);
+        });
+
+        ReportJobDto first = reportJobService.submit(medicationsRequest(1L), "admin");
+        ReportJobDto second = reportJobService.submit(medicationsRequest(1L), "another-admin");
+
+        assertEquals(first.getId(), second.getId());
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void submit_ThrowsIllegalStateException_WhenUserLimitIsReached() throws Exception {
+        when(reportFacade.exportMedicationsByPharmacy(1L, FileFormat.EXCEL)).thenReturn(outputStream -> awaitRelease());
+
+        reportJobService.submit(medicationsRequest(1L), "admin");
+
+        assertThrows(IllegalStateException.class,
+                () -> reportJobService.submit(medicationsRequest(2L), "admin"));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void submit_ThrowsIllegalArgumentException_WhenRequiredParameterIsMissing() {
+        assertThrows(IllegalArgumentException.class,
+                () -> reportJobService.submit(medicationsRequest(null), "admin"));
+        verifyNoInteractions(reportFacade);
+    }
+
+    @Test
+    void getCompletedJob_ThrowsIllegalStateException_WhenJobFailed() throws Exception {
+        when(reportFacade.exportMedicationsByPharmacy(1L, FileFormat.EXCEL)).thenReturn(outputStream -> {
+            throw new IllegalStateException("ошибка генерации");
+        });
+
+        ReportJobDto job = reportJobService.submit(medicationsRequest(1L), "admin");
+
+        assertEquals(ReportJobStatus.FAILED, awaitFinished(job.getId()).getStatus());
+        assertThrows(IllegalStateException.class, () -> reportJobService.getCompletedJob(job.getId()));
+        verify(reportJobStore).delete(job.getId());
+    }
+
+    private ReportJobRequestDto medicationsRequest(Long pharmacyId) {
+        return ReportJobRequestDto.builder()
+                .reportType(ReportType.MEDICATIONS)
+                .fileFormat(FileFormat.EXCEL)
+                .pharmacyId(pharmacyId)
+                .build();
+    }
+
+    private ReportJobDto awaitFinished(String id) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        ReportJobDto job = reportJobService.getJob(id);
+        while (job.getStatus() != ReportJobStatus.COMPLETED && job.getStatus() != ReportJobStatus.FAILED) {
+            assertTrue(System.nanoTime() < deadline, "Задание не завершилось вовремя");
+            Thread.sleep(10);
+            job = reportJobService.getJob(id);
+        }
+        return job;
+    }
+
+    private void awaitRelease() {
+        started.countDown();
+        try {
+            release.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
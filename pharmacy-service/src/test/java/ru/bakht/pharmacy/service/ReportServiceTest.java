@@ -6,16 +6,16 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import ru.bakht.pharmacy.service.mapper.MedicationMapper;
-import ru.bakht.pharmacy.service.mapper.OrderMapper;
-import ru.bakht.pharmacy.service.model.Medication;
-import ru.bakht.pharmacy.service.model.Order;
+import ru.bakht.pharmacy.service.cache.CacheDependencyIndex;
 import ru.bakht.pharmacy.service.model.dto.MedicationDto;
 import ru.bakht.pharmacy.service.model.dto.OrderDto;
+import ru.bakht.pharmacy.service.model.dto.OrderRow;
 import ru.bakht.pharmacy.service.model.dto.TotalOrders;
 import ru.bakht.pharmacy.service.model.dto.TotalOrdersProjection;
 import ru.bakht.pharmacy.service.repository.MedicationRepository;
+import ru.bakht.pharmacy.service.repository.OrderDailyTotalRepository;
 import ru.bakht.pharmacy.service.repository.OrderRepository;
+import ru.bakht.pharmacy.service.service.archive.OrderArchiveService;
 import ru.bakht.pharmacy.service.service.report.ReportService;
 
 import java.time.LocalDate;
@@ -34,10 +34,13 @@ class ReportServiceTest {
     private OrderRepository orderRepository;
 
     @Mock
-    private MedicationMapper medicationMapper;
+    private OrderDailyTotalRepository orderDailyTotalRepository;
 
     @Mock
-    private OrderMapper orderMapper;
+    private CacheDependencyIndex cacheDependencyIndex;
+
+    @Mock
+    private OrderArchiveService orderArchiveService;
 
     @InjectMocks
     private ReportService reportService;
@@ -70,50 +73,63 @@ class ReportServiceTest {
     @Test
     void getMedicationsByPharmacy() {
         List<MedicationDto> medicationDtos = List.of(new MedicationDto(), new MedicationDto());
-        when(medicationRepository.findMedicationsByPharmacyId(pharmacyId)).thenReturn(List.of(new Medication(), new Medication()));
-        when(medicationMapper.toDto(any(Medication.class))).thenReturn(new MedicationDto());
+        when(medicationRepository.findMedicationsByPharmacyId(pharmacyId)).thenReturn(medicationDtos);
 
         List<MedicationDto> result = reportService.getMedicationsByPharmacy(pharmacyId);
 
         assertEquals(2, result.size());
         verify(medicationRepository).findMedicationsByPharmacyId(pharmacyId);
-        verify(medicationMapper, times(2)).toDto(any(Medication.class));
+        verify(cacheDependencyIndex).recordDependencies(eq("pharmacy_medications"), eq(pharmacyId), anyList());
     }
 
     @Test
     void getTotalQuantityAndAmount() {
-        when(orderRepository.findTotalQuantityAndAmountByDateRange(startDate, endDate)).thenReturn(totalOrdersProjection);
+        when(orderDailyTotalRepository.findTotalQuantityAndAmountByDateRange(startDate, endDate))
+                .thenReturn(totalOrdersProjection);
 
         TotalOrders result = reportService.getTotalQuantityAndAmount(startDate, endDate);
 
         assertEquals(10, result.getTotalQuantity());
         assertEquals(200.0, result.getTotalAmount());
-        verify(orderRepository).findTotalQuantityAndAmountByDateRange(startDate, endDate);
+        verify(orderDailyTotalRepository).findTotalQuantityAndAmountByDateRange(startDate, endDate);
+        verifyNoInteractions(orderRepository);
     }
 
     @Test
     void getOrdersByCustomerPhone() {
-        List<OrderDto> orderDtos = List.of(new OrderDto(), new OrderDto());
-        when(orderRepository.findOrdersByCustomerPhone(customerPhone)).thenReturn(List.of(new Order(), new Order()));
-        when(orderMapper.toDto(any(Order.class))).thenReturn(new OrderDto());
+        when(orderRepository.findRows(any())).thenReturn(List.of(orderRow(1L), orderRow(2L)));
 
         List<OrderDto> result = reportService.getOrdersByCustomerPhone(customerPhone);
 
-        assertEquals(2, result.size());
-        verify(orderRepository).findOrdersByCustomerPhone(customerPhone);
-        verify(orderMapper, times(2)).toDto(any(Order.class));
+        assertEquals(List.of(1L, 2L), result.stream().map(OrderDto::getId).toList());
+        verify(orderRepository).findRows(any());
+    }
+
+    @Test
+    void getOrdersByCustomerPhone_MergesArchivedOrdersBeforeLiveOrders() {
+        OrderDto archivedOrder = OrderDto.builder().id(1L).build();
+        OrderDto liveOrder = OrderDto.builder().id(2L).build();
+        when(orderArchiveService.findOrdersByCustomerPhone(customerPhone)).thenReturn(List.of(archivedOrder));
+        when(orderRepository.findRows(any())).thenReturn(List.of(orderRow(2L)));
+
+        List<OrderDto> result = reportService.getOrdersByCustomerPhone(customerPhone);
+
+        assertEquals(List.of(archivedOrder, liveOrder), result);
     }
 
     @Test
     void getOutOfStockMedicationsByPharmacy() {
         List<MedicationDto> medicationDtos = List.of(new MedicationDto(), new MedicationDto());
-        when(medicationRepository.findOutOfStockMedicationsByPharmacyId(pharmacyId)).thenReturn(List.of(new Medication(), new Medication()));
-        when(medicationMapper.toDto(any(Medication.class))).thenReturn(new MedicationDto());
+        when(medicationRepository.findOutOfStockMedicationsByPharmacyId(pharmacyId)).thenReturn(medicationDtos);
 
         List<MedicationDto> result = reportService.getOutOfStockMedicationsByPharmacy(pharmacyId);
 
         assertEquals(2, result.size());
         verify(medicationRepository).findOutOfStockMedicationsByPharmacyId(pharmacyId);
-        verify(medicationMapper, times(2)).toDto(any(Medication.class));
+    }
+
+    private static OrderRow orderRow(Long id) {
+        return new OrderRow(id, null, null, null, null, null, null, null, null, null, null, null, null,
+                null, null, null, null, null, null, null, null, null, null, null, null, null);
     }
 }
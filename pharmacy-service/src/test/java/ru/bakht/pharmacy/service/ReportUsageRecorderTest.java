@@ -0,0 +1,90 @@
+package ru.bakht.pharmacy.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import ru.bakht.pharmacy.service.enums.ReportType;
+import ru.bakht.pharmacy.service.feign.ReportServiceClient;
+import ru.bakht.pharmacy.service.service.report.ReportUsageRecorder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReportUsageRecorderTest {
+
+    @Mock
+    private ReportServiceClient reportServiceClient;
+
+    @InjectMocks
+    private ReportUsageRecorder reportUsageRecorder;
+
+    @TempDir
+    private Path tempDir;
+
+    private Path spillFile;
+
+    @BeforeEach
+    void setUp() {
+        spillFile = tempDir.resolve("report-usage.properties");
+        ReflectionTestUtils.setField(reportUsageRecorder, "spillFile", spillFile);
+    }
+
+    @Test
+    void flush_SendsAggregatedDeltas_RecordedConcurrently() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 8; i++) {
+            executor.submit(() -> {
+                for (int j = 0; j < 1_000; j++) {
+                    reportUsageRecorder.record(ReportType.MEDICATIONS);
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        reportUsageRecorder.record(ReportType.TOTAL_ORDERS);
+
+        reportUsageRecorder.flush();
+
+        verify(reportServiceClient).recordReportRequests(
+                Map.of(ReportType.MEDICATIONS, 8_000L, ReportType.TOTAL_ORDERS, 1L));
+    }
+
+    @Test
+    void flush_DoesNothing_WhenThereAreNoRequests() {
+        reportUsageRecorder.flush();
+
+        verifyNoInteractions(reportServiceClient);
+    }
+
+    @Test
+    void flush_SpillsToFileAndRetries_WhenReportServiceIsUnavailable() {
+        doThrow(new RuntimeException("report-service недоступен"))
+                .doNothing()
+                .when(reportServiceClient).recordReportRequests(any());
+
+        reportUsageRecorder.record(ReportType.CUSTOMER_ORDERS);
+        reportUsageRecorder.flush();
+
+        assertTrue(Files.exists(spillFile));
+
+        reportUsageRecorder.record(ReportType.CUSTOMER_ORDERS);
+        reportUsageRecorder.flush();
+
+        verify(reportServiceClient).recordReportRequests(Map.of(ReportType.CUSTOMER_ORDERS, 2L));
+        assertFalse(Files.exists(spillFile));
+    }
+}
@@ -0,0 +1,93 @@
+package ru.bakht.pharmacy.service;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import ru.bakht.pharmacy.service.service.notification.SharedSmtpRateLimiter;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Testcontainers(disabledWithoutDocker = true)
+class SharedSmtpRateLimiterTest {
+
+    @Container
+    static GenericContainer<?> redis = new GenericContainer<>("redis:7").withExposedPorts(6379);
+
+    private static LettuceConnectionFactory connectionFactory;
+    private static StringRedisTemplate redisTemplate;
+
+    @BeforeAll
+    static void connect() {
+        connectionFactory = new LettuceConnectionFactory(
+                new RedisStandaloneConfiguration(redis.getHost(), redis.getMappedPort(6379)));
+        connectionFactory.afterPropertiesSet();
+        redisTemplate = new StringRedisTemplate(connectionFactory);
+    }
+
+    @AfterAll
+    static void disconnect() {
+        connectionFactory.destroy();
+    }
+
+    @BeforeEach
+    void setUp() {
+        redisTemplate.execute((RedisCallback<Object>) connection -> {
+            connection.serverCommands().flushAll();
+            return null;
+        });
+    }
+
+    @Test
+    void acquire_SharesRateLimitBetweenInstances() {
+        var instances = List.of(new SharedSmtpRateLimiter(redisTemplate), new SharedSmtpRateLimiter(redisTemplate));
+
+        long elapsedMillis = elapsedMillis(() -> {
+            try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                IntStream.range(0, 22).forEach(i -> executor.execute(() -> acquire(instances.get(i % 2), "smtp.example.com")));
+            }
+        });
+
+        assertTrue(elapsedMillis >= 190, "22 письма при 100 письмах в секунду на два экземпляра отправлены за "
+                + elapsedMillis + " мс");
+    }
+
+    @Test
+    void acquire_LimitsEachSmtpHostSeparately() {
+        var limiter = new SharedSmtpRateLimiter(redisTemplate);
+
+        long elapsedMillis = elapsedMillis(() -> {
+            for (int i = 0; i < 10; i++) {
+                acquire(limiter, "smtp" + i + ".example.com");
+            }
+        });
+
+        assertTrue(elapsedMillis < 90, "Первые письма на разные хосты ожидали " + elapsedMillis + " мс");
+    }
+
+    private static void acquire(SharedSmtpRateLimiter limiter, String host) {
+        try {
+            limiter.acquire(host, 100);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static long elapsedMillis(Runnable action) {
+        long startedAt = System.nanoTime();
+        action.run();
+        return Duration.ofNanos(System.nanoTime() - startedAt).toMillis();
+    }
+}
@@ -0,0 +1,40 @@
+package ru.bakht.pharmacy.service;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Перехватчик SQL-запросов Hibernate для проверки бюджета запросов в тестах.
+ * Подключается в {@link JpaTestConfig}.
+ */
+class StatementCounter implements StatementInspector {
+
+    private static final List<String> statements = new CopyOnWriteArrayList<>();
+
+    @Override
+    public String inspect(String sql) {
+        statements.add(sql);
+        return sql;
+    }
+
+    /**
+     * Выполняет действие и проверяет, что оно выполнило не больше {@code budget} SQL-запросов.
+     *
+     * @param budget допустимое количество запросов
+     * @param action проверяемое действие
+     * @return результат действия
+     */
+    static <T> T assertStatementBudget(int budget, Supplier<T> action) {
+        statements.clear();
+        T result = action.get();
+        List<String> executed = List.copyOf(statements);
+        assertTrue(executed.size() <= budget, () -> "Выполнено запросов: " + executed.size()
+                + ", бюджет: " + budget + "\n" + String.join("\n", executed));
+        return result;
+    }
+}
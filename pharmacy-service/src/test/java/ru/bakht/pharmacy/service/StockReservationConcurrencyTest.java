@@ -0,0 +1,95 @@
+package ru.bakht.pharmacy.service;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import ru.bakht.pharmacy.service.service.LowStockDetector;
+import ru.bakht.pharmacy.service.service.StockReservationService;
+import ru.bakht.pharmacy.service.service.outbox.OutboxWriter;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Проверка условного списания на реальном PostgreSQL: параллельные заказы одной "горячей"
+ * позиции не должны продать больше, чем было на складе.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class StockReservationConcurrencyTest {
+
+    private static final long PHARMACY_ID = 1L;
+    private static final long MEDICATION_ID = 1L;
+    private static final int INITIAL_STOCK = 5_000;
+    private static final int THREADS = 32;
+    private static final int ATTEMPTS_PER_THREAD = 200;
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16");
+
+    private static AnnotationConfigApplicationContext context;
+    private static StockReservationService stockReservationService;
+    private static JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    static void setUp() {
+        context = JpaTestConfig.start(postgres, beans -> {
+            beans.registerBean(LowStockDetector.class, () -> mock(LowStockDetector.class));
+            beans.registerBean(OutboxWriter.class, () -> mock(OutboxWriter.class));
+            beans.register(StockReservationService.class);
+        });
+        stockReservationService = context.getBean(StockReservationService.class);
+        jdbcTemplate = new JdbcTemplate(context.getBean(DataSource.class));
+    }
+
+    @AfterAll
+    static void tearDown() {
+        context.close();
+    }
+
+    @Test
+    void reserve_NeverOversells_UnderConcurrentLoadOnHotSku() throws Exception {
+        jdbcTemplate.update("UPDATE pharmacy_medications SET quantity = ? "
+                + "WHERE pharmacy_id = ? AND medication_id = ?", INITIAL_STOCK, PHARMACY_ID, MEDICATION_ID);
+
+        AtomicInteger sold = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int i = 0; i < THREADS; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int j = 0; j < ATTEMPTS_PER_THREAD; j++) {
+                    int quantity = ThreadLocalRandom.current().nextInt(1, 4);
+                    if (stockReservationService.reserve(PHARMACY_ID, MEDICATION_ID, quantity)) {
+                        sold.addAndGet(quantity);
+                    }
+                }
+                return null;
+            }));
+        }
+
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(2, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+
+        int stock = jdbcTemplate.queryForObject("SELECT quantity FROM pharmacy_medications "
+                + "WHERE pharmacy_id = ? AND medication_id = ?", Integer.class, PHARMACY_ID, MEDICATION_ID);
+        assertTrue(stock >= 0, "Остаток не может стать отрицательным");
+        assertEquals(INITIAL_STOCK, sold.get() + stock);
+    }
+}
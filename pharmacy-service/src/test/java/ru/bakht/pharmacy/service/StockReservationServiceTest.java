@@ -0,0 +1,73 @@
+package ru.bakht.pharmacy.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.bakht.pharmacy.service.repository.PharmacyMedicationRepository;
+import ru.bakht.pharmacy.service.service.LowStockDetector;
+import ru.bakht.pharmacy.service.service.StockReservationService;
+import ru.bakht.pharmacy.service.service.outbox.OutboxWriter;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class StockReservationServiceTest {
+
+    @Mock
+    private PharmacyMedicationRepository pharmacyMedicationRepository;
+
+    @Mock
+    private LowStockDetector lowStockDetector;
+
+    @Mock
+    private OutboxWriter outboxWriter;
+
+    @InjectMocks
+    private StockReservationService stockReservationService;
+
+    @Test
+    void reserve_ReturnsTrue_WhenRowWasUpdated() {
+        when(pharmacyMedicationRepository.decrementQuantity(1L, 1L, 5)).thenReturn(1);
+
+        assertTrue(stockReservationService.reserve(1L, 1L, 5));
+        verify(lowStockDetector).onStockChanged(1L, 1L);
+        verify(outboxWriter).stockChanged(1L, 1L, -5);
+    }
+
+    @Test
+    void reserve_ReturnsFalse_WhenStockIsInsufficient() {
+        when(pharmacyMedicationRepository.decrementQuantity(1L, 1L, 5)).thenReturn(0);
+
+        assertFalse(stockReservationService.reserve(1L, 1L, 5));
+        verifyNoInteractions(lowStockDetector, outboxWriter);
+    }
+
+    @Test
+    void reserve_ThrowsIllegalArgumentException_WhenQuantityIsNotPositive() {
+        assertThrows(IllegalArgumentException.class, () -> stockReservationService.reserve(1L, 1L, 0));
+        verifyNoInteractions(pharmacyMedicationRepository);
+    }
+
+    @Test
+    void release_IncrementsQuantity() {
+        when(pharmacyMedicationRepository.incrementQuantity(1L, 1L, 3)).thenReturn(1);
+
+        stockReservationService.release(1L, 1L, 3);
+
+        verify(pharmacyMedicationRepository).incrementQuantity(1L, 1L, 3);
+        verify(lowStockDetector).onStockChanged(1L, 1L);
+        verify(outboxWriter).stockChanged(1L, 1L, 3);
+    }
+
+    @Test
+    void release_SkipsLowStockCheck_WhenRowIsMissing() {
+        when(pharmacyMedicationRepository.incrementQuantity(1L, 1L, 3)).thenReturn(0);
+
+        stockReservationService.release(1L, 1L, 3);
+
+        verifyNoInteractions(lowStockDetector, outboxWriter);
+    }
+}
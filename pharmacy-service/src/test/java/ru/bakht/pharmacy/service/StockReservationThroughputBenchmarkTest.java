@@ -0,0 +1,145 @@
+package ru.bakht.pharmacy.service;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import ru.bakht.pharmacy.service.service.LowStockDetector;
+import ru.bakht.pharmacy.service.service.StockReservationService;
+import ru.bakht.pharmacy.service.service.outbox.OutboxWriter;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Пропускная способность условного списания, когда весь поток заказов приходится на несколько
+ * "горячих" позиций одной аптеки. Заказы одной позиции сериализуются на блокировке ее строки,
+ * поэтому число заказов в секунду на позицию показывает потолок для одного популярного лекарства.
+ * Запускается профилем {@code benchmark}.
+ */
+@Tag("benchmark")
+@Testcontainers(disabledWithoutDocker = true)
+class StockReservationThroughputBenchmarkTest {
+
+    private static final Logger log = LoggerFactory.getLogger(StockReservationThroughputBenchmarkTest.class);
+
+    private static final long PHARMACY_ID = 1L;
+    private static final int[] HOT_SKU_COUNTS = {1, 4, 16};
+    private static final int INITIAL_STOCK = 10_000_000;
+    private static final int THREADS = 32;
+    private static final Duration WARMUP = Duration.ofSeconds(2);
+    private static final Duration MEASUREMENT = Duration.ofSeconds(10);
+
+    @Container
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16");
+
+    private static AnnotationConfigApplicationContext context;
+    private static StockReservationService stockReservationService;
+    private static JdbcTemplate jdbcTemplate;
+    private static List<Long> medicationIds;
+
+    @BeforeAll
+    static void setUp() {
+        context = JpaTestConfig.start(postgres, beans -> {
+            beans.registerBean(LowStockDetector.class, () -> mock(LowStockDetector.class));
+            beans.registerBean(OutboxWriter.class, () -> mock(OutboxWriter.class));
+            beans.register(StockReservationService.class);
+        });
+        stockReservationService = context.getBean(StockReservationService.class);
+        jdbcTemplate = new JdbcTemplate(context.getBean(DataSource.class));
+
+        int maxHotSkus = HOT_SKU_COUNTS[HOT_SKU_COUNTS.length - 1];
+        medicationIds = jdbcTemplate.queryForList("INSERT INTO medications (name, form, price, expiration_date) "
+                + "SELECT 'Горячая позиция ' || g, 'TABLET', 10.0, CURRENT_DATE + 365 "
+                + "FROM generate_series(1, ?) g RETURNING id", Long.class, maxHotSkus);
+        for (Long medicationId : medicationIds) {
+            jdbcTemplate.update("INSERT INTO pharmacy_medications (pharmacy_id, medication_id, quantity, reorder_threshold) "
+                    + "VALUES (?, ?, 0, 10)", PHARMACY_ID, medicationId);
+        }
+    }
+
+    @AfterAll
+    static void tearDown() {
+        if (context != null) {
+            context.close();
+        }
+    }
+
+    @Test
+    void reserve_ReportsOrdersPerSecondPerHotSku() throws Exception {
+        for (int hotSkus : HOT_SKU_COUNTS) {
+            List<Long> skus = medicationIds.subList(0, hotSkus);
+            skus.forEach(medicationId -> jdbcTemplate.update("UPDATE pharmacy_medications SET quantity = ? "
+                    + "WHERE pharmacy_id = ? AND medication_id = ?", INITIAL_STOCK, PHARMACY_ID, medicationId));
+
+            run(skus, WARMUP);
+            long[] stockBefore = stock(skus);
+            AtomicIntegerArray orders = run(skus, MEASUREMENT);
+            long[] stockAfter = stock(skus);
+
+            double seconds = MEASUREMENT.toMillis() / 1000.0;
+            long totalOrders = 0;
+            for (int i = 0; i < hotSkus; i++) {
+                assertEquals(stockBefore[i] - stockAfter[i], orders.get(i),
+                        "Списанный остаток позиции " + skus.get(i) + " не совпадает с числом заказов");
+                totalOrders += orders.get(i);
+            }
+            double ordersPerSecond = totalOrders / seconds;
+            log.info("Горячих позиций: {}, потоков: {}: {} заказов/с всего, {} заказов/с на позицию",
+                    hotSkus, THREADS, Math.round(ordersPerSecond), Math.round(ordersPerSecond / hotSkus));
+        }
+    }
+
+    /**
+     * Списывает по одной единице из {@link #THREADS} потоков в течение {@code duration}.
+     * Каждый поток работает со своей позицией, поэтому потоки распределены по позициям поровну.
+     */
+    private static AtomicIntegerArray run(List<Long> skus, Duration duration) throws Exception {
+        AtomicIntegerArray orders = new AtomicIntegerArray(skus.size());
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int i = 0; i < THREADS; i++) {
+            int sku = i % skus.size();
+            futures.add(executor.submit(() -> {
+                start.await();
+                long deadline = System.nanoTime() + duration.toNanos();
+                while (System.nanoTime() < deadline) {
+                    if (stockReservationService.reserve(PHARMACY_ID, skus.get(sku), 1)) {
+                        orders.incrementAndGet(sku);
+                    }
+                }
+                return null;
+            }));
+        }
+
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(duration.toSeconds() + 60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        return orders;
+    }
+
+    private static long[] stock(List<Long> skus) {
+        return skus.stream()
+                .mapToLong(medicationId -> jdbcTemplate.queryForObject("SELECT quantity FROM pharmacy_medications "
+                        + "WHERE pharmacy_id = ? AND medication_id = ?", Long.class, PHARMACY_ID, medicationId))
+                .toArray();
+    }
+}
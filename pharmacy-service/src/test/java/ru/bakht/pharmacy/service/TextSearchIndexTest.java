@@ -0,0 +1,92 @@
+package ru.bakht.pharmacy.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import ru.bakht.pharmacy.service.model.Customer;
+import ru.bakht.pharmacy.service.search.SearchField;
+import ru.bakht.pharmacy.service.search.TextSearchIndex;
+import ru.bakht.pharmacy.service.search.TextSearchIndexPublisher;
+import ru.bakht.pharmacy.service.search.TrigramIndex;
+
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class TextSearchIndexTest {
+
+    private static final String CHANNEL = "pharmacy-search-index";
+
+    private final StringRedisTemplate redisTemplate = mock(StringRedisTemplate.class);
+
+    private Map<SearchField, TrigramIndex> indexes;
+    private TextSearchIndex textSearchIndex;
+
+    @BeforeEach
+    void setUp() {
+        indexes = new EnumMap<>(SearchField.class);
+        for (SearchField field : SearchField.values()) {
+            indexes.put(field, new TrigramIndex());
+        }
+        indexes.get(SearchField.CUSTOMER_NAME).put(1L, "Иван Петров");
+
+        textSearchIndex = new TextSearchIndex(new TextSearchIndexPublisher(redisTemplate, CHANNEL));
+        ReflectionTestUtils.setField(textSearchIndex, "maxCandidates", 100);
+        ReflectionTestUtils.setField(textSearchIndex, "indexes", indexes);
+    }
+
+    @Test
+    void hasCandidateId_UsesIndex_ForPlainSubstring() {
+        assertNotNull(textSearchIndex.<Customer>hasCandidateId(SearchField.CUSTOMER_NAME, "петр"));
+    }
+
+    @Test
+    void hasCandidateId_SkipsIndex_WhenQueryContainsLikeWildcards() {
+        assertNull(textSearchIndex.<Customer>hasCandidateId(SearchField.CUSTOMER_NAME, "Ив%ров"));
+        assertNull(textSearchIndex.<Customer>hasCandidateId(SearchField.CUSTOMER_NAME, "Ива_"));
+        assertNull(textSearchIndex.<Customer>hasCandidateId(SearchField.CUSTOMER_NAME, "Ива\\н"));
+    }
+
+    @Test
+    void update_AppliesChangeFromOtherInstance() {
+        var otherInstance = new TextSearchIndexPublisher(redisTemplate, CHANNEL);
+        otherInstance.publishUpdate(SearchField.CUSTOMER_NAME, 2L, "Петр Иванов");
+        otherInstance.publishUpdate(SearchField.CUSTOMER_NAME, 1L, null);
+
+        ArgumentCaptor<String> messages = ArgumentCaptor.forClass(String.class);
+        verify(redisTemplate, times(2)).convertAndSend(eq(CHANNEL), messages.capture());
+        messages.getAllValues().forEach(message -> textSearchIndex.onMessage(
+                new DefaultMessage(CHANNEL.getBytes(StandardCharsets.UTF_8), message.getBytes(StandardCharsets.UTF_8)),
+                null));
+
+        assertEquals(Set.of(2L), indexes.get(SearchField.CUSTOMER_NAME).search("петр"));
+    }
+
+    @Test
+    void update_PublishesChange_AndIgnoresOwnMessage() {
+        var customer = Customer.builder().id(3L).name("Анна Петрова").address("ул. Ленина").build();
+
+        textSearchIndex.update(customer);
+
+        ArgumentCaptor<String> messages = ArgumentCaptor.forClass(String.class);
+        verify(redisTemplate, times(2)).convertAndSend(eq(CHANNEL), messages.capture());
+        assertEquals(Set.of(1L, 3L), indexes.get(SearchField.CUSTOMER_NAME).search("петр"));
+
+        textSearchIndex.remove(customer);
+        messages.getAllValues().forEach(message -> textSearchIndex.onMessage(
+                new DefaultMessage(CHANNEL.getBytes(StandardCharsets.UTF_8), message.getBytes(StandardCharsets.UTF_8)),
+                null));
+
+        assertEquals(Set.of(1L), indexes.get(SearchField.CUSTOMER_NAME).search("петр"));
+        verify(redisTemplate, times(4)).convertAndSend(eq(CHANNEL), anyString());
+    }
+}
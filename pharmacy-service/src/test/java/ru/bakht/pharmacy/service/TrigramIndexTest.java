@@ -0,0 +1,65 @@
+package ru.bakht.pharmacy.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.bakht.pharmacy.service.search.TrigramIndex;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TrigramIndexTest {
+
+    private TrigramIndex trigramIndex;
+
+    @BeforeEach
+    void setUp() {
+        trigramIndex = new TrigramIndex();
+        trigramIndex.put(1L, "Аспирин Кардио");
+        trigramIndex.put(2L, "Парацетамол");
+        trigramIndex.put(3L, "Аскорбиновая кислота");
+    }
+
+    @Test
+    void search_FindsSubstringIgnoringCase() {
+        assertEquals(Set.of(1L), trigramIndex.search("КАРД"));
+        assertEquals(Set.of(2L), trigramIndex.search("цетам"));
+    }
+
+    @Test
+    void search_VerifiesCandidatesAgainstValue() {
+        trigramIndex.put(4L, "абвгд");
+        trigramIndex.put(5L, "бвг абв");
+
+        assertEquals(Set.of(4L), trigramIndex.search("абвг"));
+    }
+
+    @Test
+    void search_ScansValuesForShortQueries() {
+        assertEquals(Set.of(1L, 3L), trigramIndex.search("ас"));
+        assertEquals(Set.of(1L, 2L, 3L), trigramIndex.search(""));
+    }
+
+    @Test
+    void search_ReturnsEmptySet_WhenTrigramIsUnknown() {
+        assertEquals(Set.of(), trigramIndex.search("ибупрофен"));
+    }
+
+    @Test
+    void put_ReplacesPreviousValue() {
+        trigramIndex.put(2L, "Ибупрофен");
+
+        assertEquals(Set.of(), trigramIndex.search("парацетамол"));
+        assertEquals(Set.of(2L), trigramIndex.search("ибупро"));
+    }
+
+    @Test
+    void remove_DeletesValueFromIndex() {
+        trigramIndex.remove(1L);
+        trigramIndex.put(3L, null);
+
+        assertEquals(Set.of(), trigramIndex.search("кардио"));
+        assertEquals(Set.of(2L), trigramIndex.search("а"));
+        assertEquals(1, trigramIndex.size());
+    }
+}
@@ -0,0 +1,189 @@
+package ru.bakht.pharmacy.service;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.redis.connection.DefaultMessage;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import ru.bakht.pharmacy.service.cache.CacheInvalidationPublisher;
+import ru.bakht.pharmacy.service.cache.TwoLevelCacheManager;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class TwoLevelCacheManagerTest {
+
+    private static final String CACHE_NAME = "pharmacy_medications";
+    private static final String CHANNEL = "pharmacy-cache-invalidation";
+
+    @Mock
+    private StringRedisTemplate stringRedisTemplate;
+
+    private ConcurrentMapCacheManager remoteCacheManager;
+    private SimpleMeterRegistry meterRegistry;
+    private TwoLevelCacheManager cacheManager;
+    private Cache remote;
+    private Cache cache;
+
+    @BeforeEach
+    void setUp() {
+        remoteCacheManager = new ConcurrentMapCacheManager();
+        meterRegistry = new SimpleMeterRegistry();
+        cacheManager = new TwoLevelCacheManager(
+                remoteCacheManager,
+                () -> Caffeine.newBuilder().maximumSize(100).build(),
+                new CacheInvalidationPublisher(stringRedisTemplate, CHANNEL),
+                meterRegistry,
+                name -> Duration.ofHours(1),
+                0.0);
+        cache = cacheManager.getCache(CACHE_NAME);
+        remote = remoteCacheManager.getCache(CACHE_NAME);
+    }
+
+    @Test
+    void get_ServesFromLocalTier_AfterRemoteHit() {
+        remote.put(1L, List.of("Аспирин"));
+
+        assertEquals(List.of("Аспирин"), cache.get(1L).get());
+        remote.evict(1L);
+
+        assertEquals(List.of("Аспирин"), cache.get(1L).get());
+        assertEquals(1.0, gets("local", "hit"));
+        assertEquals(1.0, gets("redis", "hit"));
+    }
+
+    @Test
+    void get_ReturnsNull_WhenBothTiersMiss() {
+        assertNull(cache.get(1L));
+
+        assertEquals(1.0, gets("local", "miss"));
+        assertEquals(1.0, gets("redis", "miss"));
+    }
+
+    @Test
+    void evict_RemovesFromBothTiersAndPublishesInvalidation() {
+        cache.put(1L, List.of("Аспирин"));
+
+        cache.evict(1L);
+
+        assertNull(remote.get(1L));
+        assertNull(cache.get(1L));
+        verify(stringRedisTemplate, times(2)).convertAndSend(eq(CHANNEL), anyString());
+    }
+
+    @Test
+    void onMessage_EvictsOnlyLocalTier_ForMessageFromAnotherInstance() {
+        remote.put(1L, List.of("Аспирин"));
+        cache.get(1L);
+        remote.put(1L, List.of("Аспирин форте"));
+
+        cacheManager.onMessage(message("other-instance\n" + CACHE_NAME + "\n1"), null);
+
+        assertEquals(List.of("Аспирин форте"), cache.get(1L).get());
+    }
+
+    @Test
+    void onMessage_ClearsLocalTier_WhenMessageHasNoKey() {
+        remote.put(1L, List.of("Аспирин"));
+        cache.get(1L);
+        remote.clear();
+
+        cacheManager.onMessage(message("other-instance\n" + CACHE_NAME), null);
+
+        assertNull(cache.get(1L));
+    }
+
+    @Test
+    void getWithLoader_LoadsOnce_ForConcurrentMisses() throws Exception {
+        int threads = 16;
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        List<Future<List<String>>> results = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            results.add(executor.submit(() -> cache.get(1L, () -> {
+                loads.incrementAndGet();
+                release.await();
+                return List.of("Аспирин");
+            })));
+        }
+        Thread.sleep(200);
+        release.countDown();
+
+        for (Future<List<String>> result : results) {
+            assertEquals(List.of("Аспирин"), result.get(10, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+        assertEquals(1, loads.get());
+        assertEquals(List.of("Аспирин"), remote.get(1L).get());
+    }
+
+    @Test
+    void getWithLoader_PropagatesLoaderFailure_AndAllowsRetry() {
+        IllegalStateException failure = new IllegalStateException("база недоступна");
+
+        Cache.ValueRetrievalException thrown = assertThrows(Cache.ValueRetrievalException.class,
+                () -> cache.get(1L, () -> {
+                    throw failure;
+                }));
+
+        assertSame(failure, thrown.getCause());
+        assertEquals("Аспирин", cache.get(1L, () -> "Аспирин"));
+    }
+
+    @Test
+    void getWithLoader_DoesNotCallLoader_WhenValueIsCached() {
+        remote.put(1L, "Аспирин");
+
+        assertEquals("Аспирин", cache.get(1L, () -> fail("Значение не должно загружаться повторно")));
+    }
+
+    @Test
+    void getWithLoader_RefreshesEarly_WhenExpiryIsClose() {
+        var eagerCacheManager = new TwoLevelCacheManager(
+                remoteCacheManager,
+                () -> Caffeine.newBuilder().maximumSize(100).build(),
+                new CacheInvalidationPublisher(stringRedisTemplate, CHANNEL),
+                meterRegistry,
+                name -> Duration.ofSeconds(1),
+                1e9);
+        Cache eagerCache = eagerCacheManager.getCache("order_totals");
+        AtomicInteger loads = new AtomicInteger();
+        Callable<Integer> loader = () -> {
+            Thread.sleep(5);
+            return loads.incrementAndGet();
+        };
+
+        assertEquals(1, eagerCache.get(1L, loader));
+        assertEquals(2, eagerCache.get(1L, loader));
+    }
+
+    private double gets(String tier, String result) {
+        return meterRegistry.get("cache.tier.gets")
+                .tags("cache", CACHE_NAME, "tier", tier, "result", result)
+                .counter()
+                .count();
+    }
+
+    private DefaultMessage message(String body) {
+        return new DefaultMessage(CHANNEL.getBytes(StandardCharsets.UTF_8), body.getBytes(StandardCharsets.UTF_8));
+    }
+}
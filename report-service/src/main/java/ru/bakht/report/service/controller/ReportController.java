@@ -1,13 +1,12 @@
 package ru.bakht.report.service.controller;
 
 import lombok.RequiredArgsConstructor;
-import org.springframework.web.bind.annotation.PostMapping;
-import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.RequestParam;
-import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.bind.annotation.*;
 import ru.bakht.report.service.enums.ReportType;
 import ru.bakht.report.service.service.ReportRequestService;
 
+import java.util.Map;
+
 @RestController
 @RequestMapping("/report")
 @RequiredArgsConstructor
@@ -19,4 +18,9 @@ public class ReportController {
     public void recordReportRequest(@RequestParam("reportName") ReportType reportName) {
         reportRequestService.recordReportRequest(reportName);
     }
+
+    @PostMapping("/record/batch")
+    public void recordReportRequests(@RequestBody Map<ReportType, Long> deltas) {
+        reportRequestService.recordReportRequests(deltas);
+    }
 }
@@ -13,7 +13,8 @@ import java.time.LocalDate;
 @Builder
 @FieldDefaults(level = AccessLevel.PRIVATE)
 @Entity
-@Table(name = "report_requests")
+@Table(name = "report_requests",
+        uniqueConstraints = @UniqueConstraint(name = "uk_report_requests_report_name", columnNames = "report_name"))
 public class ReportRequest {
 
     @Id
@@ -22,7 +23,7 @@ public class ReportRequest {
     Long id;
 
     @Enumerated(EnumType.STRING)
-    @Column(name = "report_name")
+    @Column(name = "report_name", nullable = false)
     ReportType reportName;
 
     @Column(name = "request_count")
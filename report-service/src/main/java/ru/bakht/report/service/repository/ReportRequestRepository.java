@@ -1,6 +1,9 @@
 package ru.bakht.report.service.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import ru.bakht.report.service.enums.ReportType;
 import ru.bakht.report.service.model.ReportRequest;
@@ -9,5 +12,14 @@ import java.util.Optional;
 
 @Repository
 public interface ReportRequestRepository extends JpaRepository<ReportRequest, Long> {
+
     Optional<ReportRequest> findByReportName(ReportType reportName);
+
+    @Modifying
+    @Query(value = "INSERT INTO report_requests (report_name, request_count, last_request_time) "
+            + "VALUES (:reportName, :delta, CURRENT_DATE) "
+            + "ON CONFLICT (report_name) DO UPDATE "
+            + "SET request_count = report_requests.request_count + EXCLUDED.request_count, "
+            + "last_request_time = EXCLUDED.last_request_time", nativeQuery = true)
+    void incrementRequestCount(@Param("reportName") String reportName, @Param("delta") int delta);
 }
@@ -5,10 +5,10 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.bakht.report.service.enums.ReportType;
-import ru.bakht.report.service.model.ReportRequest;
 import ru.bakht.report.service.repository.ReportRequestRepository;
 
-import java.time.LocalDate;
+import java.util.Map;
+import java.util.TreeMap;
 
 @Slf4j
 @Service
@@ -21,18 +21,36 @@ public class ReportRequestService {
     public void recordReportRequest(ReportType reportName) {
         log.info("Запись запроса на отчет: {}", reportName);
 
-        ReportRequest reportRequest = reportRequestRepository.findByReportName(reportName)
-                .orElse(ReportRequest.builder()
-                        .reportName(reportName)
-                        .requestCount(0)
-                        .lastRequestTime(LocalDate.now())
-                        .build());
+        incrementRequestCount(reportName, 1);
 
-        reportRequest.setRequestCount(reportRequest.getRequestCount() + 1);
-        reportRequest.setLastRequestTime(LocalDate.now());
+        log.info("Запрос на отчет {} успешно зарегистрирован", reportName);
+    }
 
-        reportRequestRepository.save(reportRequest);
+    /**
+     * Увеличивает счетчики запросов на отчеты на переданные значения.
+     * Строки обновляются в порядке типов отчетов, чтобы параллельные пакеты
+     * блокировали их в одинаковом порядке.
+     *
+     * @param deltas количество новых запросов по каждому типу отчета
+     */
+    public void recordReportRequests(Map<ReportType, Long> deltas) {
+        log.info("Запись пакета запросов на отчеты: {}", deltas);
+
+        new TreeMap<>(deltas).forEach((reportName, delta) -> {
+            if (delta == null || delta <= 0) {
+                throw new IllegalArgumentException("Количество запросов на отчет должно быть больше нуля");
+            }
+            incrementRequestCount(reportName, Math.toIntExact(delta));
+        });
+
+        log.info("Пакет запросов на отчеты успешно зарегистрирован");
+    }
 
-        log.info("Запрос на отчет {} успешно зарегистрирован", reportName);
+    /**
+     * Атомарно увеличивает счетчик одним INSERT ... ON CONFLICT DO UPDATE,
+     * создавая строку при первом запросе.
+     */
+    private void incrementRequestCount(ReportType reportName, int delta) {
+        reportRequestRepository.incrementRequestCount(reportName.name(), delta);
     }
 }
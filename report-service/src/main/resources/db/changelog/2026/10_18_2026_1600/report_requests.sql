@@ -0,0 +1,42 @@
+-- Таблица раньше создавалась Hibernate (ddl-auto), поэтому на существующих базах она уже есть,
+-- но уникального ограничения по report_name, на которое опирается ON CONFLICT, может не быть.
+CREATE TABLE IF NOT EXISTS report_requests
+(
+    id                BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    report_name       VARCHAR(255) NOT NULL,
+    request_count     INTEGER,
+    last_request_time DATE
+);
+
+-- Дубликаты, накопленные гонкой "прочитать и вставить", сливаются в строку с наименьшим id.
+WITH merged AS (SELECT report_name,
+                       MIN(id)                           AS keep_id,
+                       SUM(COALESCE(request_count, 0))   AS request_count,
+                       MAX(last_request_time)            AS last_request_time
+                FROM report_requests
+                GROUP BY report_name
+                HAVING COUNT(*) > 1)
+UPDATE report_requests r
+SET request_count     = m.request_count,
+    last_request_time = m.last_request_time
+FROM merged m
+WHERE r.id = m.keep_id;
+
+DELETE
+FROM report_requests r
+    USING report_requests k
+WHERE r.report_name = k.report_name
+  AND r.id > k.id;
+
+DO
+$$
+    BEGIN
+        IF NOT EXISTS (SELECT 1
+                       FROM pg_constraint
+                       WHERE conname = 'uk_report_requests_report_name'
+                         AND conrelid = 'report_requests'::regclass) THEN
+            ALTER TABLE report_requests
+                ADD CONSTRAINT uk_report_requests_report_name UNIQUE (report_name);
+        END IF;
+    END
+$$;
@@ -0,0 +1,74 @@
+package ru.bakht.report.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import ru.bakht.report.service.enums.ReportType;
+import ru.bakht.report.service.repository.ReportRequestRepository;
+import ru.bakht.report.service.service.ReportRequestService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(properties = "eureka.client.enabled=false")
+@Testcontainers(disabledWithoutDocker = true)
+class ReportRequestServiceConcurrencyTest {
+
+    private static final int WRITERS = 64;
+    private static final int REQUESTS_PER_WRITER = 50;
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16");
+
+    @Autowired
+    private ReportRequestService reportRequestService;
+
+    @Autowired
+    private ReportRequestRepository reportRequestRepository;
+
+    @Test
+    void recordReportRequests_KeepExactCounts_UnderConcurrentWriters() throws Exception {
+        reportRequestRepository.deleteAll();
+
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(WRITERS);
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int i = 0; i < WRITERS; i++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                for (int j = 0; j < REQUESTS_PER_WRITER; j++) {
+                    reportRequestService.recordReportRequest(ReportType.MEDICATIONS);
+                    reportRequestService.recordReportRequests(
+                            Map.of(ReportType.TOTAL_ORDERS, 2L, ReportType.CUSTOMER_ORDERS, 3L));
+                }
+                return null;
+            }));
+        }
+
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(1, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+
+        int requests = WRITERS * REQUESTS_PER_WRITER;
+        assertEquals(requests, requestCount(ReportType.MEDICATIONS));
+        assertEquals(requests * 2, requestCount(ReportType.TOTAL_ORDERS));
+        assertEquals(requests * 3, requestCount(ReportType.CUSTOMER_ORDERS));
+        assertEquals(3, reportRequestRepository.count());
+    }
+
+    private int requestCount(ReportType reportType) {
+        return reportRequestRepository.findByReportName(reportType).orElseThrow().getRequestCount();
+    }
+}